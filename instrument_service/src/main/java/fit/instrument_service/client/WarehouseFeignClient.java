@@ -1,8 +1,10 @@
 package fit.instrument_service.client;
 
 import fit.instrument_service.client.dtos.ReagentLotStatusResponse;
+import fit.instrument_service.dtos.request.ReagentConsumptionBatchRequest;
 import fit.instrument_service.dtos.request.ReagentInstallationDeductionRequest;
 import fit.instrument_service.dtos.response.ApiResponse;
+import fit.instrument_service.dtos.response.ReagentConsumptionBatchResponse;
 import fit.instrument_service.dtos.response.VendorResponse;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.http.ResponseEntity;
@@ -27,4 +29,8 @@ public interface WarehouseFeignClient {
     @PostMapping("/api/v1/warehouse/reagents/deduct-installation")
     ApiResponse<Boolean> deductReagentForInstallation(@RequestBody ReagentInstallationDeductionRequest request);
 
+    // Ghi nhận lượng hóa chất tiêu hao của nhiều lần chạy trong một lần gọi
+    @PostMapping("/api/v1/warehouse/reagents/consumption/batch")
+    ApiResponse<ReagentConsumptionBatchResponse> recordReagentConsumption(@RequestBody ReagentConsumptionBatchRequest request);
+
 }
\ No newline at end of file
@@ -0,0 +1,61 @@
+/*
+ * @ {#} DeadlineFilter.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.instrument_service.client.resilience;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/*
+ * @description: Reads the caller's remaining time budget from the request header and exposes it through
+ *               RequestDeadline for outbound Feign calls made while serving the request. Requests without the header
+ *               have no deadline; a per-client budget can be opted into with request-budget-ms. Requests
+ *               that arrive with an already exhausted budget are rejected without doing any work.
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+public class DeadlineFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long budget = parseBudget(request.getHeader(RequestDeadline.HEADER));
+        if (budget == 0) {
+            response.sendError(HttpStatus.GATEWAY_TIMEOUT.value(), "Request deadline exceeded");
+            return;
+        }
+        if (budget < 0) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        RequestDeadline.set(System.currentTimeMillis() + budget);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            RequestDeadline.clear();
+        }
+    }
+
+    /* > 0: ngân sách (ms), 0: đã hết hạn, < 0: không có deadline */
+    private static long parseBudget(String header) {
+        if (header != null) {
+            try {
+                return Math.max(Long.parseLong(header.trim()), 0);
+            } catch (NumberFormatException ignored) {
+                // Header không hợp lệ: xử lý như không có header
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * @ {#} RequestDeadline.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.instrument_service.client.resilience;
+
+/*
+ * @description: Per-thread end-to-end deadline of the request being served. Propagated between services as a
+ *               relative budget in milliseconds, so replicas with skewed clocks still agree on the remaining time.
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+public final class RequestDeadline {
+
+    public static final String HEADER = "X-Request-Budget-Ms";
+
+    private static final ThreadLocal<Long> DEADLINE = new ThreadLocal<>();
+
+    private RequestDeadline() {
+    }
+
+    public static void set(long deadlineEpochMillis) {
+        DEADLINE.set(deadlineEpochMillis);
+    }
+
+    public static void clear() {
+        DEADLINE.remove();
+    }
+
+    public static boolean isSet() {
+        return DEADLINE.get() != null;
+    }
+
+    /* Thời gian còn lại (ms); Long.MAX_VALUE nếu request hiện tại không có deadline */
+    public static long remainingMillis() {
+        Long deadline = DEADLINE.get();
+        return deadline == null ? Long.MAX_VALUE : deadline - System.currentTimeMillis();
+    }
+}
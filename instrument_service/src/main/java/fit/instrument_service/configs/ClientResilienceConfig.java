@@ -0,0 +1,54 @@
+/*
+ * @ {#} ClientResilienceConfig.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.instrument_service.configs;
+
+import feign.Capability;
+import feign.Client;
+import fit.instrument_service.client.resilience.ClientResilienceProperties;
+import fit.instrument_service.client.resilience.ClientResilienceRegistry;
+import fit.instrument_service.client.resilience.DeadlineFilter;
+import fit.instrument_service.client.resilience.ResilientFeignClient;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/*
+ * @description: Wires the client-resilience layer: every Feign client built by this service is wrapped with
+ *               ResilientFeignClient, and inbound requests carry their deadline budget to outbound calls.
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+@Configuration
+@EnableConfigurationProperties(ClientResilienceProperties.class)
+public class ClientResilienceConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public ClientResilienceRegistry clientResilienceRegistry(ClientResilienceProperties properties) {
+        return new ClientResilienceRegistry(properties);
+    }
+
+    // Capability được Spring Cloud OpenFeign áp dụng cho mọi @FeignClient, bọc ngoài client load-balanced
+    @Bean
+    public Capability resilientClientCapability(ClientResilienceRegistry registry) {
+        return new Capability() {
+            @Override
+            public Client enrich(Client client) {
+                return new ResilientFeignClient(client, registry);
+            }
+        };
+    }
+
+    @Bean
+    public FilterRegistrationBean<DeadlineFilter> deadlineFilter() {
+        FilterRegistrationBean<DeadlineFilter> registration = new FilterRegistrationBean<>(new DeadlineFilter());
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+}
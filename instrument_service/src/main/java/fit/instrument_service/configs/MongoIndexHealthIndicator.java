@@ -0,0 +1,43 @@
+/*
+ * @ {#} MongoIndexHealthIndicator.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.instrument_service.configs;
+
+import fit.instrument_service.services.MongoIndexService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Optional;
+
+/*
+ * @description: Reports DOWN on /actuator/health while a hot query from HotQueryCatalog runs as a collection scan, so a
+ *               missing or conflicting index fails the health check instead of only being logged at startup
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+@Component("mongoIndexes")
+@RequiredArgsConstructor
+public class MongoIndexHealthIndicator implements HealthIndicator {
+
+    private final MongoIndexService mongoIndexService;
+
+    @Override
+    public Health health() {
+        Optional<List<String>> scans = mongoIndexService.lastCollectionScans();
+        // Chưa kiểm tra (đang build index lúc khởi động, hoặc verify-plans tắt): không chặn health
+        if (scans.isEmpty()) {
+            return Health.up().withDetail("planCheck", "not run").build();
+        }
+        if (!scans.get().isEmpty()) {
+            return Health.down().withDetail("collectionScans", scans.get()).build();
+        }
+        return Health.up().withDetail("planCheck", "passed").build();
+    }
+}
@@ -120,4 +120,21 @@ public class RabbitMQConfig {
                 .to(instrumentExchange)
                 .with(CONFIGURATION_UPDATED_ROUTING_KEY);
     }
+
+    // Hàng đợi configuration.* ở trên là competing consumers (chỉ một replica nhận mỗi sự kiện), nên sau khi lưu,
+    // replica đó phát thêm sự kiện vô hiệu hóa tới hàng đợi riêng (exclusive, auto-delete) của từng replica
+    public static final String CONFIGURATION_INVALIDATED_ROUTING_KEY = "configuration.snapshot.invalidated";
+
+    @Bean
+    public Queue configurationInvalidationQueue() {
+        return new AnonymousQueue();
+    }
+
+    @Bean
+    public Binding configurationInvalidationBinding(Queue configurationInvalidationQueue, TopicExchange instrumentExchange) {
+        return BindingBuilder
+                .bind(configurationInvalidationQueue)
+                .to(instrumentExchange)
+                .with(CONFIGURATION_INVALIDATED_ROUTING_KEY);
+    }
 }
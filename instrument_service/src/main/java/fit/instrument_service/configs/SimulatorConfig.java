@@ -0,0 +1,22 @@
+/*
+ * @ {#} SimulatorConfig.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.instrument_service.configs;
+
+import fit.instrument_service.simulator.SimulatorProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/*
+ * @description: Binds the app.simulator.* settings used by the analyzer simulator profiles
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+@Configuration
+@EnableConfigurationProperties(SimulatorProperties.class)
+public class SimulatorConfig {
+}
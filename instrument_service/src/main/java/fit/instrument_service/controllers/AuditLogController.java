@@ -0,0 +1,62 @@
+/*
+ * @ {#} AuditLogController.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.instrument_service.controllers;
+
+import fit.instrument_service.dtos.response.ApiResponse;
+import fit.instrument_service.dtos.response.AuditBucketResponse;
+import fit.instrument_service.entities.AuditLog;
+import fit.instrument_service.enums.AuditAction;
+import fit.instrument_service.enums.AuditBucketUnit;
+import fit.instrument_service.services.AuditLogService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/*
+ * @description: Controller for time-range queries over the instrument audit log
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+@RestController
+@RequestMapping("/api/v1/instruments/{instrumentId}/audit-logs")
+@RequiredArgsConstructor
+public class AuditLogController {
+    private final AuditLogService auditLogService;
+
+    @GetMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<List<AuditLog>>> getAuditLogs(
+            @PathVariable String instrumentId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) AuditAction action) {
+
+        List<AuditLog> logs = auditLogService.findLogs(instrumentId, from, to, action);
+
+        return ResponseEntity.ok(ApiResponse.success(logs, "Audit logs retrieved successfully"));
+    }
+
+    // Số hành động theo từng phút / giờ / ngày, dùng cho biểu đồ hoạt động của thiết bị
+    @GetMapping("/buckets")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<List<AuditBucketResponse>>> getAuditBuckets(
+            @PathVariable String instrumentId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "HOUR") AuditBucketUnit unit) {
+
+        List<AuditBucketResponse> buckets = auditLogService.countByBucket(instrumentId, from, to, unit);
+
+        return ResponseEntity.ok(ApiResponse.success(buckets, "Audit buckets retrieved successfully"));
+    }
+}
@@ -17,6 +17,7 @@ import fit.instrument_service.services.InstrumentService;
 import fit.instrument_service.services.ReagentCheckService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -62,14 +63,23 @@ public class InstrumentController {
 
     @PostMapping("/{instrumentId}/configurations/sync-up")
     @PreAuthorize("hasAnyRole('ADMIN')")
-    public ResponseEntity<ApiResponse<SyncConfigurationResponse>> syncUpConfigurations(@PathVariable String instrumentId) {
-        SyncConfigurationResponse response = instrumentService.syncUpConfiguration(instrumentId);
+    public ResponseEntity<ApiResponse<SyncConfigurationResponse>> syncUpConfigurations(
+            @PathVariable String instrumentId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        SyncConfigurationResponse response = instrumentService.syncUpConfiguration(instrumentId, ifNoneMatch);
+
+        // Cấu hình không đổi so với bản thiết bị đang giữ
+        if (response == null) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(ifNoneMatch).build();
+        }
 
         String message = response.isFullySynced()
                 ? "Configuration synchronized successfully"
                 : "Configuration synchronized with warnings";
 
-        return ResponseEntity.ok(ApiResponse.success(response, message));
+        return ResponseEntity.ok()
+                .eTag(response.getEtag())
+                .body(ApiResponse.success(response, message));
     }
 
 //    @PatchMapping("/{instrumentId}/reagents/{reagentId}/status")
@@ -0,0 +1,39 @@
+/*
+ * @ {#} StatusStreamController.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.instrument_service.controllers;
+
+import fit.instrument_service.services.StatusStreamService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.Set;
+
+/*
+ * @description: Controller streaming sample, cassette, workflow and reagent status changes as server-sent events
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+@RestController
+@RequestMapping("/api/v1/status-stream")
+@RequiredArgsConstructor
+public class StatusStreamController {
+
+    private final StatusStreamService statusStreamService;
+
+    // Một kết nối lâu dài cho mỗi màn hình, thay cho việc polling các API trạng thái
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@RequestParam(required = false) List<String> instrumentIds) {
+        return statusStreamService.subscribe(instrumentIds != null ? Set.copyOf(instrumentIds) : Set.of());
+    }
+}
@@ -0,0 +1,36 @@
+/*
+ * @ {#} ReagentConsumptionBatchRequest.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.instrument_service.dtos.request;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/*
+ * @description: Reagent consumption of instrument runs reported to warehouse_service in one batch
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReagentConsumptionBatchRequest {
+    private String batchId;
+    private List<Entry> entries;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Entry {
+        private String lotNumber;
+        private String instrumentId;
+        private Double quantity;
+    }
+}
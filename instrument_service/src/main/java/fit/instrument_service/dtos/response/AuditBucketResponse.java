@@ -0,0 +1,31 @@
+/*
+ * @ {#} AuditBucketResponse.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.instrument_service.dtos.response;
+
+import fit.instrument_service.enums.AuditAction;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/*
+ * @description: Number of audit entries of one action within one time bucket
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuditBucketResponse {
+    private LocalDateTime bucketStart;
+    private AuditAction action;
+    private long count;
+}
@@ -0,0 +1,32 @@
+/*
+ * @ {#} ConfigurationSnapshot.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.instrument_service.dtos.response;
+
+import java.util.List;
+import java.util.Map;
+
+/*
+ * @description: Immutable, resolved configuration for one (model, type): the latest general and specific
+ *               configurations, their merged settings and an ETag derived from their content.
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+public record ConfigurationSnapshot(
+        String generalConfigId,
+        String specificConfigId,
+        Map<String, Object> generalSettings,
+        Map<String, Object> specificSettings,
+        Map<String, Object> appliedSettings,
+        List<String> warnings,
+        long version,
+        String etag) {
+
+    public boolean fullySynced() {
+        return generalConfigId != null && specificConfigId != null;
+    }
+}
@@ -0,0 +1,31 @@
+/*
+ * @ {#} ReagentConsumptionBatchResponse.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.instrument_service.dtos.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/*
+ * @description: Outcome of a reagent consumption batch reported to warehouse_service
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReagentConsumptionBatchResponse {
+    private String batchId;
+    private int recordedLots;
+    // Lô warehouse không biết: lượng tiêu hao của chúng chưa được ghi nhận
+    private List<String> unknownLotNumbers;
+    // Batch này đã được ghi nhận ở lần gửi trước
+    private boolean alreadyRecorded;
+}
@@ -0,0 +1,41 @@
+/*
+ * @ {#} StatusEvent.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.instrument_service.dtos.response;
+
+import fit.instrument_service.enums.StatusEventType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/*
+ * @description: Status change pushed to lab screens over the status stream. Events with the same type and entityId
+ *               are coalesced, so only the latest state of an entity is delivered per flush.
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StatusEvent {
+    private StatusEventType type;
+    private String instrumentId;
+    private String entityId;      // ID của mẫu / cassette / quy trình / hóa chất
+    private String reference;     // Barcode, mã cassette hoặc tên hóa chất để hiển thị
+    private String workflowId;
+    private String status;
+    private String message;
+    private LocalDateTime occurredAt;
+
+    public String coalescingKey() {
+        return type + ":" + entityId;
+    }
+}
@@ -35,4 +35,5 @@ public class SyncConfigurationResponse {
     private Map<String, Object> appliedSettings;
     private boolean fullySynced;
     private List<String> warnings;
+    private String etag; // Phiên bản nội dung cấu hình, thiết bị gửi lại qua If-None-Match
 }
@@ -11,25 +11,39 @@ package fit.instrument_service.entities;/*
 
 import fit.instrument_service.enums.AuditAction;
 import lombok.AllArgsConstructor;
+import lombok.Builder;
 import lombok.Data;
-import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.TimeSeries;
+import org.springframework.data.mongodb.core.timeseries.Granularity;
 
+import java.time.LocalDateTime;
 import java.util.Map;
 
 @Data
-@EqualsAndHashCode(callSuper = true)
+@Builder
 @NoArgsConstructor
 @AllArgsConstructor
-@Document(collection = "auditLogs")
-public class AuditLog extends BaseDocument {
+@Document(collection = AuditLog.COLLECTION)
+// Time-series collection: timestamp là timeField, instrument_id là metaField (được tạo khi khởi động)
+@TimeSeries(collection = AuditLog.COLLECTION, timeField = "timestamp", metaField = "instrumentId",
+        granularity = Granularity.SECONDS)
+public class AuditLog {
+
+    public static final String COLLECTION = "instrumentAuditLogs";
 
     @Id
     private String id;
 
+    @Field("timestamp")
+    private LocalDateTime timestamp; // Thời điểm hành động, ghi nhận lúc gọi logAction (không phải lúc flush)
+
+    @Field("instrument_id")
+    private String instrumentId; // Thiết bị liên quan, dùng để nhóm bucket theo thiết bị
+
     @Field("action")
     private AuditAction action; // Loại hành động (Req 3.6.1.5, 3.6.1.6, 3.6.2, 3.6.3.1)
 
@@ -39,9 +53,9 @@ public class AuditLog extends BaseDocument {
     @Field("entity_id")
     private String entityId; // 'id' hoặc 'barcode' của entity bị ảnh hưởng
 
+    @Field("performed_by")
+    private String performedBy; // Người thực hiện, lấy từ JWT trên luồng gọi (luồng flush không có token)
+
     @Field("details")
     private Map<String, Object> details; // Thông tin chi tiết (vd: barcode, lý do)
-
-    // Ghi chú: "user" và "timestamp" đã được xử lý bởi
-    // 'createdBy' và 'createdAt' trong BaseDocument
 }
@@ -7,15 +7,21 @@
 package fit.instrument_service.entities;
 
 import fit.instrument_service.enums.SampleStatus;
+import fit.instrument_service.enums.SampleStep;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
 
+import java.util.EnumSet;
+import java.util.Set;
+
 /*
  * @description: Thực thể đại diện cho mẫu máu trong hệ thống
  * @author: Tran Hien Vinh
@@ -27,6 +33,12 @@ import org.springframework.data.mongodb.core.mapping.Field;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "bloodSamples")
+@CompoundIndexes({
+        // findByInstrumentIdAndStatus
+        @CompoundIndex(name = "instrument_status_idx", def = "{'instrument_id': 1, 'status': 1}"),
+        // findByCassetteIdAndStatus: mẫu PENDING của cassette tiếp theo
+        @CompoundIndex(name = "cassette_status_idx", def = "{'cassette_id': 1, 'status': 1}")
+})
 public class BloodSample extends BaseDocument {
 
     @Id
@@ -45,13 +57,13 @@ public class BloodSample extends BaseDocument {
     private String workflowId; // Mã quy trình xử lý mẫu
 
     @Field("instrument_id")
-    @Indexed
     private String instrumentId; // Mã thiết bị phân tích mẫu
 
     @Field("cassette_id")
     private String cassetteId; // Mã cassette chứa mẫu
 
     @Field("status")
+    @Indexed
     private SampleStatus status; // Trạng thái hiện tại của mẫu máu
 
     @Field("is_test_order_auto_created")
@@ -62,4 +74,11 @@ public class BloodSample extends BaseDocument {
 
     @Field("notification_sent")
     private boolean notificationSent = false; // Đánh dấu nếu đã gửi thông báo về mẫu
+
+    @Field("completed_steps")
+    private Set<SampleStep> completedSteps = EnumSet.noneOf(SampleStep.class); // Các bước đã hoàn tất (checkpoint)
+
+    @Field("raw_result_id")
+    @Indexed
+    private String rawResultId; // RawTestResult chứa kết quả + HL7 đã dựng, dùng lại khi tiếp tục quy trình
 }
@@ -11,6 +11,7 @@ import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
@@ -28,6 +29,8 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "cassettes")
+// findByInstrumentIdAndProcessedOrderByQueuePositionAsc, findByInstrumentIdOrderByQueuePositionAsc
+@CompoundIndex(name = "instrument_processed_queue_idx", def = "{'instrument_id': 1, 'is_processed': 1, 'queue_position': 1}")
 public class Cassette extends BaseDocument {
 
     @Id
@@ -38,7 +41,6 @@ public class Cassette extends BaseDocument {
     private String cassetteIdentifier; // Mã định danh duy nhất của cassette
 
     @Field("instrument_id")
-    @Indexed
     private String instrumentId; // Mã thiết bị phân tích mẫu liên quan đến cassette
 
     @Field("queue_position")
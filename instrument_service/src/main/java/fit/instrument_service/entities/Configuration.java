@@ -15,6 +15,7 @@ import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
 
@@ -25,6 +26,8 @@ import java.util.Map;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "configurations")
+// findTopByConfigType...OrderByVersionDesc
+@CompoundIndex(name = "type_instrument_version_idx", def = "{'config_type': 1, 'instrument_type': 1, 'instrument_model': 1, 'version': -1}")
 // Lưu trữ các cấu hình chung và cấu hình riêng cho từng loại thiết bị
 public class Configuration extends BaseDocument {
 
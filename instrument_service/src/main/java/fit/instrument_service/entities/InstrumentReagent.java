@@ -18,6 +18,9 @@ import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
 
@@ -28,6 +31,12 @@ import java.time.LocalDate;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "instrumentReagents")
+@CompoundIndexes({
+        // findByInstrumentIdAndStatus, findByInstrumentId
+        @CompoundIndex(name = "instrument_status_idx", def = "{'instrument_id': 1, 'status': 1}"),
+        // findByInstrumentIdAndLotNumberAndIsDeletedFalse
+        @CompoundIndex(name = "instrument_lot_idx", def = "{'instrument_id': 1, 'lot_number': 1}")
+})
 // Quản lý các lô hóa chất đang được cài đặt trên thiết bị
 public class InstrumentReagent extends BaseDocument implements HasBusinessId {
 
@@ -49,6 +58,24 @@ public class InstrumentReagent extends BaseDocument implements HasBusinessId {
     @Field("expiration_date")
     private LocalDate expirationDate; // Ngày hết hạn (Req 3.6.2.1)
 
+    // Lượng đã trừ khi chạy mẫu nhưng chưa báo về warehouse_service (findByUnreconciledUsageGreaterThan)
+    @Field("unreconciled_usage")
+    @Indexed
+    private Integer unreconciledUsage;
+
+    // Tổng lượng đã đối soát với warehouse, chỉ tăng
+    @Field("reconciled_usage")
+    private Integer reconciledUsage;
+
+    // Lượng đã chốt vào batch đang gửi sang warehouse; gửi lại nguyên vẹn cho tới khi được xác nhận
+    @Field("inflight_usage")
+    private Integer inflightUsage;
+
+    // batchId của batch đang gửi (findByInflightBatchIdIsNotNull), null khi lô không có batch nào chờ xác nhận
+    @Field("inflight_batch_id")
+    @Indexed
+    private String inflightBatchId;
+
     @Field("status")
     private ReagentStatus status; // Trạng thái: "In Use", "Not In Use" (Req 3.6.2.2)
 
@@ -15,14 +15,26 @@ import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
 
+import java.time.LocalDateTime;
+
 @Data
 @EqualsAndHashCode(callSuper = true)
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "rawTestResults")
+@CompoundIndexes({
+        // findByBarcodeIn và truy vấn đồng bộ lại theo barcode (bỏ qua kết quả vừa gửi lại)
+        @CompoundIndex(name = "barcode_last_resynced_idx", def = "{'barcode': 1, 'last_resynced_at': 1}"),
+        // Publisher: kết quả PENDING / FAILED đến hạn, cũ nhất trước
+        @CompoundIndex(name = "publish_status_next_publish_idx", def = "{'publish_status': 1, 'next_publish_at': 1, 'created_at': 1}"),
+        // findDeletableOldResults
+        @CompoundIndex(name = "ready_for_deletion_created_idx", def = "{'is_ready_for_deletion': 1, 'created_at': 1}")
+})
 // Lưu trữ kết quả thô tạm thời trên service trước khi bị xóa
 public class RawTestResult extends BaseDocument {
 
@@ -49,4 +61,25 @@ public class RawTestResult extends BaseDocument {
 
     @Field("is_ready_for_deletion")
     private boolean isReadyForDeletion = false; // Cờ báo đã sync với Monitoring Service (Req 3.6.1.5)
+
+    @Field("last_resynced_at")
+    private LocalDateTime lastResyncedAt; // Lần cuối kết quả được gửi lại theo yêu cầu đồng bộ (bỏ qua yêu cầu trùng)
+
+    @Field("publish_attempts")
+    private int publishAttempts; // Số lần gửi thất bại liên tiếp (dùng tính thời gian chờ thử lại)
+
+    @Field("next_publish_at")
+    private LocalDateTime nextPublishAt; // Thời điểm sớm nhất được thử gửi lại kết quả FAILED
+
+    @Field("last_publish_error")
+    private String lastPublishError; // Lỗi của lần gửi gần nhất
+
+    @Field("published_at")
+    private LocalDateTime publishedAt; // Thời điểm broker xác nhận đã nhận kết quả
+
+    @Field("publish_claimed_by")
+    private String publishClaimedBy; // Mã nhận lô của lượt gửi đang giữ kết quả (tránh hai replica gửi cùng lô)
+
+    @Field("publish_claimed_until")
+    private LocalDateTime publishClaimedUntil; // Hết hạn lease: sau thời điểm này replica khác được nhận lại
 }
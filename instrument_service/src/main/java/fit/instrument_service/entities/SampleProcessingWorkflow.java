@@ -12,6 +12,8 @@ import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
@@ -30,16 +32,22 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "sampleProcessingWorkflows")
+@CompoundIndexes({
+        // findByInstrumentIdAndStatus
+        @CompoundIndex(name = "instrument_status_idx", def = "{'instrument_id': 1, 'status': 1}"),
+        // findByStatus và quy trình dở dang khi khởi động lại (theo started_at)
+        @CompoundIndex(name = "status_started_idx", def = "{'status': 1, 'started_at': 1}")
+})
 public class SampleProcessingWorkflow extends BaseDocument {
 
     @Id
     private String id;
 
     @Field("instrument_id")
-    @Indexed
     private String instrumentId; // Mã thiết bị phân tích mẫu liên quan đến quy trình
 
     @Field("cassette_id")
+    @Indexed
     private String cassetteId; // Mã cassette chứa mẫu liên quan đến quy trình
 
     @Field("status")
@@ -68,4 +76,13 @@ public class SampleProcessingWorkflow extends BaseDocument {
 
     @Field("results_published")
     private boolean resultsPublished = false; // Đánh dấu nếu kết quả đã được công bố
+
+    @Field("resume_count")
+    private int resumeCount = 0; // Số lần quy trình được tiếp tục sau khi dịch vụ khởi động lại
+
+    @Field("owner_instance_id")
+    private String ownerInstanceId; // Instance đang chạy quy trình
+
+    @Field("heartbeat_at")
+    private LocalDateTime heartbeatAt; // Lần cuối instance sở hữu báo còn chạy quy trình (quá hạn mới được tiếp tục)
 }
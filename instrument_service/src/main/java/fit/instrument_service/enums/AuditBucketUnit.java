@@ -0,0 +1,23 @@
+/*
+ * @ {#} AuditBucketUnit.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.instrument_service.enums;
+
+/*
+ * @description: Độ rộng bucket thời gian khi thống kê audit log (ánh xạ sang đơn vị của $dateTrunc)
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+public enum AuditBucketUnit {
+    MINUTE,
+    HOUR,
+    DAY;
+
+    public String mongoUnit() {
+        return name().toLowerCase();
+    }
+}
@@ -0,0 +1,20 @@
+/*
+ * @ {#} SampleStep.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.instrument_service.enums;
+
+/*
+ * @description: Các bước xử lý một mẫu được ghi checkpoint để tiếp tục quy trình sau khi dịch vụ khởi động lại
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+public enum SampleStep {
+    REAGENTS_DEDUCTED,  // Hóa chất cho lần chạy đã được trừ và ghi xuống MongoDB
+    RESULTS_GENERATED,  // Kết quả mô phỏng đã được tạo
+    HL7_BUILT,          // Bản tin HL7 đã được dựng và lưu trong RawTestResult
+    PUBLISHED           // Sự kiện kết quả đã được gửi lên RabbitMQ
+}
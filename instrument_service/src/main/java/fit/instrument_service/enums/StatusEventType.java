@@ -0,0 +1,20 @@
+/*
+ * @ {#} StatusEventType.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.instrument_service.enums;
+
+/*
+ * @description: Loại đối tượng trong sự kiện trạng thái được đẩy qua SSE
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+public enum StatusEventType {
+    SAMPLE,         // Trạng thái mẫu máu
+    CASSETTE,       // Cassette được lấy ra khỏi hàng đợi
+    WORKFLOW,       // Trạng thái quy trình xử lý
+    REAGENT         // Trạng thái / cảnh báo hóa chất
+}
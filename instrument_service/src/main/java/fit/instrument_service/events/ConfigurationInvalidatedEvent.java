@@ -0,0 +1,28 @@
+/*
+ * @ {#} ConfigurationInvalidatedEvent.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.instrument_service.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/*
+ * @description: Broadcast to every instrument_service replica after one of them stored a configuration change,
+ *               so that each replica reloads the configuration into its in-memory snapshot index
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConfigurationInvalidatedEvent implements Serializable {
+    private String configurationId;
+    private String originInstanceId;
+}
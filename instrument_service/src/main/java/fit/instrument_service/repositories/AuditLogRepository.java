@@ -1,9 +0,0 @@
-package fit.instrument_service.repositories;
-
-import fit.instrument_service.entities.AuditLog;
-import org.springframework.data.mongodb.repository.MongoRepository;
-import org.springframework.stereotype.Repository;
-
-@Repository
-public interface AuditLogRepository extends MongoRepository<AuditLog, String> {
-}
\ No newline at end of file
@@ -30,4 +30,6 @@ public interface BloodSampleRepository extends MongoRepository<BloodSample, Stri
     List<BloodSample> findByInstrumentIdAndStatus(String instrumentId, SampleStatus status);
 
     List<BloodSample> findByStatus(SampleStatus status);
+
+    List<BloodSample> findByCassetteIdAndStatus(String cassetteId, SampleStatus status);
 }
@@ -0,0 +1,112 @@
+/*
+ * @ {#} HotQueryCatalog.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.instrument_service.repositories;
+
+import fit.instrument_service.entities.*;
+import fit.instrument_service.enums.*;
+import fit.instrument_service.services.impl.RawResultPublisherServiceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/*
+ * @description: The filter/sort shape of every repository and MongoTemplate query on a hot path, with sample values.
+ *               Each one must be served by an index declared on its entity; the plan check runs explain() on these
+ *               shapes and reports any that fall back to a collection scan. Add an entry with every new query.
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+public final class HotQueryCatalog {
+
+    public record HotQuery(String name, Class<?> entityClass, Query query) {
+    }
+
+    private HotQueryCatalog() {
+    }
+
+    public static List<HotQuery> all() {
+        LocalDateTime now = LocalDateTime.now();
+        return List.of(
+                // BloodSampleRepository
+                new HotQuery("BloodSample.findByBarcode", BloodSample.class,
+                        Query.query(Criteria.where("barcode").is("BARCODE001"))),
+                new HotQuery("BloodSample.findByWorkflowId", BloodSample.class,
+                        Query.query(Criteria.where("workflow_id").is("workflow-001"))),
+                new HotQuery("BloodSample.findByInstrumentIdAndStatus", BloodSample.class,
+                        Query.query(Criteria.where("instrument_id").is("instrument-001").and("status").is(SampleStatus.QUEUED))),
+                new HotQuery("BloodSample.findByStatus", BloodSample.class,
+                        Query.query(Criteria.where("status").is(SampleStatus.PENDING))),
+                new HotQuery("BloodSample.findByCassetteIdAndStatus", BloodSample.class,
+                        Query.query(Criteria.where("cassette_id").is("CASSETTE-001").and("status").is(SampleStatus.PENDING))),
+                new HotQuery("WorkflowCheckpointService.markPublished", BloodSample.class,
+                        Query.query(Criteria.where("raw_result_id").in(List.of("sample-001", "sample-002")))),
+
+                // RawTestResultRepository, resync responder và publisher
+                new HotQuery("RawTestResult.findByBarcodeIn", RawTestResult.class,
+                        Query.query(Criteria.where("barcode").in(List.of("BARCODE001", "BARCODE002")))),
+                new HotQuery("TestResultSyncService.resync", RawTestResult.class,
+                        Query.query(new Criteria().andOperator(
+                                Criteria.where("barcode").in(List.of("BARCODE001")),
+                                new Criteria().orOperator(
+                                        Criteria.where("last_resynced_at").is(null),
+                                        Criteria.where("last_resynced_at").lt(now.minusMinutes(10)))))),
+                new HotQuery("RawResultPublisher.findDue", RawTestResult.class,
+                        Query.query(RawResultPublisherServiceImpl.dueCriteria(now))
+                                .with(Sort.by(Sort.Direction.ASC, "created_at"))
+                                .limit(100)),
+                new HotQuery("RawResultPublisher.markLegacyResultsSent", RawTestResult.class,
+                        Query.query(Criteria.where("publish_status").is(PublishStatus.PENDING)
+                                .and("publish_attempts").exists(false))),
+                new HotQuery("RawResultPublisher.oldestUnsent", RawTestResult.class,
+                        Query.query(Criteria.where("publish_status").in(PublishStatus.PENDING, PublishStatus.FAILED))
+                                .with(Sort.by(Sort.Direction.ASC, "created_at"))
+                                .limit(1)),
+                new HotQuery("RawTestResult.findDeletableOldResults", RawTestResult.class,
+                        Query.query(Criteria.where("is_ready_for_deletion").is(true).and("created_at").lt(now.minusDays(30)))),
+
+                // SampleProcessingWorkflowRepository
+                new HotQuery("SampleProcessingWorkflow.findByInstrumentIdAndStatus", SampleProcessingWorkflow.class,
+                        Query.query(Criteria.where("instrument_id").is("instrument-001").and("status").is(WorkflowStatus.RUNNING))),
+                new HotQuery("SampleProcessingWorkflow.findByCassetteId", SampleProcessingWorkflow.class,
+                        Query.query(Criteria.where("cassette_id").is("CASSETTE-001"))),
+                new HotQuery("WorkflowCheckpointService.findInterruptedWorkflows", SampleProcessingWorkflow.class,
+                        Query.query(Criteria.where("status").in(WorkflowStatus.INITIATED, WorkflowStatus.VALIDATING, WorkflowStatus.RUNNING)
+                                        .andOperator(new Criteria().orOperator(
+                                                Criteria.where("heartbeat_at").lt(now.minusMinutes(5)),
+                                                Criteria.where("heartbeat_at").is(null).and("updated_at").lt(now.minusMinutes(5)))))
+                                .with(Sort.by(Sort.Direction.ASC, "started_at"))),
+
+                // CassetteRepository
+                new HotQuery("Cassette.findByCassetteIdentifier", Cassette.class,
+                        Query.query(Criteria.where("cassette_identifier").is("CASSETTE-001"))),
+                new HotQuery("Cassette.findByInstrumentIdAndProcessedOrderByQueuePositionAsc", Cassette.class,
+                        Query.query(Criteria.where("instrument_id").is("instrument-001").and("is_processed").is(false))
+                                .with(Sort.by(Sort.Direction.ASC, "queue_position"))),
+
+                // InstrumentReagentRepository
+                new HotQuery("InstrumentReagent.findByInstrumentIdAndStatus", InstrumentReagent.class,
+                        Query.query(Criteria.where("instrument_id").is("instrument-001").and("status").is(ReagentStatus.IN_USE))),
+                new HotQuery("InstrumentReagent.findByInstrumentIdAndLotNumberAndIsDeletedFalse", InstrumentReagent.class,
+                        Query.query(Criteria.where("instrument_id").is("instrument-001").and("lot_number").is("LOT-1")
+                                .and("is_deleted").is(false))),
+                new HotQuery("InstrumentReagent.findByUnreconciledUsageGreaterThan", InstrumentReagent.class,
+                        Query.query(Criteria.where("unreconciled_usage").gt(0))),
+                new HotQuery("InstrumentReagent.findByInflightBatchIdIsNotNull", InstrumentReagent.class,
+                        Query.query(Criteria.where("inflight_batch_id").ne(null))),
+
+                // ConfigurationRepository
+                new HotQuery("Configuration.findTopByConfigTypeAndInstrumentTypeOrderByVersionDesc", Configuration.class,
+                        Query.query(Criteria.where("config_type").is(ConfigurationType.SPECIFIC).and("instrument_type").is("Hematology"))
+                                .with(Sort.by(Sort.Direction.DESC, "version"))
+                                .limit(1))
+        );
+    }
+}
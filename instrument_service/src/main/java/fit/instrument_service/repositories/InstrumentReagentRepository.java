@@ -33,4 +33,10 @@ public interface InstrumentReagentRepository extends MongoRepository<InstrumentR
     Optional<InstrumentReagent> findByIdAndInstrumentId(String id, String instrumentId);
 
     List<InstrumentReagent> findByInstrumentIdAndLotNumberAndIsDeletedFalse(String instrumentId, String lotNumber);
+
+    // Các lô còn lượng tiêu hao chưa đối soát với warehouse
+    List<InstrumentReagent> findByUnreconciledUsageGreaterThan(Integer usage);
+
+    // Các lô có batch đối soát đã chốt nhưng warehouse chưa xác nhận
+    List<InstrumentReagent> findByInflightBatchIdIsNotNull();
 }
@@ -26,8 +26,8 @@ public interface RawTestResultRepository extends MongoRepository<RawTestResult,
 
     /**
      * SRS 3.6.1.6: Tìm các kết quả thô đã sẵn sàng xóa (đã backup)
-     * và cũ hơn thời gian quy định (createdDate < threshold).
+     * và cũ hơn thời gian quy định (created_at < threshold).
      */
-    @Query("{ 'is_ready_for_deletion' : true, 'created_date' : { $lt: ?0 } }")
+    @Query("{ 'is_ready_for_deletion' : true, 'created_at' : { $lt: ?0 } }")
     List<RawTestResult> findDeletableOldResults(LocalDateTime threshold);
 }
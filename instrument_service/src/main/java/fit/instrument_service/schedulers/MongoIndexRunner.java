@@ -0,0 +1,60 @@
+/*
+ * @ {#} MongoIndexRunner.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.instrument_service.schedulers;
+
+import fit.instrument_service.services.MongoIndexService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/*
+ * @description: Reconciles the declared MongoDB indexes once the application is ready, on a background thread so that
+ *               index builds on large collections do not hold up startup, then checks the hot query plans
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "app.mongo-indexes.reconcile-on-startup", havingValue = "true", matchIfMissing = true)
+public class MongoIndexRunner {
+
+    private final MongoIndexService mongoIndexService;
+    private final boolean verifyPlans;
+
+    public MongoIndexRunner(MongoIndexService mongoIndexService,
+                            @Value("${app.mongo-indexes.verify-plans:true}") boolean verifyPlans) {
+        this.mongoIndexService = mongoIndexService;
+        this.verifyPlans = verifyPlans;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcileOnStartup() {
+        Thread thread = new Thread(() -> {
+            try {
+                List<String> created = mongoIndexService.reconcileIndexes();
+                log.info("MongoDB index reconciliation finished, {} index(es) created", created.size());
+
+                if (verifyPlans) {
+                    List<String> scans = mongoIndexService.findCollectionScans();
+                    if (!scans.isEmpty()) {
+                        log.error("Hot queries running as collection scans: {}", scans);
+                    }
+                }
+            } catch (Exception e) {
+                log.error("Error while reconciling MongoDB indexes", e);
+            }
+        }, "mongo-index-reconciler");
+        thread.setDaemon(true);
+        thread.start();
+    }
+}
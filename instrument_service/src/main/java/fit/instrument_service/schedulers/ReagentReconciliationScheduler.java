@@ -0,0 +1,37 @@
+/*
+ * @ {#} ReagentReconciliationScheduler.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.instrument_service.schedulers;
+
+import fit.instrument_service.services.ReagentLedgerService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/*
+ * @description: Periodically flushes the in-memory reagent ledger and reports unreconciled consumption to warehouse
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ReagentReconciliationScheduler {
+
+    private final ReagentLedgerService reagentLedgerService;
+
+    @Scheduled(fixedDelayString = "${app.reagent-ledger.reconcile-interval-ms:60000}",
+            initialDelayString = "${app.reagent-ledger.reconcile-interval-ms:60000}")
+    public void reconcile() {
+        try {
+            reagentLedgerService.reconcileWithWarehouse();
+        } catch (Exception e) {
+            log.error("Error during scheduled reagent reconciliation", e);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * @ {#} WorkflowRecoveryRunner.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.instrument_service.schedulers;
+
+import fit.instrument_service.services.SampleAnalysisWorkflowService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * @description: Resumes workflows whose owning instance stopped renewing their heartbeat, once the application is
+ *               ready and then periodically (a replica can die after this one started), on a background thread so
+ *               that startup is not blocked by the remaining samples of a cassette
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "app.workflow-recovery.enabled", havingValue = "true", matchIfMissing = true)
+public class WorkflowRecoveryRunner {
+
+    private final SampleAnalysisWorkflowService sampleAnalysisWorkflowService;
+    private final long scanIntervalMs;
+    private final ScheduledExecutorService recovery;
+
+    public WorkflowRecoveryRunner(SampleAnalysisWorkflowService sampleAnalysisWorkflowService,
+                                  @Value("${app.workflow-recovery.scan-interval-ms:60000}") long scanIntervalMs) {
+        this.sampleAnalysisWorkflowService = sampleAnalysisWorkflowService;
+        this.scanIntervalMs = scanIntervalMs;
+        this.recovery = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "workflow-recovery");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeOnStartup() {
+        recovery.scheduleWithFixedDelay(this::resumeQuietly, 0, scanIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        recovery.shutdownNow();
+    }
+
+    private void resumeQuietly() {
+        try {
+            int resumed = sampleAnalysisWorkflowService.resumeInterruptedWorkflows();
+            if (resumed > 0) {
+                log.info("Resumed {} interrupted workflow(s)", resumed);
+            }
+        } catch (Exception e) {
+            log.error("Error while resuming interrupted workflows", e);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * @ {#} ServiceTokenProvider.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.instrument_service.security;
+
+import com.nimbusds.jose.jwk.source.ImmutableSecret;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.JwsHeader;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtEncoder;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Supplier;
+
+/*
+ * @description: Short-lived service credential for calls made by background jobs, which have no user token. The JWT
+ *               is signed with the shared key and issuer that every service already validates, and carries the
+ *               SERVICE role; endpoints that accept service calls list that role in their @PreAuthorize.
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+@Component
+public class ServiceTokenProvider {
+
+    private static final String SERVICE_ROLE = "SERVICE";
+    private static final Duration TOKEN_TTL = Duration.ofMinutes(5);
+    // Cấp token mới khi token hiện tại còn ít hơn khoảng này
+    private static final Duration RENEW_BEFORE = Duration.ofMinutes(1);
+
+    private final JwtEncoder jwtEncoder;
+    private final String issuer;
+    private final String serviceName;
+
+    private Jwt current;
+
+    public ServiceTokenProvider(@Value("${jwt.signed-key}") String secret,
+                                @Value("${jwt.issuer}") String issuer,
+                                @Value("${spring.application.name}") String serviceName) {
+        SecretKey key = new SecretKeySpec(Base64.getDecoder().decode(secret), "HmacSHA256");
+        this.jwtEncoder = new NimbusJwtEncoder(new ImmutableSecret<>(key));
+        this.issuer = issuer;
+        this.serviceName = serviceName;
+    }
+
+    public synchronized Jwt token() {
+        Instant now = Instant.now();
+        if (current == null || current.getExpiresAt() == null || current.getExpiresAt().isBefore(now.plus(RENEW_BEFORE))) {
+            JwtClaimsSet claims = JwtClaimsSet.builder()
+                    .issuer(issuer)
+                    .subject(serviceName)
+                    .issuedAt(now)
+                    .expiresAt(now.plus(TOKEN_TTL))
+                    .claim("role", SERVICE_ROLE)
+                    .build();
+            current = jwtEncoder.encode(JwtEncoderParameters.from(JwsHeader.with(MacAlgorithm.HS256).build(), claims));
+        }
+        return current;
+    }
+
+    /**
+     * Thực hiện lời gọi với token dịch vụ trong SecurityContext (Feign interceptor gắn nó vào header Authorization),
+     * rồi khôi phục ngữ cảnh của luồng gọi.
+     */
+    public <T> T callAsService(Supplier<T> call) {
+        SecurityContext previous = SecurityContextHolder.getContext();
+        SecurityContext context = SecurityContextHolder.createEmptyContext();
+        context.setAuthentication(new JwtAuthenticationToken(token(),
+                List.of(new SimpleGrantedAuthority("ROLE_" + SERVICE_ROLE))));
+        SecurityContextHolder.setContext(context);
+        try {
+            return call.get();
+        } finally {
+            SecurityContextHolder.setContext(previous);
+        }
+    }
+}
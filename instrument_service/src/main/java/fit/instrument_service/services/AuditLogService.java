@@ -1,10 +1,35 @@
 package fit.instrument_service.services;
 
-import fit.instrument_service.entities.BaseDocument;
+import fit.instrument_service.dtos.response.AuditBucketResponse;
+import fit.instrument_service.entities.AuditLog;
 import fit.instrument_service.enums.AuditAction;
+import fit.instrument_service.enums.AuditBucketUnit;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Map;
 
 public interface AuditLogService {
-    void logAction(AuditAction action, String entityId, String entityType, Map<String, Object> details);
-}
\ No newline at end of file
+
+    /**
+     * Ghi nhận một hành động vào bộ đệm; bản ghi được ghi xuống MongoDB theo lô ở lần flush kế tiếp.
+     */
+    void logAction(AuditAction action, String instrumentId, String entityId, String entityType, Map<String, Object> details);
+
+    /**
+     * Ghi toàn bộ bản ghi đang chờ trong bộ đệm bằng một bulk insert không có thứ tự.
+     *
+     * @return Số bản ghi đã ghi thành công
+     */
+    int flush();
+
+    /**
+     * Các bản ghi audit của thiết bị trong khoảng [from, to), sắp xếp theo thời gian.
+     */
+    List<AuditLog> findLogs(String instrumentId, LocalDateTime from, LocalDateTime to, AuditAction action);
+
+    /**
+     * Đếm số bản ghi theo từng bucket thời gian và loại hành động trong khoảng [from, to).
+     */
+    List<AuditBucketResponse> countByBucket(String instrumentId, LocalDateTime from, LocalDateTime to, AuditBucketUnit unit);
+}
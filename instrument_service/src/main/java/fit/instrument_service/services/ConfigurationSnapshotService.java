@@ -0,0 +1,36 @@
+/*
+ * @ {#} ConfigurationSnapshotService.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.instrument_service.services;
+
+import fit.instrument_service.dtos.response.ConfigurationSnapshot;
+import fit.instrument_service.entities.Configuration;
+import fit.instrument_service.events.ConfigurationInvalidatedEvent;
+
+/*
+ * @description: In-memory resolution of instrument configurations, kept current by configuration events
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+public interface ConfigurationSnapshotService {
+
+    /**
+     * Cấu hình đã hợp nhất (chung + riêng) cho model/type, không truy vấn MongoDB khi snapshot đã có.
+     */
+    ConfigurationSnapshot resolve(String instrumentModel, String instrumentType);
+
+    /**
+     * Áp dụng một cấu hình vừa được tạo, cập nhật hoặc xóa mềm vào chỉ mục trong bộ nhớ,
+     * chỉ bỏ các snapshot bị ảnh hưởng, rồi báo cho các replica khác nạp lại cấu hình đó.
+     */
+    void onConfigurationChanged(Configuration configuration);
+
+    /**
+     * Nạp lại từ MongoDB cấu hình mà một replica khác vừa lưu (bỏ qua sự kiện do chính instance này phát).
+     */
+    void onConfigurationInvalidated(ConfigurationInvalidatedEvent event);
+}
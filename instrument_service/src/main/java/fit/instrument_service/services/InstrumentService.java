@@ -80,4 +80,13 @@ public interface InstrumentService {
      * @return Thông tin cấu hình áp dụng kèm cảnh báo (nếu có)
      */
     SyncConfigurationResponse syncUpConfiguration(String instrumentId);
+
+    /**
+     * Đồng bộ cấu hình có điều kiện theo ETag mà thiết bị đang giữ.
+     *
+     * @param instrumentId ID của thiết bị cần đồng bộ
+     * @param ifNoneMatch  ETag của cấu hình thiết bị đang áp dụng (có thể null)
+     * @return Thông tin cấu hình áp dụng, hoặc null nếu cấu hình không thay đổi so với ETag
+     */
+    SyncConfigurationResponse syncUpConfiguration(String instrumentId, String ifNoneMatch);
 }
@@ -0,0 +1,42 @@
+/*
+ * @ {#} MongoIndexService.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.instrument_service.services;
+
+import java.util.List;
+import java.util.Optional;
+
+/*
+ * @description: Keeps the MongoDB indexes in line with the index declarations on the entities and checks the query
+ *               plans of the hot repository queries
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+public interface MongoIndexService {
+
+    /**
+     * Tạo các index đã khai báo trên entity (@Indexed, @CompoundIndex) mà MongoDB chưa có.
+     * Không xóa hay sửa index nào; index xung đột được ghi log và bỏ qua.
+     *
+     * @return các index vừa được tạo, dạng "collection.index"
+     */
+    List<String> reconcileIndexes();
+
+    /**
+     * Chạy explain() cho từng truy vấn trong HotQueryCatalog.
+     *
+     * @return tên các truy vấn có kế hoạch thực thi là COLLSCAN
+     */
+    List<String> findCollectionScans();
+
+    /**
+     * Kết quả của lần findCollectionScans() gần nhất (dùng cho health check).
+     *
+     * @return rỗng nếu chưa kiểm tra lần nào
+     */
+    Optional<List<String>> lastCollectionScans();
+}
@@ -7,6 +7,11 @@
 package fit.instrument_service.services;
 
 import fit.instrument_service.entities.BloodSample;
+import fit.instrument_service.entities.Cassette;
+import fit.instrument_service.entities.InstrumentReagent;
+import fit.instrument_service.entities.SampleProcessingWorkflow;
+
+import java.util.List;
 
 /*
  * @description: Service gửi thông báo liên quan đến mẫu máu và thiết bị
@@ -22,6 +27,13 @@ public interface NotificationService {
      */
     void notifySampleStatusUpdate(BloodSample sample);
 
+    /**
+     * Gửi một thông báo cho cả nhóm mẫu vừa cập nhật trạng thái
+     *
+     * @param samples Các mẫu máu đã cập nhật trạng thái
+     */
+    void notifySampleStatusUpdates(List<BloodSample> samples);
+
     /**
      * Gửi thông báo hoàn thành quy trình xử lý mẫu máu
      *
@@ -30,6 +42,20 @@ public interface NotificationService {
      */
     void notifyWorkflowCompletion(String workflowId, String instrumentId);
 
+    /**
+     * Gửi thông báo thay đổi trạng thái quy trình xử lý (RUNNING, FAILED, ...)
+     *
+     * @param workflow Quy trình xử lý
+     */
+    void notifyWorkflowStatusUpdate(SampleProcessingWorkflow workflow);
+
+    /**
+     * Gửi thông báo khi cassette được lấy ra khỏi hàng đợi để xử lý
+     *
+     * @param cassette Cassette vừa được cập nhật
+     */
+    void notifyCassetteStatusUpdate(Cassette cassette);
+
     /**
      * Gửi thông báo khi thiết bị thiếu hóa chất
      *
@@ -45,6 +71,13 @@ public interface NotificationService {
      */
     void notifyReagentEmpty(String instrumentId, String reagentName);
 
+    /**
+     * Gửi thông báo khi trạng thái một lô hóa chất trên thiết bị thay đổi
+     *
+     * @param reagent Hóa chất đã được cập nhật
+     */
+    void notifyReagentStatusUpdate(InstrumentReagent reagent);
+
     /**
      * Gửi thông báo khi một đơn hàng xét nghiệm được tạo tự động
      *
@@ -0,0 +1,28 @@
+/*
+ * @ {#} RawResultPublisherService.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.instrument_service.services;
+
+/*
+ * @description: Publishes stored raw test results to the instrument exchange and tracks their delivery state
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+public interface RawResultPublisherService {
+
+    /**
+     * Báo có kết quả mới cần gửi; lượt gửi chạy nền, nhiều lần gọi liên tiếp được gộp thành một lượt.
+     */
+    void requestPublish();
+
+    /**
+     * Gửi các kết quả PENDING và các kết quả FAILED đã đến hạn thử lại.
+     *
+     * @return số kết quả đã được broker xác nhận
+     */
+    int publishDue();
+}
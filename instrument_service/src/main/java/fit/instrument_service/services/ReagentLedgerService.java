@@ -0,0 +1,50 @@
+/*
+ * @ {#} ReagentLedgerService.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.instrument_service.services;
+
+import java.util.Optional;
+
+/*
+ * @description: Instrument-local reagent consumption ledger
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+public interface ReagentLedgerService {
+
+    /**
+     * Kiểm tra thiết bị có lô hóa chất nào đang IN_USE không.
+     */
+    boolean hasReagentsInUse(String instrumentId);
+
+    /**
+     * Trừ định mức của một lần chạy trên mọi lô hóa chất đang IN_USE của thiết bị (chỉ trong bộ nhớ).
+     *
+     * @return tên hóa chất vừa bị dùng hết, nếu có
+     */
+    Optional<String> consumeRun(String instrumentId);
+
+    /**
+     * Ghi lượng đã trừ trong bộ nhớ của thiết bị xuống MongoDB bằng một lần bulk write.
+     */
+    void flush(String instrumentId);
+
+    void flushAll();
+
+    /**
+     * Ghi sổ rồi bỏ trạng thái trong bộ nhớ của thiết bị; gọi trước khi lô hóa chất được cài đặt, đổi trạng thái hoặc gỡ.
+     */
+    void invalidate(String instrumentId);
+
+    /**
+     * Chốt lượng tiêu hao chưa đối soát của mọi thiết bị vào một batch rồi gửi sang warehouse_service; batch chưa
+     * được xác nhận ở lượt trước được gửi lại nguyên vẹn.
+     *
+     * @return số lô đã đối soát
+     */
+    int reconcileWithWarehouse();
+}
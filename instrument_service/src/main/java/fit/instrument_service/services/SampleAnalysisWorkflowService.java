@@ -35,6 +35,13 @@ public interface SampleAnalysisWorkflowService {
      */
     WorkflowResponse processNextCassette(String instrumentId);
 
+    /**
+     * Tiếp tục các quy trình bị gián đoạn (dịch vụ khởi động lại khi đang xử lý) từ checkpoint của từng mẫu
+     *
+     * @return Số quy trình đã được tiếp tục
+     */
+    int resumeInterruptedWorkflows();
+
     /**
      * Lấy trạng thái của quy trình
      *
@@ -0,0 +1,36 @@
+/*
+ * @ {#} SampleStateService.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.instrument_service.services;
+
+import fit.instrument_service.entities.BloodSample;
+import fit.instrument_service.enums.SampleStatus;
+
+import java.util.List;
+
+/*
+ * @description: Guarded sample status transitions written as partial MongoDB updates
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+public interface SampleStateService {
+
+    /**
+     * Chuyển trạng thái một mẫu nếu trong DB mẫu vẫn đang ở trạng thái from.
+     *
+     * @return true nếu mẫu đã được chuyển sang trạng thái to
+     */
+    boolean transition(BloodSample sample, SampleStatus from, SampleStatus to);
+
+    /**
+     * Chuyển trạng thái nhiều mẫu trong một lệnh updateMulti; chỉ các mẫu còn ở trạng thái from được cập nhật.
+     * Thông báo trạng thái được gửi một lần cho cả nhóm.
+     *
+     * @return các mẫu đang ở trạng thái to sau lệnh cập nhật
+     */
+    List<BloodSample> transitionAll(List<BloodSample> samples, SampleStatus from, SampleStatus to);
+}
@@ -0,0 +1,35 @@
+/*
+ * @ {#} StatusStreamService.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.instrument_service.services;
+
+import fit.instrument_service.dtos.response.StatusEvent;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Set;
+
+/*
+ * @description: Server-sent event stream of sample, cassette, workflow and reagent status changes
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+public interface StatusStreamService {
+
+    /**
+     * Mở một kết nối SSE.
+     *
+     * @param instrumentIds chỉ nhận sự kiện của các thiết bị này (rỗng = tất cả)
+     */
+    SseEmitter subscribe(Set<String> instrumentIds);
+
+    /**
+     * Đưa sự kiện vào bộ đệm của các client quan tâm; không chặn luồng gọi.
+     */
+    void publish(StatusEvent event);
+
+    int subscriberCount();
+}
@@ -0,0 +1,67 @@
+/*
+ * @ {#} WorkflowCheckpointService.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.instrument_service.services;
+
+import fit.instrument_service.entities.BloodSample;
+import fit.instrument_service.entities.SampleProcessingWorkflow;
+import fit.instrument_service.enums.SampleStep;
+
+import java.util.List;
+
+/*
+ * @description: Per-sample step checkpoints of the analysis workflow and lookup of workflows interrupted by a restart
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+public interface WorkflowCheckpointService {
+
+    /**
+     * Ghi nhận các bước đã hoàn tất của một mẫu ($addToSet, ghi lại nhiều lần không gây sai lệch).
+     */
+    void markCompleted(BloodSample sample, SampleStep... steps);
+
+    /**
+     * Ghi nhận kết quả đã được tạo và HL7 đã được lưu trong RawTestResult, kèm ID để dùng lại khi tiếp tục.
+     */
+    void markHl7Built(BloodSample sample, String rawResultId);
+
+    /**
+     * Ghi nhận cùng một bước cho nhiều mẫu bằng một lệnh updateMulti.
+     */
+    void markAllCompleted(List<BloodSample> samples, SampleStep step);
+
+    /**
+     * Ghi nhận bước PUBLISHED cho các mẫu có kết quả vừa được broker xác nhận (theo raw_result_id).
+     */
+    void markPublished(List<String> rawResultIds);
+
+    /**
+     * Gắn quy trình với instance hiện tại và đặt heartbeat; ghi xuống cùng lần lưu quy trình kế tiếp.
+     */
+    void markOwned(SampleProcessingWorkflow workflow);
+
+    /**
+     * Gia hạn heartbeat của quy trình instance này đang chạy (bỏ qua nếu vừa gia hạn gần đây).
+     *
+     * @return false nếu quy trình không còn thuộc instance này (replica khác đã nhận tiếp tục); bên gọi phải dừng
+     */
+    boolean heartbeat(SampleProcessingWorkflow workflow);
+
+    /**
+     * Các quy trình còn dở dang (INITIATED, VALIDATING, RUNNING) mà instance sở hữu đã ngừng gia hạn heartbeat
+     * quá ngưỡng, cũ nhất trước.
+     */
+    List<SampleProcessingWorkflow> findInterruptedWorkflows();
+
+    /**
+     * Nhận quyền tiếp tục một quy trình đã quá hạn heartbeat; chỉ một lượt khôi phục thắng khi nhiều lượt chạy cùng lúc.
+     *
+     * @return true nếu lượt gọi này được tiếp tục quy trình
+     */
+    boolean claimForResume(SampleProcessingWorkflow workflow);
+}
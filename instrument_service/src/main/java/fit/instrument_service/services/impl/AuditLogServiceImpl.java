@@ -1,31 +1,363 @@
 package fit.instrument_service.services.impl;
 
+import com.mongodb.MongoCommandException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.model.CreateCollectionOptions;
+import com.mongodb.client.model.TimeSeriesGranularity;
+import com.mongodb.client.model.TimeSeriesOptions;
+import fit.instrument_service.dtos.response.AuditBucketResponse;
 import fit.instrument_service.entities.AuditLog;
 import fit.instrument_service.enums.AuditAction;
-import fit.instrument_service.repositories.AuditLogRepository;
+import fit.instrument_service.enums.AuditBucketUnit;
 import fit.instrument_service.services.AuditLogService;
-import lombok.RequiredArgsConstructor;
+import fit.instrument_service.utils.SecurityUtils;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
 
+/*
+ * @description: Audit entries are appended to an in-process buffer and written to the instrumentAuditLogs time-series
+ *               collection (instrument_id as metaField, TTL from app.audit.ttl-days) with unordered bulk inserts, either
+ *               when a batch fills up or on a fixed interval. Time-series collections do not enforce a unique _id,
+ *               so retries are deduped at the source: ids are assigned up front, entries reported as write errors were
+ *               not stored and are re-queued, and when the outcome of a batch is unknown (e.g. connection lost) its ids
+ *               are remembered and looked up before the retry so only the entries that were not stored are inserted.
+ *               findLogs still skips a repeated id before applying its limit, as a last guard.
+ *               When the buffer is full, logAction writes the entry directly instead of dropping it.
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
 @Service
-@RequiredArgsConstructor
+@Slf4j
 public class AuditLogServiceImpl implements AuditLogService {
 
-    private final AuditLogRepository auditLogRepository;
+    private static final int NAMESPACE_EXISTS = 48;
+
+    private final MongoTemplate mongoTemplate;
+    private final int batchSize;
+    private final int maxBuffered;
+    private final long ttlDays;
+    private final int queryLimit;
+
+    private final ConcurrentLinkedQueue<AuditLog> buffer = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger buffered = new AtomicInteger();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    // Chỉ một luồng flush tại một thời điểm (định kỳ, đầy lô, trước khi truy vấn, khi tắt ứng dụng)
+    private final ReentrantLock flushLock = new ReentrantLock();
+    // Id của các lô không rõ đã ghi hay chưa; chỉ truy cập khi giữ flushLock
+    private final Set<String> uncertainIds = new HashSet<>();
+    private final ScheduledExecutorService flusher;
+
+    public AuditLogServiceImpl(MongoTemplate mongoTemplate,
+                               @Value("${app.audit.batch-size:200}") int batchSize,
+                               @Value("${app.audit.max-buffered:10000}") int maxBuffered,
+                               @Value("${app.audit.flush-interval-ms:1000}") long flushIntervalMs,
+                               @Value("${app.audit.ttl-days:365}") long ttlDays,
+                               @Value("${app.audit.query-limit:1000}") int queryLimit) {
+        this.mongoTemplate = mongoTemplate;
+        this.batchSize = batchSize;
+        this.maxBuffered = maxBuffered;
+        this.ttlDays = ttlDays;
+        this.queryLimit = queryLimit;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "audit-log-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    // Tạo time-series collection trước khi có lần ghi đầu tiên (nếu để MongoDB tự tạo sẽ là collection thường)
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureCollection() {
+        try {
+            if (mongoTemplate.collectionExists(AuditLog.COLLECTION)) {
+                return;
+            }
+            mongoTemplate.getDb().createCollection(AuditLog.COLLECTION, new CreateCollectionOptions()
+                    .timeSeriesOptions(new TimeSeriesOptions("timestamp")
+                            .metaField("instrument_id")
+                            .granularity(TimeSeriesGranularity.SECONDS))
+                    .expireAfter(ttlDays, TimeUnit.DAYS));
+            log.info("Created time-series collection {} (TTL {} days)", AuditLog.COLLECTION, ttlDays);
+        } catch (MongoCommandException e) {
+            if (e.getErrorCode() != NAMESPACE_EXISTS) {
+                log.error("Could not create audit time-series collection: {}", e.getMessage());
+            }
+        } catch (Exception e) {
+            log.error("Could not create audit time-series collection: {}", e.getMessage());
+        }
+    }
 
     @Override
-    public void logAction(AuditAction action, String entityId, String entityType, Map<String, Object> details) {
-        AuditLog logEntry = new AuditLog();
-        logEntry.setAction(action);
-        logEntry.setEntityId(entityId);
-        logEntry.setEntityType(entityType);
-        logEntry.setDetails(details);
+    public void logAction(AuditAction action, String instrumentId, String entityId, String entityType, Map<String, Object> details) {
+        AuditLog entry = AuditLog.builder()
+                .id(new ObjectId().toHexString())
+                .timestamp(LocalDateTime.now())
+                .instrumentId(instrumentId)
+                .action(action)
+                .entityType(entityType)
+                .entityId(entityId)
+                .performedBy(currentUser())
+                .details(details)
+                .build();
+
+        if (buffered.get() >= maxBuffered) {
+            // MongoDB không theo kịp: ghi trực tiếp thay vì làm mất bản ghi audit
+            log.warn("Audit buffer full ({} entries), writing {} synchronously", maxBuffered, action);
+            mongoTemplate.insert(entry, AuditLog.COLLECTION);
+            return;
+        }
+
+        buffer.add(entry);
+        if (buffered.incrementAndGet() >= batchSize && flushRequested.compareAndSet(false, true)) {
+            flusher.execute(() -> {
+                flushRequested.set(false);
+                flushQuietly();
+            });
+        }
+    }
+
+    @Override
+    public int flush() {
+        flushLock.lock();
+        try {
+            int written = 0;
+            List<AuditLog> batch = drain();
+            while (!batch.isEmpty()) {
+                int inserted = insertBatch(batch);
+                if (inserted < 0) {
+                    // Lỗi kết nối / máy chủ: dừng lượt này, lần flush sau thử lại
+                    break;
+                }
+                written += inserted;
+                batch = drain();
+            }
+            return written;
+        } finally {
+            flushLock.unlock();
+        }
+    }
 
-        // Ghi chú: createdAt và createdBy sẽ được tự động điền bởi
-        // MongoAuditing (BaseDocument và AuditorAwareImpl)
+    @Override
+    public List<AuditLog> findLogs(String instrumentId, LocalDateTime from, LocalDateTime to, AuditAction action) {
+        validateRange(from, to);
+        // Bản ghi còn trong bộ đệm cũng phải xuất hiện trong kết quả
+        flush();
+
+        Criteria criteria = rangeCriteria(instrumentId, from, to);
+        if (action != null) {
+            criteria = criteria.and("action").is(action);
+        }
+        // Loại id trùng trước khi áp giới hạn: thiếu bao nhiêu thì seek tiếp theo (timestamp, _id) bấy nhiêu
+        Map<String, AuditLog> distinct = new LinkedHashMap<>();
+        AuditLog last = null;
+        while (distinct.size() < queryLimit) {
+            int limit = queryLimit - distinct.size();
+            Criteria page = last == null ? criteria : new Criteria().andOperator(criteria, after(last));
+            Query query = Query.query(page)
+                    .with(Sort.by(Sort.Direction.ASC, "timestamp", "_id"))
+                    .limit(limit);
+            List<AuditLog> entries = mongoTemplate.find(query, AuditLog.class, AuditLog.COLLECTION);
+            for (AuditLog entry : entries) {
+                distinct.putIfAbsent(entry.getId(), entry);
+            }
+            if (entries.size() < limit) {
+                break;
+            }
+            last = entries.get(entries.size() - 1);
+        }
+        return new ArrayList<>(distinct.values());
+    }
+
+    @Override
+    public List<AuditBucketResponse> countByBucket(String instrumentId, LocalDateTime from, LocalDateTime to,
+                                                   AuditBucketUnit unit) {
+        validateRange(from, to);
+        flush();
+
+        String timezone = ZoneId.systemDefault().getId();
+        // Lô gửi lại đã được loại trùng lúc ghi: đếm thẳng theo bucket, không gom từng sự kiện theo _id
+        AggregationOperation group = context -> new Document("$group", new Document("_id",
+                new Document("bucket", new Document("$dateTrunc", new Document("date", "$timestamp")
+                        .append("unit", unit.mongoUnit())
+                        .append("timezone", timezone)))
+                        .append("action", "$action"))
+                .append("count", new Document("$sum", 1)));
+        AggregationOperation sort = context -> new Document("$sort",
+                new Document("_id.bucket", 1).append("_id.action", 1));
+
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(rangeCriteria(instrumentId, toDate(from), toDate(to))), group, sort);
+
+        List<AuditBucketResponse> buckets = new ArrayList<>();
+        for (Document result : mongoTemplate.aggregate(aggregation, AuditLog.COLLECTION, Document.class)) {
+            Document id = result.get("_id", Document.class);
+            buckets.add(AuditBucketResponse.builder()
+                    .bucketStart(LocalDateTime.ofInstant(id.getDate("bucket").toInstant(), ZoneId.systemDefault()))
+                    .action(AuditAction.valueOf(id.getString("action")))
+                    .count(((Number) result.get("count")).longValue())
+                    .build());
+        }
+        return buckets;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdownNow();
+        flushQuietly();
+    }
+
+    // Số bản ghi đang chờ ghi (dùng cho kiểm thử / chẩn đoán)
+    int pendingCount() {
+        return buffered.get();
+    }
+
+    private int insertBatch(List<AuditLog> drained) {
+        List<AuditLog> batch = drained;
+        try {
+            batch = withoutStored(drained);
+            if (batch.isEmpty()) {
+                return 0;
+            }
+            BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, AuditLog.class, AuditLog.COLLECTION);
+            ops.insert(batch);
+            ops.execute();
+            return batch.size();
+        } catch (BulkOperationException e) {
+            // Unordered: chỉ các bản ghi có lỗi là chưa được ghi, các bản ghi khác đã được lưu
+            List<AuditLog> retry = new ArrayList<>();
+            for (BulkWriteError error : e.getErrors()) {
+                retry.add(batch.get(error.getIndex()));
+            }
+            requeue(retry);
+            log.warn("Audit bulk insert: {} of {} entries failed and were re-queued", retry.size(), batch.size());
+            return retry.isEmpty() ? batch.size() : -1;
+        } catch (RuntimeException e) {
+            // Không biết lô đã được ghi hay chưa: gửi lại cả lô, lần gửi sau tra id trước để không ghi trùng
+            batch.forEach(entry -> uncertainIds.add(entry.getId()));
+            requeue(batch);
+            log.error("Failed to flush {} audit entries: {}", batch.size(), e.getMessage());
+            return -1;
+        }
+    }
+
+    // Bỏ các bản ghi của lô trước (không rõ kết quả) đã thực sự được lưu; lọc theo metaField và timestamp để
+    // MongoDB chỉ đọc các bucket liên quan thay vì quét cả collection theo _id
+    private List<AuditLog> withoutStored(List<AuditLog> batch) {
+        List<AuditLog> uncertain = batch.stream().filter(entry -> uncertainIds.contains(entry.getId())).toList();
+        if (uncertain.isEmpty()) {
+            return batch;
+        }
+
+        Set<String> instrumentIds = new HashSet<>();
+        LocalDateTime from = null;
+        LocalDateTime to = null;
+        for (AuditLog entry : uncertain) {
+            instrumentIds.add(entry.getInstrumentId());
+            from = from == null || entry.getTimestamp().isBefore(from) ? entry.getTimestamp() : from;
+            to = to == null || entry.getTimestamp().isAfter(to) ? entry.getTimestamp() : to;
+        }
+        // MongoDB lưu thời gian theo mili giây
+        Query query = Query.query(Criteria.where("instrument_id").in(instrumentIds)
+                .and("timestamp").gte(from.truncatedTo(ChronoUnit.MILLIS)).lte(to)
+                .and("_id").in(uncertain.stream().map(AuditLog::getId).toList()));
+        query.fields().include("_id");
+        Set<String> stored = new HashSet<>();
+        for (AuditLog entry : mongoTemplate.find(query, AuditLog.class, AuditLog.COLLECTION)) {
+            stored.add(entry.getId());
+        }
+
+        uncertain.forEach(entry -> uncertainIds.remove(entry.getId()));
+        if (!stored.isEmpty()) {
+            log.info("Audit retry: {} of {} entries were already stored and are skipped", stored.size(), batch.size());
+        }
+        return batch.stream().filter(entry -> !stored.contains(entry.getId())).toList();
+    }
+
+    private List<AuditLog> drain() {
+        List<AuditLog> batch = new ArrayList<>(batchSize);
+        AuditLog entry;
+        while (batch.size() < batchSize && (entry = buffer.poll()) != null) {
+            batch.add(entry);
+        }
+        buffered.addAndGet(-batch.size());
+        return batch;
+    }
+
+    private void requeue(List<AuditLog> entries) {
+        buffer.addAll(entries);
+        buffered.addAndGet(entries.size());
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("Error while flushing audit log buffer", e);
+        }
+    }
+
+    // Sau bản ghi cuối của trang trước theo thứ tự (timestamp, _id)
+    private static Criteria after(AuditLog last) {
+        return new Criteria().orOperator(
+                Criteria.where("timestamp").gt(last.getTimestamp()),
+                Criteria.where("timestamp").is(last.getTimestamp()).and("_id").gt(last.getId()));
+    }
+
+    private static Criteria rangeCriteria(String instrumentId, Object from, Object to) {
+        return Criteria.where("instrument_id").is(instrumentId)
+                .and("timestamp").gte(from).lt(to);
+    }
+
+    private static void validateRange(LocalDateTime from, LocalDateTime to) {
+        if (from == null || to == null || !from.isBefore(to)) {
+            throw new IllegalArgumentException("'from' must be before 'to'");
+        }
+    }
+
+    private static Date toDate(LocalDateTime value) {
+        return Date.from(value.atZone(ZoneId.systemDefault()).toInstant());
+    }
 
-        auditLogRepository.save(logEntry);
+    private static String currentUser() {
+        try {
+            return SecurityUtils.getCurrentUserId();
+        } catch (Exception e) {
+            // Không có token (vd: background task, system event)
+            return "SYSTEM";
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,232 @@
+/*
+ * @ {#} ConfigurationSnapshotServiceImpl.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.instrument_service.services.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import fit.instrument_service.configs.RabbitMQConfig;
+import fit.instrument_service.dtos.response.ConfigurationSnapshot;
+import fit.instrument_service.entities.Configuration;
+import fit.instrument_service.enums.ConfigurationType;
+import fit.instrument_service.events.ConfigurationInvalidatedEvent;
+import fit.instrument_service.repositories.ConfigurationRepository;
+import fit.instrument_service.services.ConfigurationSnapshotService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.stereotype.Service;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/*
+ * @description: Keeps every live Configuration in memory (loaded once) and caches the merged snapshot per
+ *               (model, type). Configuration events update the in-memory index and drop only the snapshots they can
+ *               affect: a GENERAL change drops all of them, a SPECIFIC change only those of its instrument type
+ *               (the specific lookup falls back from model+type to type). Resolution rules match the previous
+ *               repository queries, except that soft-deleted configurations are no longer applied. The ETag is a
+ *               hash of the resolved content, so it is stable across restarts and replicas. Configuration events are
+ *               consumed by one replica only, so after applying a change it broadcasts the configuration id to every
+ *               replica's own queue and the others reload that configuration from MongoDB.
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ConfigurationSnapshotServiceImpl implements ConfigurationSnapshotService {
+
+    private static final JsonMapper CANONICAL_JSON = JsonMapper.builder()
+            .configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true)
+            .findAndAddModules()
+            .build();
+
+    // Giống sắp xếp "OrderByVersionDesc" của MongoDB: so sánh chuỗi, null đứng sau cùng
+    private static final Comparator<Configuration> LATEST_FIRST =
+            Comparator.comparing(Configuration::getVersion, Comparator.nullsFirst(Comparator.<String>naturalOrder())).reversed();
+
+    private final ConfigurationRepository configurationRepository;
+    private final RabbitTemplate rabbitTemplate;
+
+    // Định danh của instance này, để bỏ qua sự kiện vô hiệu hóa do chính nó phát
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private final Map<String, Configuration> configurations = new HashMap<>();
+    private final ConcurrentMap<String, ConfigurationSnapshot> snapshots = new ConcurrentHashMap<>();
+    private boolean loaded;
+    private long generation;
+
+    @Override
+    public ConfigurationSnapshot resolve(String instrumentModel, String instrumentType) {
+        String key = key(instrumentModel, instrumentType);
+        ConfigurationSnapshot snapshot = snapshots.get(key);
+        if (snapshot != null) {
+            return snapshot;
+        }
+        synchronized (this) {
+            ensureLoaded();
+            return snapshots.computeIfAbsent(key, k -> build(instrumentModel, instrumentType));
+        }
+    }
+
+    @Override
+    public void onConfigurationChanged(Configuration configuration) {
+        apply(configuration);
+        try {
+            rabbitTemplate.convertAndSend(RabbitMQConfig.INSTRUMENT_EXCHANGE,
+                    RabbitMQConfig.CONFIGURATION_INVALIDATED_ROUTING_KEY,
+                    new ConfigurationInvalidatedEvent(configuration.getId(), instanceId));
+        } catch (AmqpException e) {
+            log.warn("Could not broadcast change of configuration {} to other replicas: {}",
+                    configuration.getId(), e.getMessage());
+        }
+    }
+
+    @Override
+    public void onConfigurationInvalidated(ConfigurationInvalidatedEvent event) {
+        if (instanceId.equals(event.getOriginInstanceId())) {
+            return;
+        }
+        configurationRepository.findById(event.getConfigurationId()).ifPresent(this::apply);
+    }
+
+    private synchronized void apply(Configuration configuration) {
+        if (!loaded) {
+            // Chưa nạp chỉ mục: lần resolve đầu tiên sẽ đọc trạng thái mới nhất từ MongoDB
+            return;
+        }
+
+        Configuration previous = configuration.isDeleted()
+                ? configurations.remove(configuration.getId())
+                : configurations.put(configuration.getId(), configuration);
+        generation++;
+
+        if (configuration.getConfigType() == ConfigurationType.GENERAL
+                || (previous != null && previous.getConfigType() == ConfigurationType.GENERAL)) {
+            snapshots.clear();
+        } else {
+            evictType(configuration.getInstrumentType());
+            if (previous != null) {
+                evictType(previous.getInstrumentType());
+            }
+        }
+        log.info("Configuration {} applied to snapshot index (generation {})", configuration.getId(), generation);
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        for (Configuration configuration : configurationRepository.findAll()) {
+            if (!configuration.isDeleted()) {
+                configurations.put(configuration.getId(), configuration);
+            }
+        }
+        loaded = true;
+        log.info("Loaded {} configurations into snapshot index", configurations.size());
+    }
+
+    private void evictType(String instrumentType) {
+        String suffix = "|" + instrumentType;
+        snapshots.keySet().removeIf(key -> key.endsWith(suffix));
+    }
+
+    private ConfigurationSnapshot build(String instrumentModel, String instrumentType) {
+        Configuration general = null;
+        Configuration specificByModel = null;
+        Configuration specificByType = null;
+        for (Configuration configuration : configurations.values()) {
+            if (configuration.getConfigType() == ConfigurationType.GENERAL) {
+                general = latest(general, configuration);
+            } else if (configuration.getConfigType() == ConfigurationType.SPECIFIC
+                    && Objects.equals(instrumentType, configuration.getInstrumentType())) {
+                specificByType = latest(specificByType, configuration);
+                if (Objects.equals(instrumentModel, configuration.getInstrumentModel())) {
+                    specificByModel = latest(specificByModel, configuration);
+                }
+            }
+        }
+        Configuration specific = specificByModel != null ? specificByModel : specificByType;
+
+        List<String> warnings = new ArrayList<>();
+        if (general == null) {
+            warnings.add("General configuration is missing and could not be applied.");
+        }
+        if (specific == null) {
+            warnings.add("Specific configuration matching instrument type/model is missing.");
+        }
+
+        Map<String, Object> generalSettings = settingsOf(general);
+        Map<String, Object> specificSettings = settingsOf(specific);
+        Map<String, Object> applied = new LinkedHashMap<>(generalSettings);
+        applied.putAll(specificSettings);
+
+        String generalId = general != null ? general.getId() : null;
+        String specificId = specific != null ? specific.getId() : null;
+        return new ConfigurationSnapshot(
+                generalId,
+                specificId,
+                generalSettings,
+                specificSettings,
+                Collections.unmodifiableMap(applied),
+                List.copyOf(warnings),
+                generation,
+                etag(generalId, general, specificId, specific, applied));
+    }
+
+    private static Configuration latest(Configuration current, Configuration candidate) {
+        return current == null || LATEST_FIRST.compare(candidate, current) < 0 ? candidate : current;
+    }
+
+    private static Map<String, Object> settingsOf(Configuration configuration) {
+        return configuration != null && configuration.getSettings() != null
+                ? Collections.unmodifiableMap(new LinkedHashMap<>(configuration.getSettings()))
+                : Map.of();
+    }
+
+    private String etag(String generalId, Configuration general, String specificId, Configuration specific,
+                        Map<String, Object> applied) {
+        try {
+            Map<String, Object> content = new LinkedHashMap<>();
+            content.put("g", generalId);
+            content.put("gv", general != null ? general.getVersion() : null);
+            content.put("s", specificId);
+            content.put("sv", specific != null ? specific.getVersion() : null);
+            content.put("settings", applied);
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(CANONICAL_JSON.writeValueAsBytes(content));
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) {
+            // Không băm được nội dung: dùng thế hệ của chỉ mục (vẫn đổi khi cấu hình đổi)
+            log.warn("Could not hash configuration snapshot: {}", e.getMessage());
+            return "\"gen-" + generation + "-" + generalId + "-" + specificId + "\"";
+        }
+    }
+
+    private static String key(String instrumentModel, String instrumentType) {
+        return instrumentModel + "|" + instrumentType;
+    }
+
+    // Dùng cho chẩn đoán / kiểm thử
+    int cachedSnapshotCount() {
+        return snapshots.size();
+    }
+}
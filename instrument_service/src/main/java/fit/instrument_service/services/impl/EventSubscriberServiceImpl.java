@@ -8,6 +8,7 @@ package fit.instrument_service.services.impl;
 
 import fit.instrument_service.configs.RabbitMQConfig;
 import fit.instrument_service.events.*;
+import fit.instrument_service.services.ConfigurationSnapshotService;
 import fit.instrument_service.services.EventSubscriberService;
 import fit.instrument_service.services.InstrumentService;
 import lombok.RequiredArgsConstructor;
@@ -26,6 +27,7 @@ import org.springframework.stereotype.Service;
 @RequiredArgsConstructor
 public class EventSubscriberServiceImpl implements EventSubscriberService {
     private final InstrumentService instrumentService;
+    private final ConfigurationSnapshotService configurationSnapshotService;
 
     @Override
     @RabbitListener(queues = RabbitMQConfig.INSTRUMENT_ACTIVATED_QUEUE)
@@ -90,4 +92,15 @@ public class EventSubscriberServiceImpl implements EventSubscriberService {
                     RabbitMQConfig.CONFIGURATION_UPDATED_QUEUE, e.getMessage());
         }
     }
+
+    // Hàng đợi riêng của replica này: mọi replica đều nhận, khác với các hàng đợi configuration.* dùng chung
+    @RabbitListener(queues = "#{configurationInvalidationQueue.name}")
+    public void handleConfigurationInvalidated(ConfigurationInvalidatedEvent event) {
+        try {
+            configurationSnapshotService.onConfigurationInvalidated(event);
+        } catch (Exception e) {
+            log.error("Error reloading configuration {} into snapshot index. Error: {}",
+                    event.getConfigurationId(), e.getMessage());
+        }
+    }
 }
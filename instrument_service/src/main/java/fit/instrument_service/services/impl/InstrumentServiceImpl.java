@@ -6,6 +6,7 @@
 
 package fit.instrument_service.services.impl;
 
+import com.mongodb.client.result.UpdateResult;
 import feign.FeignException;
 import fit.instrument_service.client.WarehouseFeignClient;
 import fit.instrument_service.client.dtos.ReagentLotStatusResponse;
@@ -37,11 +38,18 @@ import fit.instrument_service.repositories.InstrumentModeLogRepository;
 import fit.instrument_service.repositories.InstrumentReagentRepository;
 import fit.instrument_service.repositories.InstrumentRepository;
 import fit.instrument_service.services.AuditLogService;
+import fit.instrument_service.services.ConfigurationSnapshotService;
 import fit.instrument_service.services.InstrumentService;
+import fit.instrument_service.services.NotificationService;
+import fit.instrument_service.services.ReagentLedgerService;
 import fit.instrument_service.utils.SecurityUtils;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
@@ -66,6 +74,10 @@ public class InstrumentServiceImpl implements InstrumentService {
     private final InstrumentMapper instrumentMapper;
 
     private final InstrumentReagentRepository instrumentReagentRepository;
+    private final MongoTemplate mongoTemplate;
+    private final ReagentLedgerService reagentLedgerService;
+
+    private final NotificationService notificationService;
 
     private final AuditLogService auditLogService;
 
@@ -73,6 +85,8 @@ public class InstrumentServiceImpl implements InstrumentService {
 
     private final ConfigurationRepository configurationRepository;
 
+    private final ConfigurationSnapshotService configurationSnapshotService;
+
     @Override
     @Transactional
     public InstrumentResponse changeInstrumentMode(String instrumentId, ChangeInstrumentModeRequest request) {
@@ -294,7 +308,7 @@ public class InstrumentServiceImpl implements InstrumentService {
                 "quantity", request.getQuantity(),
                 "action", "INSTALL_FROM_WAREHOUSE"
         );
-        auditLogService.logAction(AuditAction.INSTALL_REAGENT, savedReagent.getId(), "InstrumentReagent", details);
+        auditLogService.logAction(AuditAction.INSTALL_REAGENT, instrumentId, savedReagent.getId(), "InstrumentReagent", details);
 
         log.info("Successfully installed reagent id {} onto instrument {}", savedReagent.getId(), instrumentId);
         return InstrumentMapper.toReagentResponse(savedReagent);
@@ -321,24 +335,39 @@ public class InstrumentServiceImpl implements InstrumentService {
             throw new IllegalArgumentException("Reagent status is already " + newStatus);
         }
 
-        // 4. Cập nhật trạng thái
+        // 4. Cập nhật trạng thái: chỉ $set các trường trạng thái, không save cả document vì workflow đang chạy có thể
+        // $inc quantity / unreconciled_usage cùng lúc và bản lưu toàn bộ sẽ ghi đè lượng đã trừ
+        ReagentStatus oldStatus = reagent.getStatus();
+        UpdateResult result = mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(reagent.getId()).and("status").is(oldStatus)),
+                new Update()
+                        .set("status", newStatus)
+                        .set("updated_at", LocalDateTime.now())
+                        .set("updated_by", SecurityUtils.getCurrentUserId()),
+                InstrumentReagent.class);
+        if (result.getMatchedCount() == 0) {
+            throw new IllegalArgumentException("Reagent status was changed concurrently; please retry");
+        }
         reagent.setStatus(newStatus);
-        InstrumentReagent updatedReagent = instrumentReagentRepository.save(reagent);
+
+        // Bỏ sổ trong bộ nhớ để lần chạy sau nạp lại các lô IN_USE theo trạng thái mới
+        reagentLedgerService.invalidate(instrumentId);
 
         // 5. Ghi log kiểm toán (Req 3.6.2.2)
         Map<String, Object> details = Map.of(
                 "instrumentId", instrumentId,
-                "reagentName", updatedReagent.getReagentName(),
-                "lotNumber", updatedReagent.getLotNumber(),
-                "oldStatus", reagent.getStatus().name(),
+                "reagentName", reagent.getReagentName(),
+                "lotNumber", reagent.getLotNumber(),
+                "oldStatus", oldStatus.name(),
                 "newStatus", newStatus.name()
         );
-        auditLogService.logAction(AuditAction.MODIFY_REAGENT, updatedReagent.getId(), "InstrumentReagent", details);
+        auditLogService.logAction(AuditAction.MODIFY_REAGENT, instrumentId, reagent.getId(), "InstrumentReagent", details);
 
-        log.info("Successfully modified reagent status for id {} to {}", updatedReagent.getId(), newStatus);
+        log.info("Successfully modified reagent status for id {} to {}", reagent.getId(), newStatus);
+        notificationService.notifyReagentStatusUpdate(reagent);
 
         // 6. Trả về DTO Response
-        return InstrumentMapper.toReagentResponse(updatedReagent);
+        return InstrumentMapper.toReagentResponse(reagent);
     }
 
     @Override
@@ -382,6 +411,7 @@ public class InstrumentServiceImpl implements InstrumentService {
 
         // Lưu vào MongoDB
         configurationRepository.save(newConfig);
+        configurationSnapshotService.onConfigurationChanged(newConfig);
 
         log.info("Successfully created configuration (sync) with ID: {}", configId);
     }
@@ -397,6 +427,7 @@ public class InstrumentServiceImpl implements InstrumentService {
             config.setDeletedAt(LocalDateTime.now());
 
             configurationRepository.save(config); // Lưu lại thay đổi cập nhật trạng thái
+            configurationSnapshotService.onConfigurationChanged(config);
 
             log.info("Successfully soft-deleted configuration (sync) with ID: {}", configId);
         }, () -> {
@@ -444,6 +475,7 @@ public class InstrumentServiceImpl implements InstrumentService {
         if (isUpdated) {
             existingConfig.setUpdatedAt(LocalDateTime.now());
             configurationRepository.save(existingConfig);
+            configurationSnapshotService.onConfigurationChanged(existingConfig);
             log.info("Successfully updated configuration (sync) with ID: {}", configId);
         } else {
             log.info("No changes detected for configuration (sync) with ID: {}", configId);
@@ -452,6 +484,11 @@ public class InstrumentServiceImpl implements InstrumentService {
 
     @Override
     public SyncConfigurationResponse syncUpConfiguration(String instrumentId) {
+        return syncUpConfiguration(instrumentId, null);
+    }
+
+    @Override
+    public SyncConfigurationResponse syncUpConfiguration(String instrumentId, String ifNoneMatch) {
         // Tìm Instrument
         Instrument instrument = instrumentRepository.findById(instrumentId)
                 .orElseThrow(() -> new NotFoundException("Instrument not found with id: " + instrumentId));
@@ -461,88 +498,43 @@ public class InstrumentServiceImpl implements InstrumentService {
             throw new IllegalArgumentException("Instrument model/type is required to sync configurations");
         }
 
-        // Tìm cấu hình chung và riêng
-        List<String> warnings = new ArrayList<>();
-
-        // Cấu hình chung
-        Optional<Configuration> generalConfigOpt = configurationRepository
-                .findTopByConfigTypeOrderByVersionDesc(ConfigurationType.GENERAL);
+        // Cấu hình chung + riêng đã hợp nhất sẵn trong bộ nhớ (không truy vấn collection configurations)
+        ConfigurationSnapshot snapshot = configurationSnapshotService.resolve(instrument.getModel(), instrument.getType());
 
-        // Cấu hình chung không tìm thấy
-        Configuration generalConfig = generalConfigOpt.orElse(null);
-        if (generalConfig == null) {
-            String warning = "General configuration is missing and could not be applied.";
-            warnings.add(warning);
-            log.warn("{} Instrument ID: {}", warning, instrumentId);
+        // Thiết bị đã có đúng phiên bản cấu hình → không gửi lại, không ghi audit
+        if (snapshot.etag().equals(ifNoneMatch)) {
+            log.debug("Configuration of instrument {} unchanged (ETag {})", instrumentId, ifNoneMatch);
+            return null;
         }
 
-        // Cấu hình riêng
-        Optional<Configuration> specificConfigOpt = configurationRepository
-                .findTopByConfigTypeAndInstrumentModelAndInstrumentTypeOrderByVersionDesc(
-                        ConfigurationType.SPECIFIC,
-                        instrument.getModel(),
-                        instrument.getType()
-                );
-
-        // Nếu không tìm thấy theo model + type, thử chỉ theo type
-        if (specificConfigOpt.isEmpty()) {
-            specificConfigOpt = configurationRepository
-                    .findTopByConfigTypeAndInstrumentTypeOrderByVersionDesc(
-                            ConfigurationType.SPECIFIC,
-                            instrument.getType()
-                    );
+        if (!snapshot.warnings().isEmpty()) {
+            log.warn("{} Instrument ID: {}, type: {}, model: {}", snapshot.warnings(), instrumentId,
+                    instrument.getType(), instrument.getModel());
         }
 
-        // Cấu hình riêng không tìm thấy
-        Configuration specificConfig = specificConfigOpt.orElse(null);
-
-        // Nếu vẫn không tìm thấy, ghi cảnh báo
-        if (specificConfig == null) {
-            String warning = "Specific configuration matching instrument type/model is missing.";
-            warnings.add(warning);
-            log.warn("{} Instrument ID: {}, type: {}, model: {}", warning, instrumentId, instrument.getType(), instrument.getModel());
-        }
-
-        // Áp dụng cấu hình chung
-        Map<String, Object> generalSettings = generalConfig != null && generalConfig.getSettings() != null
-                ? new HashMap<>(generalConfig.getSettings())
-                : new HashMap<>();
-
-        // Áp dụng cấu hình riêng
-        Map<String, Object> specificSettings = specificConfig != null && specificConfig.getSettings() != null
-                ? new HashMap<>(specificConfig.getSettings())
-                : new HashMap<>();
-
-        // Kết hợp cấu hình chung + riêng
-        Map<String, Object> appliedSettings = new HashMap<>();
-        appliedSettings.putAll(generalSettings);
-        appliedSettings.putAll(specificSettings);
-
-        // Cờ đồng bộ đầy đủ
-        boolean fullySynced = generalConfig != null && specificConfig != null;
-
         // Ghi log kiểm toán nếu đồng bộ đầy đủ
-        if (fullySynced) {
+        if (snapshot.fullySynced()) {
             Map<String, Object> auditDetails = Map.of(
                     "performedBy", SecurityUtils.getCurrentUserId(),
-                    "generalConfigId", generalConfig.getId(),
-                    "specificConfigId", specificConfig.getId(),
+                    "generalConfigId", snapshot.generalConfigId(),
+                    "specificConfigId", snapshot.specificConfigId(),
                     "appliedAt", LocalDateTime.now()
             );
-            auditLogService.logAction(AuditAction.SYNC_UP_CONFIGURATION, instrumentId, "Instrument", auditDetails);
+            auditLogService.logAction(AuditAction.SYNC_UP_CONFIGURATION, instrumentId, instrumentId, "Instrument", auditDetails);
         }
 
         return SyncConfigurationResponse.builder()
                 .instrumentId(instrumentId)
                 .instrumentModel(instrument.getModel())
                 .instrumentType(instrument.getType())
-                .generalConfigId(generalConfig != null ? generalConfig.getId() : null)
-                .specificConfigId(specificConfig != null ? specificConfig.getId() : null)
-                .generalSettings(generalSettings.isEmpty() ? null : generalSettings)
-                .specificSettings(specificSettings.isEmpty() ? null : specificSettings)
-                .appliedSettings(appliedSettings.isEmpty() ? null : appliedSettings)
-                .fullySynced(fullySynced)
-                .warnings(warnings.isEmpty() ? null : warnings)
+                .generalConfigId(snapshot.generalConfigId())
+                .specificConfigId(snapshot.specificConfigId())
+                .generalSettings(snapshot.generalSettings().isEmpty() ? null : snapshot.generalSettings())
+                .specificSettings(snapshot.specificSettings().isEmpty() ? null : snapshot.specificSettings())
+                .appliedSettings(snapshot.appliedSettings().isEmpty() ? null : snapshot.appliedSettings())
+                .fullySynced(snapshot.fullySynced())
+                .warnings(snapshot.warnings().isEmpty() ? null : snapshot.warnings())
+                .etag(snapshot.etag())
                 .build();
     }
 }
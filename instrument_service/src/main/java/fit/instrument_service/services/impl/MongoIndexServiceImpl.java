@@ -0,0 +1,185 @@
+/*
+ * @ {#} MongoIndexServiceImpl.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.instrument_service.services.impl;
+
+import com.mongodb.client.FindIterable;
+import fit.instrument_service.repositories.HotQueryCatalog;
+import fit.instrument_service.services.MongoIndexService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mapping.context.MappingContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/*
+ * @description: Spring Data index auto-creation is disabled, so the indexes declared on the entities are resolved with
+ *               the same resolver and created explicitly. Reconciliation is additive: an index that already exists by
+ *               name is left as it is, a conflicting one is reported instead of failing startup, and indexes present
+ *               only in the database are logged but never dropped. MongoDB 4.2+ builds indexes without blocking the
+ *               collection for the whole build, and the runner calls this off the startup thread.
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MongoIndexServiceImpl implements MongoIndexService {
+
+    private static final String ID_INDEX = "_id_";
+
+    private final MongoTemplate mongoTemplate;
+
+    // null cho tới khi kiểm tra kế hoạch truy vấn lần đầu
+    private volatile List<String> lastCollectionScans;
+
+    @Override
+    public List<String> reconcileIndexes() {
+        MappingContext<? extends MongoPersistentEntity<?>, MongoPersistentProperty> mappingContext =
+                mongoTemplate.getConverter().getMappingContext();
+        IndexResolver resolver = IndexResolver.create(mappingContext);
+
+        List<String> created = new ArrayList<>();
+        for (MongoPersistentEntity<?> entity : mappingContext.getPersistentEntities()) {
+            // Bỏ qua kiểu nhúng (embedded), chỉ xử lý entity có collection riêng
+            if (!entity.isAnnotationPresent(org.springframework.data.mongodb.core.mapping.Document.class)) {
+                continue;
+            }
+            List<IndexDefinition> declared = new ArrayList<>();
+            resolver.resolveIndexFor(entity.getTypeInformation()).forEach(declared::add);
+            if (!declared.isEmpty()) {
+                created.addAll(reconcileCollection(entity.getCollection(), declared));
+            }
+        }
+        return created;
+    }
+
+    @Override
+    public List<String> findCollectionScans() {
+        MappingContext<? extends MongoPersistentEntity<?>, MongoPersistentProperty> mappingContext =
+                mongoTemplate.getConverter().getMappingContext();
+        QueryMapper queryMapper = new QueryMapper(mongoTemplate.getConverter());
+
+        List<String> scans = new ArrayList<>();
+        for (HotQueryCatalog.HotQuery hotQuery : HotQueryCatalog.all()) {
+            MongoPersistentEntity<?> entity = mappingContext.getRequiredPersistentEntity(hotQuery.entityClass());
+            Document filter = queryMapper.getMappedObject(hotQuery.query().getQueryObject(), entity);
+            Document sort = queryMapper.getMappedSort(hotQuery.query().getSortObject(), entity);
+            try {
+                FindIterable<Document> find = mongoTemplate.getCollection(entity.getCollection()).find(filter).sort(sort);
+                if (hotQuery.query().getLimit() > 0) {
+                    find = find.limit(hotQuery.query().getLimit());
+                }
+                if (usesCollectionScan(find.explain())) {
+                    log.error("Query {} on {} runs as a collection scan: no declared index serves filter {}",
+                            hotQuery.name(), entity.getCollection(), filter.keySet());
+                    scans.add(hotQuery.name());
+                }
+            } catch (Exception e) {
+                log.warn("Could not explain query {}: {}", hotQuery.name(), e.getMessage());
+            }
+        }
+        lastCollectionScans = List.copyOf(scans);
+        return scans;
+    }
+
+    @Override
+    public Optional<List<String>> lastCollectionScans() {
+        return Optional.ofNullable(lastCollectionScans);
+    }
+
+    /**
+     * Kế hoạch thắng của kết quả explain() có bước COLLSCAN hay không
+     * (hỗ trợ cả định dạng cổ điển, SBE - winningPlan.queryPlan - và sharded - winningPlan.shards).
+     */
+    public static boolean usesCollectionScan(Document explain) {
+        Object queryPlanner = explain.get("queryPlanner");
+        return queryPlanner instanceof Document planner && containsStage(planner.get("winningPlan"), "COLLSCAN");
+    }
+
+    private List<String> reconcileCollection(String collection, List<IndexDefinition> declared) {
+        IndexOperations indexOperations = mongoTemplate.indexOps(collection);
+        Set<String> existing = new LinkedHashSet<>();
+        for (IndexInfo info : indexOperations.getIndexInfo()) {
+            existing.add(info.getName());
+        }
+
+        List<String> created = new ArrayList<>();
+        Set<String> declaredNames = new LinkedHashSet<>();
+        for (IndexDefinition definition : declared) {
+            String name = indexName(definition);
+            declaredNames.add(name);
+            if (existing.contains(name)) {
+                continue;
+            }
+            try {
+                indexOperations.ensureIndex(definition);
+                created.add(collection + "." + name);
+                log.info("Created index {} {} on {}", name, definition.getIndexKeys().toJson(), collection);
+            } catch (DataAccessException e) {
+                // Vd: cùng khóa nhưng khác tên/tùy chọn, hoặc dữ liệu trùng với index unique
+                log.warn("Could not create index {} on {}: {}", name, collection, e.getMessage());
+            }
+        }
+
+        existing.removeAll(declaredNames);
+        existing.remove(ID_INDEX);
+        if (!existing.isEmpty()) {
+            log.info("Indexes {} on {} are not declared on the entity; left in place", existing, collection);
+        }
+        return created;
+    }
+
+    // Tên index do resolver đặt; nếu không có thì dùng cách đặt tên mặc định của MongoDB (field_1_field_-1)
+    private static String indexName(IndexDefinition definition) {
+        String name = definition.getIndexOptions().getString("name");
+        if (name != null) {
+            return name;
+        }
+        List<String> parts = new ArrayList<>();
+        for (Map.Entry<String, Object> key : definition.getIndexKeys().entrySet()) {
+            parts.add(key.getKey() + "_" + key.getValue());
+        }
+        return String.join("_", parts);
+    }
+
+    private static boolean containsStage(Object node, String stage) {
+        if (node instanceof Document document) {
+            if (stage.equals(document.get("stage"))) {
+                return true;
+            }
+            for (Object value : document.values()) {
+                if (containsStage(value, stage)) {
+                    return true;
+                }
+            }
+        } else if (node instanceof List<?> list) {
+            for (Object value : list) {
+                if (containsStage(value, stage)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -6,14 +6,28 @@
 
 package fit.instrument_service.services.impl;
 
+import fit.instrument_service.dtos.response.StatusEvent;
 import fit.instrument_service.entities.BloodSample;
+import fit.instrument_service.entities.Cassette;
+import fit.instrument_service.entities.InstrumentReagent;
+import fit.instrument_service.entities.SampleProcessingWorkflow;
+import fit.instrument_service.enums.SampleStatus;
+import fit.instrument_service.enums.StatusEventType;
+import fit.instrument_service.enums.WorkflowStatus;
 import fit.instrument_service.services.NotificationService;
+import fit.instrument_service.services.StatusStreamService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
 /*
- * @description: Service xử lý thông báo trong hệ thống
+ * @description: Service xử lý thông báo trong hệ thống (ghi log và đẩy sự kiện trạng thái qua SSE)
  * @author: Tran Hien Vinh
  * @date:   12/11/2025
  * @version:    1.0
@@ -22,31 +36,94 @@ import org.springframework.stereotype.Service;
 @RequiredArgsConstructor
 @Slf4j
 public class NotificationServiceImpl implements NotificationService {
+
+    private final StatusStreamService statusStreamService;
+
     @Override
     public void notifySampleStatusUpdate(BloodSample sample) {
         log.info("Notification: Sample {} status updated to {}", sample.getBarcode(), sample.getStatus());
-        // TODO: Implement actual notification via RabbitMQ/WebSocket
-        // Could send to a notification queue for real-time updates to UI
+        statusStreamService.publish(sampleEvent(sample));
+    }
+
+    @Override
+    public void notifySampleStatusUpdates(List<BloodSample> samples) {
+        Map<SampleStatus, List<String>> barcodesByStatus = new EnumMap<>(SampleStatus.class);
+        for (BloodSample sample : samples) {
+            barcodesByStatus.computeIfAbsent(sample.getStatus(), s -> new ArrayList<>()).add(sample.getBarcode());
+            statusStreamService.publish(sampleEvent(sample));
+        }
+        barcodesByStatus.forEach((status, barcodes) ->
+                log.info("Notification: {} samples status updated to {}: {}", barcodes.size(), status, barcodes));
+    }
+
+    @Override
+    public void notifyWorkflowStatusUpdate(SampleProcessingWorkflow workflow) {
+        log.info("Notification: Workflow {} status updated to {}", workflow.getId(), workflow.getStatus());
+        statusStreamService.publish(StatusEvent.builder()
+                .type(StatusEventType.WORKFLOW)
+                .instrumentId(workflow.getInstrumentId())
+                .entityId(workflow.getId())
+                .reference(workflow.getCassetteId())
+                .workflowId(workflow.getId())
+                .status(workflow.getStatus() != null ? workflow.getStatus().name() : null)
+                .message(workflow.getErrorMessage())
+                .occurredAt(LocalDateTime.now())
+                .build());
     }
 
     @Override
     public void notifyWorkflowCompletion(String workflowId, String instrumentId) {
         log.info("Notification: Workflow {} completed for instrument {}",
                 workflowId, instrumentId);
-        // TODO: Implement actual notification via RabbitMQ/WebSocket
+        statusStreamService.publish(StatusEvent.builder()
+                .type(StatusEventType.WORKFLOW)
+                .instrumentId(instrumentId)
+                .entityId(workflowId)
+                .workflowId(workflowId)
+                .status(WorkflowStatus.COMPLETED.name())
+                .occurredAt(LocalDateTime.now())
+                .build());
+    }
+
+    @Override
+    public void notifyCassetteStatusUpdate(Cassette cassette) {
+        log.info("Notification: Cassette {} on instrument {} dequeued", cassette.getCassetteIdentifier(), cassette.getInstrumentId());
+        statusStreamService.publish(StatusEvent.builder()
+                .type(StatusEventType.CASSETTE)
+                .instrumentId(cassette.getInstrumentId())
+                .entityId(cassette.getId())
+                .reference(cassette.getCassetteIdentifier())
+                .workflowId(cassette.getWorkflowId())
+                .status(cassette.isProcessed() ? "PROCESSED" : "QUEUED")
+                .occurredAt(LocalDateTime.now())
+                .build());
     }
 
     @Override
     public void notifyInsufficientReagents(String instrumentId) {
         log.warn("Notification: Insufficient reagents for instrument {}", instrumentId);
-        // TODO: Implement actual notification via RabbitMQ/WebSocket
+        statusStreamService.publish(reagentAlert(instrumentId, null, "INSUFFICIENT", "Insufficient reagent levels"));
     }
 
     @Override
     public void notifyReagentEmpty(String instrumentId, String reagentName) {
         log.info("Notification: Reagent {} is empty for instrument {}",
                 reagentName, instrumentId);
-        // TODO: Implement actual notification via RabbitMQ/WebSocket
+        statusStreamService.publish(reagentAlert(instrumentId, reagentName, "EMPTY", "Reagent " + reagentName + " is empty"));
+    }
+
+    @Override
+    public void notifyReagentStatusUpdate(InstrumentReagent reagent) {
+        log.info("Notification: Reagent {} on instrument {} status updated to {}",
+                reagent.getReagentName(), reagent.getInstrumentId(), reagent.getStatus());
+        statusStreamService.publish(StatusEvent.builder()
+                .type(StatusEventType.REAGENT)
+                .instrumentId(reagent.getInstrumentId())
+                .entityId(reagent.getId())
+                .reference(reagent.getReagentName())
+                .status(reagent.getStatus() != null ? reagent.getStatus().name() : null)
+                .occurredAt(LocalDateTime.now())
+                .build());
     }
 
     @Override
@@ -55,4 +132,30 @@ public class NotificationServiceImpl implements NotificationService {
                 testOrderId, barcode);
         // TODO: Implement actual notification via RabbitMQ/WebSocket
     }
+
+    private static StatusEvent sampleEvent(BloodSample sample) {
+        return StatusEvent.builder()
+                .type(StatusEventType.SAMPLE)
+                .instrumentId(sample.getInstrumentId())
+                .entityId(sample.getId() != null ? sample.getId() : sample.getBarcode())
+                .reference(sample.getBarcode())
+                .workflowId(sample.getWorkflowId())
+                .status(sample.getStatus() != null ? sample.getStatus().name() : null)
+                .message(sample.getSkipReason())
+                .occurredAt(LocalDateTime.now())
+                .build();
+    }
+
+    // Cảnh báo hóa chất không gắn với một lô cụ thể được gộp theo thiết bị
+    private static StatusEvent reagentAlert(String instrumentId, String reagentName, String status, String message) {
+        return StatusEvent.builder()
+                .type(StatusEventType.REAGENT)
+                .instrumentId(instrumentId)
+                .entityId("alert:" + instrumentId + ":" + (reagentName != null ? reagentName : status))
+                .reference(reagentName)
+                .status(status)
+                .message(message)
+                .occurredAt(LocalDateTime.now())
+                .build();
+    }
 }
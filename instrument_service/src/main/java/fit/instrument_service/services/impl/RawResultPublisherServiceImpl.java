@@ -0,0 +1,357 @@
+/*
+ * @ {#} RawResultPublisherServiceImpl.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.instrument_service.services.impl;
+
+import com.mongodb.client.result.UpdateResult;
+import fit.instrument_service.entities.RawTestResult;
+import fit.instrument_service.enums.PublishStatus;
+import fit.instrument_service.services.RawResultPublisherService;
+import fit.instrument_service.services.WorkflowCheckpointService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+ * @description: Drains PENDING raw results in created_at order, sends each batch on one channel and marks it SENT only
+ *               after the broker confirms it. A rejected or timed-out batch is marked FAILED with an exponential
+ *               next_publish_at, so it is retried by a later pass instead of waiting for a downstream resync. Passes
+ *               are triggered by the workflow as soon as a result is stored and by a periodic sweep; delivery is
+ *               at-least-once. Each batch is claimed row by row with a lease before sending, so replicas never send
+ *               the same batch concurrently. Results stored before this publisher existed (no publish_attempts) were
+ *               already sent fire-and-forget and are marked SENT once at startup instead of being replayed.
+ *               Backlog size, oldest-unsent lag and created-to-confirmed latency are exported as metrics.
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+@Service
+@Slf4j
+public class RawResultPublisherServiceImpl implements RawResultPublisherService {
+
+    private static final List<PublishStatus> UNSENT_STATUSES = List.of(PublishStatus.PENDING, PublishStatus.FAILED);
+
+    private final MongoTemplate mongoTemplate;
+    private final RabbitTemplate rabbitTemplate;
+    private final WorkflowCheckpointService workflowCheckpointService;
+    private final int batchSize;
+    private final int maxBatchBytes;
+    private final long confirmTimeoutMs;
+    private final long retryBaseMs;
+    private final long retryMaxMs;
+    private final long claimLeaseMs;
+
+    private final AtomicLong pendingResults = new AtomicLong();
+    private final AtomicLong failedResults = new AtomicLong();
+    private final AtomicLong publishLagSeconds = new AtomicLong();
+    private final Counter sentCounter;
+    private final Counter failureCounter;
+    private final Timer deliveryTimer;
+
+    private final AtomicBoolean publishRequested = new AtomicBoolean();
+    // Chỉ một lượt gửi tại một thời điểm (tín hiệu từ workflow và lượt quét định kỳ)
+    private final ReentrantLock publishLock = new ReentrantLock();
+    private final ScheduledExecutorService publisher;
+
+    public RawResultPublisherServiceImpl(MongoTemplate mongoTemplate,
+                                         RabbitTemplate rabbitTemplate,
+                                         WorkflowCheckpointService workflowCheckpointService,
+                                         MeterRegistry meterRegistry,
+                                         @Value("${app.result-publisher.batch-size:100}") int batchSize,
+                                         @Value("${app.result-publisher.max-batch-bytes:1048576}") int maxBatchBytes,
+                                         @Value("${app.result-publisher.confirm-timeout-ms:10000}") long confirmTimeoutMs,
+                                         @Value("${app.result-publisher.sweep-interval-ms:5000}") long sweepIntervalMs,
+                                         @Value("${app.result-publisher.retry-base-ms:5000}") long retryBaseMs,
+                                         @Value("${app.result-publisher.retry-max-ms:300000}") long retryMaxMs,
+                                         @Value("${app.result-publisher.claim-lease-ms:60000}") long claimLeaseMs) {
+        this.mongoTemplate = mongoTemplate;
+        this.rabbitTemplate = rabbitTemplate;
+        this.workflowCheckpointService = workflowCheckpointService;
+        this.batchSize = batchSize;
+        this.maxBatchBytes = maxBatchBytes;
+        this.confirmTimeoutMs = confirmTimeoutMs;
+        this.retryBaseMs = retryBaseMs;
+        this.retryMaxMs = retryMaxMs;
+        // Lease phải dài hơn thời gian chờ xác nhận, nếu không replica khác có thể nhận lại lô đang gửi
+        this.claimLeaseMs = Math.max(claimLeaseMs, confirmTimeoutMs * 2);
+
+        Gauge.builder("instrument.results.pending", pendingResults, AtomicLong::get)
+                .description("Raw results waiting for their first publish")
+                .register(meterRegistry);
+        Gauge.builder("instrument.results.failed", failedResults, AtomicLong::get)
+                .description("Raw results waiting for a publish retry")
+                .register(meterRegistry);
+        Gauge.builder("instrument.results.publish.lag", publishLagSeconds, AtomicLong::get)
+                .description("Age of the oldest raw result not yet confirmed by the broker")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        this.sentCounter = Counter.builder("instrument.results.published")
+                .description("Raw results confirmed by the broker")
+                .register(meterRegistry);
+        this.failureCounter = Counter.builder("instrument.results.publish.failures")
+                .description("Raw result publish attempts that failed and were scheduled for retry")
+                .register(meterRegistry);
+        this.deliveryTimer = Timer.builder("instrument.results.delivery")
+                .description("Time from storing a raw result to its broker confirmation")
+                .register(meterRegistry);
+
+        this.publisher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "raw-result-publisher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.publisher.scheduleWithFixedDelay(this::publishQuietly, sweepIntervalMs, sweepIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PostConstruct
+    public void start() {
+        publisher.execute(this::markLegacyResultsSent);
+    }
+
+    @Override
+    public void requestPublish() {
+        if (publishRequested.compareAndSet(false, true)) {
+            publisher.execute(() -> {
+                publishRequested.set(false);
+                publishQuietly();
+            });
+        }
+    }
+
+    @Override
+    public int publishDue() {
+        publishLock.lock();
+        try {
+            int published = 0;
+            while (true) {
+                List<String> candidates = findDue();
+                if (candidates.isEmpty()) {
+                    break;
+                }
+                List<RawTestResult> claimed = claim(candidates);
+                if (claimed.isEmpty()) {
+                    // Replica khác đã nhận cả lô
+                    break;
+                }
+                int confirmed = publishBatch(claimed);
+                if (confirmed <= 0) {
+                    // Broker lỗi hoặc cả lô không gửi được: dừng lượt này, các kết quả đã được hẹn giờ thử lại
+                    break;
+                }
+                published += confirmed;
+                if (candidates.size() < batchSize) {
+                    break;
+                }
+            }
+            return published;
+        } finally {
+            try {
+                refreshBacklogMetrics();
+            } finally {
+                publishLock.unlock();
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        publisher.shutdownNow();
+    }
+
+    // Thời gian chờ trước lần thử thứ n: base * 2^(n-1), tối đa retryMaxMs
+    private long retryDelayMs(int attempts) {
+        return Math.min(retryMaxMs, retryBaseMs * (1L << Math.min(Math.max(attempts - 1, 0), 20)));
+    }
+
+    /**
+     * Kết quả PENDING do publisher quản lý, hoặc FAILED đã đến hạn thử lại ($not $gt cũng khớp kết quả FAILED cũ
+     * chưa có next_publish_at), và không đang được replica nào giữ lease.
+     */
+    public static Criteria dueCriteria(LocalDateTime now) {
+        return new Criteria().andOperator(
+                new Criteria().orOperator(
+                        Criteria.where("publish_status").is(PublishStatus.PENDING).and("publish_attempts").exists(true),
+                        Criteria.where("publish_status").is(PublishStatus.FAILED).and("next_publish_at").not().gt(now)),
+                Criteria.where("publish_claimed_until").not().gt(now));
+    }
+
+    // Kết quả lưu trước khi có publisher: workflow cũ đã gửi fire-and-forget và để nguyên PENDING, không gửi lại
+    void markLegacyResultsSent() {
+        try {
+            UpdateResult result = mongoTemplate.updateMulti(
+                    Query.query(Criteria.where("publish_status").is(PublishStatus.PENDING)
+                            .and("publish_attempts").exists(false)),
+                    new Update().set("publish_status", PublishStatus.SENT),
+                    RawTestResult.class);
+            if (result.getModifiedCount() > 0) {
+                log.info("Marked {} raw results stored before the confirmed publisher as SENT", result.getModifiedCount());
+            }
+        } catch (Exception e) {
+            // Không ảnh hưởng việc gửi: dueCriteria đã bỏ qua các kết quả này
+            log.warn("Could not mark legacy raw results as SENT: {}", e.getMessage());
+        }
+    }
+
+    private List<String> findDue() {
+        Query query = Query.query(dueCriteria(LocalDateTime.now()))
+                .with(Sort.by(Sort.Direction.ASC, "created_at"))
+                .limit(batchSize);
+        query.fields().include("_id");
+        return mongoTemplate.find(query, RawTestResult.class).stream()
+                .map(RawTestResult::getId)
+                .toList();
+    }
+
+    /**
+     * Nhận lô bằng lease theo từng kết quả: mỗi document được cập nhật nguyên tử khi điều kiện còn khớp, nên kết quả
+     * replica khác vừa nhận sẽ bị bỏ qua. Trả về các kết quả mang mã nhận của lượt này.
+     */
+    private List<RawTestResult> claim(List<String> candidates) {
+        LocalDateTime now = LocalDateTime.now();
+        String claimToken = UUID.randomUUID().toString();
+        mongoTemplate.updateMulti(
+                Query.query(new Criteria().andOperator(Criteria.where("_id").in(candidates), dueCriteria(now))),
+                new Update()
+                        .set("publish_claimed_by", claimToken)
+                        .set("publish_claimed_until", now.plus(Duration.ofMillis(claimLeaseMs))),
+                RawTestResult.class);
+        return mongoTemplate.find(
+                Query.query(Criteria.where("_id").in(candidates).and("publish_claimed_by").is(claimToken))
+                        .with(Sort.by(Sort.Direction.ASC, "created_at")),
+                RawTestResult.class);
+    }
+
+    private int publishBatch(List<RawTestResult> due) {
+        List<RawTestResult> unconvertible = new ArrayList<>();
+        List<String> ids;
+        try {
+            ids = TestResultMessages.sendConfirmed(rabbitTemplate, due, maxBatchBytes, confirmTimeoutMs, unconvertible);
+        } catch (Exception e) {
+            log.warn("Publishing {} raw results was not confirmed: {}", due.size(), e.getMessage());
+            markFailed(due, e.getMessage());
+            return -1;
+        }
+
+        markFailed(unconvertible, "Result could not be converted to a message");
+        if (!ids.isEmpty()) {
+            markSent(due, ids);
+        }
+        return ids.size();
+    }
+
+    private void markSent(List<RawTestResult> due, List<String> ids) {
+        LocalDateTime now = LocalDateTime.now();
+        mongoTemplate.updateMulti(
+                Query.query(Criteria.where("_id").in(ids)),
+                new Update()
+                        .set("publish_status", PublishStatus.SENT)
+                        .set("published_at", now)
+                        .unset("next_publish_at")
+                        .unset("last_publish_error")
+                        .unset("publish_claimed_by")
+                        .unset("publish_claimed_until"),
+                RawTestResult.class);
+        sentCounter.increment(ids.size());
+
+        Set<String> sent = new HashSet<>(ids);
+        for (RawTestResult raw : due) {
+            if (sent.contains(raw.getId()) && raw.getCreatedAt() != null) {
+                deliveryTimer.record(Duration.between(raw.getCreatedAt(), now));
+            }
+        }
+
+        try {
+            workflowCheckpointService.markPublished(ids);
+        } catch (Exception e) {
+            // Kết quả đã SENT nên không gửi lại; checkpoint chỉ dùng khi tiếp tục quy trình
+            log.warn("Could not checkpoint {} published samples: {}", ids.size(), e.getMessage());
+        }
+        log.info("Published {} raw results with broker confirmation", ids.size());
+    }
+
+    private void markFailed(List<RawTestResult> results, String error) {
+        if (results.isEmpty()) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, RawTestResult.class);
+        for (RawTestResult raw : results) {
+            int attempts = raw.getPublishAttempts() + 1;
+            // Chỉ khi lease vẫn thuộc lượt này: không ghi đè kết quả replica khác đã nhận lại và gửi xong
+            ops.updateOne(Query.query(Criteria.where("_id").is(raw.getId())
+                            .and("publish_claimed_by").is(raw.getPublishClaimedBy())),
+                    new Update()
+                            .set("publish_status", PublishStatus.FAILED)
+                            .set("publish_attempts", attempts)
+                            .set("next_publish_at", now.plus(Duration.ofMillis(retryDelayMs(attempts))))
+                            .set("last_publish_error", error)
+                            .unset("publish_claimed_by")
+                            .unset("publish_claimed_until"));
+        }
+        try {
+            ops.execute();
+        } catch (RuntimeException e) {
+            // Trạng thái không đổi: kết quả vẫn được chọn ở lượt sau
+            log.error("Could not record publish failure of {} raw results: {}", results.size(), e.getMessage());
+        }
+        failureCounter.increment(results.size());
+    }
+
+    private void refreshBacklogMetrics() {
+        try {
+            pendingResults.set(mongoTemplate.count(
+                    Query.query(Criteria.where("publish_status").is(PublishStatus.PENDING)), RawTestResult.class));
+            failedResults.set(mongoTemplate.count(
+                    Query.query(Criteria.where("publish_status").is(PublishStatus.FAILED)), RawTestResult.class));
+
+            Query oldest = Query.query(Criteria.where("publish_status").in(UNSENT_STATUSES))
+                    .with(Sort.by(Sort.Direction.ASC, "created_at"));
+            oldest.fields().include("created_at");
+            RawTestResult raw = mongoTemplate.findOne(oldest, RawTestResult.class);
+            publishLagSeconds.set(raw == null || raw.getCreatedAt() == null
+                    ? 0
+                    : Math.max(0, Duration.between(raw.getCreatedAt(), LocalDateTime.now()).toSeconds()));
+        } catch (Exception e) {
+            log.warn("Could not refresh raw result backlog metrics: {}", e.getMessage());
+        }
+    }
+
+    private void publishQuietly() {
+        try {
+            publishDue();
+        } catch (Exception e) {
+            log.error("Error while publishing raw results", e);
+        }
+    }
+}
@@ -14,6 +14,7 @@ import fit.instrument_service.exceptions.NotFoundException;
 import fit.instrument_service.repositories.InstrumentReagentRepository;
 import fit.instrument_service.services.AuditLogService;
 import fit.instrument_service.services.ReagentCheckService;
+import fit.instrument_service.services.ReagentLedgerService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -35,6 +36,7 @@ import java.util.Map;
 public class ReagentCheckServiceImpl implements ReagentCheckService {
     private final InstrumentReagentRepository instrumentReagentRepository;
     private final AuditLogService auditLogService;
+    private final ReagentLedgerService reagentLedgerService;
 
     private static final int MINIMUM_REAGENT_QUANTITY = 10;
 
@@ -81,6 +83,10 @@ public class ReagentCheckServiceImpl implements ReagentCheckService {
     public void uninstallReagent(String instrumentId, String instrumentReagentId, String reason) { //
         log.info("Attempting to uninstall reagent lot {} from instrument {}", instrumentReagentId, instrumentId);
 
+        // Ghi sổ và báo lượng tiêu hao còn treo về warehouse trước khi bản ghi bị xóa
+        reagentLedgerService.invalidate(instrumentId);
+        reagentLedgerService.reconcileWithWarehouse();
+
         // 1. Tìm bản ghi InstrumentReagent
         // Giả định các Exception (NotFoundException, BadRequestException) đã được import
         InstrumentReagent instrumentReagent = instrumentReagentRepository.findById(instrumentReagentId)
@@ -110,6 +116,7 @@ public class ReagentCheckServiceImpl implements ReagentCheckService {
         auditLogService.logAction(
                 AuditAction.DELETE_REAGENT,
                 instrumentId,
+                instrumentReagentId,
                 "InstrumentReagent",
                 details
         );
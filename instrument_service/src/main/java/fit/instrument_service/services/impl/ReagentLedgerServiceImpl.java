@@ -0,0 +1,295 @@
+/*
+ * @ {#} ReagentLedgerServiceImpl.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.instrument_service.services.impl;
+
+import fit.instrument_service.client.WarehouseFeignClient;
+import fit.instrument_service.dtos.request.ReagentConsumptionBatchRequest;
+import fit.instrument_service.dtos.response.ApiResponse;
+import fit.instrument_service.dtos.response.ReagentConsumptionBatchResponse;
+import fit.instrument_service.entities.InstrumentReagent;
+import fit.instrument_service.enums.ReagentStatus;
+import fit.instrument_service.repositories.InstrumentReagentRepository;
+import fit.instrument_service.security.ServiceTokenProvider;
+import fit.instrument_service.services.ReagentLedgerService;
+import fit.instrument_service.utils.ReagentUsageDescriptorCache;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+ * @description: Keeps the remaining quantity of every IN_USE reagent lot of an instrument in memory and deducts each
+ *               run with atomic counters instead of a read-modify-save per reagent. Deductions are written to MongoDB
+ *               in one bulk update per flush, which also moves them into the lot's unreconciled_usage counter; the
+ *               reconciliation step first freezes that usage into inflight_usage under a new batch id, then sends the
+ *               frozen batch to warehouse_service and clears it only once the warehouse acknowledges it. A batch whose
+ *               response was lost is resent unchanged (same id, same amounts), so the warehouse recognises it, while
+ *               usage flushed in the meantime waits in unreconciled_usage for the next batch. The call carries a
+ *               service token because the scheduler has no user. Lots the warehouse does not know go back to pending
+ *               and are reported as failures.
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ReagentLedgerServiceImpl implements ReagentLedgerService {
+
+    private final InstrumentReagentRepository instrumentReagentRepository;
+    private final ReagentUsageDescriptorCache usageDescriptorCache;
+    private final WarehouseFeignClient warehouseFeignClient;
+    private final MongoTemplate mongoTemplate;
+    private final ServiceTokenProvider serviceTokenProvider;
+
+    private final ConcurrentMap<String, List<LotBalance>> ledgers = new ConcurrentHashMap<>();
+    // Chỉ một lượt đối soát chạy tại một thời điểm (scheduler và cuối workflow có thể trùng nhau)
+    private final ReentrantLock reconcileLock = new ReentrantLock();
+
+    @Override
+    public boolean hasReagentsInUse(String instrumentId) {
+        return !ledger(instrumentId).isEmpty();
+    }
+
+    @Override
+    public Optional<String> consumeRun(String instrumentId) {
+        List<LotBalance> lots = ledger(instrumentId);
+        if (lots.isEmpty()) {
+            throw new IllegalStateException("No reagent available for this instrument");
+        }
+
+        String exhausted = null;
+        for (LotBalance lot : lots) {
+            int before = lot.remaining.getAndUpdate(q -> Math.max(0, q - lot.usagePerRun));
+            int after = Math.max(0, before - lot.usagePerRun);
+            lot.unflushed.addAndGet(before - after);
+            log.debug("Reagent {} deducted by {}: {} -> {}", lot.reagentName, lot.usagePerRun, before, after);
+            if (after == 0 && exhausted == null) {
+                exhausted = lot.reagentName;
+            }
+        }
+        return Optional.ofNullable(exhausted);
+    }
+
+    @Override
+    public void flush(String instrumentId) {
+        List<LotBalance> lots = ledgers.get(instrumentId);
+        if (lots != null) {
+            flushLots(lots);
+        }
+    }
+
+    @Override
+    public void flushAll() {
+        for (List<LotBalance> lots : ledgers.values()) {
+            flushLots(lots);
+        }
+    }
+
+    @Override
+    public void invalidate(String instrumentId) {
+        List<LotBalance> lots = ledgers.remove(instrumentId);
+        if (lots != null) {
+            flushLots(lots);
+            lots.forEach(lot -> usageDescriptorCache.evict(lot.lotNumber));
+        }
+    }
+
+    @Override
+    public int reconcileWithWarehouse() {
+        if (!reconcileLock.tryLock()) {
+            return 0;
+        }
+        try {
+            flushAll();
+            freezePendingUsage();
+
+            List<InstrumentReagent> inflight = instrumentReagentRepository.findByInflightBatchIdIsNotNull();
+            if (inflight.isEmpty()) {
+                return 0;
+            }
+
+            // Batch chưa được xác nhận (kể cả của lượt trước hoặc replica khác) được gửi lại nguyên vẹn
+            Map<String, List<InstrumentReagent>> batches = new LinkedHashMap<>();
+            for (InstrumentReagent reagent : inflight) {
+                batches.computeIfAbsent(reagent.getInflightBatchId(), id -> new ArrayList<>()).add(reagent);
+            }
+            int reconciled = 0;
+            for (Map.Entry<String, List<InstrumentReagent>> batch : batches.entrySet()) {
+                reconciled += sendBatch(batch.getKey(), batch.getValue());
+            }
+            return reconciled;
+        } finally {
+            reconcileLock.unlock();
+        }
+    }
+
+    /**
+     * Chuyển lượng chờ đối soát của các lô chưa có batch đang gửi sang inflight_usage dưới một batchId mới.
+     * Điều kiện inflight_batch_id = null giữ mỗi lô trong tối đa một batch đang gửi; lượng flush thêm sau đó nằm lại
+     * ở unreconciled_usage cho batch sau.
+     */
+    private void freezePendingUsage() {
+        List<InstrumentReagent> pending = instrumentReagentRepository.findByUnreconciledUsageGreaterThan(0).stream()
+                .filter(reagent -> reagent.getInflightBatchId() == null)
+                .toList();
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        String batchId = "RCB-" + UUID.randomUUID();
+        BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, InstrumentReagent.class);
+        for (InstrumentReagent reagent : pending) {
+            int amount = reagent.getUnreconciledUsage();
+            ops.updateOne(Query.query(Criteria.where("_id").is(reagent.getId())
+                            .and("inflight_batch_id").is(null)
+                            .and("unreconciled_usage").gte(amount)),
+                    new Update().set("inflight_batch_id", batchId)
+                            .set("inflight_usage", amount)
+                            .inc("unreconciled_usage", -amount));
+        }
+        ops.execute();
+    }
+
+    private int sendBatch(String batchId, List<InstrumentReagent> lots) {
+        List<ReagentConsumptionBatchRequest.Entry> entries = new ArrayList<>(lots.size());
+        for (InstrumentReagent reagent : lots) {
+            entries.add(new ReagentConsumptionBatchRequest.Entry(
+                    reagent.getLotNumber(), reagent.getInstrumentId(), (double) inflightUsage(reagent)));
+        }
+
+        ReagentConsumptionBatchResponse result;
+        try {
+            ApiResponse<ReagentConsumptionBatchResponse> response = serviceTokenProvider.callAsService(() ->
+                    warehouseFeignClient.recordReagentConsumption(new ReagentConsumptionBatchRequest(batchId, entries)));
+            if (response == null || !response.isSuccess() || response.getData() == null) {
+                log.warn("Warehouse rejected reagent consumption batch {} of {} lots; will resend it", batchId, entries.size());
+                return 0;
+            }
+            result = response.getData();
+        } catch (Exception e) {
+            log.warn("Reagent consumption batch {} of {} lots failed; will resend it: {}", batchId, entries.size(), e.getMessage());
+            return 0;
+        }
+
+        // Lô warehouse không biết: trả lượng về unreconciled_usage để gửi lại trong batch sau
+        Set<String> unknownLots = result.getUnknownLotNumbers() != null
+                ? new HashSet<>(result.getUnknownLotNumbers())
+                : Set.of();
+        if (!unknownLots.isEmpty()) {
+            log.error("Warehouse does not know reagent lots {}; their consumption stays unreconciled", unknownLots);
+        }
+
+        int reconciled = 0;
+        BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, InstrumentReagent.class);
+        for (InstrumentReagent reagent : lots) {
+            int amount = inflightUsage(reagent);
+            Update update = new Update().unset("inflight_batch_id").set("inflight_usage", 0);
+            if (unknownLots.contains(reagent.getLotNumber())) {
+                update.inc("unreconciled_usage", amount);
+            } else {
+                update.inc("reconciled_usage", amount);
+                reconciled++;
+            }
+            ops.updateOne(Query.query(Criteria.where("_id").is(reagent.getId()).and("inflight_batch_id").is(batchId)), update);
+        }
+        ops.execute();
+
+        log.info("Reconciled reagent consumption of {} lots with warehouse (batch {}{}), {} failed",
+                reconciled, batchId, result.isAlreadyRecorded() ? ", already recorded" : "", lots.size() - reconciled);
+        return reconciled;
+    }
+
+    private static int inflightUsage(InstrumentReagent reagent) {
+        return Optional.ofNullable(reagent.getInflightUsage()).orElse(0);
+    }
+
+    // Nạp sổ của thiết bị một lần (truy vấn theo trạng thái thay vì lọc trong bộ nhớ)
+    private List<LotBalance> ledger(String instrumentId) {
+        List<LotBalance> lots = ledgers.computeIfAbsent(instrumentId, id -> instrumentReagentRepository
+                .findByInstrumentIdAndStatus(id, ReagentStatus.IN_USE)
+                .stream()
+                .map(reagent -> new LotBalance(
+                        reagent.getId(),
+                        reagent.getReagentName(),
+                        reagent.getLotNumber(),
+                        usageDescriptorCache.usagePerRun(reagent.getLotNumber()),
+                        Optional.ofNullable(reagent.getQuantity()).orElse(0)))
+                .toList());
+        if (lots.isEmpty()) {
+            // Không giữ sổ rỗng để lần sau đọc lại khi có lô được chuyển sang IN_USE
+            ledgers.remove(instrumentId, lots);
+        }
+        return lots;
+    }
+
+    private void flushLots(List<LotBalance> lots) {
+        BulkOperations ops = null;
+        List<LotBalance> taken = new ArrayList<>();
+        List<Integer> amounts = new ArrayList<>();
+        for (LotBalance lot : lots) {
+            int amount = lot.unflushed.getAndSet(0);
+            if (amount == 0) {
+                continue;
+            }
+            if (ops == null) {
+                ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, InstrumentReagent.class);
+            }
+            ops.updateOne(Query.query(Criteria.where("_id").is(lot.reagentId)),
+                    new Update().inc("quantity", -amount).inc("unreconciled_usage", amount));
+            taken.add(lot);
+            amounts.add(amount);
+        }
+        if (ops == null) {
+            return;
+        }
+        try {
+            ops.execute();
+        } catch (RuntimeException e) {
+            // Trả lại phần chưa ghi để lần flush sau thử lại
+            for (int i = 0; i < taken.size(); i++) {
+                taken.get(i).unflushed.addAndGet(amounts.get(i));
+            }
+            log.error("Failed to flush reagent ledger: {}", e.getMessage());
+        }
+    }
+
+    private static final class LotBalance {
+        private final String reagentId;
+        private final String reagentName;
+        private final String lotNumber;
+        private final int usagePerRun;
+        private final AtomicInteger remaining;
+        // Đã trừ trong bộ nhớ nhưng chưa ghi xuống MongoDB
+        private final AtomicInteger unflushed = new AtomicInteger();
+
+        private LotBalance(String reagentId, String reagentName, String lotNumber, int usagePerRun, int remaining) {
+            this.reagentId = reagentId;
+            this.reagentName = reagentName;
+            this.lotNumber = lotNumber;
+            this.usagePerRun = usagePerRun;
+            this.remaining = new AtomicInteger(remaining);
+        }
+    }
+}
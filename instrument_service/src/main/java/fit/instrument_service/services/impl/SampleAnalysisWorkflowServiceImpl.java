@@ -6,17 +6,10 @@
 
 package fit.instrument_service.services.impl;
 
-import ca.uhn.hl7v2.HL7Exception;
-import ca.uhn.hl7v2.model.v25.message.ORU_R01;
-import ca.uhn.hl7v2.model.v25.segment.*;
-import ca.uhn.hl7v2.parser.Parser;
 import feign.FeignException;
 import fit.instrument_service.client.TestOrderFeignClient;
-import fit.instrument_service.client.WarehouseFeignClient;
 import fit.instrument_service.client.dtos.*;
-import fit.instrument_service.client.dtos.ReagentLotStatusResponse;
 import fit.instrument_service.client.dtos.enums.Gender;
-import fit.instrument_service.configs.RabbitMQConfig;
 import fit.instrument_service.dtos.request.InitiateWorkflowRequest;
 import fit.instrument_service.dtos.request.SampleInput;
 import fit.instrument_service.dtos.response.ApiResponse;
@@ -24,26 +17,28 @@ import fit.instrument_service.dtos.response.SampleResponse;
 import fit.instrument_service.dtos.response.WorkflowResponse;
 import fit.instrument_service.entities.*;
 import fit.instrument_service.enums.*;
-import fit.instrument_service.events.TestResultPublishedEvent;
 import fit.instrument_service.exceptions.NotFoundException;
 import fit.instrument_service.repositories.*;
 import fit.instrument_service.services.BarcodeValidationService;
 import fit.instrument_service.services.NotificationService;
+import fit.instrument_service.services.RawResultPublisherService;
 import fit.instrument_service.services.ReagentCheckService;
+import fit.instrument_service.services.ReagentLedgerService;
 import fit.instrument_service.services.SampleAnalysisWorkflowService;
+import fit.instrument_service.services.SampleStateService;
+import fit.instrument_service.services.WorkflowCheckpointService;
+import fit.instrument_service.simulator.AnalyzerSimulatorRegistry;
+import fit.instrument_service.simulator.ParameterRanges;
+import fit.instrument_service.simulator.SimulationRun;
+import fit.instrument_service.utils.Hl7ResultEncoder;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
-import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 /*
@@ -57,20 +52,24 @@ import java.util.stream.Collectors;
 @Slf4j
 public class SampleAnalysisWorkflowServiceImpl implements SampleAnalysisWorkflowService {
 
+    // Số mẫu kết thúc được gom lại trước khi ghi trạng thái bằng một lệnh updateMulti
+    private static final int TERMINAL_TRANSITION_BATCH_SIZE = 20;
+
     private final InstrumentRepository instrumentRepository;
     private final BloodSampleRepository bloodSampleRepository;
     private final RawTestResultRepository rawTestResultRepository;
-    private final InstrumentReagentRepository instrumentReagentRepository;
     private final SampleProcessingWorkflowRepository workflowRepository;
     private final CassetteRepository cassetteRepository;
     private final BarcodeValidationService barcodeValidationService;
     private final ReagentCheckService reagentCheckService;
     private final NotificationService notificationService;
     private final TestOrderFeignClient testOrderFeignClient;
-    private final WarehouseFeignClient warehouseFeignClient;
-    private final Parser parser;
-    private final RabbitTemplate rabbitTemplate;
-    private final Random random = new Random();
+    private final ReagentLedgerService reagentLedgerService;
+    private final Hl7ResultEncoder hl7ResultEncoder;
+    private final RawResultPublisherService rawResultPublisherService;
+    private final AnalyzerSimulatorRegistry analyzerSimulatorRegistry;
+    private final SampleStateService sampleStateService;
+    private final WorkflowCheckpointService workflowCheckpointService;
 
     @Override
     @Transactional
@@ -115,21 +114,31 @@ public class SampleAnalysisWorkflowServiceImpl implements SampleAnalysisWorkflow
         workflow.setStartedAt(LocalDateTime.now());
         workflow.setReagentCheckPassed(true);
         workflow.setTestOrderServiceAvailable(true);
+        // Instance này sở hữu quy trình; lượt khôi phục ở replica khác bỏ qua khi heartbeat còn mới
+        workflowCheckpointService.markOwned(workflow);
         workflow = workflowRepository.save(workflow);
 
         log.info("Created workflow: {}", workflow.getId());
 
         // Xử lý từng mẫu trong yêu cầu
-        List<String> sampleIds = new ArrayList<>();
+        List<BloodSample> samples = new ArrayList<>(request.getSamples().size());
         for (SampleInput sampleInput : request.getSamples()) {
-            // Xử lý mẫu và lưu vào cơ sở dữ liệu
-            BloodSample sample = processSampleInput(sampleInput, workflow.getId(), request.getInstrumentId());
+            samples.add(processSampleInput(sampleInput, workflow.getId(), request.getInstrumentId()));
+        }
+
+        // Lưu tất cả mẫu bằng một lệnh insert và thông báo trạng thái một lần
+        List<BloodSample> savedSamples = bloodSampleRepository.saveAll(samples);
+        notificationService.notifySampleStatusUpdates(savedSamples);
+
+        List<String> sampleIds = new ArrayList<>(savedSamples.size());
+        for (BloodSample sample : savedSamples) {
             sampleIds.add(sample.getId());
         }
 
         // Cập nhật danh sách mẫu vào quy trình
         workflow.setSampleIds(sampleIds);
         workflow.setStatus(WorkflowStatus.VALIDATING);
+        workflowCheckpointService.markOwned(workflow);
         workflow = workflowRepository.save(workflow);
 
         // Cập nhật trạng thái thiết bị thành RUNNING
@@ -142,7 +151,7 @@ public class SampleAnalysisWorkflowServiceImpl implements SampleAnalysisWorkflow
         return buildWorkflowResponse(workflow);
     }
 
-    // Hàm xử lý từng mẫu trong request
+    // Hàm xử lý từng mẫu trong request (chưa lưu, mẫu được ghi cùng lúc bằng saveAll)
     private BloodSample processSampleInput(SampleInput input, String workflowId, String instrumentId) {
         log.info("Processing sample input with barcode: {}", input.getBarcode());
 
@@ -161,8 +170,6 @@ public class SampleAnalysisWorkflowServiceImpl implements SampleAnalysisWorkflow
             log.warn("Invalid barcode: {}", input.getBarcode());
             sample.setStatus(SampleStatus.SKIPPED);
             sample.setSkipReason("Invalid barcode format");
-            bloodSampleRepository.save(sample);
-            notificationService.notifySampleStatusUpdate(sample);
             return sample;
         }
 
@@ -180,8 +187,6 @@ public class SampleAnalysisWorkflowServiceImpl implements SampleAnalysisWorkflow
                     log.error("Test order not found {}", input.getTestOrderId());
                     sample.setStatus(SampleStatus.SKIPPED);
                     sample.setSkipReason("Test order not found");
-                    bloodSampleRepository.save(sample);
-                    notificationService.notifySampleStatusUpdate(sample);
                     return sample;
                 }
 
@@ -191,8 +196,6 @@ public class SampleAnalysisWorkflowServiceImpl implements SampleAnalysisWorkflow
                             input.getBarcode(), order.getBarcode());
                     sample.setStatus(SampleStatus.SKIPPED);
                     sample.setSkipReason("Barcode does not match Test Order");
-                    bloodSampleRepository.save(sample);
-                    notificationService.notifySampleStatusUpdate(sample);
                     return sample;
                 }
 
@@ -204,8 +207,6 @@ public class SampleAnalysisWorkflowServiceImpl implements SampleAnalysisWorkflow
                 log.error("Error fetching Test Order: {}", e.getMessage());
                 sample.setStatus(SampleStatus.SKIPPED);
                 sample.setSkipReason("Test Order Service unavailable");
-                bloodSampleRepository.save(sample);
-                notificationService.notifySampleStatusUpdate(sample);
                 return sample;
             }
 
@@ -221,11 +222,8 @@ public class SampleAnalysisWorkflowServiceImpl implements SampleAnalysisWorkflow
             notificationService.notifyAutoCreatedTestOrder(newTestOrderId, input.getBarcode());
         }
 
-        // Đặt trạng thái mẫu thành VALIDATED và thông báo
+        // Đặt trạng thái mẫu thành VALIDATED
         sample.setStatus(SampleStatus.VALIDATED);
-        bloodSampleRepository.save(sample);
-        notificationService.notifySampleStatusUpdate(sample);
-
         return sample;
     }
 
@@ -279,24 +277,57 @@ public class SampleAnalysisWorkflowServiceImpl implements SampleAnalysisWorkflow
 
         try {
             workflow.setStatus(WorkflowStatus.RUNNING);
+            workflowCheckpointService.markOwned(workflow);
             workflowRepository.save(workflow);
+            notificationService.notifyWorkflowStatusUpdate(workflow);
 
-            // Lấy danh sách mẫu đã được xác thực
             List<BloodSample> samples = bloodSampleRepository.findByWorkflowId(workflow.getId());
+
+            // Mẫu QUEUED/PROCESSING chỉ có khi tiếp tục quy trình bị gián đoạn: xử lý tiếp từ checkpoint
+            List<BloodSample> pendingSamples = samples.stream()
+                    .filter(s -> s.getStatus() == SampleStatus.QUEUED || s.getStatus() == SampleStatus.PROCESSING)
+                    .collect(Collectors.toCollection(ArrayList::new));
+
+            // Đặt trạng thái các mẫu đã xác thực thành QUEUED bằng một lệnh updateMulti
             List<BloodSample> validatedSamples = samples.stream()
                     .filter(s -> s.getStatus() == SampleStatus.VALIDATED)
                     .toList();
-
-            // Đặt trạng thái mẫu thành QUEUED và thông báo
-            for (BloodSample sample : validatedSamples) {
-                sample.setStatus(SampleStatus.QUEUED);
-                bloodSampleRepository.save(sample);
-                notificationService.notifySampleStatusUpdate(sample);
+            pendingSamples.addAll(
+                    sampleStateService.transitionAll(validatedSamples, SampleStatus.VALIDATED, SampleStatus.QUEUED));
+
+            // Xử lý từng mẫu với profile mô phỏng và seed của workflow
+            SimulationRun simulationRun = analyzerSimulatorRegistry.startRun(workflow.getId(), instrument);
+            List<BloodSample> deductedSamples = new ArrayList<>();
+            List<BloodSample> completedSamples = new ArrayList<>();
+            List<BloodSample> failedSamples = new ArrayList<>();
+            boolean ownershipLost = false;
+            try {
+                for (BloodSample sample : pendingSamples) {
+                    // Báo quy trình vẫn đang chạy để không bị replica khác tiếp tục song song
+                    if (!workflowCheckpointService.heartbeat(workflow)) {
+                        ownershipLost = true;
+                        break;
+                    }
+                    SampleStatus outcome = processSample(sample, simulationRun, deductedSamples);
+                    if (outcome == SampleStatus.COMPLETED) {
+                        completedSamples.add(sample);
+                    } else if (outcome == SampleStatus.FAILED) {
+                        failedSamples.add(sample);
+                    }
+
+                    // Ghi sổ hóa chất, checkpoint và trạng thái kết thúc theo lô thay vì từng mẫu
+                    if (completedSamples.size() + failedSamples.size() >= TERMINAL_TRANSITION_BATCH_SIZE) {
+                        flushCheckpoints(instrument.getId(), deductedSamples, completedSamples, failedSamples);
+                    }
+                }
+            } finally {
+                flushCheckpoints(instrument.getId(), deductedSamples, completedSamples, failedSamples);
             }
 
-            // Xử lý từng mẫu
-            for (BloodSample sample : validatedSamples) {
-                processSample(sample);
+            // Replica khác đã tiếp tục quy trình từ checkpoint: dừng ở đây, không ghi đè trạng thái quy trình/thiết bị
+            if (ownershipLost) {
+                log.warn("Workflow {} was taken over by another instance, stopping local execution", workflow.getId());
+                return;
             }
 
             // Cập nhật trạng thái quy trình thành COMPLETED
@@ -313,7 +344,10 @@ public class SampleAnalysisWorkflowServiceImpl implements SampleAnalysisWorkflow
             // Gửi thông báo hoàn thành quy trình
             notificationService.notifyWorkflowCompletion(workflow.getId(), instrument.getId());
 
-            log.info("Workflow completed: {}", workflow.getId());
+            log.info("Workflow completed: {} (virtual instrument time {})", workflow.getId(), simulationRun.virtualElapsed());
+
+            // Báo lượng tiêu hao về warehouse trong một request (lỗi sẽ được thử lại ở lần đối soát định kỳ)
+            reagentLedgerService.reconcileWithWarehouse();
 
             // Check for next cassette
             processNextCassette(instrument.getId());
@@ -323,164 +357,125 @@ public class SampleAnalysisWorkflowServiceImpl implements SampleAnalysisWorkflow
             workflow.setStatus(WorkflowStatus.FAILED);
             workflow.setErrorMessage(e.getMessage());
             workflowRepository.save(workflow);
+            notificationService.notifyWorkflowStatusUpdate(workflow);
 
             instrument.setStatus(InstrumentStatus.ERROR);
             instrumentRepository.save(instrument);
         }
     }
 
-    // Hàm xử lý mẫu
-    private void processSample(BloodSample sample) {
+    // Thứ tự ghi: sổ hóa chất -> checkpoint REAGENTS_DEDUCTED -> trạng thái kết thúc. Nếu dịch vụ dừng giữa chừng,
+    // mẫu chưa có checkpoint sẽ được trừ lại đúng phần hóa chất chưa kịp ghi, không trừ thiếu
+    private void flushCheckpoints(String instrumentId, List<BloodSample> deductedSamples,
+                                  List<BloodSample> completedSamples, List<BloodSample> failedSamples) {
+        reagentLedgerService.flush(instrumentId);
+        workflowCheckpointService.markAllCompleted(deductedSamples, SampleStep.REAGENTS_DEDUCTED);
+        deductedSamples.clear();
+        flushTerminalTransitions(completedSamples, failedSamples);
+    }
+
+    // Ghi PROCESSING -> COMPLETED/FAILED cho các mẫu đã xử lý xong rồi làm rỗng danh sách
+    private void flushTerminalTransitions(List<BloodSample> completedSamples, List<BloodSample> failedSamples) {
+        sampleStateService.transitionAll(completedSamples, SampleStatus.PROCESSING, SampleStatus.COMPLETED);
+        sampleStateService.transitionAll(failedSamples, SampleStatus.PROCESSING, SampleStatus.FAILED);
+        completedSamples.clear();
+        failedSamples.clear();
+    }
+
+    // Hàm xử lý mẫu, trả về trạng thái kết thúc cần ghi (null nếu mẫu không còn ở QUEUED).
+    // Các bước đã có checkpoint (quy trình được tiếp tục sau khi khởi động lại) được bỏ qua.
+    private SampleStatus processSample(BloodSample sample, SimulationRun simulationRun, List<BloodSample> deductedSamples) {
         log.info("Processing sample: {}", sample.getBarcode());
 
-        // Đặt trạng thái mẫu thành PROCESSING và thông báo
-        sample.setStatus(SampleStatus.PROCESSING);
-        bloodSampleRepository.save(sample);
-        notificationService.notifySampleStatusUpdate(sample);
+        // Đặt trạng thái mẫu thành PROCESSING và thông báo (bỏ qua nếu mẫu đã bị cập nhật ở nơi khác).
+        // Mẫu đã ở PROCESSING là mẫu dở dang của lần chạy trước
+        if (sample.getStatus() != SampleStatus.PROCESSING
+                && !sampleStateService.transition(sample, SampleStatus.QUEUED, SampleStatus.PROCESSING)) {
+            return null;
+        }
 
-        // Giả lập xử lý mẫu
+        Set<SampleStep> completedSteps = sample.getCompletedSteps();
         try {
-            Thread.sleep(100); // Giả lập thời gian xử lý
-
-            // Giảm hóa chất sử dụng cho mẫu
-            deductReagents(sample.getInstrumentId());
-
-            // Lấy chi tiết đơn hàng xét nghiệm
-            TestOrderResponse orderDetails = fetchTestOrderDetails(sample);
-            // Mô phỏng kết quả xét nghiệm
-            Map<TestParameterResponse, Double> simulatedResults = simulateResults(orderDetails);
-            // Lưu kết quả thô vào cơ sở dữ liệu
-            Map<String, String> rawResults = simulatedResults.entrySet().stream()
-                    .collect(Collectors.toMap(
-                            entry -> entry.getKey().getAbbreviation(),
-                            entry -> formatResultValue(entry.getValue()),
-                            (a, b) -> a,
-                            LinkedHashMap::new
-                    ));
-
-            // Chuyển đổi kết quả sang định dạng HL7
-            String hl7Message = convertToHL7(sample, simulatedResults, orderDetails);
-
-            // Xuất bản kết quả HL7
-            publishResults(hl7Message, sample, rawResults);
-
-            // Cập nhật trạng thái mẫu thành COMPLETED và thông báo
-            sample.setStatus(SampleStatus.COMPLETED);
-            bloodSampleRepository.save(sample);
-            notificationService.notifySampleStatusUpdate(sample);
+            // 1. Chạy mẫu trên máy và trừ hóa chất (checkpoint được ghi theo lô cùng sổ hóa chất)
+            if (!completedSteps.contains(SampleStep.REAGENTS_DEDUCTED)) {
+                simulationRun.runCycle(); // Giả lập thời gian xử lý (đồng hồ ảo)
+                deductReagents(sample.getInstrumentId());
+                deductedSamples.add(sample);
+            }
+
+            // 2. Tạo kết quả và dựng HL7, hoặc dùng lại RawTestResult đã lưu ở lần chạy trước
+            RawTestResult rawResult = completedSteps.contains(SampleStep.HL7_BUILT) && sample.getRawResultId() != null
+                    ? rawTestResultRepository.findById(sample.getRawResultId()).orElse(null)
+                    : null;
+            if (rawResult == null) {
+                rawResult = generateResult(sample, simulationRun);
+                if (rawResult == null) {
+                    return SampleStatus.FAILED;
+                }
+            }
+
+            // 3. Xuất bản kết quả HL7
+            if (!completedSteps.contains(SampleStep.PUBLISHED)) {
+                publishResults(sample);
+            }
 
             log.info("Sample processing completed: {}", sample.getBarcode());
+            return SampleStatus.COMPLETED;
         } catch (Exception e) {
             // Xử lý lỗi trong quá trình xử lý mẫu
             log.error("Sample processing failed: {}", sample.getBarcode(), e);
-            sample.setStatus(SampleStatus.FAILED);
-            bloodSampleRepository.save(sample);
-            notificationService.notifySampleStatusUpdate(sample);
+            return SampleStatus.FAILED;
         }
     }
 
-    // Hàm giảm hóa chất sử dụng cho mẫu
-    private void deductReagents(String instrumentId) {
-        log.info("Deducting reagents for instrument: {}", instrumentId);
-
-        // Lấy tất cả lô hóa chất đang In Use
-        List<InstrumentReagent> reagents =
-                instrumentReagentRepository.findByInstrumentId(instrumentId)
-                        .stream()
-                        .filter(r -> r.getStatus() == ReagentStatus.IN_USE)
-                        .toList();
+    // Mô phỏng kết quả, chuyển sang HL7 và lưu RawTestResult; trả về null nếu không lưu được
+    private RawTestResult generateResult(BloodSample sample, SimulationRun simulationRun) {
+        // Lấy chi tiết đơn hàng xét nghiệm
+        TestOrderResponse orderDetails = fetchTestOrderDetails(sample);
+        // Mô phỏng kết quả xét nghiệm
+        Map<TestParameterResponse, Double> simulatedResults = simulationRun.simulate(sample.getBarcode(), orderDetails);
+        Map<String, String> rawResults = simulatedResults.entrySet().stream()
+                .collect(Collectors.toMap(
+                        entry -> entry.getKey().getAbbreviation(),
+                        entry -> formatResultValue(entry.getValue()),
+                        (a, b) -> a,
+                        LinkedHashMap::new
+                ));
+
+        // Chuyển đổi kết quả sang định dạng HL7
+        String hl7Message = convertToHL7(sample, simulatedResults, orderDetails);
+
+        // Lưu kết quả thô vào cơ sở dữ liệu
+        RawTestResult rawResult = saveRawResult(hl7Message, sample, rawResults);
+        if (rawResult != null) {
+            workflowCheckpointService.markHl7Built(sample, rawResult.getId());
+        }
+        return rawResult;
+    }
 
+    // Hàm giảm hóa chất sử dụng cho mẫu (trừ trên sổ trong bộ nhớ, ghi MongoDB một lần mỗi cassette)
+    private void deductReagents(String instrumentId) {
         // Nếu không có hóa chất nào thì thông báo và dừng quy trình
-        if (reagents.isEmpty()) {
+        if (!reagentLedgerService.hasReagentsInUse(instrumentId)) {
             log.error("No reagent in use for instrument {}", instrumentId);
             notificationService.notifyInsufficientReagents(instrumentId);
             throw new IllegalStateException("No reagent available for this instrument");
         }
 
-        // Giảm mỗi reagent theo định mức sử dụng mỗi lần chạy
-        for (InstrumentReagent reagent : reagents) {
-            int usageAmount = determineUsageAmount(reagent);
-            int oldQuantity = Optional.ofNullable(reagent.getQuantity()).orElse(0);
-            int newQuantity = Math.max(0, oldQuantity - usageAmount);
-
-            reagent.setQuantity(newQuantity);
-            instrumentReagentRepository.save(reagent);
-
-            log.info("Reagent {} deducted by {}: {} -> {}", reagent.getReagentName(), usageAmount, oldQuantity, newQuantity);
-
-            // Nếu hết hóa chất thì thông báo + chuyển trạng thái máy
-            if (newQuantity == 0) {
-                notificationService.notifyReagentEmpty(instrumentId, reagent.getReagentName());
-
-                instrumentRepository.findById(instrumentId).ifPresent(inst -> {
-                    inst.setStatus(InstrumentStatus.ERROR);
-                    instrumentRepository.save(inst);
-                });
-
-                throw new IllegalStateException("Reagent exhausted: " + reagent.getReagentName());
-            }
-        }
-    }
-
-    // Hàm xác định mức sử dụng hóa chất cho mỗi mẫu
-    private int determineUsageAmount(InstrumentReagent reagent) {
-        // Lấy mức sử dụng mỗi lần chạy từ Warehouse Service
-        String usageDescriptor = fetchUsagePerRun(reagent.getLotNumber());
-
-        // Nếu không có mô tả mức sử dụng thì mặc định là 1
-        if (!StringUtils.hasText(usageDescriptor)) {
-            log.warn("Usage per run is unavailable for lot {}. Defaulting deduction to 1.", reagent.getLotNumber());
-            return 1;
-        }
+        Optional<String> exhausted = reagentLedgerService.consumeRun(instrumentId);
 
-        // Phân tích mô tả mức sử dụng để lấy số lượng
-        return parseUsageAmount(usageDescriptor)
-                // Làm tròn lên và đảm bảo ít nhất là 1
-                .map(amount -> (int) Math.max(1, Math.ceil(amount)))
-                // Nếu không thể phân tích được thì mặc định là 1
-                .orElseGet(() -> {
-                    log.warn("Could not parse usage per run '{}' for lot {}. Defaulting deduction to 1.",
-                            usageDescriptor, reagent.getLotNumber());
-                    return 1;
-                });
-    }
+        // Nếu hết hóa chất thì ghi sổ ngay, thông báo + chuyển trạng thái máy
+        if (exhausted.isPresent()) {
+            reagentLedgerService.flush(instrumentId);
+            notificationService.notifyReagentEmpty(instrumentId, exhausted.get());
 
-    // Hàm phân tích mô tả mức sử dụng để lấy số lượng
-    private Optional<Double> parseUsageAmount(String usageDescriptor) {
-        try {
-            // Sử dụng regex để tìm số trong chuỗi
-            Matcher matcher = Pattern.compile("([0-9]+(?:\\.[0-9]+)?)").matcher(usageDescriptor);
+            instrumentRepository.findById(instrumentId).ifPresent(inst -> {
+                inst.setStatus(InstrumentStatus.ERROR);
+                instrumentRepository.save(inst);
+            });
 
-            // Nếu tìm thấy thì trả về số đã phân tích
-            if (matcher.find()) {
-                return Optional.of(Double.parseDouble(matcher.group(1)));
-            }
-        } catch (Exception e) {
-            log.error("Error parsing usage descriptor '{}': {}", usageDescriptor, e.getMessage());
+            throw new IllegalStateException("Reagent exhausted: " + exhausted.get());
         }
-
-        return Optional.empty();
-    }
-
-    // Hàm lấy mức sử dụng hóa chất cho mỗi lần chạy từ Warehouse Service
-    private String fetchUsagePerRun(String lotNumber) {
-        try {
-            // Gọi API từ Warehouse Service để lấy trạng thái lô hóa chất
-            ApiResponse<ReagentLotStatusResponse> response = warehouseFeignClient.getReagentLotStatus(lotNumber);
-
-            // Kiểm tra phản hồi và trả về mức sử dụng mỗi lần chạy nếu có
-            if (response != null && response.isSuccess() && response.getData() != null) {
-                return response.getData().getUsagePerRun();
-            }
-
-            log.warn("Usage per run missing for lot {} from warehouse response.", lotNumber);
-        } catch (FeignException e) {
-            log.error("Failed to fetch reagent lot status for {}: {}", lotNumber, e.getMessage());
-        } catch (Exception e) {
-            log.error("Unexpected error while fetching reagent usage for {}: {}", lotNumber, e.getMessage());
-        }
-
-        return null;
     }
 
     // Hàm lấy chi tiết đơn hàng xét nghiệm
@@ -504,299 +499,25 @@ public class SampleAnalysisWorkflowServiceImpl implements SampleAnalysisWorkflow
         }
     }
 
-    // Hàm mô phỏng kết quả xét nghiệm
-    private Map<TestParameterResponse, Double> simulateResults(TestOrderResponse orderDetails) {
-        List<TestParameterResponse> parameters = Optional.ofNullable(orderDetails)
-                .map(TestOrderResponse::getTestType)
-                .map(TestTypeResponse::getTestParameters)
-                .filter(list -> !list.isEmpty())
-                .orElseGet(this::defaultHematologyParameters);
-
-        Map<TestParameterResponse, Double> results = new LinkedHashMap<>();
-        for (TestParameterResponse parameter : parameters) {
-            double value = generateValueForParameter(parameter, orderDetails != null ? orderDetails.getGender() : null);
-            results.put(parameter, value);
-        }
-        return results;
-    }
-
-    // Hàm sinh giá trị kết quả cho từng tham số
-    private double generateValueForParameter(TestParameterResponse parameter, Gender gender) {
-        ParameterRangeResponse range = selectRange(parameter, gender);
-        double value;
-        if (range != null && range.getMinValue() != null && range.getMaxValue() != null) {
-            double min = range.getMinValue();
-            double max = range.getMaxValue();
-            double span = Math.max(0.1, max - min);
-            if (random.nextDouble() < 0.7) {
-                value = min + span * random.nextDouble();
-            } else if (random.nextBoolean()) {
-                value = max + span * (0.1 + random.nextDouble() * 0.4);
-            } else {
-                value = Math.max(0, min - span * (0.1 + random.nextDouble() * 0.4));
-            }
-        } else {
-            value = 1 + random.nextDouble() * 10;
-        }
-        return Double.parseDouble(formatResultValue(value).replace(",", "."));
-    }
-
-    // Hàm chọn dải tham số phù hợp với giới tính
-    private ParameterRangeResponse selectRange(TestParameterResponse parameter, Gender gender) {
-        if (parameter.getParameterRanges() == null || parameter.getParameterRanges().isEmpty()) {
-            return null;
-        }
-
-        return parameter.getParameterRanges().stream()
-                .filter(range -> genderMatches(range.getGender(), gender))
-                .findFirst()
-                .orElse(parameter.getParameterRanges().get(0));
-    }
-
-    // Hàm kiểm tra giới tính có khớp với dải tham số không
-    private boolean genderMatches(String rangeGender, Gender gender) {
-        if (!StringUtils.hasText(rangeGender)) {
-            return true;
-        }
-        if (gender == null) {
-            return "BOTH".equalsIgnoreCase(rangeGender);
-        }
-        if ("BOTH".equalsIgnoreCase(rangeGender)) {
-            return true;
-        }
-        return rangeGender.equalsIgnoreCase(gender.name());
-    }
-
     // Hàm định dạng giá trị kết quả
     private String formatResultValue(Double value) {
-        if (value == null) {
-            return "";
-        }
-        return String.format("%.1f", value);
-    }
-
-    // Hàm cung cấp tham số mặc định cho xét nghiệm huyết học
-    private List<TestParameterResponse> defaultHematologyParameters() {
-        List<TestParameterResponse> defaults = new ArrayList<>();
-
-        defaults.add(TestParameterResponse.builder()
-                .testParameterId("TP-WBC")
-                .paramName("White Blood Cell Count")
-                .abbreviation("WBC")
-                .description("Measures the number of white blood cells (leukocytes) in the blood, which helps fight infection.")
-                .parameterRanges(List.of(ParameterRangeResponse.builder()
-                        .gender("BOTH")
-                        .minValue(4000.0)
-                        .maxValue(10000.0)
-                        .unit("cells/µL")
-                        .build()))
-                .build());
-
-        defaults.add(TestParameterResponse.builder()
-                .testParameterId("TP-RBC")
-                .paramName("Red Blood Cell Count")
-                .abbreviation("RBC")
-                .description("Measures the number of red blood cells per unit of blood, which are responsible for carrying oxygen throughout the body.")
-                .parameterRanges(Arrays.asList(
-                        ParameterRangeResponse.builder().gender("MALE").minValue(4.7).maxValue(6.1).unit("million/µL").build(),
-                        ParameterRangeResponse.builder().gender("FEMALE").minValue(4.2).maxValue(5.4).unit("million/µL").build()
-                ))
-                .build());
-
-        defaults.add(TestParameterResponse.builder()
-                .testParameterId("TP-HGB")
-                .paramName("Hemoglobin")
-                .abbreviation("Hb/HGB")
-                .description("Measures the amount of hemoglobin in the blood, which is the protein in red blood cells that carries oxygen.")
-                .parameterRanges(Arrays.asList(
-                        ParameterRangeResponse.builder().gender("MALE").minValue(14.0).maxValue(18.0).unit("g/dL").build(),
-                        ParameterRangeResponse.builder().gender("FEMALE").minValue(12.0).maxValue(16.0).unit("g/dL").build()
-                ))
-                .build());
-
-        defaults.add(TestParameterResponse.builder()
-                .testParameterId("TP-HCT")
-                .paramName("Hematocrit")
-                .abbreviation("HCT")
-                .description("Represents the percentage of red blood cells in the blood volume, indicating oxygen-carrying capacity.")
-                .parameterRanges(Arrays.asList(
-                        ParameterRangeResponse.builder().gender("MALE").minValue(42.0).maxValue(52.0).unit("%").build(),
-                        ParameterRangeResponse.builder().gender("FEMALE").minValue(37.0).maxValue(47.0).unit("%").build()
-                ))
-                .build());
-
-        defaults.add(TestParameterResponse.builder()
-                .testParameterId("TP-PLT")
-                .paramName("Platelet Count")
-                .abbreviation("PLT")
-                .description("Measures the number of platelets in the blood, which are responsible for clotting.")
-                .parameterRanges(List.of(ParameterRangeResponse.builder()
-                        .gender("BOTH")
-                        .minValue(150000.0)
-                        .maxValue(350000.0)
-                        .unit("cells/µL")
-                        .build()))
-                .build());
-
-        defaults.add(TestParameterResponse.builder()
-                .testParameterId("TP-MCV")
-                .paramName("Mean Corpuscular Volume")
-                .abbreviation("MCV")
-                .description("Indicates the average size of red blood cells.")
-                .parameterRanges(List.of(ParameterRangeResponse.builder()
-                        .gender("BOTH")
-                        .minValue(80.0)
-                        .maxValue(100.0)
-                        .unit("fL")
-                        .build()))
-                .build());
-
-        defaults.add(TestParameterResponse.builder()
-                .testParameterId("TP-MCH")
-                .paramName("Mean Corpuscular Haemoglobin")
-                .abbreviation("MCH")
-                .description("Represents the average amount of haemoglobin per red blood cell.")
-                .parameterRanges(List.of(ParameterRangeResponse.builder()
-                        .gender("BOTH")
-                        .minValue(27.0)
-                        .maxValue(33.0)
-                        .unit("pg")
-                        .build()))
-                .build());
-
-        defaults.add(TestParameterResponse.builder()
-                .testParameterId("TP-MCHC")
-                .paramName("Mean Corpuscular Haemoglobin Concentration")
-                .abbreviation("MCHC")
-                .description("Calculates the average concentration of haemoglobin in red blood cells.")
-                .parameterRanges(List.of(ParameterRangeResponse.builder()
-                        .gender("BOTH")
-                        .minValue(32.0)
-                        .maxValue(36.0)
-                        .unit("g/dL")
-                        .build()))
-                .build());
-
-        return defaults;
-    }
-
-    // Helper để lấy ngày giờ theo chuẩn HL7
-    private String getHl7DateTime(LocalDateTime ldt) {
-        if (ldt == null) return null;
-        return ldt.format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss"));
-    }
-
-    // Helper để lấy ngày theo chuẩn HL7
-    private String getHl7Date(LocalDate ld) {
-        if (ld == null) return null;
-        return ld.format(DateTimeFormatter.ofPattern("yyyyMMdd"));
+        return Hl7ResultEncoder.formatOneDecimal(value);
     }
 
     private String convertToHL7(BloodSample sample, Map<TestParameterResponse, Double> results, TestOrderResponse orderDetails) {
         log.debug("Converting sample results to HL7 format for barcode: {}", sample.getBarcode());
-
-        ORU_R01 oru = new ORU_R01();
-        String messageControlId = "MSG-" + sample.getBarcode() + "-" + System.currentTimeMillis();
-        String now = getHl7DateTime(LocalDateTime.now());
-
-        try {
-            // MSH - Message Header (Thông tin về tin nhắn)
-            MSH msh = oru.getMSH();
-            msh.getFieldSeparator().setValue("|");
-            msh.getEncodingCharacters().setValue("^~\\&");
-            msh.getSendingApplication().getNamespaceID().setValue("INSTRUMENT_SERVICE");
-            msh.getSendingFacility().getNamespaceID().setValue(sample.getInstrumentId()); // Tên máy
-            msh.getReceivingApplication().getNamespaceID().setValue("TEST_ORDER_SERVICE"); // Dịch vụ nhận
-            msh.getReceivingFacility().getNamespaceID().setValue("LIS"); // Hệ thống thông tin Lab
-            msh.getDateTimeOfMessage().getTime().setValue(now);
-            msh.getMessageType().getMessageCode().setValue("ORU"); // Observation Result (Unsolicited)
-            msh.getMessageType().getTriggerEvent().setValue("R01"); // Event R01
-            msh.getMessageControlID().setValue(messageControlId);
-            msh.getProcessingID().getProcessingID().setValue("P"); // P = Production
-            msh.getVersionID().getVersionID().setValue("2.5");
-
-            // Định nghĩa thông tin bệnh nhân
-            PID pid = oru.getPATIENT_RESULT().getPATIENT().getPID();
-            pid.getSetIDPID().setValue("1");
-
-            // Dùng Barcode làm ID bệnh nhân chính (hoặc ID bên ngoài)
-            pid.getPatientIdentifierList(0).getIDNumber().setValue(sample.getBarcode());
-            pid.getPatientIdentifierList(0).getAssigningAuthority().getNamespaceID().setValue("BARCODE");
-
-            if (orderDetails != null) {
-                // Nếu lấy được thông tin, điền vào
-                pid.getPatientName(0).getFamilyName().getSurname().setValue(orderDetails.getFullName()); // Họ và tên
-                pid.getPatientName(0).getGivenName().setValue("");
-                pid.getDateTimeOfBirth().getTime().setValue(getHl7Date(orderDetails.getDateOfBirth() != null ?
-                        LocalDate.parse(orderDetails.getDateOfBirth()) : null)); // Ngày sinh
-                if (orderDetails.getGender() != null) {
-                    pid.getAdministrativeSex().setValue(orderDetails.getGender().name().substring(0, 1)); // M, F, O
-                }
-                // Thêm Medical Record Code làm ID nội bộ
-                pid.getPatientIdentifierList(1).getIDNumber().setValue(orderDetails.getMedicalRecordCode());
-                pid.getPatientIdentifierList(1).getAssigningAuthority().getNamespaceID().setValue("MRN"); // Medical Record Number
-            } else {
-                // Nếu không lấy được, điền thông tin mặc định
-                pid.getPatientName(0).getFamilyName().getSurname().setValue("UNKNOWN");
-                pid.getPatientName(0).getGivenName().setValue("Patient");
-            }
-
-            // OBR - Observation Request (Thông tin về yêu cầu xét nghiệm)
-            OBR obr = oru.getPATIENT_RESULT().getORDER_OBSERVATION().getOBR();
-            obr.getSetIDOBR().setValue("1");
-            obr.getPlacerOrderNumber().getEntityIdentifier().setValue(sample.getTestOrderId());
-            obr.getFillerOrderNumber().getEntityIdentifier().setValue(sample.getWorkflowId());
-            obr.getUniversalServiceIdentifier().getIdentifier().setValue("PANEL-AUTO"); // Mã Panel
-            obr.getUniversalServiceIdentifier().getText().setValue("Auto Panel from Instrument"); // Tên Panel
-            obr.getObservationDateTime().getTime().setValue(now); // Thời gian có kết quả
-            obr.getResultStatus().setValue("F"); // F = Final
-
-            // OBX - Observation/Result (Kết quả chi tiết - lặp)
-            int obxSetId = 1;
-            for (Map.Entry<TestParameterResponse, Double> entry : results.entrySet()) {
-                TestParameterResponse parameter = entry.getKey();
-                String abbreviation = StringUtils.hasText(parameter.getAbbreviation()) ? parameter.getAbbreviation() : parameter.getParamName();
-                String parameterName = StringUtils.hasText(parameter.getParamName()) ? parameter.getParamName() : abbreviation;
-
-                // Lấy một segment OBX mới
-                OBX obx = oru.getPATIENT_RESULT().getORDER_OBSERVATION().getOBSERVATION(obxSetId - 1).getOBX();
-                obx.getSetIDOBX().setValue(String.valueOf(obxSetId));
-                obx.getValueType().setValue("NM"); // NM = Numeric (Kiểu số)
-                obx.getObservationIdentifier().getIdentifier().setValue(abbreviation); // Mã xét nghiệm (WBC)
-                obx.getObservationIdentifier().getText().setValue(parameterName); // Tên xét nghiệm (WBC)
-
-                obx.getObservationValue(0).parse(formatResultValue(entry.getValue()));
-
-                ParameterRangeResponse range = selectRange(parameter, orderDetails != null ? orderDetails.getGender() : null);
-                if (range != null && StringUtils.hasText(range.getUnit())) {
-                    obx.getUnits().getIdentifier().setValue(range.getUnit());
-                }
-                if (range != null && range.getMinValue() != null && range.getMaxValue() != null) {
-                    obx.getReferencesRange().setValue(String.format("%.1f-%.1f", range.getMinValue(), range.getMaxValue()));
-                }
-
-                obx.getObservationResultStatus().setValue("F"); // F = Final (Kết quả cuối)
-                obx.getDateTimeOfTheObservation().getTime().setValue(now);
-
-                obxSetId++;
-            }
-
-            // Mã hóa đối tượng HL7 thành chuỗi String
-            return parser.encode(oru);
-
-        } catch (HL7Exception e) {
-            log.error("CRITICAL: Failed to generate HL7 message for barcode {}: {}", sample.getBarcode(), e.getMessage());
-            // Trả về một thông điệp lỗi nếu thất bại
-            return "HL7_ERROR|Failed to generate: " + e.getMessage();
-        }
+        Gender gender = orderDetails != null ? orderDetails.getGender() : null;
+        return hl7ResultEncoder.encodeResult(sample, orderDetails, results, parameter -> ParameterRanges.select(parameter, gender));
     }
 
-    private void publishResults(String hl7Message, BloodSample sample, Map<String, String> rawResults) {
-        log.info("Publishing HL7 results for sample: {}", sample.getBarcode());
+    private RawTestResult saveRawResult(String hl7Message, BloodSample sample, Map<String, String> rawResults) {
         log.debug("HL7 Message: \n{}", hl7Message.replace("\r", "\n"));
 
-        // Luu kết quả thô vào cơ sở dữ liệu
+        // Luu kết quả thô vào cơ sở dữ liệu.
+        // Dùng ID của mẫu làm ID kết quả: lưu lại khi tiếp tục quy trình sẽ ghi đè thay vì tạo bản trùng
         RawTestResult rawResult = new RawTestResult();
+        rawResult.setId(sample.getId());
+        rawResult.setCreatedAt(LocalDateTime.now());
         rawResult.setInstrumentId(sample.getInstrumentId());
         rawResult.setTestOrderId(sample.getTestOrderId());
         rawResult.setBarcode(sample.getBarcode());
@@ -808,39 +529,19 @@ public class SampleAnalysisWorkflowServiceImpl implements SampleAnalysisWorkflow
         try {
             rawResult = rawTestResultRepository.save(rawResult);
             log.info("Saved raw HL7 message to database with ID: {}", rawResult.getId());
+            return rawResult;
         } catch (Exception e) {
             handleRawResultPersistenceFailure(sample, e);
-            return;
+            return null;
         }
+    }
 
-        // --- BỔ SUNG MỚI: Gửi Event sang RabbitMQ cho Monitoring Service ---
-        // Routing Key phải khớp với cái mà Monitoring Service đang lắng nghe ("instrument.test_result")
-        String routingKey = "instrument.test_result";
+    private void publishResults(BloodSample sample) {
+        log.info("Publishing HL7 results for sample: {}", sample.getBarcode());
 
-        try {
-            TestResultPublishedEvent event = TestResultPublishedEvent.builder()
-                    .instrumentId(sample.getInstrumentId())
-                    .testOrderId(sample.getTestOrderId())
-                    .barcode(sample.getBarcode())
-                    .hl7Message(hl7Message)
-                    .rawResultData(rawResults)
-                    .publishedAt(LocalDateTime.now())
-                    .build();
-
-            rabbitTemplate.convertAndSend(
-                    RabbitMQConfig.INSTRUMENT_EXCHANGE, // Exchange đã cấu hình
-                    routingKey,
-                    event
-            );
-            log.info("Successfully published TestResult event to RabbitMQ for Monitoring Service");
-        } catch (Exception e) {
-            log.error("Failed to publish TestResult event to RabbitMQ", e);
-            rawResult.setPublishStatus(PublishStatus.FAILED);
-            rawResult.setReadyForDeletion(false);
-            rawTestResultRepository.save(rawResult);
-            return;
-        }
-        // ------------------------------------------------------------------
+        // Kết quả đã được lưu với trạng thái PENDING; publisher gửi theo lô, chỉ đánh dấu SENT khi broker xác nhận
+        // và tự ghi checkpoint PUBLISHED cho mẫu, kết quả gửi lỗi được thử lại với thời gian chờ tăng dần
+        rawResultPublisherService.requestPublish();
 
 //        boolean publishedToTestOrder = publishToTestOrderService(hl7Message);
 //
@@ -876,8 +577,8 @@ public class SampleAnalysisWorkflowServiceImpl implements SampleAnalysisWorkflow
     private void handleRawResultPersistenceFailure(BloodSample sample, Exception e) {
         log.error("Failed to save RawTestResult for sample {}: {}", sample.getBarcode(), e.getMessage(), e);
 
-        sample.setStatus(SampleStatus.FAILED);
-        bloodSampleRepository.save(sample);
+        // Ghi FAILED ngay; lệnh COMPLETED theo lô sau đó không còn khớp điều kiện PROCESSING
+        sampleStateService.transition(sample, SampleStatus.PROCESSING, SampleStatus.FAILED);
 
         workflowRepository.findById(sample.getWorkflowId()).ifPresent(workflow -> {
             workflow.setStatus(WorkflowStatus.FAILED);
@@ -905,10 +606,8 @@ public class SampleAnalysisWorkflowServiceImpl implements SampleAnalysisWorkflow
         log.info("Found next cassette: {}", nextCassette.getCassetteIdentifier());
 
         // Lấy các mẫu máu liên quan đến cassette này và đang ở trạng thái PENDING
-        List<BloodSample> cassetteSamples = bloodSampleRepository.findAll().stream()
-                .filter(s -> nextCassette.getCassetteIdentifier().equals(s.getCassetteId()))
-                .filter(s -> s.getStatus() == SampleStatus.PENDING)
-                .collect(Collectors.toList());
+        List<BloodSample> cassetteSamples = bloodSampleRepository
+                .findByCassetteIdAndStatus(nextCassette.getCassetteIdentifier(), SampleStatus.PENDING);
 
         // Nếu không có mẫu nào thì đánh dấu cassette là đã xử lý và tiếp tục với cassette tiếp theo
         if (cassetteSamples.isEmpty()) {
@@ -939,11 +638,57 @@ public class SampleAnalysisWorkflowServiceImpl implements SampleAnalysisWorkflow
         nextCassette.setProcessed(true);
         nextCassette.setProcessedAt(LocalDateTime.now());
         cassetteRepository.save(nextCassette);
+        notificationService.notifyCassetteStatusUpdate(nextCassette);
 
         // Khởi tạo quy trình cho cassette này
         return initiateWorkflow(request);
     }
 
+    @Override
+    public int resumeInterruptedWorkflows() {
+        int resumed = 0;
+        for (SampleProcessingWorkflow workflow : workflowCheckpointService.findInterruptedWorkflows()) {
+            // Nhận quyền trước để hai lượt khôi phục không cùng chạy một quy trình
+            if (!workflowCheckpointService.claimForResume(workflow)) {
+                continue;
+            }
+            try {
+                if (resumeWorkflow(workflow)) {
+                    resumed++;
+                }
+            } catch (Exception e) {
+                log.error("Failed to resume workflow {}", workflow.getId(), e);
+            }
+        }
+        return resumed;
+    }
+
+    // Tiếp tục một quy trình bị gián đoạn từ checkpoint của từng mẫu
+    private boolean resumeWorkflow(SampleProcessingWorkflow workflow) {
+        Instrument instrument = instrumentRepository.findById(workflow.getInstrumentId()).orElse(null);
+
+        // INITIATED: dịch vụ dừng trước khi lưu mẫu nên không có gì để tiếp tục
+        if (instrument == null || workflow.getStatus() == WorkflowStatus.INITIATED) {
+            log.warn("Workflow {} cannot be resumed (status {}, instrument {})",
+                    workflow.getId(), workflow.getStatus(), instrument != null ? "found" : "missing");
+            workflow.setStatus(WorkflowStatus.FAILED);
+            workflow.setErrorMessage(instrument == null
+                    ? "Instrument not found when resuming workflow"
+                    : "Workflow interrupted before samples were registered");
+            workflowRepository.save(workflow);
+            notificationService.notifyWorkflowStatusUpdate(workflow);
+            return false;
+        }
+
+        log.info("Resuming workflow {} on instrument {} (resume #{})",
+                workflow.getId(), instrument.getId(), workflow.getResumeCount());
+        instrument.setStatus(InstrumentStatus.RUNNING);
+        instrumentRepository.save(instrument);
+
+        executeWorkflow(workflow, instrument);
+        return true;
+    }
+
     @Override
     public WorkflowResponse getWorkflowStatus(String workflowId) {
         // Lấy quy trình từ cơ sở dữ liệu
@@ -0,0 +1,119 @@
+/*
+ * @ {#} SampleStateServiceImpl.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.instrument_service.services.impl;
+
+import com.mongodb.client.result.UpdateResult;
+import fit.instrument_service.entities.BloodSample;
+import fit.instrument_service.enums.SampleStatus;
+import fit.instrument_service.services.NotificationService;
+import fit.instrument_service.services.SampleStateService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/*
+ * @description: Moves samples between SampleStatus states with $set on status and updated_at only, instead of
+ *               rewriting the whole document. Every update carries the expected current status as a predicate, so a
+ *               transition that lost a race (e.g. a sample already marked FAILED) is simply not applied. A group of
+ *               samples sharing the same transition is written with one updateMulti and notified in one batch.
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SampleStateServiceImpl implements SampleStateService {
+
+    private final MongoTemplate mongoTemplate;
+    private final NotificationService notificationService;
+
+    @Override
+    public boolean transition(BloodSample sample, SampleStatus from, SampleStatus to) {
+        UpdateResult result = mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(sample.getId()).and("status").is(from)),
+                statusUpdate(to),
+                BloodSample.class);
+
+        if (result.getMatchedCount() == 0) {
+            log.warn("Sample {} was not in status {}; transition to {} skipped", sample.getBarcode(), from, to);
+            return false;
+        }
+
+        sample.setStatus(to);
+        notificationService.notifySampleStatusUpdate(sample);
+        return true;
+    }
+
+    @Override
+    public List<BloodSample> transitionAll(List<BloodSample> samples, SampleStatus from, SampleStatus to) {
+        if (samples.isEmpty()) {
+            return List.of();
+        }
+
+        List<String> ids = new ArrayList<>(samples.size());
+        for (BloodSample sample : samples) {
+            ids.add(sample.getId());
+        }
+
+        UpdateResult result = mongoTemplate.updateMulti(
+                Query.query(Criteria.where("_id").in(ids).and("status").is(from)),
+                statusUpdate(to),
+                BloodSample.class);
+
+        List<BloodSample> transitioned;
+        if (result.getMatchedCount() == samples.size()) {
+            transitioned = samples;
+        } else {
+            // Có mẫu đã bị cập nhật ở nơi khác: đọc lại (chỉ _id) các mẫu đang ở trạng thái đích
+            transitioned = samplesNowIn(samples, ids, to);
+            log.warn("Only {}/{} samples moved from {} to {}", transitioned.size(), samples.size(), from, to);
+        }
+
+        for (BloodSample sample : transitioned) {
+            sample.setStatus(to);
+        }
+        if (!transitioned.isEmpty()) {
+            notificationService.notifySampleStatusUpdates(transitioned);
+        }
+        return transitioned;
+    }
+
+    private List<BloodSample> samplesNowIn(List<BloodSample> samples, List<String> ids, SampleStatus status) {
+        Query query = Query.query(Criteria.where("_id").in(ids).and("status").is(status));
+        query.fields().include("_id");
+
+        Set<String> matched = new HashSet<>();
+        for (BloodSample current : mongoTemplate.find(query, BloodSample.class)) {
+            matched.add(current.getId());
+        }
+
+        List<BloodSample> result = new ArrayList<>(matched.size());
+        for (BloodSample sample : samples) {
+            if (matched.contains(sample.getId())) {
+                result.add(sample);
+            }
+        }
+        return result;
+    }
+
+    private static Update statusUpdate(SampleStatus to) {
+        return new Update()
+                .set("status", to)
+                .set("updated_at", LocalDateTime.now());
+    }
+}
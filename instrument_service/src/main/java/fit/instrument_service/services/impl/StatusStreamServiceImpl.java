@@ -0,0 +1,208 @@
+/*
+ * @ {#} StatusStreamServiceImpl.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.instrument_service.services.impl;
+
+import fit.instrument_service.dtos.response.StatusEvent;
+import fit.instrument_service.services.StatusStreamService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * @description: Pushes status changes to lab screens over SSE. publish() only appends to per-client buffers keyed by
+ *               entity, so a burst of updates for the same sample collapses into its latest state. A scheduler
+ *               drains the buffers every flush interval on a small sender pool, at most one drain per client at a
+ *               time; a client whose buffer overflows (it cannot keep up, or its socket is blocked) is disconnected
+ *               and has to reconnect, instead of slowing down publishers or other clients.
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+@Service
+@Slf4j
+public class StatusStreamServiceImpl implements StatusStreamService {
+
+    private final long emitterTimeoutMs;
+    private final int maxPendingEvents;
+    private final long heartbeatIntervalNanos;
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final AtomicLong eventSequence = new AtomicLong();
+    private final ScheduledExecutorService flusher;
+    private final ExecutorService senders;
+
+    public StatusStreamServiceImpl(@Value("${app.status-stream.emitter-timeout-ms:1800000}") long emitterTimeoutMs,
+                                   @Value("${app.status-stream.max-pending-events:256}") int maxPendingEvents,
+                                   @Value("${app.status-stream.flush-interval-ms:250}") long flushIntervalMs,
+                                   @Value("${app.status-stream.heartbeat-interval-ms:15000}") long heartbeatIntervalMs,
+                                   @Value("${app.status-stream.sender-threads:4}") int senderThreads) {
+        this.emitterTimeoutMs = emitterTimeoutMs;
+        this.maxPendingEvents = maxPendingEvents;
+        this.heartbeatIntervalNanos = TimeUnit.MILLISECONDS.toNanos(heartbeatIntervalMs);
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> daemon(r, "status-stream-flusher"));
+        this.senders = Executors.newFixedThreadPool(senderThreads, r -> daemon(r, "status-stream-sender"));
+        this.flusher.scheduleWithFixedDelay(this::flushAll, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public SseEmitter subscribe(Set<String> instrumentIds) {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        Subscriber subscriber = new Subscriber(emitter, Set.copyOf(instrumentIds));
+
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> disconnect(subscriber));
+        emitter.onError(e -> disconnect(subscriber));
+
+        subscribers.add(subscriber);
+        log.info("Status stream opened (instruments: {}, total subscribers: {})",
+                instrumentIds.isEmpty() ? "all" : instrumentIds, subscribers.size());
+        return emitter;
+    }
+
+    @Override
+    public void publish(StatusEvent event) {
+        // Được gọi từ luồng nghiệp vụ sau khi đã ghi dữ liệu: lỗi của luồng trạng thái không được lan ra bên gọi
+        try {
+            for (Subscriber subscriber : subscribers) {
+                if (subscriber.accepts(event) && !subscriber.offer(event, maxPendingEvents)) {
+                    log.warn("Status stream subscriber fell behind ({} pending events); disconnecting", maxPendingEvents);
+                    disconnect(subscriber);
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to publish status event {}: {}", event, e.getMessage());
+        }
+    }
+
+    @Override
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdownNow();
+        senders.shutdownNow();
+        for (Subscriber subscriber : subscribers) {
+            subscriber.emitter.complete();
+        }
+        subscribers.clear();
+    }
+
+    // Gửi phần đệm của mỗi client; client đang gửi dở (socket chậm) được bỏ qua ở lượt này
+    void flushAll() {
+        long now = System.nanoTime();
+        for (Subscriber subscriber : subscribers) {
+            boolean heartbeatDue = now - subscriber.lastSentAt >= heartbeatIntervalNanos;
+            if ((subscriber.hasPending() || heartbeatDue) && subscriber.sending.compareAndSet(false, true)) {
+                try {
+                    senders.execute(() -> drain(subscriber));
+                } catch (RuntimeException e) {
+                    subscriber.sending.set(false);
+                }
+            }
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        try {
+            List<StatusEvent> events = subscriber.takePending();
+            if (events.isEmpty()) {
+                subscriber.emitter.send(SseEmitter.event().comment("keep-alive"));
+            }
+            for (StatusEvent event : events) {
+                subscriber.emitter.send(SseEmitter.event()
+                        .id(Long.toString(eventSequence.incrementAndGet()))
+                        .name(event.getType().name())
+                        .data(event, MediaType.APPLICATION_JSON));
+            }
+            subscriber.lastSentAt = System.nanoTime();
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Status stream subscriber disconnected: {}", e.getMessage());
+            disconnect(subscriber);
+        } finally {
+            subscriber.sending.set(false);
+        }
+    }
+
+    private void disconnect(Subscriber subscriber) {
+        if (subscribers.remove(subscriber)) {
+            try {
+                subscriber.emitter.complete();
+            } catch (RuntimeException ignored) {
+                // Kết nối đã đóng
+            }
+        }
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+        private final Set<String> instrumentIds;
+        // Gộp theo đối tượng: sự kiện mới thay sự kiện cũ nhưng giữ thứ tự xuất hiện đầu tiên
+        private final LinkedHashMap<String, StatusEvent> pending = new LinkedHashMap<>();
+        private final AtomicBoolean sending = new AtomicBoolean();
+        private volatile long lastSentAt = System.nanoTime();
+
+        private Subscriber(SseEmitter emitter, Set<String> instrumentIds) {
+            this.emitter = emitter;
+            this.instrumentIds = instrumentIds;
+        }
+
+        private boolean accepts(StatusEvent event) {
+            // Set.copyOf ném NPE khi contains(null): sự kiện không gắn thiết bị chỉ tới client theo dõi tất cả
+            if (instrumentIds.isEmpty()) {
+                return true;
+            }
+            return event.getInstrumentId() != null && instrumentIds.contains(event.getInstrumentId());
+        }
+
+        private synchronized boolean offer(StatusEvent event, int capacity) {
+            String key = event.coalescingKey();
+            if (pending.containsKey(key)) {
+                pending.put(key, event);
+                return true;
+            }
+            if (pending.size() >= capacity) {
+                return false;
+            }
+            pending.put(key, event);
+            return true;
+        }
+
+        private synchronized boolean hasPending() {
+            return !pending.isEmpty();
+        }
+
+        private synchronized List<StatusEvent> takePending() {
+            List<StatusEvent> events = new ArrayList<>(pending.values());
+            pending.clear();
+            return events;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * @ {#} TestResultMessages.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.instrument_service.services.impl;
+
+import fit.instrument_service.configs.RabbitMQConfig;
+import fit.instrument_service.entities.RawTestResult;
+import fit.instrument_service.events.TestResultPublishedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.batch.MessageBatch;
+import org.springframework.amqp.rabbit.batch.SimpleBatchingStrategy;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.MessageConverter;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * @description: Shared sending of raw results on instrument.test_result: results are packed into Spring AMQP batch
+ *               messages (consumers de-batch them transparently), sent on one channel and confirmed by the broker once
+ *               for the whole group. Used by the result publisher and the resync responder.
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+@Slf4j
+final class TestResultMessages {
+
+    static final String TEST_RESULT_ROUTING_KEY = "instrument.test_result";
+
+    private TestResultMessages() {
+    }
+
+    /**
+     * Gửi các kết quả và chờ broker xác nhận; ném ngoại lệ nếu broker từ chối hoặc quá thời gian chờ.
+     *
+     * @param unconvertible nhận các kết quả không chuyển được thành message (không được gửi)
+     * @return ID các kết quả đã được gửi và xác nhận
+     */
+    static List<String> sendConfirmed(RabbitTemplate rabbitTemplate, List<RawTestResult> results, int maxBatchBytes,
+                                      long confirmTimeoutMs, List<RawTestResult> unconvertible) {
+        MessageConverter converter = rabbitTemplate.getMessageConverter();
+        SimpleBatchingStrategy batching = new SimpleBatchingStrategy(results.size(), maxBatchBytes, Long.MAX_VALUE);
+
+        List<MessageBatch> batches = new ArrayList<>();
+        List<String> ids = new ArrayList<>(results.size());
+        for (RawTestResult raw : results) {
+            try {
+                Message message = converter.toMessage(toEvent(raw), new MessageProperties());
+                MessageBatch full = batching.addToBatch(RabbitMQConfig.INSTRUMENT_EXCHANGE, TEST_RESULT_ROUTING_KEY, message);
+                if (full != null) {
+                    batches.add(full);
+                }
+                ids.add(raw.getId());
+            } catch (Exception e) {
+                log.error("Failed to convert result for barcode: {}", raw.getBarcode(), e);
+                unconvertible.add(raw);
+            }
+        }
+        batches.addAll(batching.releaseBatches());
+        if (ids.isEmpty()) {
+            return ids;
+        }
+
+        // Gửi các message trên cùng một channel rồi chờ broker xác nhận một lần cho cả lô
+        rabbitTemplate.invoke(operations -> {
+            for (MessageBatch batch : batches) {
+                operations.send(batch.exchange(), batch.routingKey(), batch.message());
+            }
+            operations.waitForConfirmsOrDie(confirmTimeoutMs);
+            return null;
+        });
+
+        log.debug("Sent {} results in {} AMQP messages", ids.size(), batches.size());
+        return ids;
+    }
+
+    static TestResultPublishedEvent toEvent(RawTestResult raw) {
+        @SuppressWarnings("unchecked")
+        Map<String, String> resultDataMap = (Map<String, String>) raw.getRawResultData();
+
+        return TestResultPublishedEvent.builder()
+                .instrumentId(raw.getInstrumentId())
+                .testOrderId(raw.getTestOrderId())
+                .barcode(raw.getBarcode())
+                .hl7Message(raw.getHl7Message())
+                .rawResultData(resultDataMap) // Đã ép kiểu
+                .publishedAt(LocalDateTime.now())
+                .build();
+    }
+}
@@ -3,71 +3,131 @@
  * Copyright (c) 2025 IUH. All rights reserved.
  */
 package fit.instrument_service.services.impl;/*
- * @description:
+ * @description: Trả lời yêu cầu đồng bộ lại kết quả: đọc kết quả theo cursor theo từng lô giới hạn, gửi mỗi lô thành
+ *               một message AMQP (định dạng batch của Spring AMQP, listener phía nhận tự tách từng sự kiện), chờ broker
+ *               xác nhận rồi mới đánh dấu last_resynced_at để yêu cầu trùng trong cửa sổ chống lặp được bỏ qua.
  * @author: Bao Thong
  * @date: 25/11/2025
  * @version: 1.0
  */
 
-import fit.instrument_service.configs.RabbitMQConfig;
-import fit.instrument_service.events.TestResultPublishedEvent;
 import fit.instrument_service.entities.RawTestResult;
 import fit.instrument_service.events.TestResultSyncRequestEvent;
-import fit.instrument_service.repositories.RawTestResultRepository;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Map;
+import java.util.stream.Stream;
 
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class TestResultSyncService {
 
-    private final RawTestResultRepository rawTestResultRepository;
+    private final MongoTemplate mongoTemplate;
     private final RabbitTemplate rabbitTemplate;
+    private final int barcodeChunkSize;
+    private final int batchSize;
+    private final int maxBatchBytes;
+    private final long confirmTimeoutMs;
+    private final Duration dedupWindow;
 
-    public void processSyncRequest(TestResultSyncRequestEvent request) {
-        log.info("Processing sync request {} for barcodes: {}", request.getRequestId(), request.getBarcodes());
+    public TestResultSyncService(MongoTemplate mongoTemplate,
+                                 RabbitTemplate rabbitTemplate,
+                                 @Value("${app.result-resync.barcode-chunk-size:500}") int barcodeChunkSize,
+                                 @Value("${app.result-resync.batch-size:100}") int batchSize,
+                                 @Value("${app.result-resync.max-batch-bytes:1048576}") int maxBatchBytes,
+                                 @Value("${app.result-resync.confirm-timeout-ms:10000}") long confirmTimeoutMs,
+                                 @Value("${app.result-resync.dedup-window-minutes:10}") long dedupWindowMinutes) {
+        this.mongoTemplate = mongoTemplate;
+        this.rabbitTemplate = rabbitTemplate;
+        this.barcodeChunkSize = barcodeChunkSize;
+        this.batchSize = batchSize;
+        this.maxBatchBytes = maxBatchBytes;
+        this.confirmTimeoutMs = confirmTimeoutMs;
+        this.dedupWindow = Duration.ofMinutes(dedupWindowMinutes);
+    }
 
+    public void processSyncRequest(TestResultSyncRequestEvent request) {
         List<String> barcodes = request.getBarcodes();
         if (barcodes == null || barcodes.isEmpty()) return;
 
-        List<RawTestResult> results = rawTestResultRepository.findByBarcodeIn(barcodes);
-
-        if (results.isEmpty()) {
-            log.warn("No raw results found for requested barcodes");
-            return;
+        // Bỏ barcode rỗng/trùng trong yêu cầu
+        LinkedHashSet<String> distinct = new LinkedHashSet<>();
+        for (String barcode : barcodes) {
+            if (StringUtils.hasText(barcode)) {
+                distinct.add(barcode.trim());
+            }
         }
+        List<String> uniqueBarcodes = new ArrayList<>(distinct);
+        log.info("Processing sync request {} for {} barcodes", request.getRequestId(), uniqueBarcodes.size());
+
+        // Kết quả đã gửi lại sau mốc này được coi là trùng và bỏ qua
+        LocalDateTime resyncedAfter = LocalDateTime.now().minus(dedupWindow);
 
-        for (RawTestResult raw : results) {
-            try {
-                @SuppressWarnings("unchecked")
-                Map<String, String> resultDataMap = (Map<String, String>) raw.getRawResultData();
+        int published = 0;
+        for (int from = 0; from < uniqueBarcodes.size(); from += barcodeChunkSize) {
+            List<String> chunk = uniqueBarcodes.subList(from, Math.min(from + barcodeChunkSize, uniqueBarcodes.size()));
+            published += resyncChunk(chunk, resyncedAfter);
+        }
 
-                TestResultPublishedEvent event = TestResultPublishedEvent.builder()
-                        .instrumentId(raw.getInstrumentId())
-                        .testOrderId(raw.getTestOrderId())
-                        .barcode(raw.getBarcode())
-                        .hl7Message(raw.getHl7Message())
-                        .rawResultData(resultDataMap) // Đã ép kiểu
-                        .publishedAt(LocalDateTime.now())
-                        .build();
+        if (published == 0) {
+            log.warn("No raw results to re-publish for sync request {}", request.getRequestId());
+        } else {
+            log.info("Re-published {} results for sync request {}", published, request.getRequestId());
+        }
+    }
 
-                rabbitTemplate.convertAndSend(
-                        RabbitMQConfig.INSTRUMENT_EXCHANGE,
-                        "instrument.test_result",
-                        event
-                );
-                log.info("Re-published result for barcode: {}", raw.getBarcode());
+    // Đọc kết quả của một nhóm barcode bằng cursor trên barcode_last_resynced_idx, mỗi lần giữ tối đa batchSize bản ghi
+    private int resyncChunk(List<String> barcodes, LocalDateTime resyncedAfter) {
+        Query query = Query.query(new Criteria().andOperator(
+                Criteria.where("barcode").in(barcodes),
+                new Criteria().orOperator(
+                        Criteria.where("last_resynced_at").is(null),
+                        Criteria.where("last_resynced_at").lt(resyncedAfter))));
+        query.cursorBatchSize(batchSize);
 
-            } catch (Exception e) {
-                log.error("Failed to re-publish result for barcode: {}", raw.getBarcode(), e);
+        int published = 0;
+        List<RawTestResult> pending = new ArrayList<>(batchSize);
+        try (Stream<RawTestResult> cursor = mongoTemplate.stream(query, RawTestResult.class)) {
+            Iterator<RawTestResult> iterator = cursor.iterator();
+            while (iterator.hasNext()) {
+                pending.add(iterator.next());
+                if (pending.size() >= batchSize) {
+                    published += publishBatch(pending);
+                    pending.clear();
+                }
             }
         }
+        if (!pending.isEmpty()) {
+            published += publishBatch(pending);
+        }
+        return published;
+    }
+
+    private int publishBatch(List<RawTestResult> results) {
+        List<String> ids = TestResultMessages.sendConfirmed(
+                rabbitTemplate, results, maxBatchBytes, confirmTimeoutMs, new ArrayList<>());
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        // Chỉ đánh dấu sau khi broker đã xác nhận; nếu lỗi, lần đồng bộ sau sẽ gửi lại
+        mongoTemplate.updateMulti(
+                Query.query(Criteria.where("_id").in(ids)),
+                new Update().set("last_resynced_at", LocalDateTime.now()),
+                RawTestResult.class);
+        return ids.size();
     }
 }
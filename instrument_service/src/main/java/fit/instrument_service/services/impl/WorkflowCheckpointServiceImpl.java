@@ -0,0 +1,184 @@
+/*
+ * @ {#} WorkflowCheckpointServiceImpl.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.instrument_service.services.impl;
+
+import com.mongodb.client.result.UpdateResult;
+import fit.instrument_service.entities.BloodSample;
+import fit.instrument_service.entities.SampleProcessingWorkflow;
+import fit.instrument_service.enums.SampleStep;
+import fit.instrument_service.enums.WorkflowStatus;
+import fit.instrument_service.services.WorkflowCheckpointService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/*
+ * @description: Checkpoints are partial updates on the blood sample ($addToSet on completed_steps), so writing the same
+ *               step twice is harmless and a checkpoint never overwrites a concurrent status transition. Each workflow
+ *               records the instance running it and a heartbeat_at that the executor renews while it works; only
+ *               workflows whose heartbeat (or updated_at, for workflows from before heartbeats) is older than
+ *               app.workflow-recovery.stale-after-ms are resumed, so a live workflow on another replica is never
+ *               taken over. Resuming is claimed with a compare-and-increment on resume_count that re-checks staleness.
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+@Service
+@Slf4j
+public class WorkflowCheckpointServiceImpl implements WorkflowCheckpointService {
+
+    private static final List<WorkflowStatus> INTERRUPTED_STATUSES =
+            List.of(WorkflowStatus.INITIATED, WorkflowStatus.VALIDATING, WorkflowStatus.RUNNING);
+
+    // Mỗi lần khởi động là một instance mới: quy trình của lần chạy trước chỉ được tiếp tục khi đã quá hạn heartbeat
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private final MongoTemplate mongoTemplate;
+    private final Duration staleAfter;
+    private final Duration heartbeatInterval;
+
+    public WorkflowCheckpointServiceImpl(MongoTemplate mongoTemplate,
+                                         @Value("${app.workflow-recovery.stale-after-ms:300000}") long staleAfterMs) {
+        this.mongoTemplate = mongoTemplate;
+        this.staleAfter = Duration.ofMillis(staleAfterMs);
+        // Gia hạn nhiều lần trong một ngưỡng để một lần ghi lỗi không làm quy trình bị coi là dừng
+        this.heartbeatInterval = Duration.ofMillis(Math.max(staleAfterMs / 5, 1));
+    }
+
+    @Override
+    public void markCompleted(BloodSample sample, SampleStep... steps) {
+        mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(sample.getId())),
+                stepsUpdate(steps),
+                BloodSample.class);
+        sample.getCompletedSteps().addAll(Arrays.asList(steps));
+    }
+
+    @Override
+    public void markHl7Built(BloodSample sample, String rawResultId) {
+        mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(sample.getId())),
+                stepsUpdate(SampleStep.RESULTS_GENERATED, SampleStep.HL7_BUILT).set("raw_result_id", rawResultId),
+                BloodSample.class);
+        sample.getCompletedSteps().add(SampleStep.RESULTS_GENERATED);
+        sample.getCompletedSteps().add(SampleStep.HL7_BUILT);
+        sample.setRawResultId(rawResultId);
+    }
+
+    @Override
+    public void markAllCompleted(List<BloodSample> samples, SampleStep step) {
+        if (samples.isEmpty()) {
+            return;
+        }
+
+        List<String> ids = new ArrayList<>(samples.size());
+        for (BloodSample sample : samples) {
+            ids.add(sample.getId());
+            sample.getCompletedSteps().add(step);
+        }
+        mongoTemplate.updateMulti(Query.query(Criteria.where("_id").in(ids)), stepsUpdate(step), BloodSample.class);
+    }
+
+    @Override
+    public void markPublished(List<String> rawResultIds) {
+        if (rawResultIds.isEmpty()) {
+            return;
+        }
+        mongoTemplate.updateMulti(
+                Query.query(Criteria.where("raw_result_id").in(rawResultIds)),
+                stepsUpdate(SampleStep.PUBLISHED),
+                BloodSample.class);
+    }
+
+    @Override
+    public void markOwned(SampleProcessingWorkflow workflow) {
+        workflow.setOwnerInstanceId(instanceId);
+        workflow.setHeartbeatAt(LocalDateTime.now());
+    }
+
+    @Override
+    public boolean heartbeat(SampleProcessingWorkflow workflow) {
+        LocalDateTime now = LocalDateTime.now();
+        if (workflow.getHeartbeatAt() != null && workflow.getHeartbeatAt().plus(heartbeatInterval).isAfter(now)) {
+            return true;
+        }
+        UpdateResult result = mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(workflow.getId()).and("owner_instance_id").is(instanceId)),
+                new Update().set("heartbeat_at", now),
+                SampleProcessingWorkflow.class);
+        // Không khớp: replica khác đã nhận quy trình sau khi heartbeat của instance này quá hạn
+        if (result.getMatchedCount() != 1) {
+            log.warn("Workflow {} is no longer owned by instance {}", workflow.getId(), instanceId);
+            return false;
+        }
+        workflow.setHeartbeatAt(now);
+        return true;
+    }
+
+    @Override
+    public List<SampleProcessingWorkflow> findInterruptedWorkflows() {
+        Query query = Query.query(Criteria.where("status").in(INTERRUPTED_STATUSES)
+                        .andOperator(staleCriteria(LocalDateTime.now().minus(staleAfter))))
+                .with(Sort.by(Sort.Direction.ASC, "started_at"));
+        return mongoTemplate.find(query, SampleProcessingWorkflow.class);
+    }
+
+    @Override
+    public boolean claimForResume(SampleProcessingWorkflow workflow) {
+        LocalDateTime now = LocalDateTime.now();
+        UpdateResult result = mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(workflow.getId())
+                        .and("status").in(INTERRUPTED_STATUSES)
+                        // Quy trình tạo trước khi có trường resume_count: thiếu trường coi như 0
+                        .and("resume_count").in(workflow.getResumeCount() == 0
+                                ? Arrays.asList(0, null)
+                                : List.of(workflow.getResumeCount()))
+                        // Kiểm tra lại: instance sở hữu có thể vừa gia hạn heartbeat sau khi quy trình được đọc
+                        .andOperator(staleCriteria(now.minus(staleAfter)))),
+                new Update()
+                        .inc("resume_count", 1)
+                        .set("owner_instance_id", instanceId)
+                        .set("heartbeat_at", now)
+                        .set("updated_at", now),
+                SampleProcessingWorkflow.class);
+
+        if (result.getModifiedCount() == 0) {
+            log.info("Workflow {} was already claimed, finished or is still running elsewhere; not resuming",
+                    workflow.getId());
+            return false;
+        }
+        workflow.setResumeCount(workflow.getResumeCount() + 1);
+        workflow.setOwnerInstanceId(instanceId);
+        workflow.setHeartbeatAt(now);
+        return true;
+    }
+
+    // Heartbeat cũ hơn mốc; quy trình tạo trước khi có heartbeat thì xét theo updated_at
+    private static Criteria staleCriteria(LocalDateTime cutoff) {
+        return new Criteria().orOperator(
+                Criteria.where("heartbeat_at").lt(cutoff),
+                Criteria.where("heartbeat_at").is(null).and("updated_at").lt(cutoff));
+    }
+
+    private static Update stepsUpdate(SampleStep... steps) {
+        return new Update()
+                .addToSet("completed_steps").each((Object[]) steps)
+                .set("updated_at", LocalDateTime.now());
+    }
+}
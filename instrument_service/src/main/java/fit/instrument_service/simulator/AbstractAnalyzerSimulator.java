@@ -0,0 +1,98 @@
+/*
+ * @ {#} AbstractAnalyzerSimulator.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.instrument_service.simulator;
+
+import fit.instrument_service.client.dtos.ParameterRangeResponse;
+import fit.instrument_service.client.dtos.TestParameterResponse;
+import fit.instrument_service.client.dtos.enums.Gender;
+import fit.instrument_service.entities.Instrument;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.random.RandomGenerator;
+
+/*
+ * @description: Value generation common to all profiles: most results fall inside the reference range, the rest
+ *               are spread above or below it. Subclasses supply the default panel, cycle time and the share of
+ *               in-range results.
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+public abstract class AbstractAnalyzerSimulator implements AnalyzerSimulator {
+
+    /**
+     * Tỉ lệ kết quả nằm trong dải tham chiếu.
+     */
+    protected double normalRate() {
+        return 0.7;
+    }
+
+    /**
+     * Từ khóa nhận diện profile trong model/type của thiết bị (chữ thường).
+     */
+    protected abstract List<String> keywords();
+
+    @Override
+    public boolean supports(Instrument instrument) {
+        String descriptor = ((instrument.getModel() != null ? instrument.getModel() : "") + " "
+                + (instrument.getType() != null ? instrument.getType() : "")).toLowerCase(Locale.ROOT);
+        for (String keyword : keywords()) {
+            if (descriptor.contains(keyword)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Map<TestParameterResponse, Double> simulate(List<TestParameterResponse> parameters, Gender gender,
+                                                       RandomGenerator random) {
+        Map<TestParameterResponse, Double> results = new LinkedHashMap<>(parameters.size() * 2);
+        for (TestParameterResponse parameter : parameters) {
+            results.put(parameter, generateValue(ParameterRanges.select(parameter, gender), random));
+        }
+        return results;
+    }
+
+    // Hàm sinh giá trị kết quả cho từng tham số (làm tròn một chữ số thập phân như bản tin HL7)
+    protected double generateValue(ParameterRangeResponse range, RandomGenerator random) {
+        double value;
+        if (range != null && range.getMinValue() != null && range.getMaxValue() != null) {
+            double min = range.getMinValue();
+            double max = range.getMaxValue();
+            double span = Math.max(0.1, max - min);
+            if (random.nextDouble() < normalRate()) {
+                value = min + span * random.nextDouble();
+            } else if (random.nextBoolean()) {
+                value = max + span * (0.1 + random.nextDouble() * 0.4);
+            } else {
+                value = Math.max(0, min - span * (0.1 + random.nextDouble() * 0.4));
+            }
+        } else {
+            value = 1 + random.nextDouble() * 10;
+        }
+        return Math.round(value * 10) / 10.0;
+    }
+
+    protected static ParameterRangeResponse range(String gender, double min, double max, String unit) {
+        return ParameterRangeResponse.builder().gender(gender).minValue(min).maxValue(max).unit(unit).build();
+    }
+
+    protected static TestParameterResponse parameter(String id, String name, String abbreviation, String description,
+                                                     ParameterRangeResponse... ranges) {
+        return TestParameterResponse.builder()
+                .testParameterId(id)
+                .paramName(name)
+                .abbreviation(abbreviation)
+                .description(description)
+                .parameterRanges(List.of(ranges))
+                .build();
+    }
+}
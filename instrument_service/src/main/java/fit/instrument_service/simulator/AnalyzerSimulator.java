@@ -0,0 +1,53 @@
+/*
+ * @ {#} AnalyzerSimulator.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.instrument_service.simulator;
+
+import fit.instrument_service.client.dtos.TestParameterResponse;
+import fit.instrument_service.client.dtos.enums.Gender;
+import fit.instrument_service.entities.Instrument;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.random.RandomGenerator;
+
+/*
+ * @description: SPI for a simulated analyzer profile (hematology, chemistry, ...). Implementations are Spring beans
+ *               picked up by AnalyzerSimulatorRegistry; they must be stateless and draw every random value from the
+ *               generator they are given so that a run can be replayed from its seed.
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+public interface AnalyzerSimulator {
+
+    /**
+     * Tên profile dùng trong cấu hình app.simulator.models / default-profile.
+     */
+    String profile();
+
+    /**
+     * Profile có nhận thiết bị này khi không có ánh xạ model tường minh hay không.
+     */
+    boolean supports(Instrument instrument);
+
+    /**
+     * Bộ thông số dùng khi đơn xét nghiệm không mang theo danh sách thông số.
+     */
+    List<TestParameterResponse> defaultParameters();
+
+    /**
+     * Thời gian máy xử lý một mẫu (thời gian ảo, được co giãn bởi app.simulator.time-scale).
+     */
+    Duration cycleTime();
+
+    /**
+     * Sinh kết quả cho từng thông số, giữ nguyên thứ tự của danh sách.
+     */
+    Map<TestParameterResponse, Double> simulate(List<TestParameterResponse> parameters, Gender gender,
+                                                RandomGenerator random);
+}
@@ -0,0 +1,84 @@
+/*
+ * @ {#} AnalyzerSimulatorRegistry.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.instrument_service.simulator;
+
+import fit.instrument_service.entities.Instrument;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/*
+ * @description: Collects every AnalyzerSimulator bean and chooses one per instrument: an explicit
+ *               app.simulator.models mapping for the instrument model wins, then the first profile whose keywords
+ *               match the model/type, then the default profile. New profiles only need to be declared as beans.
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+@Component
+@Slf4j
+public class AnalyzerSimulatorRegistry {
+
+    private final List<AnalyzerSimulator> simulators;
+    private final Map<String, AnalyzerSimulator> byProfile = new HashMap<>();
+    private final Map<String, AnalyzerSimulator> byModel = new HashMap<>();
+    private final AnalyzerSimulator defaultSimulator;
+    private final SimulatorProperties properties;
+
+    public AnalyzerSimulatorRegistry(List<AnalyzerSimulator> simulators, SimulatorProperties properties) {
+        this.simulators = List.copyOf(simulators);
+        this.properties = properties;
+        for (AnalyzerSimulator simulator : simulators) {
+            byProfile.put(simulator.profile().toLowerCase(Locale.ROOT), simulator);
+        }
+        properties.getModels().forEach((model, profile) ->
+                byModel.put(model.toLowerCase(Locale.ROOT), requireProfile(profile)));
+        this.defaultSimulator = requireProfile(properties.getDefaultProfile());
+    }
+
+    // Chọn profile mô phỏng cho thiết bị
+    public AnalyzerSimulator resolve(Instrument instrument) {
+        if (StringUtils.hasText(instrument.getModel())) {
+            AnalyzerSimulator mapped = byModel.get(instrument.getModel().toLowerCase(Locale.ROOT));
+            if (mapped != null) {
+                return mapped;
+            }
+        }
+        for (AnalyzerSimulator simulator : simulators) {
+            if (simulator.supports(instrument)) {
+                return simulator;
+            }
+        }
+        return defaultSimulator;
+    }
+
+    /**
+     * Bắt đầu một lượt mô phỏng cho workflow. Với seed cấu hình sẵn, cùng thiết bị và cùng barcode luôn cho cùng kết quả.
+     */
+    public SimulationRun startRun(String workflowId, Instrument instrument) {
+        AnalyzerSimulator simulator = resolve(instrument);
+        long seed = properties.getSeed() != null
+                ? SimulationRun.sampleSeed(properties.getSeed(), instrument.getId())
+                : ThreadLocalRandom.current().nextLong();
+        log.info("Workflow {} simulated with profile '{}' and seed {}", workflowId, simulator.profile(), seed);
+        return new SimulationRun(simulator, seed, properties.getTimeScale());
+    }
+
+    private AnalyzerSimulator requireProfile(String profile) {
+        AnalyzerSimulator simulator = profile != null ? byProfile.get(profile.toLowerCase(Locale.ROOT)) : null;
+        if (simulator == null) {
+            throw new IllegalStateException("Unknown analyzer simulator profile: " + profile);
+        }
+        return simulator;
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * @ {#} ChemistryAnalyzerSimulator.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.instrument_service.simulator;
+
+import fit.instrument_service.client.dtos.TestParameterResponse;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/*
+ * @description: Clinical chemistry analyzer profile with a basic metabolic / liver panel. Chemistry results are
+ *               abnormal less often than the simulated CBC and a panel takes a little longer per sample.
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+@Component
+public class ChemistryAnalyzerSimulator extends AbstractAnalyzerSimulator {
+
+    public static final String PROFILE = "chemistry";
+
+    private static final Duration CYCLE_TIME = Duration.ofSeconds(72);
+
+    private static final List<String> KEYWORDS = List.of("chemistry", "biochemistry", "biochemical", "metabolic");
+
+    private static final List<TestParameterResponse> CHEMISTRY_PANEL = List.of(
+            parameter("TP-GLU", "Glucose", "GLU",
+                    "Measures the blood sugar level.",
+                    range("BOTH", 70.0, 100.0, "mg/dL")),
+            parameter("TP-BUN", "Blood Urea Nitrogen", "BUN",
+                    "Measures urea nitrogen in the blood, an indicator of kidney function.",
+                    range("BOTH", 7.0, 20.0, "mg/dL")),
+            parameter("TP-CREA", "Creatinine", "CREA",
+                    "Measures creatinine, a waste product filtered by the kidneys.",
+                    range("MALE", 0.7, 1.3, "mg/dL"),
+                    range("FEMALE", 0.6, 1.1, "mg/dL")),
+            parameter("TP-ALT", "Alanine Aminotransferase", "ALT",
+                    "Liver enzyme; raised levels indicate liver cell damage.",
+                    range("BOTH", 7.0, 56.0, "U/L")),
+            parameter("TP-AST", "Aspartate Aminotransferase", "AST",
+                    "Enzyme found mainly in the liver and heart.",
+                    range("BOTH", 10.0, 40.0, "U/L")),
+            parameter("TP-NA", "Sodium", "Na",
+                    "Electrolyte that regulates fluid balance.",
+                    range("BOTH", 135.0, 145.0, "mmol/L")),
+            parameter("TP-K", "Potassium", "K",
+                    "Electrolyte essential for nerve and muscle function.",
+                    range("BOTH", 3.5, 5.0, "mmol/L")),
+            parameter("TP-CHOL", "Total Cholesterol", "CHOL",
+                    "Measures the total amount of cholesterol in the blood.",
+                    range("BOTH", 125.0, 200.0, "mg/dL"))
+    );
+
+    @Override
+    public String profile() {
+        return PROFILE;
+    }
+
+    @Override
+    protected List<String> keywords() {
+        return KEYWORDS;
+    }
+
+    @Override
+    protected double normalRate() {
+        return 0.8;
+    }
+
+    @Override
+    public List<TestParameterResponse> defaultParameters() {
+        return CHEMISTRY_PANEL;
+    }
+
+    @Override
+    public Duration cycleTime() {
+        return CYCLE_TIME;
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * @ {#} HematologyAnalyzerSimulator.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.instrument_service.simulator;
+
+import fit.instrument_service.client.dtos.TestParameterResponse;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/*
+ * @description: Hematology analyzer profile: the CBC panel previously built inside the workflow service on every
+ *               sample, now created once, at roughly 60 samples per hour.
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+@Component
+public class HematologyAnalyzerSimulator extends AbstractAnalyzerSimulator {
+
+    public static final String PROFILE = "hematology";
+
+    private static final Duration CYCLE_TIME = Duration.ofSeconds(60);
+
+    private static final List<String> KEYWORDS = List.of("hematology", "haematology", "cbc", "blood count");
+
+    private static final List<TestParameterResponse> CBC_PANEL = List.of(
+            parameter("TP-WBC", "White Blood Cell Count", "WBC",
+                    "Measures the number of white blood cells (leukocytes) in the blood, which helps fight infection.",
+                    range("BOTH", 4000.0, 10000.0, "cells/µL")),
+            parameter("TP-RBC", "Red Blood Cell Count", "RBC",
+                    "Measures the number of red blood cells per unit of blood, which are responsible for carrying oxygen throughout the body.",
+                    range("MALE", 4.7, 6.1, "million/µL"),
+                    range("FEMALE", 4.2, 5.4, "million/µL")),
+            parameter("TP-HGB", "Hemoglobin", "Hb/HGB",
+                    "Measures the amount of hemoglobin in the blood, which is the protein in red blood cells that carries oxygen.",
+                    range("MALE", 14.0, 18.0, "g/dL"),
+                    range("FEMALE", 12.0, 16.0, "g/dL")),
+            parameter("TP-HCT", "Hematocrit", "HCT",
+                    "Represents the percentage of red blood cells in the blood volume, indicating oxygen-carrying capacity.",
+                    range("MALE", 42.0, 52.0, "%"),
+                    range("FEMALE", 37.0, 47.0, "%")),
+            parameter("TP-PLT", "Platelet Count", "PLT",
+                    "Measures the number of platelets in the blood, which are responsible for clotting.",
+                    range("BOTH", 150000.0, 350000.0, "cells/µL")),
+            parameter("TP-MCV", "Mean Corpuscular Volume", "MCV",
+                    "Indicates the average size of red blood cells.",
+                    range("BOTH", 80.0, 100.0, "fL")),
+            parameter("TP-MCH", "Mean Corpuscular Haemoglobin", "MCH",
+                    "Represents the average amount of haemoglobin per red blood cell.",
+                    range("BOTH", 27.0, 33.0, "pg")),
+            parameter("TP-MCHC", "Mean Corpuscular Haemoglobin Concentration", "MCHC",
+                    "Calculates the average concentration of haemoglobin in red blood cells.",
+                    range("BOTH", 32.0, 36.0, "g/dL"))
+    );
+
+    @Override
+    public String profile() {
+        return PROFILE;
+    }
+
+    @Override
+    protected List<String> keywords() {
+        return KEYWORDS;
+    }
+
+    @Override
+    public List<TestParameterResponse> defaultParameters() {
+        return CBC_PANEL;
+    }
+
+    @Override
+    public Duration cycleTime() {
+        return CYCLE_TIME;
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * @ {#} ParameterRanges.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.instrument_service.simulator;
+
+import fit.instrument_service.client.dtos.ParameterRangeResponse;
+import fit.instrument_service.client.dtos.TestParameterResponse;
+import fit.instrument_service.client.dtos.enums.Gender;
+import org.springframework.util.StringUtils;
+
+import java.util.List;
+
+/*
+ * @description: Reference range lookup shared by the analyzer profiles and the HL7 encoder call site
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+public final class ParameterRanges {
+
+    private ParameterRanges() {
+    }
+
+    // Hàm chọn dải tham số phù hợp với giới tính
+    public static ParameterRangeResponse select(TestParameterResponse parameter, Gender gender) {
+        List<ParameterRangeResponse> ranges = parameter.getParameterRanges();
+        if (ranges == null || ranges.isEmpty()) {
+            return null;
+        }
+
+        for (ParameterRangeResponse range : ranges) {
+            if (genderMatches(range.getGender(), gender)) {
+                return range;
+            }
+        }
+        return ranges.get(0);
+    }
+
+    // Hàm kiểm tra giới tính có khớp với dải tham số không
+    static boolean genderMatches(String rangeGender, Gender gender) {
+        if (!StringUtils.hasText(rangeGender)) {
+            return true;
+        }
+        if (gender == null) {
+            return "BOTH".equalsIgnoreCase(rangeGender);
+        }
+        if ("BOTH".equalsIgnoreCase(rangeGender)) {
+            return true;
+        }
+        return rangeGender.equalsIgnoreCase(gender.name());
+    }
+}
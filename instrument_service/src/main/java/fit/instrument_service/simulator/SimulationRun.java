@@ -0,0 +1,95 @@
+/*
+ * @ {#} SimulationRun.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.instrument_service.simulator;
+
+import fit.instrument_service.client.dtos.TestOrderResponse;
+import fit.instrument_service.client.dtos.TestParameterResponse;
+import fit.instrument_service.client.dtos.TestTypeResponse;
+import lombok.Getter;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * @description: Simulation state of one workflow: the selected analyzer profile, the run seed and a virtual clock.
+ *               Every sample gets its own random stream derived from the run seed and its barcode, so results do not
+ *               depend on processing order or on other samples and a run can be replayed exactly from its seed.
+ *               Processing time advances the virtual clock; wall-clock sleeping happens only when time-scale > 0.
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+public class SimulationRun {
+
+    @Getter
+    private final AnalyzerSimulator simulator;
+    @Getter
+    private final long seed;
+    private final double timeScale;
+    private long virtualNanos;
+
+    public SimulationRun(AnalyzerSimulator simulator, long seed, double timeScale) {
+        this.simulator = simulator;
+        this.seed = seed;
+        this.timeScale = Math.max(0, timeScale);
+    }
+
+    /**
+     * Mô phỏng kết quả cho một mẫu theo thông số của loại xét nghiệm, hoặc bộ mặc định của profile.
+     */
+    public Map<TestParameterResponse, Double> simulate(String barcode, TestOrderResponse orderDetails) {
+        List<TestParameterResponse> parameters = defaultIfEmpty(orderDetails);
+        return simulator.simulate(parameters, orderDetails != null ? orderDetails.getGender() : null,
+                new SplittableRandom(sampleSeed(seed, barcode)));
+    }
+
+    /**
+     * Máy xử lý một mẫu: tiến đồng hồ ảo một chu kỳ, chỉ sleep khi time-scale > 0.
+     */
+    public void runCycle() throws InterruptedException {
+        Duration cycle = simulator.cycleTime();
+        virtualNanos += cycle.toNanos();
+        if (timeScale > 0) {
+            long sleepNanos = (long) (cycle.toNanos() * timeScale);
+            if (sleepNanos > 0) {
+                TimeUnit.NANOSECONDS.sleep(sleepNanos);
+            }
+        }
+    }
+
+    /**
+     * Tổng thời gian máy đã "chạy" trong run này theo đồng hồ ảo.
+     */
+    public Duration virtualElapsed() {
+        return Duration.ofNanos(virtualNanos);
+    }
+
+    private List<TestParameterResponse> defaultIfEmpty(TestOrderResponse orderDetails) {
+        if (orderDetails != null) {
+            TestTypeResponse testType = orderDetails.getTestType();
+            if (testType != null && testType.getTestParameters() != null && !testType.getTestParameters().isEmpty()) {
+                return testType.getTestParameters();
+            }
+        }
+        return simulator.defaultParameters();
+    }
+
+    // Trộn seed với khóa (FNV-1a); SplittableRandom tự trộn thêm seed nên hai khóa gần nhau vẫn cho dãy khác nhau
+    static long sampleSeed(long seed, String key) {
+        long hash = seed ^ 0xcbf29ce484222325L;
+        if (key != null) {
+            for (int i = 0; i < key.length(); i++) {
+                hash ^= key.charAt(i);
+                hash *= 0x100000001b3L;
+            }
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * @ {#} SimulatorProperties.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.instrument_service.simulator;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/*
+ * @description: Settings of the analyzer simulator: which profile serves which instrument model, the base seed for
+ *               reproducible runs and how virtual instrument time maps to wall-clock time.
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.simulator")
+public class SimulatorProperties {
+
+    // Seed gốc; để trống thì mỗi workflow nhận seed ngẫu nhiên (vẫn được ghi log để chạy lại)
+    private Long seed;
+
+    // Tỉ lệ thời gian thực / thời gian ảo: 0 = không sleep, 1 = đúng tốc độ máy thật, 0.01 = nhanh gấp 100 lần
+    private double timeScale = 0;
+
+    // Profile dùng khi model/type của thiết bị không khớp profile nào
+    private String defaultProfile = HematologyAnalyzerSimulator.PROFILE;
+
+    // Ánh xạ model thiết bị -> tên profile (không phân biệt hoa thường)
+    private Map<String, String> models = new HashMap<>();
+}
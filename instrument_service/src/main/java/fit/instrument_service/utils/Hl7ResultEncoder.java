@@ -0,0 +1,214 @@
+/*
+ * @ {#} Hl7ResultEncoder.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.instrument_service.utils;
+
+import fit.instrument_service.client.dtos.ParameterRangeResponse;
+import fit.instrument_service.client.dtos.TestOrderResponse;
+import fit.instrument_service.client.dtos.TestParameterResponse;
+import fit.instrument_service.entities.BloodSample;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.function.Function;
+
+/*
+ * @description: Encodes ORU^R01 result messages directly as ER7 text instead of building a HAPI object graph per
+ *               sample. The fixed parts of MSH/OBR are precomputed, the timestamp formatter is created once, each
+ *               thread reuses its own StringBuilder and values are escaped in one pass, so a message costs little
+ *               more than its final String. Output is the same segment layout HAPI produced before.
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+@Component
+public class Hl7ResultEncoder {
+
+    private static final DateTimeFormatter HL7_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+
+    private static final String MSH_PREFIX = "MSH|^~\\&|INSTRUMENT_SERVICE|";
+    private static final String MSH_RECEIVER = "|TEST_ORDER_SERVICE|LIS|";
+    private static final String MSH_TYPE = "||ORU^R01|";
+    private static final String MSH_SUFFIX = "|P|2.5\r";
+    private static final String OBR_PANEL = "|PANEL-AUTO^Auto Panel from Instrument|||";
+    // OBR-8 .. OBR-24 để trống, OBR-25 = F (Final)
+    private static final String OBR_SUFFIX = "||||||||||||||||||F\r";
+
+    private static final int INITIAL_CAPACITY = 2048;
+    // Buffer lớn bất thường không được giữ lại trong ThreadLocal
+    private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+
+    private static final ThreadLocal<StringBuilder> BUFFER =
+            ThreadLocal.withInitial(() -> new StringBuilder(INITIAL_CAPACITY));
+
+    /**
+     * Mã hóa kết quả của một mẫu thành tin nhắn ORU^R01.
+     *
+     * @param rangeSelector chọn khoảng tham chiếu (theo giới tính) cho từng thông số
+     */
+    public String encodeResult(BloodSample sample, TestOrderResponse orderDetails,
+                               Map<TestParameterResponse, Double> results,
+                               Function<TestParameterResponse, ParameterRangeResponse> rangeSelector) {
+        StringBuilder hl7 = acquireBuffer();
+
+        // Định dạng thời gian một lần rồi sao chép vào MSH/OBR/OBX
+        int nowStart;
+        int nowEnd;
+
+        // --- MSH ---
+        hl7.append(MSH_PREFIX);
+        escape(hl7, sample.getInstrumentId());
+        hl7.append(MSH_RECEIVER);
+        nowStart = hl7.length();
+        HL7_TIMESTAMP.formatTo(LocalDateTime.now(), hl7);
+        nowEnd = hl7.length();
+        hl7.append(MSH_TYPE).append("MSG-");
+        escape(hl7, sample.getBarcode());
+        hl7.append('-').append(System.currentTimeMillis()).append(MSH_SUFFIX);
+
+        // --- PID ---
+        hl7.append("PID|1||");
+        escape(hl7, sample.getBarcode());
+        hl7.append("^^^BARCODE");
+        if (orderDetails != null) {
+            if (StringUtils.hasText(orderDetails.getMedicalRecordCode())) {
+                hl7.append('~');
+                escape(hl7, orderDetails.getMedicalRecordCode());
+                hl7.append("^^^MRN");
+            }
+            hl7.append("||");
+            escape(hl7, orderDetails.getFullName());
+            hl7.append("||");
+            appendIsoDate(hl7, orderDetails.getDateOfBirth());
+            hl7.append('|');
+            if (orderDetails.getGender() != null) {
+                hl7.append(orderDetails.getGender().name().charAt(0)); // M, F, O
+            }
+        } else {
+            hl7.append("||UNKNOWN^Patient");
+        }
+        hl7.append('\r');
+
+        // --- OBR ---
+        hl7.append("OBR|1|");
+        escape(hl7, sample.getTestOrderId());
+        hl7.append('|');
+        escape(hl7, sample.getWorkflowId());
+        hl7.append(OBR_PANEL);
+        hl7.append(hl7, nowStart, nowEnd);
+        hl7.append(OBR_SUFFIX);
+
+        // --- OBX (lặp) ---
+        int setId = 1;
+        for (Map.Entry<TestParameterResponse, Double> entry : results.entrySet()) {
+            TestParameterResponse parameter = entry.getKey();
+            String abbreviation = StringUtils.hasText(parameter.getAbbreviation()) ? parameter.getAbbreviation() : parameter.getParamName();
+            String parameterName = StringUtils.hasText(parameter.getParamName()) ? parameter.getParamName() : abbreviation;
+
+            hl7.append("OBX|").append(setId++).append("|NM|");
+            escape(hl7, abbreviation);
+            hl7.append('^');
+            escape(hl7, parameterName);
+            hl7.append("||");
+            appendOneDecimal(hl7, entry.getValue());
+            hl7.append('|');
+
+            ParameterRangeResponse range = rangeSelector.apply(parameter);
+            if (range != null && StringUtils.hasText(range.getUnit())) {
+                escape(hl7, range.getUnit());
+            }
+            hl7.append('|');
+            if (range != null && range.getMinValue() != null && range.getMaxValue() != null) {
+                appendOneDecimal(hl7, range.getMinValue());
+                hl7.append('-');
+                appendOneDecimal(hl7, range.getMaxValue());
+            }
+            // OBX-8..OBX-10 trống, OBX-11 = F, OBX-14 = thời điểm đo
+            hl7.append("||||F|||");
+            hl7.append(hl7, nowStart, nowEnd);
+            hl7.append('\r');
+        }
+
+        return hl7.toString();
+    }
+
+    /**
+     * Định dạng giá trị với một chữ số thập phân, luôn dùng dấu chấm (không phụ thuộc Locale như String.format).
+     */
+    public static String formatOneDecimal(Double value) {
+        if (value == null) {
+            return "";
+        }
+        StringBuilder out = new StringBuilder(16);
+        appendOneDecimal(out, value);
+        return out.toString();
+    }
+
+    /**
+     * Ghi value vào out, thay các ký tự phân cách HL7 bằng escape sequence trong một lần duyệt.
+     * CR/LF không có escape an toàn trong ST nên được thay bằng khoảng trắng.
+     */
+    public static void escape(StringBuilder out, String value) {
+        if (value == null) {
+            return;
+        }
+        int length = value.length();
+        int start = 0;
+        for (int i = 0; i < length; i++) {
+            String replacement = switch (value.charAt(i)) {
+                case '|' -> "\\F\\";
+                case '^' -> "\\S\\";
+                case '&' -> "\\T\\";
+                case '~' -> "\\R\\";
+                case '\\' -> "\\E\\";
+                case '\r', '\n' -> " ";
+                default -> null;
+            };
+            if (replacement != null) {
+                out.append(value, start, i).append(replacement);
+                start = i + 1;
+            }
+        }
+        out.append(value, start, length);
+    }
+
+    private static void appendOneDecimal(StringBuilder out, Double value) {
+        if (value == null) {
+            return;
+        }
+        double v = value;
+        if (Double.isNaN(v) || Double.isInfinite(v)) {
+            out.append(v);
+            return;
+        }
+        long scaled = Math.round(Math.abs(v) * 10);
+        if (v < 0 && scaled != 0) {
+            out.append('-');
+        }
+        out.append(scaled / 10).append('.').append(scaled % 10);
+    }
+
+    // yyyy-MM-dd -> yyyyMMdd mà không cần parse thành LocalDate
+    private static void appendIsoDate(StringBuilder out, String isoDate) {
+        if (isoDate == null || isoDate.length() < 10 || isoDate.charAt(4) != '-' || isoDate.charAt(7) != '-') {
+            return;
+        }
+        out.append(isoDate, 0, 4).append(isoDate, 5, 7).append(isoDate, 8, 10);
+    }
+
+    private static StringBuilder acquireBuffer() {
+        StringBuilder buffer = BUFFER.get();
+        if (buffer.capacity() > MAX_RETAINED_CAPACITY) {
+            buffer = new StringBuilder(INITIAL_CAPACITY);
+            BUFFER.set(buffer);
+        }
+        buffer.setLength(0);
+        return buffer;
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * @ {#} ReagentUsageDescriptorCache.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.instrument_service.utils;
+
+import feign.FeignException;
+import fit.instrument_service.client.WarehouseFeignClient;
+import fit.instrument_service.client.dtos.ReagentLotStatusResponse;
+import fit.instrument_service.dtos.response.ApiResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.OptionalDouble;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/*
+ * @description: Per-lot "usage per run" from warehouse_service, fetched and parsed once per lot and kept for a TTL.
+ *               Failed lookups fall back to 1 unit per run and are cached for a short time only, so an unreachable
+ *               warehouse is not called again for every sample.
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+@Component
+@Slf4j
+public class ReagentUsageDescriptorCache {
+
+    static final int DEFAULT_USAGE = 1;
+
+    private static final Pattern AMOUNT = Pattern.compile("([0-9]+(?:\\.[0-9]+)?)");
+
+    private final WarehouseFeignClient warehouseFeignClient;
+    private final long ttlNanos;
+    private final long fallbackTtlNanos;
+    private final ConcurrentMap<String, CachedUsage> cache = new ConcurrentHashMap<>();
+
+    public ReagentUsageDescriptorCache(WarehouseFeignClient warehouseFeignClient,
+                                       @Value("${app.reagent-ledger.descriptor-ttl-minutes:60}") long ttlMinutes,
+                                       @Value("${app.reagent-ledger.descriptor-fallback-ttl-seconds:60}") long fallbackTtlSeconds) {
+        this.warehouseFeignClient = warehouseFeignClient;
+        this.ttlNanos = TimeUnit.MINUTES.toNanos(ttlMinutes);
+        this.fallbackTtlNanos = TimeUnit.SECONDS.toNanos(fallbackTtlSeconds);
+    }
+
+    /**
+     * Lượng hóa chất (đã làm tròn lên, ít nhất 1) bị trừ cho mỗi lần chạy của lô.
+     */
+    public int usagePerRun(String lotNumber) {
+        if (!StringUtils.hasText(lotNumber)) {
+            return DEFAULT_USAGE;
+        }
+        long now = System.nanoTime();
+        CachedUsage cached = cache.get(lotNumber);
+        if (cached != null && now - cached.expiresAt() < 0) {
+            return cached.amount();
+        }
+        CachedUsage loaded = load(lotNumber, now);
+        cache.put(lotNumber, loaded);
+        return loaded.amount();
+    }
+
+    public void evict(String lotNumber) {
+        if (lotNumber != null) {
+            cache.remove(lotNumber);
+        }
+    }
+
+    /**
+     * Lấy số đầu tiên trong mô tả, ví dụ "2.5 mL/run" -> 2.5.
+     */
+    public static OptionalDouble parseUsageAmount(String usageDescriptor) {
+        if (usageDescriptor == null) {
+            return OptionalDouble.empty();
+        }
+        Matcher matcher = AMOUNT.matcher(usageDescriptor);
+        if (!matcher.find()) {
+            return OptionalDouble.empty();
+        }
+        try {
+            return OptionalDouble.of(Double.parseDouble(matcher.group(1)));
+        } catch (NumberFormatException e) {
+            return OptionalDouble.empty();
+        }
+    }
+
+    private CachedUsage load(String lotNumber, long now) {
+        String descriptor = fetchUsagePerRun(lotNumber);
+        if (!StringUtils.hasText(descriptor)) {
+            log.warn("Usage per run is unavailable for lot {}. Defaulting deduction to {}.", lotNumber, DEFAULT_USAGE);
+            return new CachedUsage(DEFAULT_USAGE, now + fallbackTtlNanos);
+        }
+        OptionalDouble amount = parseUsageAmount(descriptor);
+        if (amount.isEmpty()) {
+            // Mô tả không hợp lệ sẽ không tự sửa được, giữ kết quả mặc định như một giá trị bình thường
+            log.warn("Could not parse usage per run '{}' for lot {}. Defaulting deduction to {}.",
+                    descriptor, lotNumber, DEFAULT_USAGE);
+            return new CachedUsage(DEFAULT_USAGE, now + ttlNanos);
+        }
+        // Làm tròn lên và đảm bảo ít nhất là 1
+        int usage = (int) Math.max(DEFAULT_USAGE, Math.ceil(amount.getAsDouble()));
+        return new CachedUsage(usage, now + ttlNanos);
+    }
+
+    private String fetchUsagePerRun(String lotNumber) {
+        try {
+            ApiResponse<ReagentLotStatusResponse> response = warehouseFeignClient.getReagentLotStatus(lotNumber);
+            if (response != null && response.isSuccess() && response.getData() != null) {
+                return response.getData().getUsagePerRun();
+            }
+            log.warn("Usage per run missing for lot {} from warehouse response.", lotNumber);
+        } catch (FeignException e) {
+            log.error("Failed to fetch reagent lot status for {}: {}", lotNumber, e.getMessage());
+        } catch (Exception e) {
+            log.error("Unexpected error while fetching reagent usage for {}: {}", lotNumber, e.getMessage());
+        }
+        return null;
+    }
+
+    private record CachedUsage(int amount, long expiresAt) {
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * @ {#} AnalyzerSimulatorTest.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.instrument_service;
+
+import fit.instrument_service.client.dtos.ParameterRangeResponse;
+import fit.instrument_service.client.dtos.TestOrderResponse;
+import fit.instrument_service.client.dtos.TestParameterResponse;
+import fit.instrument_service.client.dtos.TestTypeResponse;
+import fit.instrument_service.client.dtos.enums.Gender;
+import fit.instrument_service.entities.Instrument;
+import fit.instrument_service.simulator.AnalyzerSimulatorRegistry;
+import fit.instrument_service.simulator.ChemistryAnalyzerSimulator;
+import fit.instrument_service.simulator.HematologyAnalyzerSimulator;
+import fit.instrument_service.simulator.ParameterRanges;
+import fit.instrument_service.simulator.SimulationRun;
+import fit.instrument_service.simulator.SimulatorProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * @description: Tests for analyzer profile selection, seeded result streams and the virtual clock
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+class AnalyzerSimulatorTest {
+
+    private SimulatorProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        properties = new SimulatorProperties();
+        properties.setSeed(42L);
+    }
+
+    private AnalyzerSimulatorRegistry registry() {
+        return new AnalyzerSimulatorRegistry(
+                List.of(new HematologyAnalyzerSimulator(), new ChemistryAnalyzerSimulator()), properties);
+    }
+
+    private static Instrument instrument(String id, String model, String type) {
+        Instrument instrument = new Instrument();
+        instrument.setId(id);
+        instrument.setModel(model);
+        instrument.setType(type);
+        return instrument;
+    }
+
+    private static List<Double> values(Map<TestParameterResponse, Double> results) {
+        return new ArrayList<>(results.values());
+    }
+
+    @Test
+    void testResolve_ModelMappingThenKeywordsThenDefault() {
+        properties.getModels().put("AU-680", ChemistryAnalyzerSimulator.PROFILE);
+        AnalyzerSimulatorRegistry registry = registry();
+
+        assertEquals("chemistry", registry.resolve(instrument("I-1", "au-680", null)).profile());
+        assertEquals("chemistry", registry.resolve(instrument("I-2", "X1", "Clinical Chemistry Analyzer")).profile());
+        assertEquals("hematology", registry.resolve(instrument("I-3", "XN-1000", "Hematology Analyzer")).profile());
+        assertEquals("hematology", registry.resolve(instrument("I-4", null, null)).profile());
+    }
+
+    @Test
+    void testUnknownProfileIsRejected() {
+        properties.setDefaultProfile("urinalysis");
+        assertThrows(IllegalStateException.class, this::registry);
+    }
+
+    @Test
+    void testSameSeedReplaysSameResults() {
+        Instrument instrument = instrument("I-1", "XN-1000", "Hematology Analyzer");
+
+        SimulationRun first = registry().startRun("WF-1", instrument);
+        SimulationRun second = registry().startRun("WF-2", instrument);
+
+        assertEquals(first.getSeed(), second.getSeed());
+        List<String> barcodes = List.of("BC-001", "BC-002", "BC-003");
+        List<List<Double>> forward = new ArrayList<>();
+        for (String barcode : barcodes) {
+            forward.add(values(first.simulate(barcode, null)));
+        }
+        // Mỗi mẫu có luồng ngẫu nhiên riêng nên thứ tự xử lý không ảnh hưởng kết quả
+        for (int i = barcodes.size() - 1; i >= 0; i--) {
+            assertEquals(forward.get(i), values(second.simulate(barcodes.get(i), null)));
+        }
+        assertNotEquals(values(first.simulate("BC-001", null)), values(first.simulate("BC-002", null)));
+    }
+
+    @Test
+    void testDifferentInstrumentsGetDifferentStreams() {
+        SimulationRun a = registry().startRun("WF-1", instrument("I-1", null, "Hematology"));
+        SimulationRun b = registry().startRun("WF-2", instrument("I-2", null, "Hematology"));
+
+        assertNotEquals(a.getSeed(), b.getSeed());
+    }
+
+    @Test
+    void testOrderParametersAndGenderRangesAreUsed() {
+        TestParameterResponse glucose = TestParameterResponse.builder()
+                .abbreviation("GLU")
+                .parameterRanges(List.of(
+                        ParameterRangeResponse.builder().gender("MALE").minValue(70.0).maxValue(100.0).build(),
+                        ParameterRangeResponse.builder().gender("FEMALE").minValue(60.0).maxValue(90.0).build()))
+                .build();
+        TestOrderResponse order = new TestOrderResponse();
+        order.setGender(Gender.FEMALE);
+        TestTypeResponse testType = new TestTypeResponse();
+        testType.setTestParameters(List.of(glucose));
+        order.setTestType(testType);
+
+        SimulationRun run = registry().startRun("WF-1", instrument("I-1", null, null));
+        Map<TestParameterResponse, Double> results = run.simulate("BC-001", order);
+
+        assertEquals(1, results.size());
+        assertTrue(results.containsKey(glucose));
+        assertEquals(60.0, ParameterRanges.select(glucose, Gender.FEMALE).getMinValue());
+    }
+
+    @Test
+    void testDefaultPanelsAndRounding() {
+        SimulationRun run = registry().startRun("WF-1", instrument("I-1", null, "Chemistry"));
+        Map<TestParameterResponse, Double> results = run.simulate("BC-001", null);
+
+        assertEquals(new ChemistryAnalyzerSimulator().defaultParameters().size(), results.size());
+        for (Double value : results.values()) {
+            assertEquals(Math.round(value * 10) / 10.0, value);
+            assertTrue(value >= 0);
+        }
+    }
+
+    @Test
+    void testVirtualClockDoesNotSleep() throws InterruptedException {
+        SimulationRun run = registry().startRun("WF-1", instrument("I-1", null, "Hematology"));
+
+        long started = System.nanoTime();
+        for (int i = 0; i < 1000; i++) {
+            run.runCycle();
+        }
+
+        assertEquals(Duration.ofMinutes(1000), run.virtualElapsed());
+        assertTrue(System.nanoTime() - started < Duration.ofSeconds(5).toNanos());
+    }
+}
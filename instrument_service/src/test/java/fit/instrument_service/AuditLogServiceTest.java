@@ -0,0 +1,217 @@
+/*
+ * @ {#} AuditLogServiceTest.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.instrument_service;
+
+import fit.instrument_service.dtos.response.AuditBucketResponse;
+import fit.instrument_service.entities.AuditLog;
+import fit.instrument_service.enums.AuditAction;
+import fit.instrument_service.enums.AuditBucketUnit;
+import fit.instrument_service.services.impl.AuditLogServiceImpl;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/*
+ * @description: Tests for the buffered audit log writer and its time-bucketed queries
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+class AuditLogServiceTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private BulkOperations bulkOperations;
+
+    private AuditLogServiceImpl auditLogService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        // Khoảng flush định kỳ rất dài để kiểm thử tự điều khiển việc flush
+        auditLogService = new AuditLogServiceImpl(mongoTemplate, 100, 3, 3_600_000, 30, 1000);
+        when(mongoTemplate.bulkOps(any(BulkOperations.BulkMode.class), eq(AuditLog.class), eq(AuditLog.COLLECTION)))
+                .thenReturn(bulkOperations);
+    }
+
+    @AfterEach
+    void tearDown() {
+        auditLogService.shutdown();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testLogAction_BufferedAndWrittenInOneUnorderedBulkInsert() {
+        auditLogService.logAction(AuditAction.INSTALL_REAGENT, "INS-1", "IR-1", "InstrumentReagent", Map.of("lotNumber", "LOT-1"));
+        auditLogService.logAction(AuditAction.MODIFY_REAGENT, "INS-1", "IR-1", "InstrumentReagent", Map.of());
+
+        // Không ghi MongoDB trên luồng gọi
+        verifyNoInteractions(mongoTemplate);
+
+        assertEquals(2, auditLogService.flush());
+
+        ArgumentCaptor<List<AuditLog>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(mongoTemplate, times(1)).bulkOps(BulkOperations.BulkMode.UNORDERED, AuditLog.class, AuditLog.COLLECTION);
+        verify(bulkOperations).insert(inserted.capture());
+        verify(bulkOperations, times(1)).execute();
+
+        AuditLog first = inserted.getValue().get(0);
+        assertEquals("INS-1", first.getInstrumentId());
+        assertEquals("SYSTEM", first.getPerformedBy());
+        assertNotNull(first.getId());
+        assertNotNull(first.getTimestamp());
+        assertEquals(0, auditLogService.flush());
+    }
+
+    @Test
+    void testFlush_FailedBatchIsRetriedWithSameIds() {
+        when(bulkOperations.execute()).thenThrow(new RuntimeException("unavailable")).thenReturn(null);
+        auditLogService.logAction(AuditAction.SYNC_UP_CONFIGURATION, "INS-1", "INS-1", "Instrument", Map.of());
+
+        assertEquals(0, auditLogService.flush());
+        assertEquals(1, auditLogService.flush());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<AuditLog>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(bulkOperations, times(2)).insert(inserted.capture());
+        assertEquals(inserted.getAllValues().get(0).get(0).getId(), inserted.getAllValues().get(1).get(0).getId());
+    }
+
+    @Test
+    void testLogAction_FullBufferWritesDirectly() {
+        for (int i = 0; i < 4; i++) {
+            auditLogService.logAction(AuditAction.DELETE_REAGENT, "INS-1", "IR-" + i, "InstrumentReagent", Map.of());
+        }
+
+        verify(mongoTemplate, times(1)).insert(any(AuditLog.class), eq(AuditLog.COLLECTION));
+        assertEquals(3, auditLogService.flush());
+    }
+
+    @Test
+    void testCountByBucket_MapsAggregationResults() {
+        LocalDateTime bucket = LocalDateTime.of(2026, 10, 19, 8, 0);
+        Document result = new Document("_id", new Document("bucket", Date.from(bucket.atZone(ZoneId.systemDefault()).toInstant()))
+                .append("action", "MODIFY_REAGENT"))
+                .append("count", 7);
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq(AuditLog.COLLECTION), eq(Document.class)))
+                .thenReturn(new AggregationResults<>(List.of(result), new Document()));
+
+        List<AuditBucketResponse> buckets = auditLogService.countByBucket("INS-1",
+                bucket.minusDays(1), bucket.plusDays(1), AuditBucketUnit.HOUR);
+
+        assertEquals(1, buckets.size());
+        assertEquals(bucket, buckets.get(0).getBucketStart());
+        assertEquals(AuditAction.MODIFY_REAGENT, buckets.get(0).getAction());
+        assertEquals(7, buckets.get(0).getCount());
+    }
+
+    @Test
+    void testQueries_RejectInvalidRange() {
+        LocalDateTime now = LocalDateTime.now();
+        assertThrows(IllegalArgumentException.class,
+                () -> auditLogService.findLogs("INS-1", now, now.minusHours(1), null));
+        assertThrows(IllegalArgumentException.class,
+                () -> auditLogService.countByBucket("INS-1", now, now, AuditBucketUnit.DAY));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testFlush_UnknownOutcomeRetriesOnlyEntriesNotStored() {
+        when(bulkOperations.execute()).thenThrow(new RuntimeException("connection reset")).thenReturn(null);
+        auditLogService.logAction(AuditAction.INSTALL_REAGENT, "INS-1", "IR-1", "InstrumentReagent", Map.of());
+        auditLogService.logAction(AuditAction.MODIFY_REAGENT, "INS-1", "IR-1", "InstrumentReagent", Map.of());
+
+        assertEquals(0, auditLogService.flush());
+        ArgumentCaptor<List<AuditLog>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(bulkOperations).insert(inserted.capture());
+        List<AuditLog> firstAttempt = List.copyOf(inserted.getValue());
+
+        // Lô đầu thực ra đã ghi được bản ghi thứ nhất trước khi mất kết nối
+        AuditLog alreadyStored = AuditLog.builder().id(firstAttempt.get(0).getId()).build();
+        when(mongoTemplate.find(any(Query.class), eq(AuditLog.class), eq(AuditLog.COLLECTION)))
+                .thenReturn(List.of(alreadyStored));
+
+        assertEquals(1, auditLogService.flush());
+
+        ArgumentCaptor<Query> lookup = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(lookup.capture(), eq(AuditLog.class), eq(AuditLog.COLLECTION));
+        // Tra theo metaField + timestamp + _id của lô, không quét cả collection
+        Document filter = lookup.getValue().getQueryObject();
+        assertTrue(filter.containsKey("instrument_id"));
+        assertTrue(filter.containsKey("timestamp"));
+        assertTrue(filter.containsKey("_id"));
+
+        verify(bulkOperations, times(2)).insert(inserted.capture());
+        assertEquals(List.of(firstAttempt.get(1).getId()),
+                inserted.getValue().stream().map(AuditLog::getId).toList());
+    }
+
+    @Test
+    void testFindLogs_DedupesBeforeApplyingLimit() {
+        AuditLogServiceImpl limited = new AuditLogServiceImpl(mongoTemplate, 100, 3, 3_600_000, 30, 2);
+        LocalDateTime now = LocalDateTime.now();
+        AuditLog stored = AuditLog.builder().id("A-1").instrumentId("INS-1").action(AuditAction.MODIFY_REAGENT)
+                .timestamp(now.minusMinutes(5)).build();
+        AuditLog storedAgain = AuditLog.builder().id("A-1").instrumentId("INS-1").action(AuditAction.MODIFY_REAGENT)
+                .timestamp(now.minusMinutes(5)).build();
+        AuditLog other = AuditLog.builder().id("A-2").instrumentId("INS-1").action(AuditAction.DELETE_REAGENT)
+                .timestamp(now.minusMinutes(4)).build();
+        when(mongoTemplate.find(any(Query.class), eq(AuditLog.class), eq(AuditLog.COLLECTION)))
+                .thenReturn(List.of(stored, storedAgain), List.of(other));
+
+        try {
+            List<AuditLog> logs = limited.findLogs("INS-1", now.minusHours(1), now, null);
+
+            // Trang đầu chỉ có một id khác nhau: seek tiếp sau (timestamp, _id) cuối để đủ giới hạn
+            assertEquals(List.of("A-1", "A-2"), logs.stream().map(AuditLog::getId).toList());
+            ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+            verify(mongoTemplate, times(2)).find(query.capture(), eq(AuditLog.class), eq(AuditLog.COLLECTION));
+            assertEquals(2, query.getAllValues().get(0).getLimit());
+            assertEquals(1, query.getAllValues().get(1).getLimit());
+            assertTrue(query.getAllValues().get(1).getQueryObject().toString().contains("A-1"));
+        } finally {
+            limited.shutdown();
+        }
+    }
+
+    @Test
+    void testCountByBucket_GroupsByBucketWithoutPerEventGroup() {
+        LocalDateTime now = LocalDateTime.now();
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq(AuditLog.COLLECTION), eq(Document.class)))
+                .thenReturn(new AggregationResults<>(List.of(), new Document()));
+
+        auditLogService.countByBucket("INS-1", now.minusHours(1), now, AuditBucketUnit.MINUTE);
+
+        ArgumentCaptor<Aggregation> aggregation = ArgumentCaptor.forClass(Aggregation.class);
+        verify(mongoTemplate).aggregate(aggregation.capture(), eq(AuditLog.COLLECTION), eq(Document.class));
+        // $match rồi đếm thẳng theo bucket: không có bước $group theo _id giữ từng sự kiện trong khoảng
+        List<Document> pipeline = aggregation.getValue().toPipeline(Aggregation.DEFAULT_CONTEXT);
+        assertEquals(3, pipeline.size());
+        assertTrue(pipeline.get(1).get("$group", Document.class).get("_id") instanceof Document);
+    }
+}
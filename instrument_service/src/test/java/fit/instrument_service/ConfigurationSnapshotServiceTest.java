@@ -0,0 +1,165 @@
+/*
+ * @ {#} ConfigurationSnapshotServiceTest.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.instrument_service;
+
+import fit.instrument_service.dtos.response.ConfigurationSnapshot;
+import fit.instrument_service.entities.Configuration;
+import fit.instrument_service.configs.RabbitMQConfig;
+import fit.instrument_service.enums.ConfigurationType;
+import fit.instrument_service.events.ConfigurationInvalidatedEvent;
+import fit.instrument_service.repositories.ConfigurationRepository;
+import fit.instrument_service.services.impl.ConfigurationSnapshotServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/*
+ * @description: Tests for the in-memory configuration snapshot index and its ETag
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+class ConfigurationSnapshotServiceTest {
+
+    @Mock
+    private ConfigurationRepository configurationRepository;
+
+    @Mock
+    private RabbitTemplate rabbitTemplate;
+
+    private ConfigurationSnapshotServiceImpl snapshotService;
+
+    private static Configuration config(String id, ConfigurationType type, String model, String instrumentType,
+                                        String version, Map<String, Object> settings) {
+        Configuration configuration = new Configuration();
+        configuration.setId(id);
+        configuration.setConfigType(type);
+        configuration.setInstrumentModel(model);
+        configuration.setInstrumentType(instrumentType);
+        configuration.setVersion(version);
+        configuration.setSettings(new HashMap<>(settings));
+        return configuration;
+    }
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        snapshotService = new ConfigurationSnapshotServiceImpl(configurationRepository, rabbitTemplate);
+        when(configurationRepository.findAll()).thenReturn(List.of(
+                config("GEN-1", ConfigurationType.GENERAL, null, null, "1.0", Map.of("units", "SI", "lang", "vi")),
+                config("GEN-2", ConfigurationType.GENERAL, null, null, "2.0", Map.of("units", "SI")),
+                config("SPEC-TYPE", ConfigurationType.SPECIFIC, null, "Hematology", "1.0", Map.of("aspiration", 100)),
+                config("SPEC-XN", ConfigurationType.SPECIFIC, "XN-1000", "Hematology", "1.0", Map.of("aspiration", 88))));
+    }
+
+    @Test
+    void testResolve_MergesLatestConfigurationsWithoutRereading() {
+        ConfigurationSnapshot first = snapshotService.resolve("XN-1000", "Hematology");
+        ConfigurationSnapshot second = snapshotService.resolve("XN-1000", "Hematology");
+
+        assertSame(first, second);
+        assertEquals("GEN-2", first.generalConfigId());
+        assertEquals("SPEC-XN", first.specificConfigId());
+        assertEquals(Map.of("units", "SI", "aspiration", 88), first.appliedSettings());
+        assertTrue(first.fullySynced());
+        assertTrue(first.warnings().isEmpty());
+        verify(configurationRepository, times(1)).findAll();
+    }
+
+    @Test
+    void testResolve_FallsBackToTypeAndWarnsWhenMissing() {
+        assertEquals("SPEC-TYPE", snapshotService.resolve("XS-500", "Hematology").specificConfigId());
+
+        ConfigurationSnapshot chemistry = snapshotService.resolve("AU-480", "Chemistry");
+        assertNull(chemistry.specificConfigId());
+        assertFalse(chemistry.fullySynced());
+        assertEquals(1, chemistry.warnings().size());
+    }
+
+    @Test
+    void testOnConfigurationChanged_SpecificChangeOnlyEvictsItsType() {
+        ConfigurationSnapshot hematology = snapshotService.resolve("XN-1000", "Hematology");
+        ConfigurationSnapshot chemistry = snapshotService.resolve("AU-480", "Chemistry");
+
+        snapshotService.onConfigurationChanged(
+                config("SPEC-XN", ConfigurationType.SPECIFIC, "XN-1000", "Hematology", "1.1", Map.of("aspiration", 90)));
+
+        ConfigurationSnapshot updated = snapshotService.resolve("XN-1000", "Hematology");
+        assertNotEquals(hematology.etag(), updated.etag());
+        assertEquals(90, updated.appliedSettings().get("aspiration"));
+        assertSame(chemistry, snapshotService.resolve("AU-480", "Chemistry"));
+        verify(configurationRepository, times(1)).findAll();
+    }
+
+    @Test
+    void testOnConfigurationChanged_DeletedGeneralFallsBackToPreviousVersion() {
+        snapshotService.resolve("XN-1000", "Hematology");
+
+        Configuration deleted = config("GEN-2", ConfigurationType.GENERAL, null, null, "2.0", Map.of("units", "SI"));
+        deleted.setDeleted(true);
+        snapshotService.onConfigurationChanged(deleted);
+
+        ConfigurationSnapshot snapshot = snapshotService.resolve("XN-1000", "Hematology");
+        assertEquals("GEN-1", snapshot.generalConfigId());
+        assertEquals("vi", snapshot.appliedSettings().get("lang"));
+    }
+
+    @Test
+    void testEtag_StableForSameContent() {
+        String etag = snapshotService.resolve("XN-1000", "Hematology").etag();
+
+        // Sự kiện cập nhật không làm đổi nội dung → ETag giữ nguyên dù snapshot được dựng lại
+        snapshotService.onConfigurationChanged(
+                config("SPEC-XN", ConfigurationType.SPECIFIC, "XN-1000", "Hematology", "1.0", Map.of("aspiration", 88)));
+
+        ConfigurationSnapshot rebuilt = snapshotService.resolve("XN-1000", "Hematology");
+        assertEquals(etag, rebuilt.etag());
+        assertTrue(etag.startsWith("\"") && etag.endsWith("\""));
+    }
+
+    @Test
+    void testOnConfigurationChanged_BroadcastsToOtherReplicasAndIgnoresOwnEcho() {
+        snapshotService.onConfigurationChanged(
+                config("SPEC-XN", ConfigurationType.SPECIFIC, "XN-1000", "Hematology", "1.1", Map.of("aspiration", 90)));
+
+        ArgumentCaptor<ConfigurationInvalidatedEvent> event = ArgumentCaptor.forClass(ConfigurationInvalidatedEvent.class);
+        verify(rabbitTemplate).convertAndSend(eq(RabbitMQConfig.INSTRUMENT_EXCHANGE),
+                eq(RabbitMQConfig.CONFIGURATION_INVALIDATED_ROUTING_KEY), event.capture());
+        assertEquals("SPEC-XN", event.getValue().getConfigurationId());
+
+        // Sự kiện do chính instance này phát quay lại hàng đợi riêng của nó: không đọc lại MongoDB
+        snapshotService.onConfigurationInvalidated(event.getValue());
+        verify(configurationRepository, never()).findById(anyString());
+    }
+
+    @Test
+    void testOnConfigurationInvalidated_ReloadsChangeStoredByAnotherReplica() {
+        ConfigurationSnapshot before = snapshotService.resolve("XN-1000", "Hematology");
+        when(configurationRepository.findById("SPEC-XN")).thenReturn(Optional.of(
+                config("SPEC-XN", ConfigurationType.SPECIFIC, "XN-1000", "Hematology", "1.1", Map.of("aspiration", 90))));
+
+        snapshotService.onConfigurationInvalidated(new ConfigurationInvalidatedEvent("SPEC-XN", "other-replica"));
+
+        ConfigurationSnapshot after = snapshotService.resolve("XN-1000", "Hematology");
+        assertNotEquals(before.etag(), after.etag());
+        assertEquals(90, after.appliedSettings().get("aspiration"));
+        // Replica nhận không phát lại sự kiện
+        verifyNoInteractions(rabbitTemplate);
+    }
+}
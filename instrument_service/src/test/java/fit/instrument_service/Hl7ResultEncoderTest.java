@@ -0,0 +1,131 @@
+/*
+ * @ {#} Hl7ResultEncoderTest.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.instrument_service;
+
+import ca.uhn.hl7v2.DefaultHapiContext;
+import ca.uhn.hl7v2.HapiContext;
+import ca.uhn.hl7v2.model.v25.message.ORU_R01;
+import ca.uhn.hl7v2.model.v25.segment.OBX;
+import ca.uhn.hl7v2.parser.Parser;
+import ca.uhn.hl7v2.validation.impl.NoValidation;
+import fit.instrument_service.client.dtos.ParameterRangeResponse;
+import fit.instrument_service.client.dtos.TestOrderResponse;
+import fit.instrument_service.client.dtos.TestParameterResponse;
+import fit.instrument_service.client.dtos.enums.Gender;
+import fit.instrument_service.entities.BloodSample;
+import fit.instrument_service.utils.Hl7ResultEncoder;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * @description: Round-trip tests of Hl7ResultEncoder output through the HAPI pipe parser
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+class Hl7ResultEncoderTest {
+
+    private final Hl7ResultEncoder encoder = new Hl7ResultEncoder();
+
+    private static Parser pipeParser() {
+        HapiContext context = new DefaultHapiContext();
+        context.setValidationContext(new NoValidation());
+        return context.getPipeParser();
+    }
+
+    private static BloodSample sample() {
+        BloodSample sample = new BloodSample();
+        sample.setBarcode("BC-0001");
+        sample.setInstrumentId("INST-01");
+        sample.setTestOrderId("ORDER-01");
+        sample.setWorkflowId("WF-01");
+        return sample;
+    }
+
+    private static TestParameterResponse parameter(String abbreviation, String name, String unit, double min, double max) {
+        return TestParameterResponse.builder()
+                .abbreviation(abbreviation)
+                .paramName(name)
+                .parameterRanges(List.of(ParameterRangeResponse.builder()
+                        .gender("BOTH").unit(unit).minValue(min).maxValue(max).build()))
+                .build();
+    }
+
+    @Test
+    void encodeResult_RoundTripsThroughHapi() throws Exception {
+        Map<TestParameterResponse, Double> results = new LinkedHashMap<>();
+        results.put(parameter("WBC", "White Blood Cell Count", "cells/µL", 4000.0, 10000.0), 7234.56);
+        results.put(parameter("HGB", "Haemoglobin & Iron", "g/dL", 12.0, 16.5), 13.25);
+        TestOrderResponse orderDetails = TestOrderResponse.builder()
+                .fullName("Nguyen | Van A")
+                .medicalRecordCode("MRN-7")
+                .dateOfBirth("1985-02-03")
+                .gender(Gender.MALE)
+                .build();
+
+        String encoded = encoder.encodeResult(sample(), orderDetails, results,
+                p -> p.getParameterRanges().get(0));
+
+        ORU_R01 oru = (ORU_R01) pipeParser().parse(encoded);
+        assertEquals("INST-01", oru.getMSH().getSendingFacility().getNamespaceID().getValue());
+        assertEquals("R01", oru.getMSH().getMessageType().getTriggerEvent().getValue());
+        assertTrue(oru.getMSH().getMessageControlID().getValue().startsWith("MSG-BC-0001-"));
+
+        var pid = oru.getPATIENT_RESULT().getPATIENT().getPID();
+        assertEquals("BC-0001", pid.getPatientIdentifierList(0).getIDNumber().getValue());
+        assertEquals("MRN-7", pid.getPatientIdentifierList(1).getIDNumber().getValue());
+        assertEquals("Nguyen | Van A", pid.getPatientName(0).getFamilyName().getSurname().getValue());
+        assertEquals("19850203", pid.getDateTimeOfBirth().getTime().getValue());
+        assertEquals("M", pid.getAdministrativeSex().getValue());
+
+        var observation = oru.getPATIENT_RESULT().getORDER_OBSERVATION();
+        assertEquals("ORDER-01", observation.getOBR().getPlacerOrderNumber().getEntityIdentifier().getValue());
+        assertEquals("WF-01", observation.getOBR().getFillerOrderNumber().getEntityIdentifier().getValue());
+        assertEquals("F", observation.getOBR().getResultStatus().getValue());
+        assertEquals(2, observation.getOBSERVATIONReps());
+
+        OBX wbc = observation.getOBSERVATION(0).getOBX();
+        assertEquals("WBC", wbc.getObservationIdentifier().getIdentifier().getValue());
+        assertEquals("7234.6", wbc.getObservationValue(0).getData().toString());
+        assertEquals("cells/µL", wbc.getUnits().getIdentifier().getValue());
+        assertEquals("4000.0-10000.0", wbc.getReferencesRange().getValue());
+        assertEquals("F", wbc.getObservationResultStatus().getValue());
+        assertNotNull(wbc.getDateTimeOfTheObservation().getTime().getValue());
+
+        OBX hgb = observation.getOBSERVATION(1).getOBX();
+        assertEquals("Haemoglobin & Iron", hgb.getObservationIdentifier().getText().getValue());
+        assertEquals("13.3", hgb.getObservationValue(0).getData().toString());
+    }
+
+    @Test
+    void encodeResult_WithoutOrderDetails_UsesUnknownPatient() throws Exception {
+        Map<TestParameterResponse, Double> results = new LinkedHashMap<>();
+        results.put(parameter("PLT", "Platelets", "10^3/µL", 150.0, 400.0), 250.0);
+
+        String encoded = encoder.encodeResult(sample(), null, results, p -> p.getParameterRanges().get(0));
+
+        ORU_R01 oru = (ORU_R01) pipeParser().parse(encoded);
+        var pid = oru.getPATIENT_RESULT().getPATIENT().getPID();
+        assertEquals("UNKNOWN", pid.getPatientName(0).getFamilyName().getSurname().getValue());
+        assertEquals("Patient", pid.getPatientName(0).getGivenName().getValue());
+        OBX plt = oru.getPATIENT_RESULT().getORDER_OBSERVATION().getOBSERVATION(0).getOBX();
+        assertEquals("10^3/µL", plt.getUnits().getIdentifier().getValue());
+    }
+
+    @Test
+    void formatOneDecimal_IsLocaleIndependent() {
+        assertEquals("7.2", Hl7ResultEncoder.formatOneDecimal(7.24));
+        assertEquals("-0.5", Hl7ResultEncoder.formatOneDecimal(-0.45));
+        assertEquals("0.0", Hl7ResultEncoder.formatOneDecimal(-0.01));
+        assertEquals("", Hl7ResultEncoder.formatOneDecimal(null));
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * @ {#} MongoIndexHealthIndicatorTest.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.instrument_service;
+
+import fit.instrument_service.configs.MongoIndexHealthIndicator;
+import fit.instrument_service.services.MongoIndexService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/*
+ * @description: Tests that a hot query running as a collection scan fails the health check
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+class MongoIndexHealthIndicatorTest {
+
+    @Mock
+    private MongoIndexService mongoIndexService;
+
+    private MongoIndexHealthIndicator healthIndicator;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        healthIndicator = new MongoIndexHealthIndicator(mongoIndexService);
+    }
+
+    @Test
+    void testHealth_DownWhenHotQueryScansCollection() {
+        when(mongoIndexService.lastCollectionScans()).thenReturn(Optional.of(List.of("BloodSample.findByBarcode")));
+
+        Health health = healthIndicator.health();
+
+        assertEquals(Status.DOWN, health.getStatus());
+        assertEquals(List.of("BloodSample.findByBarcode"), health.getDetails().get("collectionScans"));
+    }
+
+    @Test
+    void testHealth_UpWhenPlansPassOrNotChecked() {
+        when(mongoIndexService.lastCollectionScans()).thenReturn(Optional.of(List.of()));
+        assertEquals(Status.UP, healthIndicator.health().getStatus());
+
+        // Kiểm tra chưa chạy (đang build index lúc khởi động): không chặn health
+        when(mongoIndexService.lastCollectionScans()).thenReturn(Optional.empty());
+        assertEquals(Status.UP, healthIndicator.health().getStatus());
+    }
+}
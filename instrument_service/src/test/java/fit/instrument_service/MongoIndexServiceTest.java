@@ -0,0 +1,190 @@
+/*
+ * @ {#} MongoIndexServiceTest.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.instrument_service;
+
+import fit.instrument_service.entities.*;
+import fit.instrument_service.repositories.HotQueryCatalog;
+import fit.instrument_service.services.impl.MongoIndexServiceImpl;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.mongodb.UncategorizedMongoDbException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.util.TypeInformation;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/*
+ * @description: Offline checks of the declared MongoDB indexes: every hot query must be servable by an index declared
+ *               on its entity (same rule the query planner uses to avoid a COLLSCAN: an index whose leading key is
+ *               constrained by the filter, on every $or branch), plus the additive startup reconciliation
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+class MongoIndexServiceTest {
+
+    private static final Set<Class<?>> ENTITIES = Set.of(BloodSample.class, RawTestResult.class,
+            SampleProcessingWorkflow.class, Cassette.class, InstrumentReagent.class, Configuration.class, Instrument.class);
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private IndexOperations indexOperations;
+
+    private MongoMappingContext mappingContext;
+
+    private MongoIndexServiceImpl mongoIndexService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        mappingContext = new MongoMappingContext();
+        mappingContext.setInitialEntitySet(ENTITIES);
+        mappingContext.afterPropertiesSet();
+        when(mongoTemplate.getConverter()).thenReturn(new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext));
+        mongoIndexService = new MongoIndexServiceImpl(mongoTemplate);
+    }
+
+    @Test
+    void testHotQueries_AreServedByDeclaredIndexes() {
+        List<String> collectionScans = new ArrayList<>();
+        for (HotQueryCatalog.HotQuery hotQuery : HotQueryCatalog.all()) {
+            if (!isServed(hotQuery.query(), leadingKeys(hotQuery.entityClass()))) {
+                collectionScans.add(hotQuery.name());
+            }
+        }
+
+        assertTrue(collectionScans.isEmpty(), "Queries without a declared index (COLLSCAN): " + collectionScans);
+    }
+
+    @Test
+    void testHotQueries_CheckDetectsMissingIndex() {
+        // Đối chứng: truy vấn theo trường không có index phải bị phát hiện
+        Query unindexed = Query.query(Criteria.where("skip_reason").is("Duplicate"));
+        Query partlyIndexed = Query.query(new Criteria().orOperator(
+                Criteria.where("barcode").is("BARCODE001"),
+                Criteria.where("skip_reason").is("Duplicate")));
+
+        assertFalse(isServed(unindexed, leadingKeys(BloodSample.class)));
+        assertFalse(isServed(partlyIndexed, leadingKeys(BloodSample.class)));
+        assertTrue(isServed(Query.query(Criteria.where("_id").is("sample-001")), leadingKeys(BloodSample.class)));
+    }
+
+    @Test
+    void testReconcileIndexes_CreatesOnlyMissingIndexes() {
+        when(mongoTemplate.indexOps(anyString())).thenReturn(mock(IndexOperations.class));
+        when(mongoTemplate.indexOps("rawTestResults")).thenReturn(indexOperations);
+        when(indexOperations.getIndexInfo()).thenReturn(List.of(
+                IndexInfo.indexInfoOf(new Document("name", "_id_").append("key", new Document("_id", 1))),
+                IndexInfo.indexInfoOf(new Document("name", "barcode_last_resynced_idx")
+                        .append("key", new Document("barcode", 1).append("last_resynced_at", 1))),
+                IndexInfo.indexInfoOf(new Document("name", "legacy_idx").append("key", new Document("hl7_message", 1)))));
+        // Index trùng khóa nhưng khác tùy chọn: lỗi được ghi log, các index khác vẫn được tạo
+        when(indexOperations.ensureIndex(argThat(definition -> named(definition, "publish_status_next_publish_idx"))))
+                .thenThrow(new UncategorizedMongoDbException("Index already exists with different options", null));
+
+        List<String> created = mongoIndexService.reconcileIndexes();
+
+        assertTrue(created.contains("rawTestResults.ready_for_deletion_created_idx"));
+        assertFalse(created.contains("rawTestResults.publish_status_next_publish_idx"));
+        verify(indexOperations, never()).ensureIndex(argThat(definition -> named(definition, "barcode_last_resynced_idx")));
+        verify(indexOperations, times(2)).ensureIndex(any(IndexDefinition.class));
+        // Không bao giờ xóa index, kể cả index không còn khai báo
+        verify(indexOperations, never()).dropIndex(anyString());
+        verify(indexOperations, never()).dropAllIndexes();
+    }
+
+    @Test
+    void testUsesCollectionScan_ReadsWinningPlanFormats() {
+        Document classic = new Document("queryPlanner", new Document("winningPlan",
+                new Document("stage", "SORT").append("inputStage", new Document("stage", "COLLSCAN"))));
+        Document sbe = new Document("queryPlanner", new Document("winningPlan",
+                new Document("queryPlan", new Document("stage", "FETCH")
+                        .append("inputStage", new Document("stage", "IXSCAN").append("indexName", "status_1")))
+                        .append("slotBasedPlan", new Document("stages", "[1] ixseek ..."))));
+        Document sharded = new Document("queryPlanner", new Document("winningPlan",
+                new Document("stage", "SHARD_MERGE").append("shards", List.of(
+                        new Document("winningPlan", new Document("stage", "IXSCAN")),
+                        new Document("winningPlan", new Document("stage", "COLLSCAN"))))));
+        // COLLSCAN chỉ trong kế hoạch bị loại thì không tính
+        Document rejectedOnly = new Document("queryPlanner", new Document("winningPlan", new Document("stage", "IXSCAN"))
+                .append("rejectedPlans", List.of(new Document("stage", "COLLSCAN"))));
+
+        assertTrue(MongoIndexServiceImpl.usesCollectionScan(classic));
+        assertFalse(MongoIndexServiceImpl.usesCollectionScan(sbe));
+        assertTrue(MongoIndexServiceImpl.usesCollectionScan(sharded));
+        assertFalse(MongoIndexServiceImpl.usesCollectionScan(rejectedOnly));
+    }
+
+    private static boolean named(IndexDefinition definition, String name) {
+        return definition != null && name.equals(definition.getIndexOptions().getString("name"));
+    }
+
+    // Khóa đầu của mọi index khai báo trên entity (kèm _id luôn có index)
+    private Set<String> leadingKeys(Class<?> entityClass) {
+        Set<String> keys = new HashSet<>();
+        keys.add("_id");
+        for (IndexDefinition definition : IndexResolver.create(mappingContext).resolveIndexFor(TypeInformation.of(entityClass))) {
+            keys.add(definition.getIndexKeys().keySet().iterator().next());
+        }
+        return keys;
+    }
+
+    private static boolean isServed(Query query, Set<String> leadingKeys) {
+        Document filter = query.getQueryObject();
+        if (filter.isEmpty()) {
+            // Không có điều kiện: chỉ tránh COLLSCAN khi sắp xếp theo khóa đầu của một index
+            Document sort = query.getSortObject();
+            return !sort.isEmpty() && leadingKeys.contains(sort.keySet().iterator().next());
+        }
+        return isServed(filter, leadingKeys);
+    }
+
+    // Một index dùng được khi khóa đầu của nó bị ràng buộc bởi filter; với $or thì mọi nhánh đều phải dùng được index
+    @SuppressWarnings("unchecked")
+    private static boolean isServed(Document filter, Set<String> leadingKeys) {
+        for (Map.Entry<String, Object> entry : filter.entrySet()) {
+            String key = entry.getKey();
+            if ("$and".equals(key)) {
+                for (Document branch : (List<Document>) entry.getValue()) {
+                    if (isServed(branch, leadingKeys)) {
+                        return true;
+                    }
+                }
+            } else if (!key.startsWith("$") && leadingKeys.contains(key)) {
+                return true;
+            }
+        }
+        Object or = filter.get("$or");
+        if (or instanceof List<?> branches && !branches.isEmpty()) {
+            for (Object branch : branches) {
+                if (!isServed((Document) branch, leadingKeys)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+}
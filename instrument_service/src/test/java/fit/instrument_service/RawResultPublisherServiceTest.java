@@ -0,0 +1,244 @@
+/*
+ * @ {#} RawResultPublisherServiceTest.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.instrument_service;
+
+import com.mongodb.client.result.UpdateResult;
+import fit.instrument_service.entities.RawTestResult;
+import fit.instrument_service.enums.PublishStatus;
+import fit.instrument_service.services.WorkflowCheckpointService;
+import fit.instrument_service.services.impl.RawResultPublisherServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.amqp.rabbit.core.RabbitOperations;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/*
+ * @description: Tests for the confirmed raw result publisher, its per-result claims, retry scheduling and backlog metrics
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+class RawResultPublisherServiceTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private RabbitTemplate rabbitTemplate;
+
+    @Mock
+    private RabbitOperations rabbitOperations;
+
+    @Mock
+    private WorkflowCheckpointService workflowCheckpointService;
+
+    @Mock
+    private BulkOperations bulkOperations;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private RawResultPublisherServiceImpl publisherService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        // 3 kết quả mỗi lô, chờ thử lại 1s * 2^(n-1) tối đa 60s, lease 60s; lượt quét định kỳ rất dài để kiểm thử tự gọi
+        publisherService = new RawResultPublisherServiceImpl(mongoTemplate, rabbitTemplate, workflowCheckpointService,
+                meterRegistry, 3, 1_048_576, 1_000, 3_600_000, 1_000, 60_000, 60_000);
+        when(rabbitTemplate.getMessageConverter()).thenReturn(new Jackson2JsonMessageConverter());
+        when(rabbitTemplate.invoke(any())).thenAnswer(inv -> {
+            RabbitOperations.OperationsCallback<?> callback = inv.getArgument(0);
+            return callback.doInRabbit(rabbitOperations);
+        });
+        when(mongoTemplate.bulkOps(any(BulkOperations.BulkMode.class), eq(RawTestResult.class))).thenReturn(bulkOperations);
+    }
+
+    @AfterEach
+    void tearDown() {
+        publisherService.shutdown();
+    }
+
+    private static RawTestResult raw(String id, PublishStatus status, int attempts) {
+        RawTestResult result = new RawTestResult();
+        result.setId(id);
+        result.setBarcode("BARCODE-" + id);
+        result.setInstrumentId("instrument-001");
+        result.setHl7Message("MSH|...");
+        result.setRawResultData(Map.of("WBC", "5.0"));
+        result.setPublishStatus(status);
+        result.setPublishAttempts(attempts);
+        result.setCreatedAt(LocalDateTime.now().minusSeconds(2));
+        return result;
+    }
+
+    private static boolean isClaimReadBack(Query query) {
+        return query.getQueryObject().containsKey("publish_claimed_by");
+    }
+
+    // Lượt tìm ứng viên trả lần lượt từng lô; lượt đọc lại sau khi nhận lô trả các kết quả đã nhận được
+    @SafeVarargs
+    private void stubDue(List<RawTestResult>... batches) {
+        Deque<List<RawTestResult>> remaining = new ArrayDeque<>(List.of(batches));
+        AtomicReference<List<RawTestResult>> current = new AtomicReference<>(List.of());
+        when(mongoTemplate.find(any(Query.class), eq(RawTestResult.class))).thenAnswer(inv -> {
+            if (isClaimReadBack(inv.getArgument(0))) {
+                return current.get();
+            }
+            current.set(remaining.isEmpty() ? List.of() : remaining.poll());
+            return current.get();
+        });
+    }
+
+    @Test
+    void testPublishDue_MarksSentAfterBrokerConfirm() {
+        stubDue(List.of(raw("1", PublishStatus.PENDING, 0), raw("2", PublishStatus.FAILED, 1)));
+
+        assertEquals(2, publisherService.publishDue());
+
+        // Một message batch trên một channel, một lần chờ xác nhận
+        verify(rabbitOperations, times(1)).send(eq("instrument_exchange"), eq("instrument.test_result"), any());
+        verify(rabbitOperations, times(1)).waitForConfirmsOrDie(1_000);
+
+        // Nhận lô bằng lease trước khi gửi, sau đó SENT và trả lease
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, times(2)).updateMulti(any(Query.class), update.capture(), eq(RawTestResult.class));
+        Document claim = (Document) update.getAllValues().get(0).getUpdateObject().get("$set");
+        assertNotNull(claim.get("publish_claimed_by"));
+        assertTrue(((LocalDateTime) claim.get("publish_claimed_until")).isAfter(LocalDateTime.now().plusSeconds(50)));
+        Document set = (Document) update.getAllValues().get(1).getUpdateObject().get("$set");
+        assertEquals(PublishStatus.SENT, set.get("publish_status"));
+        assertNotNull(set.get("published_at"));
+        Document unset = (Document) update.getAllValues().get(1).getUpdateObject().get("$unset");
+        assertTrue(unset.containsKey("publish_claimed_by"));
+        verify(workflowCheckpointService).markPublished(List.of("1", "2"));
+
+        assertEquals(2.0, meterRegistry.get("instrument.results.published").counter().count());
+        assertEquals(2, meterRegistry.get("instrument.results.delivery").timer().count());
+        verify(bulkOperations, never()).execute();
+    }
+
+    @Test
+    void testPublishDue_NackSchedulesRetryWithBackoff() {
+        RawTestResult failed = raw("1", PublishStatus.FAILED, 2);
+        failed.setPublishClaimedBy("claim-1");
+        stubDue(List.of(failed));
+        doThrow(new RuntimeException("nack")).when(rabbitOperations).waitForConfirmsOrDie(anyLong());
+
+        assertEquals(0, publisherService.publishDue());
+
+        // Chỉ có lượt nhận lô, không đánh dấu SENT khi broker chưa xác nhận
+        verify(mongoTemplate, times(1)).updateMulti(any(Query.class), any(Update.class), eq(RawTestResult.class));
+        verifyNoInteractions(workflowCheckpointService);
+
+        ArgumentCaptor<Query> filter = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(bulkOperations).updateOne(filter.capture(), update.capture());
+        // Chỉ ghi FAILED khi lease vẫn thuộc lượt gửi này
+        assertEquals("claim-1", filter.getValue().getQueryObject().get("publish_claimed_by"));
+        verify(bulkOperations).execute();
+        Document set = (Document) update.getValue().getUpdateObject().get("$set");
+        assertEquals(PublishStatus.FAILED, set.get("publish_status"));
+        assertEquals(3, set.get("publish_attempts"));
+        assertEquals("nack", set.get("last_publish_error"));
+
+        // Lần thử thứ 3: chờ 1s * 2^2 = 4s
+        LocalDateTime nextPublishAt = (LocalDateTime) set.get("next_publish_at");
+        assertTrue(nextPublishAt.isAfter(LocalDateTime.now().plusSeconds(3)));
+        assertTrue(nextPublishAt.isBefore(LocalDateTime.now().plusSeconds(5)));
+        assertEquals(1.0, meterRegistry.get("instrument.results.publish.failures").counter().count());
+    }
+
+    @Test
+    void testPublishDue_DrainsFullBatchesInCreationOrder() {
+        stubDue(List.of(raw("1", PublishStatus.PENDING, 0), raw("2", PublishStatus.PENDING, 0),
+                        raw("3", PublishStatus.PENDING, 0)),
+                List.of(raw("4", PublishStatus.PENDING, 0)));
+
+        assertEquals(4, publisherService.publishDue());
+
+        // Lô đầy -> truy vấn tiếp; lô thiếu -> dừng
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate, times(4)).find(query.capture(), eq(RawTestResult.class));
+        List<Query> candidateQueries = query.getAllValues().stream().filter(q -> !isClaimReadBack(q)).toList();
+        assertEquals(2, candidateQueries.size());
+        Query last = candidateQueries.get(1);
+        assertEquals(3, last.getLimit());
+        assertEquals(new Document("created_at", 1), last.getSortObject());
+        assertTrue(last.getQueryObject().toString().contains("next_publish_at"));
+        assertTrue(last.getQueryObject().toString().contains("publish_claimed_until"));
+        verify(rabbitOperations, times(2)).waitForConfirmsOrDie(1_000);
+    }
+
+    @Test
+    void testPublishDue_SendsOnlyResultsClaimedByThisPass() {
+        // Ứng viên 1 và 2, nhưng replica khác đã nhận kết quả 2 trước
+        when(mongoTemplate.find(any(Query.class), eq(RawTestResult.class))).thenAnswer(inv ->
+                isClaimReadBack(inv.getArgument(0))
+                        ? List.of(raw("1", PublishStatus.PENDING, 0))
+                        : List.of(raw("1", PublishStatus.PENDING, 0), raw("2", PublishStatus.PENDING, 0)));
+
+        assertEquals(1, publisherService.publishDue());
+
+        verify(workflowCheckpointService).markPublished(List.of("1"));
+        assertEquals(1.0, meterRegistry.get("instrument.results.published").counter().count());
+    }
+
+    @Test
+    void testStart_MarksLegacyPendingResultsSentWithoutPublishing() {
+        when(mongoTemplate.updateMulti(any(Query.class), any(Update.class), eq(RawTestResult.class)))
+                .thenReturn(UpdateResult.acknowledged(5, 5L, null));
+
+        publisherService.start();
+
+        // Kết quả cũ (chưa có publish_attempts) đã được gửi fire-and-forget: chỉ đổi trạng thái, không gửi lại
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, timeout(1_000)).updateMulti(query.capture(), update.capture(), eq(RawTestResult.class));
+        assertEquals(new Document("$exists", false), query.getValue().getQueryObject().get("publish_attempts"));
+        assertEquals(PublishStatus.SENT, ((Document) update.getValue().getUpdateObject().get("$set")).get("publish_status"));
+        verifyNoInteractions(rabbitTemplate);
+    }
+
+    @Test
+    void testPublishDue_RefreshesBacklogGauges() {
+        when(mongoTemplate.find(any(Query.class), eq(RawTestResult.class))).thenReturn(List.of());
+        when(mongoTemplate.count(any(Query.class), eq(RawTestResult.class))).thenReturn(4L).thenReturn(1L);
+        RawTestResult oldest = raw("1", PublishStatus.PENDING, 0);
+        oldest.setCreatedAt(LocalDateTime.now().minusSeconds(90));
+        when(mongoTemplate.findOne(any(Query.class), eq(RawTestResult.class))).thenReturn(oldest);
+
+        assertEquals(0, publisherService.publishDue());
+
+        assertEquals(4.0, meterRegistry.get("instrument.results.pending").gauge().value());
+        assertEquals(1.0, meterRegistry.get("instrument.results.failed").gauge().value());
+        assertTrue(meterRegistry.get("instrument.results.publish.lag").gauge().value() >= 90.0);
+        verifyNoInteractions(rabbitTemplate);
+    }
+}
@@ -0,0 +1,271 @@
+/*
+ * @ {#} ReagentLedgerServiceTest.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.instrument_service;
+
+import fit.instrument_service.client.WarehouseFeignClient;
+import fit.instrument_service.dtos.request.ReagentConsumptionBatchRequest;
+import fit.instrument_service.dtos.response.ApiResponse;
+import fit.instrument_service.dtos.response.ReagentConsumptionBatchResponse;
+import fit.instrument_service.entities.InstrumentReagent;
+import fit.instrument_service.enums.ReagentStatus;
+import fit.instrument_service.repositories.InstrumentReagentRepository;
+import fit.instrument_service.security.ServiceTokenProvider;
+import fit.instrument_service.services.impl.ReagentLedgerServiceImpl;
+import fit.instrument_service.utils.ReagentUsageDescriptorCache;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/*
+ * @description: Tests for the in-memory reagent ledger, its bulk flush and warehouse reconciliation
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+class ReagentLedgerServiceTest {
+
+    @Mock
+    private InstrumentReagentRepository instrumentReagentRepository;
+
+    @Mock
+    private ReagentUsageDescriptorCache usageDescriptorCache;
+
+    @Mock
+    private WarehouseFeignClient warehouseFeignClient;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private BulkOperations bulkOperations;
+
+    @Mock
+    private ServiceTokenProvider serviceTokenProvider;
+
+    private ReagentLedgerServiceImpl ledgerService;
+
+    private final String instrumentId = "instrument-001";
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ledgerService = new ReagentLedgerServiceImpl(instrumentReagentRepository, usageDescriptorCache,
+                warehouseFeignClient, mongoTemplate, serviceTokenProvider);
+        when(mongoTemplate.bulkOps(any(BulkOperations.BulkMode.class), eq(InstrumentReagent.class))).thenReturn(bulkOperations);
+        when(serviceTokenProvider.callAsService(any())).thenAnswer(invocation -> ((Supplier<?>) invocation.getArgument(0)).get());
+    }
+
+    private static InstrumentReagent reagent(String id, String name, String lot, int quantity) {
+        InstrumentReagent reagent = new InstrumentReagent();
+        reagent.setId(id);
+        reagent.setInstrumentId("instrument-001");
+        reagent.setReagentName(name);
+        reagent.setLotNumber(lot);
+        reagent.setQuantity(quantity);
+        reagent.setStatus(ReagentStatus.IN_USE);
+        return reagent;
+    }
+
+    @Test
+    void testConsumeRun_LoadsLedgerAndDescriptorsOnce() {
+        when(instrumentReagentRepository.findByInstrumentIdAndStatus(instrumentId, ReagentStatus.IN_USE))
+                .thenReturn(List.of(reagent("IR-1", "Diluent", "LOT-1", 100), reagent("IR-2", "Lysing", "LOT-2", 100)));
+        when(usageDescriptorCache.usagePerRun("LOT-1")).thenReturn(2);
+        when(usageDescriptorCache.usagePerRun("LOT-2")).thenReturn(1);
+
+        for (int i = 0; i < 100; i++) {
+            ledgerService.consumeRun(instrumentId);
+        }
+
+        // Không truy vấn MongoDB hay warehouse cho từng mẫu
+        verify(instrumentReagentRepository, times(1)).findByInstrumentIdAndStatus(instrumentId, ReagentStatus.IN_USE);
+        verify(usageDescriptorCache, times(1)).usagePerRun("LOT-1");
+        verify(usageDescriptorCache, times(1)).usagePerRun("LOT-2");
+        verify(instrumentReagentRepository, never()).save(any());
+        verifyNoInteractions(warehouseFeignClient);
+    }
+
+    @Test
+    void testConsumeRun_ReportsExhaustedReagent() {
+        when(instrumentReagentRepository.findByInstrumentIdAndStatus(instrumentId, ReagentStatus.IN_USE))
+                .thenReturn(List.of(reagent("IR-1", "Diluent", "LOT-1", 3)));
+        when(usageDescriptorCache.usagePerRun("LOT-1")).thenReturn(2);
+
+        assertEquals(Optional.empty(), ledgerService.consumeRun(instrumentId));
+        assertEquals(Optional.of("Diluent"), ledgerService.consumeRun(instrumentId));
+    }
+
+    @Test
+    void testConsumeRun_NoReagentInUse() {
+        when(instrumentReagentRepository.findByInstrumentIdAndStatus(instrumentId, ReagentStatus.IN_USE))
+                .thenReturn(List.of());
+
+        assertFalse(ledgerService.hasReagentsInUse(instrumentId));
+        assertThrows(IllegalStateException.class, () -> ledgerService.consumeRun(instrumentId));
+    }
+
+    @Test
+    void testConsumeRun_ConcurrentDeductionsAreNotLost() throws Exception {
+        when(instrumentReagentRepository.findByInstrumentIdAndStatus(instrumentId, ReagentStatus.IN_USE))
+                .thenReturn(List.of(reagent("IR-1", "Diluent", "LOT-1", 10_000)));
+        when(usageDescriptorCache.usagePerRun("LOT-1")).thenReturn(1);
+        ledgerService.hasReagentsInUse(instrumentId);
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch done = new CountDownLatch(8);
+        for (int t = 0; t < 8; t++) {
+            pool.execute(() -> {
+                for (int i = 0; i < 500; i++) {
+                    ledgerService.consumeRun(instrumentId);
+                }
+                done.countDown();
+            });
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        pool.shutdown();
+
+        ledgerService.flush(instrumentId);
+
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(bulkOperations, times(1)).updateOne(any(Query.class), update.capture());
+        verify(bulkOperations, times(1)).execute();
+        Document inc = (Document) update.getValue().getUpdateObject().get("$inc");
+        assertEquals(-4000, inc.get("quantity"));
+        assertEquals(4000, inc.get("unreconciled_usage"));
+    }
+
+    private static InstrumentReagent inflight(String id, String name, String lot, String batchId, int amount) {
+        InstrumentReagent reagent = reagent(id, name, lot, 80);
+        reagent.setInflightBatchId(batchId);
+        reagent.setInflightUsage(amount);
+        return reagent;
+    }
+
+    @Test
+    void testReconcile_FreezesPendingUsageThenSendsFrozenBatch() {
+        InstrumentReagent pending1 = reagent("IR-1", "Diluent", "LOT-1", 80);
+        pending1.setUnreconciledUsage(20);
+        InstrumentReagent pending2 = reagent("IR-2", "Lysing", "LOT-2", 90);
+        pending2.setUnreconciledUsage(10);
+        when(instrumentReagentRepository.findByUnreconciledUsageGreaterThan(0)).thenReturn(List.of(pending1, pending2));
+        when(instrumentReagentRepository.findByInflightBatchIdIsNotNull()).thenReturn(List.of(
+                inflight("IR-1", "Diluent", "LOT-1", "RCB-A", 20), inflight("IR-2", "Lysing", "LOT-2", "RCB-A", 10)));
+        when(warehouseFeignClient.recordReagentConsumption(any())).thenReturn(ApiResponse.success(
+                new ReagentConsumptionBatchResponse("RCB-A", 2, List.of(), false), "ok"));
+
+        assertEquals(2, ledgerService.reconcileWithWarehouse());
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(bulkOperations, times(4)).updateOne(query.capture(), update.capture());
+        verify(bulkOperations, times(2)).execute();
+
+        // Chốt: chuyển đúng lượng đang chờ sang inflight_usage, chỉ với lô chưa có batch đang gửi
+        Document freezeFilter = query.getAllValues().get(0).getQueryObject();
+        assertTrue(freezeFilter.containsKey("inflight_batch_id"));
+        assertNull(freezeFilter.get("inflight_batch_id"));
+        Document freeze = update.getAllValues().get(0).getUpdateObject();
+        assertEquals(20, ((Document) freeze.get("$set")).get("inflight_usage"));
+        assertEquals(-20, ((Document) freeze.get("$inc")).get("unreconciled_usage"));
+
+        ArgumentCaptor<ReagentConsumptionBatchRequest> request = ArgumentCaptor.forClass(ReagentConsumptionBatchRequest.class);
+        verify(warehouseFeignClient, times(1)).recordReagentConsumption(request.capture());
+        assertEquals("RCB-A", request.getValue().getBatchId());
+        assertEquals(20.0, request.getValue().getEntries().get(0).getQuantity());
+        // Gọi warehouse bằng token dịch vụ vì job định kỳ không có người dùng
+        verify(serviceTokenProvider, times(1)).callAsService(any());
+
+        // Xác nhận: bỏ batch đang gửi và cộng vào tổng đã đối soát
+        assertEquals("RCB-A", query.getAllValues().get(2).getQueryObject().get("inflight_batch_id"));
+        Document ack = update.getAllValues().get(2).getUpdateObject();
+        assertTrue(((Document) ack.get("$unset")).containsKey("inflight_batch_id"));
+        assertEquals(20, ((Document) ack.get("$inc")).get("reconciled_usage"));
+    }
+
+    @Test
+    void testReconcile_LostResponseResendsSameBatchDespiteNewUsage() {
+        // Lô đã có batch đang gửi: lượng flush thêm (unreconciled_usage) không được chốt vào batch đó
+        InstrumentReagent pending = inflight("IR-1", "Diluent", "LOT-1", "RCB-A", 20);
+        pending.setUnreconciledUsage(7);
+        when(instrumentReagentRepository.findByUnreconciledUsageGreaterThan(0)).thenReturn(List.of(pending));
+        when(instrumentReagentRepository.findByInflightBatchIdIsNotNull())
+                .thenReturn(List.of(inflight("IR-1", "Diluent", "LOT-1", "RCB-A", 20)));
+        when(warehouseFeignClient.recordReagentConsumption(any()))
+                .thenThrow(new RuntimeException("read timed out"))
+                .thenReturn(ApiResponse.success(new ReagentConsumptionBatchResponse("RCB-A", 0, List.of(), true), "ok"));
+
+        assertEquals(0, ledgerService.reconcileWithWarehouse());
+        assertEquals(1, ledgerService.reconcileWithWarehouse());
+
+        ArgumentCaptor<ReagentConsumptionBatchRequest> request = ArgumentCaptor.forClass(ReagentConsumptionBatchRequest.class);
+        verify(warehouseFeignClient, times(2)).recordReagentConsumption(request.capture());
+        for (ReagentConsumptionBatchRequest sent : request.getAllValues()) {
+            assertEquals("RCB-A", sent.getBatchId());
+            assertEquals(20.0, sent.getEntries().get(0).getQuantity());
+        }
+        // Không chốt batch mới, chỉ ghi xác nhận của lần gửi lại
+        verify(bulkOperations, times(1)).updateOne(any(Query.class), any(Update.class));
+        verify(bulkOperations, times(1)).execute();
+    }
+
+    @Test
+    void testReconcile_UnknownLotReturnsToPendingAndIsNotCounted() {
+        when(instrumentReagentRepository.findByUnreconciledUsageGreaterThan(0)).thenReturn(List.of());
+        when(instrumentReagentRepository.findByInflightBatchIdIsNotNull()).thenReturn(List.of(
+                inflight("IR-1", "Diluent", "LOT-1", "RCB-A", 20), inflight("IR-2", "Lysing", "LOT-X", "RCB-A", 10)));
+        when(warehouseFeignClient.recordReagentConsumption(any())).thenReturn(ApiResponse.success(
+                new ReagentConsumptionBatchResponse("RCB-A", 1, List.of("LOT-X"), false), "ok"));
+
+        assertEquals(1, ledgerService.reconcileWithWarehouse());
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(bulkOperations, times(2)).updateOne(query.capture(), update.capture());
+        assertEquals("IR-2", query.getAllValues().get(1).getQueryObject().get("_id"));
+        Document inc = (Document) update.getAllValues().get(1).getUpdateObject().get("$inc");
+        assertEquals(10, inc.get("unreconciled_usage"));
+        assertNull(inc.get("reconciled_usage"));
+    }
+
+    @Test
+    void testReconcile_WarehouseFailureKeepsBatchInFlight() {
+        when(instrumentReagentRepository.findByUnreconciledUsageGreaterThan(0)).thenReturn(List.of());
+        when(instrumentReagentRepository.findByInflightBatchIdIsNotNull())
+                .thenReturn(List.of(inflight("IR-1", "Diluent", "LOT-1", "RCB-A", 20)));
+        when(warehouseFeignClient.recordReagentConsumption(any())).thenThrow(new RuntimeException("unavailable"));
+
+        assertEquals(0, ledgerService.reconcileWithWarehouse());
+        verify(bulkOperations, never()).execute();
+    }
+
+    @Test
+    void testParseUsageAmount() {
+        assertEquals(2.5, ReagentUsageDescriptorCache.parseUsageAmount("2.5 mL/run").getAsDouble());
+        assertEquals(50.0, ReagentUsageDescriptorCache.parseUsageAmount("approx 50 µL per test").getAsDouble());
+        assertTrue(ReagentUsageDescriptorCache.parseUsageAmount("n/a").isEmpty());
+        assertTrue(ReagentUsageDescriptorCache.parseUsageAmount(null).isEmpty());
+    }
+}
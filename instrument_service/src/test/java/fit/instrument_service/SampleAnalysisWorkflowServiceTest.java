@@ -13,32 +13,48 @@ import fit.instrument_service.dtos.response.SampleResponse;
 import fit.instrument_service.dtos.response.WorkflowResponse;
 import fit.instrument_service.entities.BloodSample;
 import fit.instrument_service.entities.Instrument;
+import fit.instrument_service.entities.RawTestResult;
 import fit.instrument_service.entities.SampleProcessingWorkflow;
 import fit.instrument_service.enums.InstrumentStatus;
 import fit.instrument_service.enums.SampleStatus;
+import fit.instrument_service.enums.SampleStep;
 import fit.instrument_service.enums.WorkflowStatus;
 import fit.instrument_service.exceptions.NotFoundException;
 import fit.instrument_service.repositories.BloodSampleRepository;
 import fit.instrument_service.repositories.CassetteRepository;
 import fit.instrument_service.repositories.InstrumentRepository;
+import fit.instrument_service.repositories.RawTestResultRepository;
 import fit.instrument_service.repositories.SampleProcessingWorkflowRepository;
 import fit.instrument_service.services.BarcodeValidationService;
 import fit.instrument_service.services.NotificationService;
+import fit.instrument_service.services.RawResultPublisherService;
 import fit.instrument_service.services.ReagentCheckService;
+import fit.instrument_service.services.ReagentLedgerService;
+import fit.instrument_service.services.SampleStateService;
+import fit.instrument_service.services.WorkflowCheckpointService;
 import fit.instrument_service.services.impl.SampleAnalysisWorkflowServiceImpl;
+import fit.instrument_service.simulator.AnalyzerSimulatorRegistry;
+import fit.instrument_service.simulator.HematologyAnalyzerSimulator;
+import fit.instrument_service.simulator.SimulatorProperties;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 /*
@@ -73,6 +89,25 @@ class SampleAnalysisWorkflowServiceTest {
     @Mock
     private TestOrderFeignClient testOrderFeignClient;
 
+    @Mock
+    private ReagentLedgerService reagentLedgerService;
+
+    @Mock
+    private SampleStateService sampleStateService;
+
+    @Mock
+    private WorkflowCheckpointService workflowCheckpointService;
+
+    @Mock
+    private RawTestResultRepository rawTestResultRepository;
+
+    @Mock
+    private RawResultPublisherService rawResultPublisherService;
+
+    @Spy
+    private AnalyzerSimulatorRegistry analyzerSimulatorRegistry =
+            new AnalyzerSimulatorRegistry(List.of(new HematologyAnalyzerSimulator()), new SimulatorProperties());
+
     @InjectMocks
     private SampleAnalysisWorkflowServiceImpl workflowService;
 
@@ -82,6 +117,7 @@ class SampleAnalysisWorkflowServiceTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        when(workflowCheckpointService.heartbeat(any())).thenReturn(true);
 
         instrument = new Instrument();
         instrument.setId(instrumentId);
@@ -109,8 +145,10 @@ class SampleAnalysisWorkflowServiceTest {
         sample.setId("sample-001");
         sample.setBarcode("BARCODE001");
         sample.setStatus(SampleStatus.VALIDATED);
-        when(bloodSampleRepository.save(any(BloodSample.class))).thenReturn(sample);
+        when(bloodSampleRepository.saveAll(anyList())).thenReturn(Arrays.asList(sample));
         when(bloodSampleRepository.findByWorkflowId(anyString())).thenReturn(Arrays.asList(sample));
+        when(sampleStateService.transitionAll(anyList(), any(), any())).thenAnswer(inv -> inv.getArgument(0));
+        when(sampleStateService.transition(any(), any(), any())).thenReturn(true);
 
         when(instrumentRepository.save(any(Instrument.class))).thenReturn(instrument);
 
@@ -123,6 +161,13 @@ class SampleAnalysisWorkflowServiceTest {
         verify(instrumentRepository).findById(instrumentId);
         verify(reagentCheckService).areReagentsSufficient(instrumentId);
         verify(workflowRepository, atLeastOnce()).save(any(SampleProcessingWorkflow.class));
+
+        // Mẫu được ghi bằng một saveAll, các lần chuyển trạng thái chỉ là cập nhật có điều kiện
+        verify(bloodSampleRepository, times(1)).saveAll(anyList());
+        verify(bloodSampleRepository, never()).save(any(BloodSample.class));
+        verify(notificationService, times(1)).notifySampleStatusUpdates(anyList());
+        verify(sampleStateService).transitionAll(anyList(), eq(SampleStatus.VALIDATED), eq(SampleStatus.QUEUED));
+        verify(sampleStateService).transition(sample, SampleStatus.QUEUED, SampleStatus.PROCESSING);
     }
 
     @Test
@@ -225,4 +270,116 @@ class SampleAnalysisWorkflowServiceTest {
         assertEquals("sample-001", samples.get(0).getSampleId());
         assertEquals("sample-002", samples.get(1).getSampleId());
     }
+
+    @Test
+    void testResumeInterruptedWorkflows_ContinuesFromCheckpoint() {
+        // Arrange: dịch vụ dừng sau khi HL7 đã lưu nhưng trước khi gửi kết quả
+        SampleProcessingWorkflow workflow = new SampleProcessingWorkflow();
+        workflow.setId("workflow-001");
+        workflow.setInstrumentId(instrumentId);
+        workflow.setStatus(WorkflowStatus.RUNNING);
+        instrument.setStatus(InstrumentStatus.RUNNING);
+
+        BloodSample sample = new BloodSample();
+        sample.setId("sample-001");
+        sample.setBarcode("BARCODE001");
+        sample.setWorkflowId("workflow-001");
+        sample.setInstrumentId(instrumentId);
+        sample.setStatus(SampleStatus.PROCESSING);
+        sample.setCompletedSteps(EnumSet.of(SampleStep.REAGENTS_DEDUCTED, SampleStep.RESULTS_GENERATED, SampleStep.HL7_BUILT));
+        sample.setRawResultId("sample-001");
+
+        RawTestResult rawResult = new RawTestResult();
+        rawResult.setId("sample-001");
+        rawResult.setHl7Message("MSH|^~\\&|");
+        rawResult.setRawResultData(Map.of("WBC", "7.2"));
+
+        when(workflowCheckpointService.findInterruptedWorkflows()).thenReturn(List.of(workflow));
+        when(workflowCheckpointService.claimForResume(workflow)).thenReturn(true);
+        when(instrumentRepository.findById(instrumentId)).thenReturn(Optional.of(instrument));
+        when(bloodSampleRepository.findByWorkflowId("workflow-001")).thenReturn(List.of(sample));
+        when(rawTestResultRepository.findById("sample-001")).thenReturn(Optional.of(rawResult));
+        List<BloodSample> completed = new ArrayList<>();
+        when(sampleStateService.transitionAll(anyList(), any(), any())).thenAnswer(inv -> {
+            if (inv.getArgument(2) == SampleStatus.COMPLETED) {
+                completed.addAll(inv.getArgument(0));
+            }
+            return inv.getArgument(0);
+        });
+
+        // Act
+        assertEquals(1, workflowService.resumeInterruptedWorkflows());
+
+        // Assert: không chạy lại máy, không trừ hóa chất, không tạo lại kết quả; chỉ gửi kết quả còn thiếu
+        verify(sampleStateService, never()).transition(any(), any(), any());
+        verify(reagentLedgerService, never()).consumeRun(anyString());
+        verify(rawTestResultRepository, never()).save(any());
+        verify(rawResultPublisherService, times(1)).requestPublish();
+        verify(workflowCheckpointService, never()).markCompleted(any(), any(SampleStep[].class));
+        assertEquals(List.of(sample), completed);
+        assertEquals(WorkflowStatus.COMPLETED, workflow.getStatus());
+        assertEquals(InstrumentStatus.AVAILABLE, instrument.getStatus());
+    }
+
+    @Test
+    void testResumeInterruptedWorkflows_WorkflowWithoutSamplesIsFailed() {
+        SampleProcessingWorkflow workflow = new SampleProcessingWorkflow();
+        workflow.setId("workflow-001");
+        workflow.setInstrumentId(instrumentId);
+        workflow.setStatus(WorkflowStatus.INITIATED);
+
+        when(workflowCheckpointService.findInterruptedWorkflows()).thenReturn(List.of(workflow));
+        when(workflowCheckpointService.claimForResume(workflow)).thenReturn(true);
+        when(instrumentRepository.findById(instrumentId)).thenReturn(Optional.of(instrument));
+
+        assertEquals(0, workflowService.resumeInterruptedWorkflows());
+        assertEquals(WorkflowStatus.FAILED, workflow.getStatus());
+        verify(workflowRepository).save(workflow);
+        verify(bloodSampleRepository, never()).findByWorkflowId(anyString());
+    }
+
+    @Test
+    void testResumeInterruptedWorkflows_SkipsWorkflowClaimedElsewhere() {
+        SampleProcessingWorkflow workflow = new SampleProcessingWorkflow();
+        workflow.setId("workflow-001");
+        workflow.setInstrumentId(instrumentId);
+        workflow.setStatus(WorkflowStatus.RUNNING);
+
+        when(workflowCheckpointService.findInterruptedWorkflows()).thenReturn(List.of(workflow));
+        when(workflowCheckpointService.claimForResume(workflow)).thenReturn(false);
+
+        assertEquals(0, workflowService.resumeInterruptedWorkflows());
+        verifyNoInteractions(instrumentRepository, bloodSampleRepository);
+    }
+
+    @Test
+    void testResumeInterruptedWorkflows_StopsWhenOwnershipLost() {
+        SampleProcessingWorkflow workflow = new SampleProcessingWorkflow();
+        workflow.setId("workflow-001");
+        workflow.setInstrumentId(instrumentId);
+        workflow.setStatus(WorkflowStatus.RUNNING);
+
+        BloodSample sample = new BloodSample();
+        sample.setId("sample-001");
+        sample.setBarcode("BARCODE001");
+        sample.setWorkflowId("workflow-001");
+        sample.setStatus(SampleStatus.QUEUED);
+
+        when(workflowCheckpointService.findInterruptedWorkflows()).thenReturn(List.of(workflow));
+        when(workflowCheckpointService.claimForResume(workflow)).thenReturn(true);
+        // Heartbeat không còn khớp owner: replica khác đã nhận quy trình
+        when(workflowCheckpointService.heartbeat(workflow)).thenReturn(false);
+        when(instrumentRepository.findById(instrumentId)).thenReturn(Optional.of(instrument));
+        when(bloodSampleRepository.findByWorkflowId("workflow-001")).thenReturn(List.of(sample));
+        when(sampleStateService.transitionAll(anyList(), any(), any())).thenAnswer(inv -> inv.getArgument(0));
+
+        workflowService.resumeInterruptedWorkflows();
+
+        // Không xử lý mẫu, không ghi đè trạng thái quy trình và thiết bị của owner mới
+        verify(sampleStateService, never()).transition(any(), any(), any());
+        verify(notificationService, never()).notifyWorkflowCompletion(anyString(), anyString());
+        verify(reagentLedgerService, never()).reconcileWithWarehouse();
+        assertEquals(WorkflowStatus.RUNNING, workflow.getStatus());
+        assertEquals(InstrumentStatus.RUNNING, instrument.getStatus());
+    }
 }
@@ -0,0 +1,133 @@
+/*
+ * @ {#} SampleStateServiceTest.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.instrument_service;
+
+import com.mongodb.client.result.UpdateResult;
+import fit.instrument_service.entities.BloodSample;
+import fit.instrument_service.enums.SampleStatus;
+import fit.instrument_service.services.NotificationService;
+import fit.instrument_service.services.impl.SampleStateServiceImpl;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/*
+ * @description: Tests for guarded, partial sample status updates
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+class SampleStateServiceTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private NotificationService notificationService;
+
+    @InjectMocks
+    private SampleStateServiceImpl sampleStateService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    private static BloodSample sample(String id, SampleStatus status) {
+        BloodSample sample = new BloodSample();
+        sample.setId(id);
+        sample.setBarcode("BC-" + id);
+        sample.setStatus(status);
+        return sample;
+    }
+
+    @Test
+    void testTransitionAll_OneUpdateMultiWithStatusPredicate() {
+        List<BloodSample> samples = List.of(sample("1", SampleStatus.VALIDATED), sample("2", SampleStatus.VALIDATED));
+        when(mongoTemplate.updateMulti(any(Query.class), any(Update.class), eq(BloodSample.class)))
+                .thenReturn(UpdateResult.acknowledged(2, 2L, null));
+
+        List<BloodSample> queued = sampleStateService.transitionAll(samples, SampleStatus.VALIDATED, SampleStatus.QUEUED);
+
+        assertEquals(2, queued.size());
+        assertTrue(queued.stream().allMatch(s -> s.getStatus() == SampleStatus.QUEUED));
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, times(1)).updateMulti(query.capture(), update.capture(), eq(BloodSample.class));
+        assertEquals(SampleStatus.VALIDATED, query.getValue().getQueryObject().get("status"));
+
+        // Chỉ $set status và updated_at, không ghi lại cả document
+        Document set = (Document) update.getValue().getUpdateObject().get("$set");
+        assertEquals(2, set.size());
+        assertEquals(SampleStatus.QUEUED, set.get("status"));
+        assertNotNull(set.get("updated_at"));
+
+        verify(mongoTemplate, never()).find(any(Query.class), eq(BloodSample.class));
+        verify(mongoTemplate, never()).save(any());
+        verify(notificationService, times(1)).notifySampleStatusUpdates(queued);
+        verify(notificationService, never()).notifySampleStatusUpdate(any());
+    }
+
+    @Test
+    void testTransitionAll_LostRaceIsNotApplied() {
+        BloodSample completed = sample("1", SampleStatus.PROCESSING);
+        BloodSample failedElsewhere = sample("2", SampleStatus.PROCESSING);
+        when(mongoTemplate.updateMulti(any(Query.class), any(Update.class), eq(BloodSample.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+        when(mongoTemplate.find(any(Query.class), eq(BloodSample.class))).thenReturn(List.of(sample("1", SampleStatus.COMPLETED)));
+
+        List<BloodSample> result = sampleStateService.transitionAll(
+                List.of(completed, failedElsewhere), SampleStatus.PROCESSING, SampleStatus.COMPLETED);
+
+        assertEquals(List.of(completed), result);
+        assertEquals(SampleStatus.COMPLETED, completed.getStatus());
+        assertEquals(SampleStatus.PROCESSING, failedElsewhere.getStatus());
+        verify(notificationService).notifySampleStatusUpdates(List.of(completed));
+    }
+
+    @Test
+    void testTransitionAll_EmptyListDoesNothing() {
+        assertTrue(sampleStateService.transitionAll(List.of(), SampleStatus.PROCESSING, SampleStatus.FAILED).isEmpty());
+        verifyNoInteractions(mongoTemplate, notificationService);
+    }
+
+    @Test
+    void testTransition_SkippedWhenCurrentStatusDiffers() {
+        BloodSample sample = sample("1", SampleStatus.QUEUED);
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(BloodSample.class)))
+                .thenReturn(UpdateResult.acknowledged(0, 0L, null));
+
+        assertFalse(sampleStateService.transition(sample, SampleStatus.QUEUED, SampleStatus.PROCESSING));
+        assertEquals(SampleStatus.QUEUED, sample.getStatus());
+        verifyNoInteractions(notificationService);
+    }
+
+    @Test
+    void testTransition_AppliesAndNotifies() {
+        BloodSample sample = sample("1", SampleStatus.QUEUED);
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(BloodSample.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+        assertTrue(sampleStateService.transition(sample, SampleStatus.QUEUED, SampleStatus.PROCESSING));
+        assertEquals(SampleStatus.PROCESSING, sample.getStatus());
+        verify(notificationService).notifySampleStatusUpdate(sample);
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * @ {#} StatusStreamServiceTest.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.instrument_service;
+
+import fit.instrument_service.dtos.response.StatusEvent;
+import fit.instrument_service.enums.StatusEventType;
+import fit.instrument_service.services.impl.StatusStreamServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * @description: Tests for status stream filtering, coalescing and slow-consumer eviction
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+class StatusStreamServiceTest {
+
+    private StatusStreamServiceImpl statusStreamService;
+
+    @BeforeEach
+    void setUp() {
+        // Chu kỳ flush dài để bộ đệm chỉ thay đổi theo publish trong test
+        statusStreamService = new StatusStreamServiceImpl(60_000, 3, 3_600_000, 3_600_000, 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        statusStreamService.shutdown();
+    }
+
+    private static StatusEvent sampleEvent(String instrumentId, String sampleId, String status) {
+        return StatusEvent.builder()
+                .type(StatusEventType.SAMPLE)
+                .instrumentId(instrumentId)
+                .entityId(sampleId)
+                .status(status)
+                .build();
+    }
+
+    @Test
+    void testRapidUpdatesOfSameEntityAreCoalesced() {
+        statusStreamService.subscribe(Set.of());
+
+        for (int i = 0; i < 1000; i++) {
+            statusStreamService.publish(sampleEvent("instrument-001", "sample-001", i % 2 == 0 ? "QUEUED" : "PROCESSING"));
+        }
+
+        // 1000 cập nhật của cùng một mẫu chỉ chiếm một chỗ trong bộ đệm (sức chứa 3)
+        assertEquals(1, statusStreamService.subscriberCount());
+    }
+
+    @Test
+    void testSlowConsumerIsDisconnected() {
+        statusStreamService.subscribe(Set.of());
+
+        for (int i = 0; i < 4; i++) {
+            statusStreamService.publish(sampleEvent("instrument-001", "sample-" + i, "QUEUED"));
+        }
+
+        assertEquals(0, statusStreamService.subscriberCount());
+    }
+
+    @Test
+    void testInstrumentFilterOnlyBuffersMatchingEvents() {
+        statusStreamService.subscribe(Set.of("instrument-001"));
+        statusStreamService.subscribe(Set.of("instrument-002"));
+
+        for (int i = 0; i < 10; i++) {
+            statusStreamService.publish(sampleEvent("instrument-002", "sample-" + i, "QUEUED"));
+        }
+
+        // Client theo dõi instrument-002 bị tràn bộ đệm, client còn lại không nhận sự kiện nào
+        assertEquals(1, statusStreamService.subscriberCount());
+    }
+
+    @Test
+    void testEventWithoutInstrumentDoesNotThrow() {
+        statusStreamService.subscribe(Set.of("instrument-001"));
+        statusStreamService.subscribe(Set.of());
+
+        // Sự kiện không có instrumentId: client lọc theo thiết bị bỏ qua, client theo dõi tất cả vẫn nhận
+        for (int i = 0; i < 4; i++) {
+            StatusEvent event = sampleEvent(null, "sample-" + i, "QUEUED");
+            assertDoesNotThrow(() -> statusStreamService.publish(event));
+        }
+
+        // Chỉ client theo dõi tất cả bị tràn bộ đệm (sức chứa 3)
+        assertEquals(1, statusStreamService.subscriberCount());
+    }
+}
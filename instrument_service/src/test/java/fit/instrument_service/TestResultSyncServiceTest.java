@@ -0,0 +1,131 @@
+/*
+ * @ {#} TestResultSyncServiceTest.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.instrument_service;
+
+import fit.instrument_service.entities.RawTestResult;
+import fit.instrument_service.events.TestResultSyncRequestEvent;
+import fit.instrument_service.services.impl.TestResultSyncService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitOperations;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/*
+ * @description: Tests for the chunked, confirmed result resync responder
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+class TestResultSyncServiceTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private RabbitTemplate rabbitTemplate;
+
+    @Mock
+    private RabbitOperations rabbitOperations;
+
+    private TestResultSyncService testResultSyncService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        // 2 barcode mỗi truy vấn, 3 kết quả mỗi lô
+        testResultSyncService = new TestResultSyncService(mongoTemplate, rabbitTemplate, 2, 3, 1_048_576, 1_000, 10);
+        when(rabbitTemplate.getMessageConverter()).thenReturn(new Jackson2JsonMessageConverter());
+        when(rabbitTemplate.invoke(any())).thenAnswer(inv -> {
+            RabbitOperations.OperationsCallback<?> callback = inv.getArgument(0);
+            return callback.doInRabbit(rabbitOperations);
+        });
+    }
+
+    private static RawTestResult raw(String id, String barcode) {
+        RawTestResult result = new RawTestResult();
+        result.setId(id);
+        result.setBarcode(barcode);
+        result.setInstrumentId("instrument-001");
+        result.setHl7Message("MSH|...");
+        result.setRawResultData(Map.of("WBC", "5.0"));
+        return result;
+    }
+
+    private static TestResultSyncRequestEvent request(String... barcodes) {
+        return TestResultSyncRequestEvent.builder().requestId("REQ-1").barcodes(List.of(barcodes)).build();
+    }
+
+    @Test
+    void testProcessSyncRequest_ChunksBarcodesAndBatchesMessages() {
+        when(mongoTemplate.stream(any(Query.class), eq(RawTestResult.class)))
+                .thenReturn(Stream.of(raw("1", "A"), raw("2", "A"), raw("3", "B"), raw("4", "B")))
+                .thenReturn(Stream.of(raw("5", "C")));
+
+        testResultSyncService.processSyncRequest(request("A", "B", "A", " ", "C"));
+
+        // Barcode được loại trùng rồi chia nhóm 2 -> 2 truy vấn cursor
+        verify(mongoTemplate, times(2)).stream(any(Query.class), eq(RawTestResult.class));
+
+        // 5 kết quả -> lô 3 + lô 1 + lô 1, mỗi lô là một message AMQP và một lần chờ xác nhận
+        ArgumentCaptor<Message> messages = ArgumentCaptor.forClass(Message.class);
+        verify(rabbitOperations, times(3)).send(eq("instrument_exchange"), eq("instrument.test_result"), messages.capture());
+        verify(rabbitOperations, times(3)).waitForConfirmsOrDie(1_000);
+
+        // Lô nhiều kết quả dùng định dạng batch của Spring AMQP để listener phía nhận tự tách
+        assertNotNull(messages.getAllValues().get(0).getMessageProperties().getHeader(MessageProperties.SPRING_BATCH_FORMAT));
+        assertNull(messages.getAllValues().get(2).getMessageProperties().getHeader(MessageProperties.SPRING_BATCH_FORMAT));
+        verify(rabbitTemplate, never()).convertAndSend(anyString(), anyString(), any(Object.class));
+
+        // Mỗi lô đã xác nhận được đánh dấu last_resynced_at bằng một updateMulti
+        verify(mongoTemplate, times(3)).updateMulti(any(Query.class), any(Update.class), eq(RawTestResult.class));
+    }
+
+    @Test
+    void testProcessSyncRequest_BrokerNackLeavesResultsUnmarked() {
+        when(mongoTemplate.stream(any(Query.class), eq(RawTestResult.class)))
+                .thenReturn(Stream.of(raw("1", "A")));
+        doThrow(new RuntimeException("nack")).when(rabbitOperations).waitForConfirmsOrDie(anyLong());
+
+        assertThrows(RuntimeException.class, () -> testResultSyncService.processSyncRequest(request("A")));
+        verify(mongoTemplate, never()).updateMulti(any(Query.class), any(Update.class), eq(RawTestResult.class));
+    }
+
+    @Test
+    void testProcessSyncRequest_QuerySkipsRecentlyResynced() {
+        when(mongoTemplate.stream(any(Query.class), eq(RawTestResult.class))).thenReturn(Stream.empty());
+
+        testResultSyncService.processSyncRequest(request("A"));
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).stream(query.capture(), eq(RawTestResult.class));
+        assertTrue(query.getValue().getQueryObject().toString().contains("last_resynced_at"));
+        verifyNoInteractions(rabbitOperations);
+    }
+
+    @Test
+    void testProcessSyncRequest_EmptyRequest() {
+        testResultSyncService.processSyncRequest(request());
+        verifyNoInteractions(mongoTemplate, rabbitOperations);
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * @ {#} WorkflowCheckpointServiceTest.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.instrument_service;
+
+import com.mongodb.client.result.UpdateResult;
+import fit.instrument_service.entities.SampleProcessingWorkflow;
+import fit.instrument_service.enums.WorkflowStatus;
+import fit.instrument_service.services.impl.WorkflowCheckpointServiceImpl;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/*
+ * @description: Tests for workflow ownership, heartbeats and the staleness rule used when resuming workflows
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+class WorkflowCheckpointServiceTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    private WorkflowCheckpointServiceImpl checkpointService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        // Quá hạn sau 5 phút, gia hạn heartbeat mỗi phút
+        checkpointService = new WorkflowCheckpointServiceImpl(mongoTemplate, 300_000);
+    }
+
+    private static SampleProcessingWorkflow workflow(WorkflowStatus status) {
+        SampleProcessingWorkflow workflow = new SampleProcessingWorkflow();
+        workflow.setId("workflow-001");
+        workflow.setInstrumentId("instrument-001");
+        workflow.setStatus(status);
+        return workflow;
+    }
+
+    // Mốc quá hạn trong điều kiện $or của heartbeat_at
+    @SuppressWarnings("unchecked")
+    private static LocalDateTime staleCutoff(Document filter) {
+        Document or = ((List<Document>) filter.get("$and")).get(0);
+        Document heartbeat = ((List<Document>) or.get("$or")).get(0);
+        return (LocalDateTime) ((Document) heartbeat.get("heartbeat_at")).get("$lt");
+    }
+
+    @Test
+    void testFindInterruptedWorkflows_OnlyReturnsStaleWorkflows() {
+        when(mongoTemplate.find(any(Query.class), eq(SampleProcessingWorkflow.class))).thenReturn(List.of());
+
+        checkpointService.findInterruptedWorkflows();
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(query.capture(), eq(SampleProcessingWorkflow.class));
+        Document filter = query.getValue().getQueryObject();
+        LocalDateTime cutoff = staleCutoff(filter);
+        assertTrue(cutoff.isBefore(LocalDateTime.now().minusMinutes(4)));
+        assertTrue(cutoff.isAfter(LocalDateTime.now().minusMinutes(6)));
+        // Quy trình tạo trước khi có heartbeat được xét theo updated_at
+        assertTrue(filter.toString().contains("updated_at"));
+    }
+
+    @Test
+    void testClaimForResume_RechecksStalenessAndTakesOwnership() {
+        SampleProcessingWorkflow workflow = workflow(WorkflowStatus.RUNNING);
+        workflow.setOwnerInstanceId("dead-instance");
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(SampleProcessingWorkflow.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+        assertTrue(checkpointService.claimForResume(workflow));
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(query.capture(), update.capture(), eq(SampleProcessingWorkflow.class));
+        assertNotNull(staleCutoff(query.getValue().getQueryObject()));
+        Document set = (Document) update.getValue().getUpdateObject().get("$set");
+        assertNotEquals("dead-instance", set.get("owner_instance_id"));
+        assertNotNull(set.get("heartbeat_at"));
+        assertEquals(set.get("owner_instance_id"), workflow.getOwnerInstanceId());
+        assertEquals(1, workflow.getResumeCount());
+    }
+
+    @Test
+    void testClaimForResume_LiveWorkflowIsNotClaimed() {
+        SampleProcessingWorkflow workflow = workflow(WorkflowStatus.INITIATED);
+        // Instance sở hữu vừa gia hạn heartbeat: điều kiện quá hạn không còn khớp
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(SampleProcessingWorkflow.class)))
+                .thenReturn(UpdateResult.acknowledged(0, 0L, null));
+
+        assertFalse(checkpointService.claimForResume(workflow));
+        assertEquals(0, workflow.getResumeCount());
+        assertNull(workflow.getOwnerInstanceId());
+    }
+
+    @Test
+    void testHeartbeat_ThrottledAndScopedToOwner() {
+        SampleProcessingWorkflow workflow = workflow(WorkflowStatus.RUNNING);
+        checkpointService.markOwned(workflow);
+
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(SampleProcessingWorkflow.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+        // Vừa đặt heartbeat: chưa ghi lại
+        assertTrue(checkpointService.heartbeat(workflow));
+        verifyNoInteractions(mongoTemplate);
+
+        workflow.setHeartbeatAt(LocalDateTime.now().minusMinutes(2));
+        assertTrue(checkpointService.heartbeat(workflow));
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).updateFirst(query.capture(), any(Update.class), eq(SampleProcessingWorkflow.class));
+        assertEquals(workflow.getOwnerInstanceId(), query.getValue().getQueryObject().get("owner_instance_id"));
+        assertTrue(workflow.getHeartbeatAt().isAfter(LocalDateTime.now().minusSeconds(5)));
+    }
+
+    @Test
+    void testHeartbeat_ReportsLostOwnership() {
+        SampleProcessingWorkflow workflow = workflow(WorkflowStatus.RUNNING);
+        checkpointService.markOwned(workflow);
+        LocalDateTime lastHeartbeat = LocalDateTime.now().minusMinutes(2);
+        workflow.setHeartbeatAt(lastHeartbeat);
+        // Replica khác đã nhận quy trình: owner_instance_id không còn khớp
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(SampleProcessingWorkflow.class)))
+                .thenReturn(UpdateResult.acknowledged(0, 0L, null));
+
+        assertFalse(checkpointService.heartbeat(workflow));
+        assertEquals(lastHeartbeat, workflow.getHeartbeatAt());
+    }
+}
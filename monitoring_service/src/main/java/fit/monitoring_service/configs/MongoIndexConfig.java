@@ -0,0 +1,81 @@
+/*
+ * @ (#) MongoIndexConfig.java    1.0    19/10/2026
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+package fit.monitoring_service.configs;/*
+ * @description: Tạo các index khai báo trên entity (@CompoundIndex, @Indexed) khi ứng dụng sẵn sàng, vì auto index
+ *               creation của Spring Data đang tắt. Chỉ tạo index còn thiếu, không xóa index nào; chạy trên luồng nền
+ *               để việc build index trên collection lớn không làm chậm khởi động.
+ * @author: Bao Thong
+ * @date: 19/10/2026
+ * @version: 1.0
+ */
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mapping.context.MappingContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+
+import java.util.HashSet;
+import java.util.Set;
+
+@Configuration
+@RequiredArgsConstructor
+@Slf4j
+public class MongoIndexConfig {
+
+    private final MongoTemplate mongoTemplate;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcileIndexes() {
+        Thread thread = new Thread(() -> {
+            try {
+                MappingContext<? extends MongoPersistentEntity<?>, MongoPersistentProperty> mappingContext =
+                        mongoTemplate.getConverter().getMappingContext();
+                IndexResolver resolver = IndexResolver.create(mappingContext);
+                for (MongoPersistentEntity<?> entity : mappingContext.getPersistentEntities()) {
+                    if (entity.isAnnotationPresent(Document.class)) {
+                        ensureIndexes(entity.getCollection(), resolver.resolveIndexFor(entity.getTypeInformation()));
+                    }
+                }
+            } catch (Exception e) {
+                log.error("Error while reconciling MongoDB indexes", e);
+            }
+        }, "mongo-index-reconciler");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void ensureIndexes(String collection, Iterable<? extends IndexDefinition> declared) {
+        IndexOperations indexOperations = mongoTemplate.indexOps(collection);
+        Set<String> existing = new HashSet<>();
+        for (IndexInfo info : indexOperations.getIndexInfo()) {
+            existing.add(info.getName());
+        }
+
+        for (IndexDefinition definition : declared) {
+            String name = definition.getIndexOptions().getString("name");
+            if (name != null && existing.contains(name)) {
+                continue;
+            }
+            try {
+                indexOperations.ensureIndex(definition);
+                log.info("Created index {} on {}", name, collection);
+            } catch (DataAccessException e) {
+                // Index cùng khóa nhưng khác tên/tùy chọn: giữ nguyên index hiện có
+                log.warn("Could not create index {} on {}: {}", name, collection, e.getMessage());
+            }
+        }
+    }
+}
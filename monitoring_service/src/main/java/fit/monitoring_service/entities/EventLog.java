@@ -14,6 +14,8 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
 
@@ -25,6 +27,12 @@ import java.util.Map;
 @AllArgsConstructor
 @Builder
 @Document(collection = "event_logs") // Lưu trong MongoDB của Monitoring Service
+// searchEventLogs: mặc định sắp xếp created_at giảm dần, lọc theo khoảng thời gian, source_service hoặc action
+@CompoundIndexes({
+        @CompoundIndex(name = "created_at_idx", def = "{'created_at': -1}"),
+        @CompoundIndex(name = "source_service_created_at_idx", def = "{'source_service': 1, 'created_at': -1}"),
+        @CompoundIndex(name = "action_created_at_idx", def = "{'action': 1, 'created_at': -1}")
+})
 public class EventLog {
 
     @Id
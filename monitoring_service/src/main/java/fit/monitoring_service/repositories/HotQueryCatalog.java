@@ -0,0 +1,60 @@
+/*
+ * @ (#) HotQueryCatalog.java    1.0    19/10/2026
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+package fit.monitoring_service.repositories;/*
+ * @description: Các dạng truy vấn EventLog trên đường nóng (lọc + sắp xếp) với giá trị mẫu. Mỗi truy vấn phải được
+ *               phục vụ bởi một index khai báo trên entity; HotQueryCatalogTest kiểm tra điều này. Thêm một mục cho
+ *               mỗi truy vấn mới.
+ * @author: Bao Thong
+ * @date: 19/10/2026
+ * @version: 1.0
+ */
+
+import fit.monitoring_service.dtos.request.EventLogFilterRequest;
+import fit.monitoring_service.entities.EventLog;
+import fit.monitoring_service.repositories.impl.EventLogRepositoryImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+public final class HotQueryCatalog {
+
+    public record HotQuery(String name, Class<?> entityClass, Query query) {
+    }
+
+    // Sắp xếp mặc định của EventLogServiceImpl.getEventLogs
+    private static final Sort LATEST_FIRST = Sort.by(Sort.Direction.DESC, "created_at");
+
+    private HotQueryCatalog() {
+    }
+
+    public static List<HotQuery> all() {
+        LocalDateTime now = LocalDateTime.now();
+        return List.of(
+                // EventLogRepositoryImpl.searchEventLogs với từng bộ lọc của màn hình event log
+                search("EventLog.search", filter -> {
+                }),
+                search("EventLog.search.dateRange", filter -> {
+                    filter.setFromDate(now.minusDays(7));
+                    filter.setToDate(now);
+                }),
+                search("EventLog.search.sourceService", filter -> {
+                    filter.setSourceService("IAM_SERVICE");
+                    filter.setFromDate(now.minusDays(7));
+                }),
+                search("EventLog.search.action", filter -> filter.setAction("Login")),
+                search("EventLog.search.keyword", filter -> filter.setKeyword("order")),
+                search("EventLog.search.operator", filter -> filter.setOperator("admin"))
+        );
+    }
+
+    private static HotQuery search(String name, Consumer<EventLogFilterRequest> customizer) {
+        EventLogFilterRequest filter = new EventLogFilterRequest();
+        customizer.accept(filter);
+        return new HotQuery(name, EventLog.class, EventLogRepositoryImpl.searchQuery(filter).with(LATEST_FIRST));
+    }
+}
@@ -33,6 +33,21 @@ public class EventLogRepositoryImpl implements EventLogRepositoryCustom {
 
     @Override
     public Page<EventLog> searchEventLogs(EventLogFilterRequest filter, Pageable pageable) {
+        Query query = searchQuery(filter);
+
+        // Đếm tổng số record trước khi phân trang
+        long total = mongoTemplate.count(query, EventLog.class);
+
+        // Áp dụng phân trang và sắp xếp
+        query.with(pageable);
+
+        List<EventLog> eventLogs = mongoTemplate.find(query, EventLog.class);
+
+        return new PageImpl<>(eventLogs, pageable, total);
+    }
+
+    // Điều kiện lọc của searchEventLogs (chưa phân trang); HotQueryCatalog dùng lại để kiểm tra index
+    public static Query searchQuery(EventLogFilterRequest filter) {
         Query query = new Query();
         List<Criteria> criteriaList = new ArrayList<>();
 
@@ -72,15 +87,6 @@ public class EventLogRepositoryImpl implements EventLogRepositoryCustom {
         if (!criteriaList.isEmpty()) {
             query.addCriteria(new Criteria().andOperator(criteriaList.toArray(new Criteria[0])));
         }
-
-        // Đếm tổng số record trước khi phân trang
-        long total = mongoTemplate.count(query, EventLog.class);
-
-        // Áp dụng phân trang và sắp xếp
-        query.with(pageable);
-
-        List<EventLog> eventLogs = mongoTemplate.find(query, EventLog.class);
-
-        return new PageImpl<>(eventLogs, pageable, total);
+        return query;
     }
 }
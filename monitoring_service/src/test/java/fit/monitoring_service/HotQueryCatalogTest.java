@@ -0,0 +1,111 @@
+package fit.monitoring_service;
+
+import fit.monitoring_service.entities.EventLog;
+import fit.monitoring_service.repositories.HotQueryCatalog;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.util.TypeInformation;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HotQueryCatalogTest {
+
+    private MongoMappingContext mappingContext;
+
+    @BeforeEach
+    void setUp() {
+        mappingContext = new MongoMappingContext();
+        mappingContext.setInitialEntitySet(Set.of(EventLog.class));
+        mappingContext.afterPropertiesSet();
+    }
+
+    @Test
+    void hotQueries_AreServedByDeclaredIndexes() {
+        List<String> collectionScans = new ArrayList<>();
+        for (HotQueryCatalog.HotQuery hotQuery : HotQueryCatalog.all()) {
+            if (!isServed(hotQuery.query(), leadingKeys(hotQuery.entityClass()))) {
+                collectionScans.add(hotQuery.name());
+            }
+        }
+
+        assertTrue(collectionScans.isEmpty(), "Queries without a declared index (COLLSCAN): " + collectionScans);
+    }
+
+    @Test
+    void hotQueries_IndexedFiltersUseTheirOwnIndex() {
+        // Lọc theo trường có index thì filter phải tự dùng được index, không chỉ dựa vào index sắp xếp created_at
+        Set<String> indexedFilters = Set.of("EventLog.search.dateRange", "EventLog.search.sourceService", "EventLog.search.action");
+        for (HotQueryCatalog.HotQuery hotQuery : HotQueryCatalog.all()) {
+            if (indexedFilters.contains(hotQuery.name())) {
+                assertTrue(isServed(hotQuery.query().getQueryObject(), leadingKeys(hotQuery.entityClass())), hotQuery.name());
+            }
+        }
+    }
+
+    @Test
+    void hotQueries_CheckDetectsMissingIndex() {
+        // Đối chứng: lọc theo trường không có index và không sắp xếp theo index nào phải bị phát hiện
+        Query unindexed = Query.query(Criteria.where("operator").is("admin"));
+        Query sortedByUnindexed = Query.query(Criteria.where("message").regex("order"))
+                .with(Sort.by(Sort.Direction.ASC, "operator"));
+
+        assertFalse(isServed(unindexed, leadingKeys(EventLog.class)));
+        assertFalse(isServed(sortedByUnindexed, leadingKeys(EventLog.class)));
+        assertTrue(isServed(Query.query(Criteria.where("source_service").is("IAM_SERVICE")), leadingKeys(EventLog.class)));
+    }
+
+    // Khóa đầu của mọi index khai báo trên entity (kèm _id luôn có index)
+    private Set<String> leadingKeys(Class<?> entityClass) {
+        Set<String> keys = new HashSet<>();
+        keys.add("_id");
+        for (IndexDefinition definition : IndexResolver.create(mappingContext).resolveIndexFor(TypeInformation.of(entityClass))) {
+            keys.add(definition.getIndexKeys().keySet().iterator().next());
+        }
+        return keys;
+    }
+
+    // Planner tránh COLLSCAN khi filter ràng buộc khóa đầu của một index, hoặc khi một index cho sẵn thứ tự sắp xếp
+    private static boolean isServed(Query query, Set<String> leadingKeys) {
+        Document sort = query.getSortObject();
+        if (!sort.isEmpty() && leadingKeys.contains(sort.keySet().iterator().next())) {
+            return true;
+        }
+        return isServed(query.getQueryObject(), leadingKeys);
+    }
+
+    // Một index dùng được khi khóa đầu của nó bị ràng buộc bởi filter; với $or thì mọi nhánh đều phải dùng được index
+    @SuppressWarnings("unchecked")
+    private static boolean isServed(Document filter, Set<String> leadingKeys) {
+        for (Map.Entry<String, Object> entry : filter.entrySet()) {
+            String key = entry.getKey();
+            if ("$and".equals(key)) {
+                for (Document branch : (List<Document>) entry.getValue()) {
+                    if (isServed(branch, leadingKeys)) {
+                        return true;
+                    }
+                }
+            } else if (!key.startsWith("$") && leadingKeys.contains(key)) {
+                return true;
+            }
+        }
+        Object or = filter.get("$or");
+        if (or instanceof List<?> branches && !branches.isEmpty()) {
+            for (Object branch : branches) {
+                if (!isServed((Document) branch, leadingKeys)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+}
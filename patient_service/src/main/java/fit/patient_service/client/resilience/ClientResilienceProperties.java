@@ -0,0 +1,65 @@
+/*
+ * @ {#} ClientResilienceProperties.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.patient_service.client.resilience;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/*
+ * @description: Settings for resilient inter-service calls, keyed by Feign target (the Eureka service id).
+ *               Targets without an entry use the built-in defaults of {@link Target}.
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.client-resilience")
+public class ClientResilienceProperties {
+
+    // Số luồng tối đa dùng cho hedged GET
+    private int hedgeThreads = 32;
+
+    private Map<String, Target> targets = new HashMap<>();
+
+    public Target forTarget(String name) {
+        return targets.getOrDefault(name, DEFAULT_TARGET);
+    }
+
+    private static final Target DEFAULT_TARGET = new Target();
+
+    @Getter
+    @Setter
+    public static class Target {
+        // Bulkhead: số lời gọi đồng thời tối đa và thời gian chờ slot
+        private int maxConcurrent = 20;
+        private long maxWaitMs = 50;
+
+        // Circuit breaker theo cửa sổ trượt đếm số lời gọi
+        private int slidingWindowSize = 20;
+        private int minimumCalls = 10;
+        private int failureRateThreshold = 50;
+        private long openStateMs = 30_000;
+        private int halfOpenCalls = 3;
+
+        // Ngân sách thời gian cho lời gọi không nằm trong request có deadline (0 = không áp dụng)
+        private long requestBudgetMs = 0;
+
+        // Hedged read cho GET (chỉ bật cho các endpoint idempotent)
+        private boolean hedgeGets = false;
+        private long hedgeDelayMs = 150;
+
+        // Trả lại response GET thành công gần nhất (của cùng người gọi) khi target đang lỗi.
+        // Không bật cho target trả dữ liệu bệnh nhân hoặc dữ liệu theo người dùng
+        private boolean staleFallback = false;
+        private int staleEntries = 512;
+    }
+}
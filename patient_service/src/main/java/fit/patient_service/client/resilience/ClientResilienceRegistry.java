@@ -0,0 +1,131 @@
+/*
+ * @ {#} ClientResilienceRegistry.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.patient_service.client.resilience;
+
+import feign.Request;
+import feign.Response;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * @description: Shared per-target state (bulkhead, circuit breaker, last-good GET responses) for every Feign client
+ *               of this service, plus the small pool used for hedged reads. Last-good responses are keyed by the
+ *               caller's Authorization header and the URL, so a response is only ever replayed to the same caller.
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+public class ClientResilienceRegistry {
+
+    private final ClientResilienceProperties properties;
+    private final Map<String, TargetState> states = new ConcurrentHashMap<>();
+    private final ExecutorService hedgeExecutor;
+
+    public ClientResilienceRegistry(ClientResilienceProperties properties) {
+        this.properties = properties;
+        AtomicInteger counter = new AtomicInteger();
+        // Không có hàng đợi: khi hết luồng, lời gọi chạy trực tiếp và bỏ qua hedge thay vì xếp hàng
+        this.hedgeExecutor = new ThreadPoolExecutor(0, Math.max(properties.getHedgeThreads(), 2),
+                60, TimeUnit.SECONDS, new SynchronousQueue<>(), r -> {
+            Thread t = new Thread(r, "feign-hedge-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public TargetState state(String target) {
+        return states.computeIfAbsent(target, name -> new TargetState(properties.forTarget(name)));
+    }
+
+    public ExecutorService hedgeExecutor() {
+        return hedgeExecutor;
+    }
+
+    public void shutdown() {
+        hedgeExecutor.shutdownNow();
+    }
+
+    public static final class TargetState {
+        private final ClientResilienceProperties.Target config;
+        private final Semaphore bulkhead;
+        private final CircuitBreaker circuitBreaker;
+        private final Map<String, StaleEntry> lastGood;
+
+        TargetState(ClientResilienceProperties.Target config) {
+            this.config = config;
+            this.bulkhead = new Semaphore(Math.max(config.getMaxConcurrent(), 1));
+            this.circuitBreaker = new CircuitBreaker(config);
+            int capacity = Math.max(config.getStaleEntries(), 1);
+            this.lastGood = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, StaleEntry> eldest) {
+                    return size() > capacity;
+                }
+            });
+        }
+
+        public ClientResilienceProperties.Target config() {
+            return config;
+        }
+
+        public Semaphore bulkhead() {
+            return bulkhead;
+        }
+
+        public CircuitBreaker circuitBreaker() {
+            return circuitBreaker;
+        }
+
+        void remember(Request request, Response response, byte[] body) {
+            lastGood.put(cacheKey(request), new StaleEntry(response.status(), response.headers(), body));
+        }
+
+        Response stale(Request request) {
+            StaleEntry entry = lastGood.get(cacheKey(request));
+            if (entry == null) {
+                return null;
+            }
+            Map<String, Collection<String>> headers = new HashMap<>(entry.headers());
+            headers.put("X-Stale-Response", List.of("true"));
+            return Response.builder()
+                    .status(entry.status())
+                    .reason("OK (stale)")
+                    .request(request)
+                    .headers(headers)
+                    .body(entry.body())
+                    .build();
+        }
+    }
+
+    // Khóa theo người gọi + URL: response của người dùng này không bao giờ được trả cho người dùng khác
+    static String cacheKey(Request request) {
+        String caller = "";
+        for (Map.Entry<String, Collection<String>> header : request.headers().entrySet()) {
+            if ("Authorization".equalsIgnoreCase(header.getKey())) {
+                caller = String.join(",", header.getValue());
+            }
+        }
+        return sha256(caller) + " " + request.url();
+    }
+
+    private static String sha256(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private record StaleEntry(int status, Map<String, Collection<String>> headers, byte[] body) {
+    }
+}
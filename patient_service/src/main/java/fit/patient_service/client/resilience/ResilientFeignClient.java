@@ -0,0 +1,265 @@
+/*
+ * @ {#} ResilientFeignClient.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.patient_service.client.resilience;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import feign.Util;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * @description: Feign client decorator applied to every outbound call. In order: rejects calls whose request deadline
+ *               has passed, takes a per-target bulkhead slot, asks the target's circuit breaker for permission,
+ *               forwards the remaining budget as a header and caps the read timeout to it, and optionally hedges
+ *               idempotent GETs. Rejections and failures fall back to the last good GET response when enabled.
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+@Slf4j
+public class ResilientFeignClient implements Client {
+
+    private final Client delegate;
+    private final ClientResilienceRegistry registry;
+
+    public ResilientFeignClient(Client delegate, ClientResilienceRegistry registry) {
+        this.delegate = delegate;
+        this.registry = registry;
+    }
+
+    @Override
+    public Response execute(Request request, Request.Options options) throws IOException {
+        String target = targetOf(request);
+        ClientResilienceRegistry.TargetState state = registry.state(target);
+        ClientResilienceProperties.Target config = state.config();
+        boolean isGet = request.httpMethod() == Request.HttpMethod.GET;
+
+        long remaining = remainingBudget(config);
+        if (remaining <= 0) {
+            throw new RejectedCallException("Request deadline exceeded before calling " + target);
+        }
+
+        if (!acquire(state, config.getMaxWaitMs())) {
+            return fallbackOrThrow(state, request, isGet, "Bulkhead full for " + target);
+        }
+        boolean hedged = isGet && config.isHedgeGets();
+        // Với hedged GET, slot bulkhead được trả bởi chính lần gọi đang chạy nền, không phải ở đây
+        boolean releaseOnExit = true;
+        try {
+            if (!state.circuitBreaker().tryAcquirePermission()) {
+                return fallbackOrThrow(state, request, isGet, "Circuit open for " + target);
+            }
+
+            Request outbound = withBudget(request, remaining);
+            Request.Options effective = capReadTimeout(options, remaining);
+
+            Response response;
+            try {
+                if (hedged) {
+                    releaseOnExit = false;
+                    response = executeHedged(state, outbound, effective);
+                } else {
+                    response = delegate.execute(outbound, effective);
+                }
+            } catch (IOException | RuntimeException e) {
+                state.circuitBreaker().onResult(false);
+                Response stale = isGet && config.isStaleFallback() ? state.stale(request) : null;
+                if (stale != null) {
+                    log.warn("[Resilience] {} failed ({}), serving last good response", target, e.getMessage());
+                    return stale;
+                }
+                throw e;
+            }
+
+            state.circuitBreaker().onResult(response.status() < 500);
+            if (isGet && config.isStaleFallback() && response.status() >= 200 && response.status() < 300) {
+                return buffer(state, request, response);
+            }
+            return response;
+        } finally {
+            if (releaseOnExit) {
+                state.bulkhead().release();
+            }
+        }
+    }
+
+    private Response executeHedged(ClientResilienceRegistry.TargetState state, Request request, Request.Options options)
+            throws IOException {
+        CompletableFuture<Response> winner = new CompletableFuture<>();
+        AtomicInteger pending = new AtomicInteger(1);
+
+        // Slot của lời gọi chính chỉ được trả khi lần gọi đầu kết thúc, kể cả khi lần hedge đã thắng
+        if (!submit(request, options, winner, pending, state)) {
+            // Hết luồng hedge: gọi trực tiếp trên luồng hiện tại
+            try {
+                return delegate.execute(request, options);
+            } finally {
+                state.bulkhead().release();
+            }
+        }
+
+        try {
+            return winner.get(state.config().getHedgeDelayMs(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException slow) {
+            // Lần gọi đầu chậm hơn hedge delay: gửi thêm một lần nếu còn slot bulkhead
+            if (state.bulkhead().tryAcquire()) {
+                pending.incrementAndGet();
+                if (!submit(request, options, winner, pending, state)) {
+                    pending.decrementAndGet();
+                    state.bulkhead().release();
+                }
+            }
+            return await(winner);
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while calling " + request.url(), e);
+        }
+    }
+
+    private boolean submit(Request request, Request.Options options, CompletableFuture<Response> winner,
+                           AtomicInteger pending, ClientResilienceRegistry.TargetState slotOwner) {
+        try {
+            registry.hedgeExecutor().execute(() -> {
+                try {
+                    Response response = delegate.execute(request, options);
+                    if (!winner.complete(response)) {
+                        // Lần gọi thua: đóng response để trả kết nối
+                        Util.ensureClosed(response);
+                    }
+                } catch (Throwable t) {
+                    if (pending.decrementAndGet() == 0) {
+                        winner.completeExceptionally(t);
+                    }
+                } finally {
+                    slotOwner.bulkhead().release();
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    private static Response await(CompletableFuture<Response> winner) throws IOException {
+        try {
+            return winner.get();
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for hedged call", e);
+        }
+    }
+
+    private static IOException unwrap(ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof IOException io) {
+            return io;
+        }
+        if (cause instanceof RuntimeException re) {
+            throw re;
+        }
+        return new IOException(cause);
+    }
+
+    private static boolean acquire(ClientResilienceRegistry.TargetState state, long maxWaitMs) throws IOException {
+        try {
+            return state.bulkhead().tryAcquire(maxWaitMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for bulkhead", e);
+        }
+    }
+
+    private static Response fallbackOrThrow(ClientResilienceRegistry.TargetState state, Request request,
+                                            boolean isGet, String reason) throws RejectedCallException {
+        if (isGet && state.config().isStaleFallback()) {
+            Response stale = state.stale(request);
+            if (stale != null) {
+                log.warn("[Resilience] {}, serving last good response for {}", reason, request.url());
+                return stale;
+            }
+        }
+        throw new RejectedCallException(reason);
+    }
+
+    private static Response buffer(ClientResilienceRegistry.TargetState state, Request request, Response response)
+            throws IOException {
+        if (response.body() == null) {
+            return response;
+        }
+        byte[] body;
+        try (InputStream in = response.body().asInputStream()) {
+            body = in.readAllBytes();
+        }
+        Response buffered = response.toBuilder().body(body).build();
+        state.remember(request, buffered, body);
+        return buffered;
+    }
+
+    // Deadline của request đang phục vụ; nếu không có thì ngân sách riêng của target (chỉ khi được cấu hình)
+    private static long remainingBudget(ClientResilienceProperties.Target config) {
+        if (RequestDeadline.isSet() || config.getRequestBudgetMs() <= 0) {
+            return RequestDeadline.remainingMillis();
+        }
+        return config.getRequestBudgetMs();
+    }
+
+    private static Request withBudget(Request request, long remaining) {
+        if (remaining == Long.MAX_VALUE) {
+            return request;
+        }
+        Map<String, Collection<String>> headers = new LinkedHashMap<>(request.headers());
+        headers.put(RequestDeadline.HEADER, List.of(Long.toString(remaining)));
+        return Request.create(request.httpMethod(), request.url(), headers, request.body(),
+                request.charset(), request.requestTemplate());
+    }
+
+    private static Request.Options capReadTimeout(Request.Options options, long remaining) {
+        if (remaining >= options.readTimeoutMillis()) {
+            return options;
+        }
+        return new Request.Options(options.connectTimeoutMillis(), TimeUnit.MILLISECONDS,
+                (int) Math.max(remaining, 1), TimeUnit.MILLISECONDS, options.isFollowRedirects());
+    }
+
+    private static String targetOf(Request request) {
+        try {
+            String host = URI.create(request.url()).getHost();
+            if (host != null) {
+                return host;
+            }
+        } catch (IllegalArgumentException ignored) {
+            // URL không chuẩn: dùng nguyên chuỗi làm khóa target
+        }
+        return request.url();
+    }
+
+    /**
+     * Lời gọi bị từ chối cục bộ (hết deadline, bulkhead đầy, mạch đang mở) mà không chạm tới service đích.
+     * Là IOException để Feign bọc thành RetryableException giống lỗi kết nối.
+     */
+    public static class RejectedCallException extends IOException {
+        public RejectedCallException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+/*
+ * @ {#} MedicalRecordCodesRequest.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.patient_service.dtos.request;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+/*
+ * @description: DTO for looking up several patient medical records by code in one call
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+public record MedicalRecordCodesRequest(
+        @NotEmpty(message = "Medical record codes are required")
+        @Size(max = 500, message = "At most 500 medical record codes per lookup")
+        List<String> medicalRecordCodes
+) {
+}
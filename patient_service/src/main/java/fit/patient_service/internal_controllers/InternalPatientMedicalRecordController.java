@@ -7,17 +7,23 @@
 package fit.patient_service.internal_controllers;
 
 import fit.patient_service.constants.RoleConstants;
+import fit.patient_service.dtos.request.MedicalRecordCodesRequest;
 import fit.patient_service.dtos.response.ApiResponse;
 import fit.patient_service.dtos.response.PatientMedicalRecordResponse;
 import fit.patient_service.services.PatientMedicalRecordService;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
+
 /*
  * @description: Controller for internal patient medical record operations
  * @author: Tran Hien Vinh
@@ -39,6 +45,15 @@ public class InternalPatientMedicalRecordController {
         return ResponseEntity.ok(ApiResponse.success(response, "Patient medical record retrieved successfully"));
     }
 
+    @PostMapping("/codes/lookup")
+    @PreAuthorize(RoleConstants.CAN_READ_PMR)
+    public ResponseEntity<ApiResponse<List<PatientMedicalRecordResponse>>> getPatientMedicalRecordsByCodes(@Valid @RequestBody MedicalRecordCodesRequest request) {
+
+        List<PatientMedicalRecordResponse> response = patientMedicalRecordService.getPatientMedicalRecordsByCodes(request.medicalRecordCodes());
+
+        return ResponseEntity.ok(ApiResponse.success(response, "Patient medical records retrieved successfully"));
+    }
+
     @GetMapping("/{medicalRecordId}")
     @PreAuthorize(RoleConstants.CAN_READ_PMR)
     public ResponseEntity<ApiResponse<PatientMedicalRecordResponse>> getPatientMedicalRecordById(@PathVariable String medicalRecordId) {
@@ -12,6 +12,8 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /*
@@ -31,6 +33,8 @@ public interface PatientMedicalRecordRepository extends JpaRepository<PatientMed
 
     Optional<PatientMedicalRecord> findByMedicalRecordId(String medicalRecordId);
 
+    List<PatientMedicalRecord> findAllByMedicalRecordCodeIn(Collection<String> medicalRecordCodes);
+
     boolean existsByEmailAndMedicalRecordCodeNot(String email, String medicalRecordCode);
 
     boolean existsByPhoneAndMedicalRecordCodeNot(String phone, String medicalRecordCode);
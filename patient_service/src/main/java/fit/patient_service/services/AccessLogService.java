@@ -28,4 +28,6 @@ public interface AccessLogService {
     void logGetPatientMedicalRecordByCode(PatientMedicalRecord patientMedicalRecord);
 
     void logGetPatientMedicalRecordById(PatientMedicalRecord patientMedicalRecord);
+
+    void logGetPatientMedicalRecordsByCodes(List<PatientMedicalRecord> patientMedicalRecords);
 }
@@ -14,6 +14,8 @@ import fit.patient_service.enums.Gender;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
 
 /*
  * @description: Service class for managing patient medical records
@@ -34,4 +36,9 @@ public interface PatientMedicalRecordService {
     PatientMedicalRecordResponse getPatientMedicalRecordByCode(String medicalRecordCode);
 
     PatientMedicalRecordResponse getPatientMedicalRecordById(String medicalRecordId);
+
+    /**
+     * Lấy nhiều hồ sơ theo mã trong một truy vấn. Mã không tồn tại sẽ không có trong kết quả.
+     */
+    List<PatientMedicalRecordResponse> getPatientMedicalRecordsByCodes(Collection<String> medicalRecordCodes);
 }
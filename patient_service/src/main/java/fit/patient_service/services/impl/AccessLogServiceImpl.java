@@ -20,6 +20,7 @@ import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -125,6 +126,21 @@ public class AccessLogServiceImpl implements AccessLogService {
         saveAccessLog(AccessAction.VIEW, patientMedicalRecord.getMedicalRecordId(), patientMedicalRecord, p);
     }
 
+    @Override
+    public void logGetPatientMedicalRecordsByCodes(List<PatientMedicalRecord> patientMedicalRecords) {
+        if (patientMedicalRecords == null || patientMedicalRecords.isEmpty()) return;
+
+        // Mỗi hồ sơ vẫn có một dòng log riêng nhưng được ghi bằng một lần saveAll
+        List<AccessLog> logs = new ArrayList<>(patientMedicalRecords.size());
+        for (PatientMedicalRecord record : patientMedicalRecords) {
+            Map<String, Object> p = basePayload(AccessAction.VIEW);
+            p.put("medicalRecordCode", record.getMedicalRecordCode());
+            p.put("bulkLookup", true);
+            logs.add(buildAccessLog(AccessAction.VIEW, record.getMedicalRecordId(), record, p));
+        }
+        accessLogRepository.saveAll(logs);
+    }
+
     // Helpers
     private Map<String, Object> basePayload(AccessAction action) {
         Map<String, Object> m = new HashMap<>();
@@ -135,7 +151,11 @@ public class AccessLogServiceImpl implements AccessLogService {
     }
 
     private void saveAccessLog(AccessAction action, Object recordId, PatientMedicalRecord record, Map<String, Object> payload) {
-        AccessLog log = AccessLog.builder()
+        accessLogRepository.save(buildAccessLog(action, recordId, record, payload));
+    }
+
+    private AccessLog buildAccessLog(AccessAction action, Object recordId, PatientMedicalRecord record, Map<String, Object> payload) {
+        return AccessLog.builder()
                 .accessLogId(AccessLogGenerator.generateAccessLogId(
                         ENTITY_PATIENT_MEDICAL_RECORD,
                         String.valueOf(recordId),
@@ -146,8 +166,6 @@ public class AccessLogServiceImpl implements AccessLogService {
                 .changedFieldsJson(JsonUtils.convertToJson(payload))
                 .accessTime(now())
                 .build();
-
-        accessLogRepository.save(log);
     }
 
     private void fieldDiff(Map<String, Object> diff, String field, Object oldV, Object newV) {
@@ -37,6 +37,12 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /*
  * @description: Service implementation for managing patient medical records
@@ -195,6 +201,27 @@ public class PatientMedicalRecordServiceImpl implements PatientMedicalRecordServ
         return patientMedicalRecordMapper.toResponse(entity);
     }
 
+    @Override
+    @Transactional
+    public List<PatientMedicalRecordResponse> getPatientMedicalRecordsByCodes(Collection<String> medicalRecordCodes) {
+        Set<String> codes = medicalRecordCodes.stream()
+                .filter(Objects::nonNull)
+                .map(String::trim)
+                .filter(code -> !code.isEmpty())
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        if (codes.isEmpty()) {
+            return List.of();
+        }
+
+        List<PatientMedicalRecord> entities = patientMedicalRecordRepository.findAllByMedicalRecordCodeIn(codes);
+
+        accessLogService.logGetPatientMedicalRecordsByCodes(entities);
+
+        return entities.stream()
+                .map(patientMedicalRecordMapper::toResponse)
+                .toList();
+    }
+
     // Create a minimal snapshot for diff logging
     private PatientMedicalRecord snapshot(PatientMedicalRecord src) {
         PatientMedicalRecord copy = new PatientMedicalRecord();
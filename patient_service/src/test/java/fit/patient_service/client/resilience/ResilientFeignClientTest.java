@@ -0,0 +1,273 @@
+/*
+ * @ {#} ResilientFeignClientTest.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.patient_service.client.resilience;
+
+import com.sun.net.httpserver.HttpServer;
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * @description: Tests for the resilient Feign client decorator against a local JDK HttpServer stub
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+class ResilientFeignClientTest {
+
+    private static final String TARGET = "127.0.0.1";
+    private static final Request.Options OPTIONS =
+            new Request.Options(1000, TimeUnit.MILLISECONDS, 3000, TimeUnit.MILLISECONDS, true);
+
+    private HttpServer server;
+    private String baseUrl;
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger status = new AtomicInteger(200);
+    private final AtomicReference<String> lastBudgetHeader = new AtomicReference<>();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private ClientResilienceProperties properties;
+    private ClientResilienceProperties.Target target;
+
+    @BeforeEach
+    void startStubServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/value", exchange -> {
+            hits.incrementAndGet();
+            lastBudgetHeader.set(exchange.getRequestHeaders().getFirst(RequestDeadline.HEADER));
+            respond(exchange, status.get(), "v" + hits.get());
+        });
+        server.createContext("/blocking", exchange -> {
+            hits.incrementAndGet();
+            await(release);
+            respond(exchange, 200, "late");
+        });
+        server.createContext("/hedge", exchange -> {
+            // Lần gọi đầu bị treo, lần gọi hedge trả về ngay
+            if (hits.incrementAndGet() == 1) {
+                await(release);
+            }
+            respond(exchange, 200, "attempt" + hits.get());
+        });
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+
+        properties = new ClientResilienceProperties();
+        target = new ClientResilienceProperties.Target();
+        properties.getTargets().put(TARGET, target);
+    }
+
+    @AfterEach
+    void stopStubServer() {
+        release.countDown();
+        RequestDeadline.clear();
+        server.stop(0);
+    }
+
+    private ResilientFeignClient client() {
+        return new ResilientFeignClient(new Client.Default(null, null), new ClientResilienceRegistry(properties));
+    }
+
+    private Request get(String path) {
+        return Request.create(Request.HttpMethod.GET, baseUrl + path, Collections.emptyMap(), null,
+                StandardCharsets.UTF_8, null);
+    }
+
+    private Request get(String path, String token) {
+        return Request.create(Request.HttpMethod.GET, baseUrl + path,
+                Map.of("Authorization", List.of("Bearer " + token)), null, StandardCharsets.UTF_8, null);
+    }
+
+    private static String body(Response response) throws IOException {
+        try (InputStream in = response.body().asInputStream()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    @DisplayName("Circuit opens after repeated 5xx and then fails fast without calling the target")
+    void circuitBreaker_OpensAndFailsFast() throws IOException {
+        target.setSlidingWindowSize(4);
+        target.setMinimumCalls(4);
+        target.setFailureRateThreshold(50);
+        status.set(500);
+        ResilientFeignClient client = client();
+
+        for (int i = 0; i < 4; i++) {
+            assertEquals(500, client.execute(get("/value"), OPTIONS).status());
+        }
+
+        assertThrows(ResilientFeignClient.RejectedCallException.class, () -> client.execute(get("/value"), OPTIONS));
+        assertEquals(4, hits.get());
+    }
+
+    @Test
+    @DisplayName("Open circuit serves the last good GET response when stale fallback is enabled")
+    void circuitBreaker_StaleFallback() throws IOException {
+        target.setMinimumCalls(1);
+        target.setFailureRateThreshold(50);
+        target.setStaleFallback(true);
+        ResilientFeignClient client = client();
+
+        assertEquals("v1", body(client.execute(get("/value"), OPTIONS)));
+        status.set(500);
+        assertEquals(500, client.execute(get("/value"), OPTIONS).status());
+
+        Response stale = client.execute(get("/value"), OPTIONS);
+        assertEquals(200, stale.status());
+        assertEquals("v1", body(stale));
+        assertTrue(stale.headers().containsKey("X-Stale-Response"));
+        assertEquals(2, hits.get());
+    }
+
+    @Test
+    @DisplayName("Last good response is never served to a different caller")
+    void staleFallback_ScopedToCaller() throws IOException {
+        target.setMinimumCalls(1);
+        target.setFailureRateThreshold(50);
+        target.setStaleFallback(true);
+        ResilientFeignClient client = client();
+
+        assertEquals("v1", body(client.execute(get("/value", "token-a"), OPTIONS)));
+        status.set(500);
+        assertEquals(500, client.execute(get("/value", "token-a"), OPTIONS).status());
+
+        assertThrows(ResilientFeignClient.RejectedCallException.class,
+                () -> client.execute(get("/value", "token-b"), OPTIONS));
+        assertThrows(ResilientFeignClient.RejectedCallException.class, () -> client.execute(get("/value"), OPTIONS));
+        assertEquals("v1", body(client.execute(get("/value", "token-a"), OPTIONS)));
+        assertEquals(2, hits.get());
+    }
+
+    @Test
+    @DisplayName("Bulkhead rejects calls beyond the per-target concurrency limit")
+    void bulkhead_RejectsWhenFull() throws Exception {
+        target.setMaxConcurrent(1);
+        target.setMaxWaitMs(20);
+        ResilientFeignClient client = client();
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Response> inFlight = executor.submit(() -> client.execute(get("/blocking"), OPTIONS));
+            while (hits.get() == 0) {
+                Thread.sleep(5);
+            }
+
+            assertThrows(ResilientFeignClient.RejectedCallException.class, () -> client.execute(get("/value"), OPTIONS));
+
+            release.countDown();
+            assertEquals(200, inFlight.get(2, TimeUnit.SECONDS).status());
+            assertEquals(200, client.execute(get("/value"), OPTIONS).status());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Remaining request budget is forwarded and expired deadlines are not sent")
+    void deadline_PropagatedAndEnforced() throws IOException {
+        ResilientFeignClient client = client();
+
+        RequestDeadline.set(System.currentTimeMillis() + 2000);
+        client.execute(get("/value"), OPTIONS);
+        long forwarded = Long.parseLong(lastBudgetHeader.get());
+        assertTrue(forwarded > 0 && forwarded <= 2000);
+
+        RequestDeadline.set(System.currentTimeMillis() - 1);
+        assertThrows(ResilientFeignClient.RejectedCallException.class, () -> client.execute(get("/value"), OPTIONS));
+        assertEquals(1, hits.get());
+    }
+
+    @Test
+    @DisplayName("Without an inbound deadline a budget is only sent to targets that opt in")
+    void deadline_PerTargetBudgetIsOptIn() throws IOException {
+        ResilientFeignClient client = client();
+
+        client.execute(get("/value"), OPTIONS);
+        assertNull(lastBudgetHeader.get());
+
+        target.setRequestBudgetMs(1500);
+        client.execute(get("/value"), OPTIONS);
+        long forwarded = Long.parseLong(lastBudgetHeader.get());
+        assertTrue(forwarded > 0 && forwarded <= 1500);
+    }
+
+    @Test
+    @DisplayName("Hedged GET returns the faster attempt when the first one stalls")
+    void hedgedGet_ReturnsFasterAttempt() throws IOException {
+        target.setHedgeGets(true);
+        target.setHedgeDelayMs(50);
+        ResilientFeignClient client = client();
+
+        long start = System.nanoTime();
+        Response response = client.execute(get("/hedge"), OPTIONS);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals("attempt2", body(response));
+        assertTrue(elapsedMs < 2000, "hedged call took " + elapsedMs + "ms");
+    }
+
+    @Test
+    @DisplayName("Bulkhead slot of the stalled first attempt is held until that attempt finishes")
+    void hedgedGet_HoldsSlotUntilBothAttemptsFinish() throws Exception {
+        target.setMaxConcurrent(2);
+        target.setHedgeGets(true);
+        target.setHedgeDelayMs(50);
+        ClientResilienceRegistry registry = new ClientResilienceRegistry(properties);
+        ResilientFeignClient client = new ResilientFeignClient(new Client.Default(null, null), registry);
+
+        assertEquals("attempt2", body(client.execute(get("/hedge"), OPTIONS)));
+        // Lần hedge đã trả slot, lần gọi đầu vẫn đang chạy
+        assertEquals(1, registry.state(TARGET).bulkhead().availablePermits());
+
+        release.countDown();
+        long deadline = System.currentTimeMillis() + 2000;
+        while (registry.state(TARGET).bulkhead().availablePermits() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(2, registry.state(TARGET).bulkhead().availablePermits());
+    }
+
+    private static void respond(com.sun.net.httpserver.HttpExchange exchange, int code, String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(code, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
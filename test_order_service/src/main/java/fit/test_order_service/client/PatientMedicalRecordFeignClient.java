@@ -6,12 +6,17 @@
 
 package fit.test_order_service.client;
 
+import fit.test_order_service.client.dtos.PatientMedicalRecordCodesRequest;
 import fit.test_order_service.client.dtos.PatientMedicalRecordInternalResponse;
 import fit.test_order_service.services.impl.FeignClientConfig;
 import fit.test_order_service.dtos.response.ApiResponse;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+
+import java.util.List;
 
 /*
  * @description: Feign client for interacting with Patient Medical Record Service
@@ -26,4 +31,8 @@ public interface PatientMedicalRecordFeignClient {
 
     @GetMapping("/{medicalRecordId}")
     ApiResponse<PatientMedicalRecordInternalResponse> getPatientMedicalRecordById(@PathVariable("medicalRecordId") String medicalRecordId);
+
+    // Mã không tồn tại sẽ không có trong kết quả
+    @PostMapping("/codes/lookup")
+    ApiResponse<List<PatientMedicalRecordInternalResponse>> getPatientMedicalRecordsByCodes(@RequestBody PatientMedicalRecordCodesRequest request);
 }
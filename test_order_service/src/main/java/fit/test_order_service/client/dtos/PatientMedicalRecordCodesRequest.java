@@ -0,0 +1,18 @@
+/*
+ * @ {#} PatientMedicalRecordCodesRequest.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.test_order_service.client.dtos;
+
+import java.util.Collection;
+
+/*
+ * @description: Request body for looking up several patient medical records by code in one call
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+public record PatientMedicalRecordCodesRequest(Collection<String> medicalRecordCodes) {
+}
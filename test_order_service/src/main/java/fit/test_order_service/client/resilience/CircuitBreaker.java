@@ -0,0 +1,118 @@
+/*
+ * @ {#} CircuitBreaker.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.test_order_service.client.resilience;
+
+import java.util.function.LongSupplier;
+
+/*
+ * @description: Count-based circuit breaker. Opens when the failure rate over the last N calls crosses the threshold,
+ *               rejects calls while open, then lets a few trial calls through (half-open) before closing again.
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+public class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int minimumCalls;
+    private final int failureRateThreshold;
+    private final long openStateMillis;
+    private final int halfOpenCalls;
+    private final LongSupplier clock;
+
+    private final boolean[] window;
+    private int index;
+    private int recorded;
+    private int failures;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int halfOpenInFlight;
+    private int halfOpenSuccesses;
+
+    public CircuitBreaker(ClientResilienceProperties.Target config) {
+        this(config, System::currentTimeMillis);
+    }
+
+    CircuitBreaker(ClientResilienceProperties.Target config, LongSupplier clock) {
+        this.window = new boolean[Math.max(config.getSlidingWindowSize(), 1)];
+        this.minimumCalls = Math.max(config.getMinimumCalls(), 1);
+        this.failureRateThreshold = config.getFailureRateThreshold();
+        this.openStateMillis = config.getOpenStateMs();
+        this.halfOpenCalls = Math.max(config.getHalfOpenCalls(), 1);
+        this.clock = clock;
+    }
+
+    public synchronized boolean tryAcquirePermission() {
+        if (state == State.OPEN) {
+            if (clock.getAsLong() - openedAt < openStateMillis) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+            halfOpenInFlight = 0;
+            halfOpenSuccesses = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (halfOpenInFlight >= halfOpenCalls) {
+                return false;
+            }
+            halfOpenInFlight++;
+        }
+        return true;
+    }
+
+    public synchronized void onResult(boolean success) {
+        switch (state) {
+            case HALF_OPEN -> {
+                halfOpenInFlight = Math.max(halfOpenInFlight - 1, 0);
+                if (!success) {
+                    open();
+                } else if (++halfOpenSuccesses >= halfOpenCalls) {
+                    reset();
+                }
+            }
+            case CLOSED -> {
+                if (recorded == window.length) {
+                    if (!window[index]) {
+                        failures--;
+                    }
+                } else {
+                    recorded++;
+                }
+                window[index] = success;
+                if (!success) {
+                    failures++;
+                }
+                index = (index + 1) % window.length;
+
+                if (recorded >= minimumCalls && failures * 100 >= failureRateThreshold * recorded) {
+                    open();
+                }
+            }
+            case OPEN -> {
+                // Kết quả trễ của các lời gọi bắt đầu trước khi mạch mở: bỏ qua
+            }
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = clock.getAsLong();
+    }
+
+    private void reset() {
+        state = State.CLOSED;
+        index = 0;
+        recorded = 0;
+        failures = 0;
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * @ {#} IdGeneratorConfig.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.test_order_service.configs;
+
+import fit.test_order_service.utils.SnowflakeIdGenerator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+
+/*
+ * @description: Binds the Snowflake node id from configuration. Every replica must use a distinct node id, so there
+ *               is no default: startup fails when it is missing instead of letting replicas share node 0 and collide.
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+@Configuration
+@Slf4j
+public class IdGeneratorConfig {
+
+    public IdGeneratorConfig(@Value("${app.id-generator.node-id:}") String nodeIdValue) {
+        if (!StringUtils.hasText(nodeIdValue)) {
+            throw new IllegalStateException("app.id-generator.node-id (ID_GENERATOR_NODE_ID) is not set; "
+                    + "give every replica a distinct node id between 0 and 1023");
+        }
+        long nodeId;
+        try {
+            nodeId = Long.parseLong(nodeIdValue.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalStateException("app.id-generator.node-id must be a number, got '" + nodeIdValue + "'", e);
+        }
+        SnowflakeIdGenerator.setNodeId(nodeId);
+        log.info("Snowflake id generator initialised with node id {}", nodeId);
+    }
+}
@@ -39,6 +39,9 @@ public class RabbitMQConfig {
     // Routing key phải khớp với routingKey trong SampleAnalysisWorkflowServiceImpl ("instrument.test_result")
     public static final String TEST_RESULT_ROUTING_KEY = "instrument.test_result";
 
+    // Routing key yêu cầu Instrument Service đồng bộ lại kết quả (queue do Instrument Service khai báo)
+    public static final String SYNC_REQUEST_ROUTING_KEY = "instrument.sync.request";
+
     // Bean cho Queue và Binding mới
     @Bean
     public Queue testResultQueue() {
@@ -0,0 +1,55 @@
+/*
+ * @ {#} OrderStatsController.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.test_order_service.controllers;
+
+import fit.test_order_service.dtos.response.ApiResponse;
+import fit.test_order_service.dtos.response.OrderStatsBucketResponse;
+import fit.test_order_service.enums.StatsDimension;
+import fit.test_order_service.enums.StatsGranularity;
+import fit.test_order_service.services.OrderStatsService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+/*
+ * @description: Dashboard statistics read from the hourly/daily rollups
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+@RestController
+@RequestMapping("/api/v1/order-stats")
+@RequiredArgsConstructor
+public class OrderStatsController {
+
+    private final OrderStatsService orderStatsService;
+
+    @GetMapping
+    @PreAuthorize("hasAnyRole('ADMIN','MANAGER')")
+    public ResponseEntity<ApiResponse<List<OrderStatsBucketResponse>>> getStats(
+            @RequestParam(defaultValue = "DAY") StatsGranularity granularity,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) Set<StatsDimension> dimensions
+    ) {
+        List<OrderStatsBucketResponse> buckets = orderStatsService.getStats(granularity, from, to, dimensions);
+        return ResponseEntity.ok(ApiResponse.success(buckets, "Order statistics retrieved successfully"));
+    }
+
+    @PostMapping("/rebuild")
+    @PreAuthorize("hasAnyRole('ADMIN')")
+    public ResponseEntity<ApiResponse<Integer>> rebuild() {
+        int processed = orderStatsService.rebuildAll();
+        return ResponseEntity.ok(ApiResponse.success(processed, "Order statistics rebuilt"));
+    }
+}
@@ -14,9 +14,17 @@ import fit.test_order_service.dtos.response.FileStoreResponse;
 import fit.test_order_service.dtos.response.JobStatusResponse;
 import fit.test_order_service.entities.ReportFileStore;
 import fit.test_order_service.entities.ReportJob;
+import fit.test_order_service.enums.StorageType;
 import fit.test_order_service.exceptions.NotFoundException;
 import fit.test_order_service.repositories.ReportJobRepository;
+import fit.test_order_service.services.FileStorageService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -24,12 +32,17 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
 @RestController
 @RequestMapping("/api/v1/report-jobs")
 @RequiredArgsConstructor
 public class ReportJobController {
 
     private final ReportJobRepository reportJobRepository;
+    private final FileStorageService fileStorageService;
 
     @GetMapping("/{jobId}")
     @PreAuthorize("hasAnyRole('ADMIN','MANAGER','USER')")
@@ -70,4 +83,40 @@ public class ReportJobController {
 
         return ResponseEntity.ok(ApiResponse.success(jobResponse, "Job status retrieved successfully"));
     }
+
+    /**
+     * Tải file kết quả của job. File lưu nội bộ được stream trực tiếp, hỗ trợ Range (206) và ETag (304)
+     * do Spring MVC xử lý khi body là Resource; file trên Cloudinary được redirect tới URL gốc.
+     */
+    @GetMapping("/{jobId}/file")
+    @PreAuthorize("hasAnyRole('ADMIN','MANAGER','USER')")
+    public ResponseEntity<Resource> downloadJobFile(@PathVariable String jobId) {
+
+        ReportJob job = reportJobRepository.findById(jobId)
+                .orElseThrow(() -> new NotFoundException("Not found jobId: " + jobId));
+
+        ReportFileStore fileEntity = job.getResultFile();
+        if (fileEntity == null) {
+            throw new NotFoundException("Job " + jobId + " has no result file");
+        }
+
+        if (fileEntity.getStorageType() != StorageType.LOCAL) {
+            return ResponseEntity.status(HttpStatus.FOUND)
+                    .location(URI.create(fileEntity.getObjectKey()))
+                    .build();
+        }
+
+        Resource resource = fileStorageService.loadAsResource(fileEntity.getObjectKey());
+        ContentDisposition disposition = ContentDisposition.attachment()
+                .filename(fileEntity.getFileName(), StandardCharsets.UTF_8)
+                .build();
+
+        // objectKey là SHA-256 của nội dung nên dùng trực tiếp làm ETag
+        return ResponseEntity.ok()
+                .eTag(fileEntity.getObjectKey())
+                .cacheControl(CacheControl.maxAge(Duration.ofDays(1)).cachePrivate())
+                .contentType(MediaType.parseMediaType(fileEntity.getMimeType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, disposition.toString())
+                .body(resource);
+    }
 }
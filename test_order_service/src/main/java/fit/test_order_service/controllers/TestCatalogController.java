@@ -11,7 +11,9 @@ import fit.test_order_service.dtos.response.TestCatalogResponse;
 import fit.test_order_service.services.TestCatalogService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -57,4 +59,17 @@ public class TestCatalogController {
                         .build()
         );
     }
+
+    @PostMapping("/index/refresh")
+    @PreAuthorize("hasAnyRole('ADMIN','MANAGER')")
+    public ResponseEntity<ApiResponse<Integer>> refreshCatalogIndex() {
+        int size = testCatalogService.refreshCatalogIndex();
+        return ResponseEntity.ok(
+                ApiResponse.<Integer>builder()
+                        .success(true)
+                        .data(size)
+                        .message("Test catalog index refreshed successfully")
+                        .build()
+        );
+    }
 }
@@ -12,17 +12,25 @@ import fit.test_order_service.enums.Gender;
 import fit.test_order_service.enums.OrderStatus;
 import fit.test_order_service.enums.ReviewMode;
 import fit.test_order_service.enums.ReviewStatus;
+import fit.test_order_service.services.BulkTestOrderService;
+import fit.test_order_service.services.FlatExportService;
 import fit.test_order_service.services.TestOrderService;
+import fit.test_order_service.utils.FlatFileExportWriter;
 import fit.test_order_service.validators.RequestParamValidator;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
 
@@ -38,6 +46,8 @@ import java.time.LocalDate;
 public class TestOrderController {
 
     private final TestOrderService testOrderService;
+    private final FlatExportService flatExportService;
+    private final BulkTestOrderService bulkTestOrderService;
 
     @PostMapping
     @PreAuthorize("hasAnyRole('ADMIN','MANAGER')")
@@ -52,6 +62,21 @@ public class TestOrderController {
         return new ResponseEntity<>(apiResponse, HttpStatus.CREATED);
     }
 
+    @PostMapping("/bulk")
+    @PreAuthorize("hasAnyRole('ADMIN','MANAGER')")
+    public ResponseEntity<ApiResponse<BulkCreateTestOrderResponse>> createTestOrders(@Valid @RequestBody BulkCreateTestOrderRequest request) {
+        BulkCreateTestOrderResponse response = bulkTestOrderService.createTestOrders(request);
+        // 201 khi có ít nhất một order được tạo, ngược lại 200 kèm lý do lỗi từng item
+        HttpStatus status = response.getCreated() > 0 ? HttpStatus.CREATED : HttpStatus.OK;
+        ApiResponse<BulkCreateTestOrderResponse> apiResponse = ApiResponse.<BulkCreateTestOrderResponse>builder()
+                .success(true)
+                .status(status.value())
+                .message("Created " + response.getCreated() + " of " + response.getRequested() + " test orders")
+                .data(response)
+                .build();
+        return new ResponseEntity<>(apiResponse, status);
+    }
+
     @GetMapping("/{id}")
     @PreAuthorize("hasAnyRole('ADMIN','MANAGER')")
     public ResponseEntity<ApiResponse<TestOrderDetailResponse>> getTestOrderById(@PathVariable String id) {
@@ -146,6 +171,63 @@ public class TestOrderController {
         return ResponseEntity.ok(ApiResponse.success(response, "Test orders retrieved successfully"));
     }
 
+    /**
+     * Danh sách Test Order theo keyset pagination dành cho các màn hình polling/cuộn vô hạn.
+     * Truyền lại nextCursor của trang trước để lấy trang tiếp theo; totalElements chỉ được tính khi includeTotal=true.
+     */
+    @GetMapping("/cursor")
+    @PreAuthorize("hasAnyRole('ADMIN','MANAGER')")
+    public ResponseEntity<ApiResponse<CursorPageResponse<TestOrderResponse>>> getTestOrdersByCursor(
+            @RequestParam(name = "cursor", required = false)
+            String cursor,
+
+            @RequestParam(defaultValue = "10")
+            @Min(value = 1, message = "Page size must not be less than one")
+            @Max(value = 100, message = "Page size must not be greater than 100")
+            int size,
+
+            @RequestParam(name = "sort", defaultValue = "createdAt,desc")
+            String sort,
+
+            @RequestParam(name = "search", required = false)
+            String search,
+
+            @RequestParam(name = "startDate", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+            LocalDate startDate,
+
+            @RequestParam(name = "endDate", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+            LocalDate endDate,
+
+            @RequestParam(name = "status", required = false)
+            OrderStatus status,
+
+            @RequestParam(name = "reviewStatus", required = false)
+            ReviewStatus reviewStatus,
+
+            @RequestParam(name = "reviewMode", required = false)
+            ReviewMode reviewMode,
+
+            @RequestParam(name = "gender", required = false)
+            Gender gender,
+
+            @RequestParam(name = "createdBy", required = false)
+            String createdBy,
+
+            @RequestParam(name = "reviewedBy", required = false)
+            String reviewedBy,
+
+            @RequestParam(name = "includeTotal", defaultValue = "false")
+            boolean includeTotal
+    ) {
+
+        CursorPageResponse<TestOrderResponse> response = testOrderService.getTestOrdersByCursor(
+                cursor, size, sort, search, startDate, endDate, status, reviewStatus, reviewMode, gender, createdBy, reviewedBy, includeTotal);
+
+        return ResponseEntity.ok(ApiResponse.success(response, "Test orders retrieved successfully"));
+    }
+
     /**
      * Endpoint để yêu cầu in kết quả của một Test Order.
      * Quá trình in sẽ chạy ngầm.
@@ -194,6 +276,45 @@ public class TestOrderController {
         return new ResponseEntity<>(apiResponse, HttpStatus.ACCEPTED);
     }
 
+    /**
+     * Endpoint export phẳng (CSV/TSV nén gzip) danh sách Test Order hoặc Test Result.
+     * Dữ liệu được đọc theo keyset và ghi thẳng vào response, không tạo file trung gian.
+     *
+     * @param request dataset, format và khoảng thời gian (cùng quy ước với export Excel).
+     * @return File .csv.gz / .tsv.gz được stream về client.
+     */
+    @GetMapping("/export-flat")
+    @PreAuthorize("hasAnyRole('ADMIN','MANAGER')")
+    public ResponseEntity<StreamingResponseBody> exportTestOrdersFlat(@Valid @ModelAttribute FlatExportRequest request) {
+        ContentDisposition disposition = ContentDisposition.attachment()
+                .filename(flatExportService.resolveFileName(request))
+                .build();
+        StreamingResponseBody body = out -> flatExportService.streamExport(request, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(FlatFileExportWriter.GZIP_MIME_TYPE))
+                .header(HttpHeaders.CONTENT_DISPOSITION, disposition.toString())
+                .body(body);
+    }
+
+    /**
+     * Endpoint tạo job export phẳng chạy ngầm; file kết quả được lưu và tải qua /api/v1/report-jobs/{jobId}/file.
+     */
+    @PostMapping("/export-flat/jobs")
+    @PreAuthorize("hasAnyRole('ADMIN','MANAGER')")
+    public ResponseEntity<ApiResponse<PrintJobResponse>> requestExportTestOrdersFlat(
+            @Valid @RequestBody FlatExportRequest request) {
+
+        PrintJobResponse jobResponse = flatExportService.requestStoredExport(request);
+
+        ApiResponse<PrintJobResponse> apiResponse = ApiResponse.<PrintJobResponse>builder()
+                .success(true)
+                .status(HttpStatus.ACCEPTED.value())
+                .message("Export " + request.getFormat() + " job has been queued.")
+                .data(jobResponse)
+                .build();
+        return new ResponseEntity<>(apiResponse, HttpStatus.ACCEPTED);
+    }
+
     /**
      * Endpoint để review một Test Order đã COMPLETED.
      * Cập nhật ReviewStatus thành REVIEWED và ghi lại bất kỳ điều chỉnh kết quả nào (nếu có) thông qua HL7.
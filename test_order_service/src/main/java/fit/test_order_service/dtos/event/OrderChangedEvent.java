@@ -0,0 +1,19 @@
+/*
+ * @ {#} OrderChangedEvent.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.test_order_service.dtos.event;
+
+import java.util.Set;
+
+/*
+ * @description: In-process event published once per committed transaction with the ids of every TestOrder whose
+ *               order row or results changed in that transaction.
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+public record OrderChangedEvent(Set<String> orderIds) {
+}
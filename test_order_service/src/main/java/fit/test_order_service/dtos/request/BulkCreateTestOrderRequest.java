@@ -0,0 +1,28 @@
+/*
+ * @ {#} BulkCreateTestOrderRequest.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.test_order_service.dtos.request;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+/*
+ * @description: DTO for creating many test orders in one request. Items are validated one by one by the service so
+ *               that an invalid item is reported in the response instead of rejecting the whole batch.
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+@Data
+public class BulkCreateTestOrderRequest {
+
+    @NotEmpty(message = "Items are required")
+    @Size(max = 500, message = "At most 500 items per bulk request")
+    private List<CreateTestOrderRequest> items;
+}
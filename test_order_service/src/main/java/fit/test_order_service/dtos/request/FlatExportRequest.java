@@ -0,0 +1,70 @@
+/*
+ * @ {#} FlatExportRequest.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.test_order_service.dtos.request;
+
+import fit.test_order_service.enums.ExportDataset;
+import fit.test_order_service.enums.ExportFormat;
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+
+/*
+ * @description: Options for a flat (CSV/TSV, gzip) export of test orders or test results
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+@Data
+public class FlatExportRequest {
+
+    private ExportDataset dataset = ExportDataset.ORDERS;
+
+    private ExportFormat format = ExportFormat.CSV;
+
+    // Tên file tùy chỉnh (không bao gồm đuôi .csv.gz / .tsv.gz)
+    @Size(max = 100, message = "Tên file tùy chỉnh không được vượt quá 100 ký tự.")
+    private String customFileName;
+
+    // Cùng quy ước với ExportExcelRequest: TODAY, THIS_MONTH, THIS_YEAR, ALL_TIME, CUSTOM (mặc định THIS_MONTH)
+    @Pattern(regexp = "^(TODAY|THIS_MONTH|THIS_YEAR|ALL_TIME|CUSTOM)$",
+            message = "Loại khoảng thời gian không hợp lệ. Chỉ chấp nhận TODAY, THIS_MONTH, THIS_YEAR, ALL_TIME, CUSTOM.")
+    private String dateRangeType;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate startDate;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate endDate;
+
+    @AssertTrue(message = "startDate và endDate là bắt buộc khi dateRangeType là CUSTOM")
+    private boolean isCustomDatePresent() {
+        if ("CUSTOM".equals(dateRangeType)) {
+            return startDate != null && endDate != null;
+        }
+        return true;
+    }
+
+    @AssertTrue(message = "endDate phải sau hoặc trùng với startDate")
+    private boolean isDateOrderValid() {
+        if ("CUSTOM".equals(dateRangeType) && startDate != null && endDate != null) {
+            return !endDate.isBefore(startDate);
+        }
+        return true;
+    }
+
+    @AssertTrue(message = "startDate và endDate chỉ được phép khi dateRangeType là CUSTOM")
+    private boolean isCustomRangeExclusive() {
+        if (!"CUSTOM".equals(dateRangeType)) {
+            return startDate == null && endDate == null;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,31 @@
+/*
+ * @ {#} BulkCreateTestOrderResponse.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.test_order_service.dtos.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/*
+ * @description: Summary and per-item outcomes of a bulk test order request
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkCreateTestOrderResponse {
+    private int requested;
+    private int created;
+    private int failed;
+    private List<BulkOrderItemResult> items;
+}
@@ -0,0 +1,34 @@
+/*
+ * @ {#} BulkOrderItemResult.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.test_order_service.dtos.response;
+
+import fit.test_order_service.enums.BulkItemStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/*
+ * @description: Outcome of one item of a bulk test order request, in the same position as the request item
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkOrderItemResult {
+    private int index;
+    private String medicalRecordCode;
+    private String testTypeId;
+    private BulkItemStatus status;
+    private String orderId;
+    private String orderCode;
+    private String barcode;
+    private String error;
+}
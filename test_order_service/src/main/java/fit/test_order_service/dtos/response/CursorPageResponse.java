@@ -0,0 +1,33 @@
+/*
+ * @ {#} CursorPageResponse.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.test_order_service.dtos.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/*
+ * @description: Page of a keyset (seek) paginated listing. nextCursor is null on the last page;
+ *               totalElements is only present when requested and may be up to one cache TTL stale.
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+@Data
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CursorPageResponse<T> {
+    private List<T> values;
+    private int size;
+    private String nextCursor;
+    private boolean hasNext;
+    private Long totalElements;
+    private List<String> sorts;
+    private FilterInfo filters;
+}
@@ -0,0 +1,27 @@
+/*
+ * @ {#} OrderStatsBucketResponse.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.test_order_service.dtos.response;
+
+import fit.test_order_service.enums.StatsDimension;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/*
+ * @description: Counters of one hourly/daily statistics bucket, grouped by dimension then dimension value
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+@Data
+@Builder
+public class OrderStatsBucketResponse {
+    private LocalDateTime bucketStart;
+    private Map<StatsDimension, Map<String, Long>> counts;
+}
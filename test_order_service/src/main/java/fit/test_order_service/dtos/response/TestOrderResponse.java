@@ -50,6 +50,10 @@ public class TestOrderResponse {
     private LocalDateTime deletedAt;
     private String deletedBy;
 
+    // Chỉ có trong danh sách (lấy từ order_list_view)
+    private Integer resultCount;
+    private Integer abnormalCount;
+
     private List<TestResultResponse> results;
     private List<OrderCommentResponse> comments;
 }
\ No newline at end of file
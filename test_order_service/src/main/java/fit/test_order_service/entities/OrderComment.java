@@ -10,6 +10,7 @@ package fit.test_order_service.entities;/*
  */
 
 import fit.test_order_service.enums.CommentTargetType;
+import fit.test_order_service.utils.SnowflakeIdGenerator;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.*;
@@ -18,12 +19,12 @@ import org.hibernate.annotations.Where;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.util.List;
-import java.util.UUID;
 
 @Entity
 @Table(name = "order_comment", indexes = {
         @Index(name = "idx_cmt_target_time", columnList = "targetId, created_at DESC"),
-        @Index(name = "idx_cmt_deleted", columnList = "deleted_at")
+        @Index(name = "idx_cmt_deleted", columnList = "deleted_at"),
+        @Index(name = "idx_cmt_thread_path", columnList = "thread_order_id, path")
 })
 @Getter
 @Setter
@@ -82,6 +83,14 @@ public class OrderComment {
     @Column(name = "parent_id", length = 36)
     private String parentId;
 
+    // TestOrder sở hữu luồng comment (kể cả comment gắn vào TestResult), để tải cả cây bằng một truy vấn
+    @Column(name = "thread_order_id", length = 36)
+    private String threadOrderId;
+
+    // Materialized path: "<rootId>/" cho comment gốc, "<rootId>/<replyId>/" cho reply
+    @Column(name = "path", length = 255)
+    private String path;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "parent_id", insertable = false, updatable = false)
     private OrderComment parent;
@@ -96,7 +105,8 @@ public class OrderComment {
 
     @PrePersist
     void pp() {
-        if (commentId == null) commentId = UUID.randomUUID().toString();
+        if (commentId == null) commentId = SnowflakeIdGenerator.nextIdString();
+        if (path == null) path = (parentId == null ? "" : parentId + "/") + commentId + "/";
         if (createdAt == null) createdAt = LocalDateTime.now(ZoneOffset.UTC);
         if (editCount == null) editCount = 0;
     }
@@ -10,6 +10,7 @@ package fit.test_order_service.entities;/*
  */
 
 import fit.test_order_service.enums.EventType;
+import fit.test_order_service.utils.SnowflakeIdGenerator;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.*;
@@ -18,7 +19,6 @@ import org.hibernate.type.SqlTypes;
 
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
-import java.util.UUID;
 
 @Entity
 @Table(name = "order_event_log", indexes = {
@@ -80,7 +80,7 @@ public class OrderEventLog {
 
     @PrePersist
     void pp() {
-        if (eventId == null) eventId = UUID.randomUUID().toString();
+        if (eventId == null) eventId = SnowflakeIdGenerator.nextIdString();
         if (createdAt == null) createdAt = LocalDateTime.now(ZoneOffset.UTC);
     }
 }
\ No newline at end of file
@@ -0,0 +1,118 @@
+/*
+ * @ {#} OrderListView.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.test_order_service.entities;
+
+import fit.test_order_service.enums.*;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/*
+ * @description: Denormalized read model for the order dashboard. One row per TestOrder holding only display
+ *               fields, kept current from order/result change events so the list endpoint is a single indexed query.
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+@Entity
+@Table(name = "order_list_view", indexes = {
+        @Index(name = "idx_olv_time", columnList = "deleted, created_at DESC, order_id"),
+        @Index(name = "idx_olv_status_time", columnList = "deleted, status, created_at DESC, order_id"),
+        @Index(name = "idx_olv_review_time", columnList = "deleted, review_status, created_at DESC, order_id"),
+        @Index(name = "idx_olv_updated", columnList = "deleted, updated_at DESC, order_id"),
+        @Index(name = "idx_olv_patient", columnList = "deleted, patient_name, order_id"),
+        @Index(name = "idx_olv_medical_record", columnList = "medical_record_code, created_at DESC")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderListView {
+    @Id
+    @Column(name = "order_id", length = 36, nullable = false, updatable = false)
+    private String orderId;
+
+    @Column(name = "order_code", length = 32)
+    private String orderCode;
+
+    @Column(name = "barcode")
+    private String barcode;
+
+    @Column(name = "medical_record_id", length = 40)
+    private String medicalRecordId;
+
+    @Column(name = "medical_record_code", length = 50)
+    private String medicalRecordCode;
+
+    @Column(name = "patient_name", length = 150)
+    private String patientName;
+
+    @Column(name = "age_years", columnDefinition = "tinyint unsigned")
+    private Integer ageYears;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "gender", length = 16)
+    private Gender gender;
+
+    @Column(name = "phone", length = 20)
+    private String phone;
+
+    @Column(name = "email", length = 128)
+    private String email;
+
+    @Column(name = "test_type_id", length = 36)
+    private String testTypeId;
+
+    @Column(name = "test_type_name", length = 100)
+    private String testTypeName;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", length = 16, nullable = false)
+    private OrderStatus status;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "review_status", length = 24, nullable = false)
+    private ReviewStatus reviewStatus;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "review_mode", length = 8)
+    private ReviewMode reviewMode;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entry_source", length = 16)
+    private EntrySource entrySource;
+
+    @Column(name = "created_by", length = 36)
+    private String createdBy;
+
+    @Column(name = "reviewed_by", length = 36)
+    private String reviewedBy;
+
+    @Column(name = "result_count", nullable = false)
+    private int resultCount;
+
+    @Column(name = "abnormal_count", nullable = false)
+    private int abnormalCount;
+
+    @Column(name = "created_at", columnDefinition = "datetime(6)", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "run_at", columnDefinition = "datetime(6)")
+    private LocalDateTime runAt;
+
+    @Column(name = "reviewed_at", columnDefinition = "datetime(6)")
+    private LocalDateTime reviewedAt;
+
+    // Lần thay đổi gần nhất của order hoặc kết quả của nó
+    @Column(name = "updated_at", columnDefinition = "datetime(6)", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @Column(name = "deleted", nullable = false)
+    private boolean deleted;
+}
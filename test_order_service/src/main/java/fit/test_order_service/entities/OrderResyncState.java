@@ -0,0 +1,46 @@
+/*
+ * @ {#} OrderResyncState.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.test_order_service.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/*
+ * @description: Per-order bookkeeping for stuck-order result resync requests (attempt count and backoff deadline).
+ *               Rows are purged once the order leaves the waiting statuses.
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+@Entity
+@Table(name = "order_resync_state", indexes = {
+        @Index(name = "idx_resync_next_attempt", columnList = "next_attempt_at")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderResyncState {
+    @Id
+    @Column(name = "order_id", length = 36, nullable = false, updatable = false)
+    private String orderId;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "last_requested_at")
+    private LocalDateTime lastRequestedAt;
+
+    @Column(name = "next_attempt_at")
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "last_request_id", length = 36)
+    private String lastRequestId;
+}
@@ -0,0 +1,62 @@
+/*
+ * @ {#} OrderStatsContribution.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.test_order_service.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/*
+ * @description: What a single order currently contributes to order_stats_rollup. When the order changes, the
+ *               stored contribution is subtracted and the new one added, so counters move by deltas instead of
+ *               being recounted from test_order.
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+@Entity
+@Table(name = "order_stats_contribution")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderStatsContribution {
+    @Id
+    @Column(name = "order_id", length = 36, nullable = false, updatable = false)
+    private String orderId;
+
+    // created_at của order làm tròn xuống theo giờ (UTC)
+    @Column(name = "bucket_hour", columnDefinition = "datetime(6)", nullable = false)
+    private LocalDateTime bucketHour;
+
+    @Column(name = "status", length = 24, nullable = false)
+    private String status;
+
+    @Column(name = "test_type", length = 100, nullable = false)
+    private String testType;
+
+    @Column(name = "entry_source", length = 24, nullable = false)
+    private String entrySource;
+
+    // Null khi order chưa chạy
+    @Column(name = "turnaround_bucket", length = 16)
+    private String turnaroundBucket;
+
+    @Column(name = "flag_h", nullable = false)
+    private int flagH;
+
+    @Column(name = "flag_l", nullable = false)
+    private int flagL;
+
+    @Column(name = "flag_a", nullable = false)
+    private int flagA;
+
+    @Column(name = "flag_n", nullable = false)
+    private int flagN;
+}
@@ -0,0 +1,58 @@
+/*
+ * @ {#} OrderStatsRollup.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.test_order_service.entities;
+
+import fit.test_order_service.enums.StatsDimension;
+import fit.test_order_service.enums.StatsGranularity;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/*
+ * @description: One counter of the order statistics rollup: the number of orders (or results, for ABNORMAL_FLAG)
+ *               created in a given hour/day bucket that currently fall under one dimension value. Rows are only
+ *               ever changed by delta upserts from OrderStatsServiceImpl.
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+@Entity
+@Table(name = "order_stats_rollup",
+        uniqueConstraints = @UniqueConstraint(name = "uk_stats_bucket",
+                columnNames = {"granularity", "bucket_start", "dimension", "dimension_value"}))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderStatsRollup {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "rollup_id")
+    private Long rollupId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "granularity", length = 8, nullable = false)
+    private StatsGranularity granularity;
+
+    @Column(name = "bucket_start", columnDefinition = "datetime(6)", nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "dimension", length = 16, nullable = false)
+    private StatsDimension dimension;
+
+    @Column(name = "dimension_value", length = 100, nullable = false)
+    private String dimensionValue;
+
+    @Column(name = "count_value", nullable = false)
+    private long countValue;
+
+    @Column(name = "updated_at", columnDefinition = "datetime(6)", nullable = false)
+    private LocalDateTime updatedAt;
+}
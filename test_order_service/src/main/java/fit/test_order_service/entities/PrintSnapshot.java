@@ -22,7 +22,8 @@ import java.util.UUID;
 @Entity
 @Table(name = "print_snapshot", indexes = {
         @Index(name = "idx_snapshot_order_time", columnList = "order_id, created_at DESC"),
-        @Index(name = "idx_snapshot_job", columnList = "job_id")
+        @Index(name = "idx_snapshot_job", columnList = "job_id"),
+        @Index(name = "idx_snapshot_order_hash", columnList = "order_id, content_hash")
 })
 @Getter
 @Setter
@@ -54,6 +55,14 @@ public class PrintSnapshot {
     @Column(name = "comments_json", columnDefinition = "json", nullable = false)
     private String commentsJson;
 
+    // SHA-256 của toàn bộ dữ liệu đầu vào khi render; trùng hash nghĩa là PDF giống hệt
+    @Size(max = 64)
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    @Column(name = "file_id", length = 36)
+    private String fileId;
+
     @Column(name = "created_at", columnDefinition = "datetime(6)", nullable = false)
     private LocalDateTime createdAt;
 
@@ -11,6 +11,7 @@ package fit.test_order_service.entities;/*
 
 import fit.test_order_service.enums.JobStatus;
 import fit.test_order_service.enums.JobType;
+import fit.test_order_service.utils.SnowflakeIdGenerator;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.*;
@@ -20,7 +21,6 @@ import org.hibernate.type.SqlTypes;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.util.List;
-import java.util.UUID;
 
 @Entity
 @Table(name = "report_job", indexes = {
@@ -105,7 +105,7 @@ public class ReportJob {
 
     @PrePersist
     void pp() {
-        if (jobId == null) jobId = UUID.randomUUID().toString();
+        if (jobId == null) jobId = SnowflakeIdGenerator.nextIdString();
         if (status == null) status = JobStatus.QUEUED;
         if (progressPct == null) progressPct = 0;
         if (createdAt == null) createdAt = LocalDateTime.now(ZoneOffset.UTC);
@@ -0,0 +1,37 @@
+/*
+ * @ {#} SchedulerLease.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.test_order_service.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/*
+ * @description: Named, time-bounded lease used so that only one replica runs a given scheduled job at a time
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+@Entity
+@Table(name = "scheduler_lease")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SchedulerLease {
+    @Id
+    @Column(name = "lease_name", length = 64, nullable = false, updatable = false)
+    private String leaseName;
+
+    @Column(name = "owner_id", length = 64)
+    private String ownerId;
+
+    @Column(name = "lease_until", nullable = false)
+    private LocalDateTime leaseUntil;
+}
@@ -10,6 +10,7 @@ package fit.test_order_service.entities;/*
  */
 
 import fit.test_order_service.enums.*;
+import fit.test_order_service.listeners.OrderEntityChangeListener;
 import fit.test_order_service.utils.TestOrderGenerator;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
@@ -22,11 +23,14 @@ import java.util.List;
 
 /* TestOrder */
 @Entity
+@EntityListeners(OrderEntityChangeListener.class)
 @Table(name = "test_order", indexes = {
         @Index(name = "idx_order_medical_time", columnList = "medicalRecordCode, created_at DESC"),
         @Index(name = "idx_order_status_time", columnList = "status, created_at DESC"),
+        @Index(name = "idx_order_status_keyset", columnList = "status, created_at, order_id"),
         @Index(name = "idx_order_review_time", columnList = "review_status, created_at DESC"),
-        @Index(name = "idx_order_code", columnList = "order_code", unique = true)
+        @Index(name = "idx_order_code", columnList = "order_code", unique = true),
+        @Index(name = "idx_order_time", columnList = "created_at, order_id")
 })
 @Getter
 @Setter
@@ -12,6 +12,7 @@ package fit.test_order_service.entities;/*
 import fit.test_order_service.enums.AbnormalFlag;
 import fit.test_order_service.enums.EntrySource;
 import fit.test_order_service.enums.FlagSeverity;
+import fit.test_order_service.listeners.OrderEntityChangeListener;
 import fit.test_order_service.utils.TestResultGenerator;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
@@ -22,9 +23,9 @@ import org.hibernate.type.SqlTypes;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.util.List;
-import java.util.UUID;
 
 @Entity
+@EntityListeners(OrderEntityChangeListener.class)
 @Table(name = "test_result", indexes = {
         @Index(name = "idx_result_order", columnList = "order_id"),
         @Index(name = "idx_result_analyte", columnList = "analyte_name"),
@@ -0,0 +1,17 @@
+/*
+ * @ {#} BulkItemStatus.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.test_order_service.enums;
+
+/*
+ * @description: Outcome of a single item in a bulk test order request
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+public enum BulkItemStatus {
+    CREATED, FAILED
+}
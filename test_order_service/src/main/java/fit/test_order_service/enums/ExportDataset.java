@@ -0,0 +1,6 @@
+package fit.test_order_service.enums;
+
+public enum ExportDataset {
+    ORDERS,  // Mỗi dòng là một test order
+    RESULTS  // Mỗi dòng là một test result kèm thông tin định danh của order
+}
@@ -0,0 +1,5 @@
+package fit.test_order_service.enums;
+
+public enum ExportFormat {
+    CSV, TSV
+}
@@ -1,5 +1,5 @@
 package fit.test_order_service.enums;
 
 public enum JobType {
-    EXPORT_ORDERS_XLSX, PRINT_ORDER_PDF
+    EXPORT_ORDERS_XLSX, EXPORT_ORDERS_CSV, PRINT_ORDER_PDF
 }
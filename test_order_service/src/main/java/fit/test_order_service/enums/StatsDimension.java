@@ -0,0 +1,10 @@
+package fit.test_order_service.enums;
+
+public enum StatsDimension {
+    TOTAL,          // Tổng số order
+    STATUS,         // Theo trạng thái hiện tại của order
+    TEST_TYPE,      // Theo loại xét nghiệm
+    ENTRY_SOURCE,   // Theo nguồn tạo order
+    TURNAROUND,     // Histogram thời gian từ lúc tạo tới lúc chạy
+    ABNORMAL_FLAG   // Số kết quả theo cờ H/L/A/N
+}
@@ -0,0 +1,41 @@
+/*
+ * @ {#} OrderEntityChangeListener.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.test_order_service.listeners;
+
+import fit.test_order_service.entities.TestOrder;
+import fit.test_order_service.entities.TestResult;
+import fit.test_order_service.utils.OrderChangeTracker;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/*
+ * @description: JPA entity listener for TestOrder and TestResult. Records the affected order id so that read
+ *               models are refreshed once the surrounding transaction commits.
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+@Component
+@RequiredArgsConstructor
+public class OrderEntityChangeListener {
+
+    private final OrderChangeTracker orderChangeTracker;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(Object entity) {
+        if (entity instanceof TestOrder order) {
+            orderChangeTracker.markChanged(order.getOrderId());
+        } else if (entity instanceof TestResult result) {
+            orderChangeTracker.markChanged(result.getOrderId());
+        }
+    }
+}
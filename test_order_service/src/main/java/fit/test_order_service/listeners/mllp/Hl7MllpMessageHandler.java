@@ -0,0 +1,113 @@
+/*
+ * @ {#} Hl7MllpMessageHandler.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.test_order_service.listeners.mllp;
+
+import ca.uhn.hl7v2.AcknowledgmentCode;
+import ca.uhn.hl7v2.HL7Exception;
+import ca.uhn.hl7v2.model.Message;
+import ca.uhn.hl7v2.parser.Parser;
+import fit.test_order_service.dtos.request.Hl7MessageRequest;
+import fit.test_order_service.dtos.response.Hl7ProcessResponse;
+import fit.test_order_service.exceptions.AlreadyExistsException;
+import fit.test_order_service.services.Hl7ProcessingService;
+import fit.test_order_service.utils.SnowflakeIdGenerator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+/*
+ * @description: Feeds HL7 messages received over MLLP into Hl7ProcessingService and builds the HAPI acknowledgement:
+ *               AA when processed (or already processed, so analyzer retransmits are idempotent), AE when processing
+ *               failed and AR when the message could not be parsed at all.
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class Hl7MllpMessageHandler implements MllpMessageHandler {
+
+    private static final DateTimeFormatter HL7_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+
+    private final Hl7ProcessingService hl7ProcessingService;
+    private final Parser parser;
+
+    @Override
+    public String handle(String hl7Message) {
+        Message message;
+        try {
+            message = parser.parse(hl7Message);
+        } catch (HL7Exception e) {
+            log.warn("Rejecting unparsable MLLP message: {}", e.getMessage());
+            return rejectAck(hl7Message, e.getMessage());
+        }
+
+        try {
+            Hl7ProcessResponse response = hl7ProcessingService.processHl7Message(
+                    Hl7MessageRequest.builder().hl7Payload(hl7Message).build());
+            if ("SUCCESS".equals(response.getStatus())) {
+                return parser.encode(message.generateACK());
+            }
+            return errorAck(message, response.getErrorMessage());
+
+        } catch (AlreadyExistsException e) {
+            // Máy gửi lại khi mất ACK: message đã được xử lý nên vẫn trả AA
+            log.info("Duplicate MLLP message acknowledged: {}", e.getMessage());
+            return acceptAck(message);
+        } catch (Exception e) {
+            log.error("Error processing MLLP message: {}", e.getMessage(), e);
+            return errorAck(message, e.getMessage());
+        }
+    }
+
+    private String acceptAck(Message message) {
+        try {
+            return parser.encode(message.generateACK());
+        } catch (Exception e) {
+            return rejectAck(null, e.getMessage());
+        }
+    }
+
+    private String errorAck(Message message, String error) {
+        try {
+            return parser.encode(message.generateACK(AcknowledgmentCode.AE, new HL7Exception(error)));
+        } catch (Exception e) {
+            return rejectAck(null, e.getMessage());
+        }
+    }
+
+    // ACK dựng tay khi không có Message để HAPI sinh ACK
+    private static String rejectAck(String rawMessage, String error) {
+        String timestamp = LocalDateTime.now(ZoneOffset.UTC).format(HL7_TIMESTAMP);
+        return "MSH|^~\\&|TEST_ORDER_SERVICE|LAB|||" + timestamp + "||ACK|" + SnowflakeIdGenerator.nextIdString()
+                + "|P|2.5\r"
+                + "MSA|AR|" + extractControlId(rawMessage) + "|" + sanitize(error) + "\r";
+    }
+
+    private static String extractControlId(String rawMessage) {
+        if (rawMessage == null || !rawMessage.startsWith("MSH")) {
+            return "";
+        }
+        int end = rawMessage.indexOf('\r');
+        String[] fields = (end > 0 ? rawMessage.substring(0, end) : rawMessage).split("\\|", -1);
+        // fields[0] = "MSH", MSH-1 là dấu phân cách nên MSH-10 nằm ở fields[9]
+        return fields.length > 9 ? sanitize(fields[9]) : "";
+    }
+
+    private static String sanitize(String value) {
+        if (value == null) {
+            return "";
+        }
+        String cleaned = value.replaceAll("[|^~\\\\&\\r\\n]", " ");
+        return cleaned.length() > 80 ? cleaned.substring(0, 80) : cleaned;
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * @ {#} MllpFrameDecoder.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.test_order_service.listeners.mllp;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/*
+ * @description: Incremental MLLP decoder. Bytes arrive in arbitrary TCP chunks; complete <VT>payload<FS><CR> frames
+ *               are emitted as soon as their trailer is seen, and bytes outside a frame are discarded.
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+public class MllpFrameDecoder {
+
+    public static final byte START_BLOCK = 0x0B;
+    public static final byte END_BLOCK = 0x1C;
+    public static final byte CARRIAGE_RETURN = 0x0D;
+
+    private final int maxFrameBytes;
+    private final ByteArrayOutputStream frame = new ByteArrayOutputStream(4096);
+    private boolean inFrame;
+    private boolean sawEndBlock;
+
+    public MllpFrameDecoder(int maxFrameBytes) {
+        this.maxFrameBytes = maxFrameBytes;
+    }
+
+    /**
+     * Đọc hết dữ liệu còn lại trong buffer và thêm các frame hoàn chỉnh vào out.
+     *
+     * @throws FrameTooLargeException nếu một frame vượt quá maxFrameBytes.
+     */
+    public void decode(ByteBuffer buffer, List<byte[]> out) {
+        while (buffer.hasRemaining()) {
+            byte b = buffer.get();
+
+            if (!inFrame) {
+                // Bỏ qua mọi byte trước <VT>
+                if (b == START_BLOCK) {
+                    inFrame = true;
+                    frame.reset();
+                }
+                continue;
+            }
+
+            if (sawEndBlock) {
+                sawEndBlock = false;
+                if (b == CARRIAGE_RETURN) {
+                    out.add(frame.toByteArray());
+                    frame.reset();
+                    inFrame = false;
+                    continue;
+                }
+                // <FS> không theo sau bởi <CR>: coi như dữ liệu thường
+                frame.write(END_BLOCK);
+            }
+
+            if (b == END_BLOCK) {
+                sawEndBlock = true;
+            } else if (b == START_BLOCK) {
+                // Frame trước bị cắt ngang, bắt đầu lại
+                frame.reset();
+            } else {
+                frame.write(b);
+            }
+
+            if (frame.size() > maxFrameBytes) {
+                frame.reset();
+                inFrame = false;
+                throw new FrameTooLargeException(maxFrameBytes);
+            }
+        }
+    }
+
+    /**
+     * Đóng gói payload thành một frame MLLP.
+     */
+    public static byte[] encode(byte[] payload) {
+        byte[] framed = new byte[payload.length + 3];
+        framed[0] = START_BLOCK;
+        System.arraycopy(payload, 0, framed, 1, payload.length);
+        framed[framed.length - 2] = END_BLOCK;
+        framed[framed.length - 1] = CARRIAGE_RETURN;
+        return framed;
+    }
+
+    public static class FrameTooLargeException extends RuntimeException {
+        public FrameTooLargeException(int maxFrameBytes) {
+            super("MLLP frame exceeds " + maxFrameBytes + " bytes");
+        }
+    }
+}
@@ -0,0 +1,22 @@
+/*
+ * @ {#} MllpMessageHandler.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.test_order_service.listeners.mllp;
+
+/*
+ * @description: Handles one decoded HL7 message received over MLLP and returns the HL7 acknowledgement to send back
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+@FunctionalInterface
+public interface MllpMessageHandler {
+    /**
+     * Xử lý một message HL7 (đã bỏ ký tự đóng khung) và trả về message ACK. Không được ném exception:
+     * mọi lỗi phải được chuyển thành ACK AE/AR.
+     */
+    String handle(String hl7Message);
+}
@@ -0,0 +1,360 @@
+/*
+ * @ {#} MllpServer.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.test_order_service.listeners.mllp;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * @description: Embedded non-blocking MLLP listener for analyzers that keep a persistent TCP connection open.
+ *               One selector thread owns all sockets; decoded frames are handled on a small worker pool, one message at
+ *               a time per connection so ACKs go back in order. Each connection may have at most maxInFlight frames
+ *               read ahead of their ACK; beyond that the socket stops being read and TCP flow control pushes back on
+ *               the analyzer.
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+@Component
+@ConditionalOnProperty(name = "app.mllp.enabled", havingValue = "true")
+@Slf4j
+public class MllpServer {
+
+    private static final int READ_BUFFER_BYTES = 16 * 1024;
+
+    private final MllpMessageHandler handler;
+    private final String bindAddress;
+    private final int port;
+    private final int workerThreads;
+    private final int maxInFlight;
+    private final int maxFrameBytes;
+    private final int maxConnections;
+    private final Charset charset;
+
+    // Các thao tác trên socket/SelectionKey chỉ chạy trong selector thread
+    private final Queue<Runnable> selectorTasks = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger connectionCount = new AtomicInteger();
+
+    private Selector selector;
+    private ServerSocketChannel serverChannel;
+    private ExecutorService workers;
+    private Thread selectorThread;
+    private volatile boolean running;
+
+    public MllpServer(MllpMessageHandler handler,
+                      @Value("${app.mllp.bind-address:0.0.0.0}") String bindAddress,
+                      @Value("${app.mllp.port:2575}") int port,
+                      @Value("${app.mllp.worker-threads:4}") int workerThreads,
+                      @Value("${app.mllp.max-in-flight-per-connection:8}") int maxInFlight,
+                      @Value("${app.mllp.max-frame-bytes:1048576}") int maxFrameBytes,
+                      @Value("${app.mllp.max-connections:64}") int maxConnections,
+                      @Value("${app.mllp.charset:UTF-8}") String charset) {
+        this.handler = handler;
+        this.bindAddress = bindAddress;
+        this.port = port;
+        this.workerThreads = workerThreads;
+        this.maxInFlight = maxInFlight;
+        this.maxFrameBytes = maxFrameBytes;
+        this.maxConnections = maxConnections;
+        this.charset = Charset.forName(charset);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() throws IOException {
+        start();
+    }
+
+    public synchronized void start() throws IOException {
+        if (running) {
+            return;
+        }
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.configureBlocking(false);
+        serverChannel.bind(new InetSocketAddress(bindAddress, port), 128);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(workerThreads, r -> {
+            Thread t = new Thread(r, "mllp-worker-" + threadIndex.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+
+        running = true;
+        selectorThread = new Thread(this::selectLoop, "mllp-selector");
+        selectorThread.setDaemon(true);
+        selectorThread.start();
+        log.info("MLLP listener started on {}:{}", bindAddress, getLocalPort());
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        selector.wakeup();
+        try {
+            selectorThread.join(TimeUnit.SECONDS.toMillis(5));
+            workers.shutdown();
+            workers.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.info("MLLP listener stopped");
+    }
+
+    public int getLocalPort() {
+        try {
+            return ((InetSocketAddress) serverChannel.getLocalAddress()).getPort();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    public int getConnectionCount() {
+        return connectionCount.get();
+    }
+
+    private void selectLoop() {
+        while (running) {
+            try {
+                selector.select(1000);
+                Runnable task;
+                while ((task = selectorTasks.poll()) != null) {
+                    task.run();
+                }
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                        continue;
+                    }
+                    Connection connection = (Connection) key.attachment();
+                    try {
+                        if (key.isReadable()) {
+                            connection.onReadable();
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            connection.onWritable();
+                        }
+                    } catch (IOException | RuntimeException e) {
+                        log.warn("MLLP connection {} closed: {}", connection.remote, e.getMessage());
+                        connection.close();
+                    }
+                }
+            } catch (IOException e) {
+                log.error("MLLP selector error: {}", e.getMessage(), e);
+            }
+        }
+        closeAll();
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null) {
+            return;
+        }
+        if (connectionCount.get() >= maxConnections) {
+            log.warn("Refusing MLLP connection from {}: limit of {} reached", channel.getRemoteAddress(), maxConnections);
+            channel.close();
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+        channel.socket().setKeepAlive(true);
+        SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+        Connection connection = new Connection(channel, key);
+        key.attach(connection);
+        connectionCount.incrementAndGet();
+        log.info("MLLP connection opened from {}", connection.remote);
+    }
+
+    private void runOnSelector(Runnable task) {
+        selectorTasks.add(task);
+        selector.wakeup();
+    }
+
+    private void closeAll() {
+        for (SelectionKey key : selector.keys()) {
+            if (key.attachment() instanceof Connection connection) {
+                connection.close();
+            }
+        }
+        try {
+            serverChannel.close();
+            selector.close();
+        } catch (IOException e) {
+            log.warn("Error closing MLLP listener: {}", e.getMessage());
+        }
+    }
+
+    private String handleSafely(byte[] frame) {
+        try {
+            return handler.handle(new String(frame, charset));
+        } catch (RuntimeException e) {
+            // Handler không được ném lỗi; phòng trường hợp vẫn xảy ra thì trả ACK lỗi tối thiểu
+            log.error("MLLP handler failed: {}", e.getMessage(), e);
+            return "MSH|^~\\&|TEST_ORDER_SERVICE|LAB|||||ACK||P|2.5\rMSA|AE|\r";
+        }
+    }
+
+    private final class Connection {
+        private final SocketChannel channel;
+        private final SelectionKey key;
+        private final String remote;
+        private final MllpFrameDecoder decoder = new MllpFrameDecoder(maxFrameBytes);
+        private final ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_BYTES);
+        private final Deque<byte[]> inbox = new ArrayDeque<>();
+        private final Deque<ByteBuffer> outbox = new ArrayDeque<>();
+        // Số frame đã đọc nhưng chưa gửi ACK
+        private int inFlight;
+        private boolean processing;
+        private boolean inputClosed;
+        private boolean closed;
+
+        Connection(SocketChannel channel, SelectionKey key) throws IOException {
+            this.channel = channel;
+            this.key = key;
+            this.remote = String.valueOf(channel.getRemoteAddress());
+        }
+
+        void onReadable() throws IOException {
+            int read = channel.read(readBuffer);
+            if (read < 0) {
+                // Máy đóng chiều gửi: vẫn trả hết ACK còn lại rồi mới đóng
+                inputClosed = true;
+                key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+                closeIfDone();
+                return;
+            }
+
+            readBuffer.flip();
+            List<byte[]> frames = new ArrayList<>(2);
+            decoder.decode(readBuffer, frames);
+            readBuffer.clear();
+
+            inbox.addAll(frames);
+            inFlight += frames.size();
+            if (inFlight >= maxInFlight) {
+                // Backpressure: ngừng đọc cho tới khi ACK bớt
+                key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+            }
+            dispatchNext();
+        }
+
+        void onWritable() throws IOException {
+            flush();
+            closeIfDone();
+        }
+
+        private void dispatchNext() {
+            if (processing || closed || inbox.isEmpty()) {
+                return;
+            }
+            processing = true;
+            byte[] frame = inbox.poll();
+            try {
+                workers.execute(() -> {
+                    byte[] ack = MllpFrameDecoder.encode(handleSafely(frame).getBytes(charset));
+                    runOnSelector(() -> onProcessed(ack));
+                });
+            } catch (RejectedExecutionException e) {
+                close();
+            }
+        }
+
+        private void onProcessed(byte[] framedAck) {
+            if (closed) {
+                return;
+            }
+            processing = false;
+            inFlight--;
+            outbox.add(ByteBuffer.wrap(framedAck));
+            try {
+                flush();
+            } catch (IOException e) {
+                log.warn("MLLP connection {} closed while writing ACK: {}", remote, e.getMessage());
+                close();
+                return;
+            }
+            if (!inputClosed && inFlight < maxInFlight) {
+                key.interestOps(key.interestOps() | SelectionKey.OP_READ);
+            }
+            dispatchNext();
+            closeIfDone();
+        }
+
+        private void flush() throws IOException {
+            while (!outbox.isEmpty()) {
+                ByteBuffer head = outbox.peek();
+                channel.write(head);
+                if (head.hasRemaining()) {
+                    // Socket đầy, chờ OP_WRITE
+                    key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+                    return;
+                }
+                outbox.poll();
+            }
+            key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+        }
+
+        private void closeIfDone() {
+            if (inputClosed && inFlight == 0 && outbox.isEmpty()) {
+                close();
+            }
+        }
+
+        void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            key.cancel();
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // Đóng kết nối không thành công cũng không cần xử lý thêm
+            }
+            connectionCount.decrementAndGet();
+            log.info("MLLP connection from {} closed", remote);
+        }
+    }
+}
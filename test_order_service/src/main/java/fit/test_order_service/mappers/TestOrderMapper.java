@@ -3,6 +3,7 @@ package fit.test_order_service.mappers;
 import fit.test_order_service.client.dtos.PatientMedicalRecordInternalResponse;
 import fit.test_order_service.dtos.response.*;
 import fit.test_order_service.entities.OrderComment;
+import fit.test_order_service.entities.OrderListView;
 import fit.test_order_service.entities.TestOrder;
 import fit.test_order_service.entities.TestResult;
 import fit.test_order_service.enums.CommentTargetType;
@@ -101,6 +102,46 @@ public class TestOrderMapper {
                 .build();
     }
 
+    /**
+     * Converts an order_list_view row to a TestOrderResponse DTO for the order list.
+     * Không truy vấn thêm (không comment, không kết quả, test type chỉ gồm id và tên).
+     */
+    public TestOrderResponse toListResponse(OrderListView view) {
+        if (view == null) {
+            return null;
+        }
+
+        TestTypeResponse testType = view.getTestTypeId() == null ? null : TestTypeResponse.builder()
+                .id(view.getTestTypeId())
+                .name(view.getTestTypeName())
+                .build();
+
+        return TestOrderResponse.builder()
+                .id(view.getOrderId())
+                .orderCode(view.getOrderCode())
+                .barcode(view.getBarcode())
+                .testType(testType)
+                .medicalRecordId(view.getMedicalRecordId())
+                .medicalRecordCode(view.getMedicalRecordCode())
+                .fullName(view.getPatientName())
+                .age(view.getAgeYears())
+                .gender(view.getGender())
+                .phone(view.getPhone())
+                .email(view.getEmail())
+                .status(view.getStatus())
+                .createdAt(DateUtils.toVietnamTime(view.getCreatedAt()))
+                .createdBy(view.getCreatedBy())
+                .runAt(view.getRunAt())
+                .updatedAt(DateUtils.toVietnamTime(view.getUpdatedAt()))
+                .reviewStatus(view.getReviewStatus())
+                .reviewMode(view.getReviewMode())
+                .reviewedAt(DateUtils.toVietnamTime(view.getReviewedAt()))
+                .reviewedBy(view.getReviewedBy())
+                .resultCount(view.getResultCount())
+                .abnormalCount(view.getAbnormalCount())
+                .build();
+    }
+
     /**
      * Converts a TestOrder entity to a TestOrderDetailResponse DTO.
      */
@@ -3,6 +3,9 @@ package fit.test_order_service.repositories;
 import fit.test_order_service.entities.OrderComment;
 import fit.test_order_service.enums.CommentTargetType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -43,4 +46,36 @@ public interface OrderCommentRepository extends JpaRepository<OrderComment, Stri
             CommentTargetType targetType,
             String targetId
     );
+
+    /**
+     * Tải toàn bộ cây comment (comment của order và của các result thuộc order) bằng một truy vấn trên idx_cmt_thread_path.
+     */
+    List<OrderComment> findByThreadOrderIdOrderByPathAsc(String threadOrderId);
+
+    /**
+     * Gán thread_order_id cho các comment cũ chưa có (RESULT lấy order_id qua test_result).
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+                UPDATE order_comment c
+                LEFT JOIN test_result r ON c.target_type = 'RESULT' AND r.result_id = c.target_id
+                SET c.thread_order_id = CASE WHEN c.target_type = 'ORDER' THEN c.target_id ELSE r.order_id END
+                WHERE c.thread_order_id IS NULL
+            """, nativeQuery = true)
+    int backfillThreadOrderIds();
+
+    /**
+     * Tính materialized path cho các comment cũ chưa có (tối đa 2 cấp).
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+                UPDATE order_comment c
+                LEFT JOIN order_comment p ON p.comment_id = c.parent_id
+                SET c.path = CASE WHEN c.parent_id IS NULL THEN CONCAT(c.comment_id, '/')
+                                  ELSE CONCAT(COALESCE(p.path, CONCAT(c.parent_id, '/')), c.comment_id, '/') END
+                WHERE c.path IS NULL
+            """, nativeQuery = true)
+    int backfillPaths();
 }
@@ -0,0 +1,61 @@
+/*
+ * @ {#} OrderListViewRepository.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.test_order_service.repositories;
+
+import fit.test_order_service.entities.OrderListView;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/*
+ * @description: Repository interface for the order_list_view read model
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+@Repository
+public interface OrderListViewRepository extends JpaRepository<OrderListView, String>,
+        JpaSpecificationExecutor<OrderListView> {
+
+    /**
+     * Duyệt order theo khóa chính (keyset) để dựng lại toàn bộ read model.
+     */
+    @Query("SELECT t.orderId FROM TestOrder t WHERE t.orderId > :lastOrderId ORDER BY t.orderId ASC")
+    List<String> findOrderIdsAfter(@Param("lastOrderId") String lastOrderId, Pageable pageable);
+
+    /**
+     * Order chưa có dòng read model hoặc có dòng cũ hơn lần thay đổi gần nhất của order / kết quả của nó
+     * (updated_at của dòng luôn không sớm hơn các mốc đó khi đã được chiếu lại). Duyệt theo keyset trên order_id.
+     */
+    @Query("""
+                SELECT t.orderId FROM TestOrder t
+                LEFT JOIN OrderListView v ON v.orderId = t.orderId
+                WHERE t.orderId > :lastOrderId
+                  AND (v.orderId IS NULL
+                    OR v.updatedAt < t.createdAt
+                    OR v.updatedAt < t.updatedAt
+                    OR EXISTS (SELECT 1 FROM TestResult r WHERE r.orderId = t.orderId AND r.createdAt > v.updatedAt))
+                ORDER BY t.orderId ASC
+            """)
+    List<String> findStaleOrderIdsAfter(@Param("lastOrderId") String lastOrderId, Pageable pageable);
+
+    /**
+     * Dòng read model của order đã bị xóa cứng khỏi test_order.
+     */
+    @Query("""
+                SELECT v.orderId FROM OrderListView v
+                WHERE v.orderId > :lastOrderId
+                  AND NOT EXISTS (SELECT 1 FROM TestOrder t WHERE t.orderId = v.orderId)
+                ORDER BY v.orderId ASC
+            """)
+    List<String> findOrphanOrderIdsAfter(@Param("lastOrderId") String lastOrderId, Pageable pageable);
+}
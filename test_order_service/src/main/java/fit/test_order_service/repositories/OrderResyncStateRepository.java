@@ -0,0 +1,53 @@
+/*
+ * @ {#} OrderResyncStateRepository.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.test_order_service.repositories;
+
+import fit.test_order_service.entities.OrderResyncState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+/*
+ * @description: Repository interface for OrderResyncState
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+@Repository
+public interface OrderResyncStateRepository extends JpaRepository<OrderResyncState, String> {
+
+    /**
+     * Xóa trạng thái resync của các đơn đã có kết quả, đã bị xóa hoặc không còn tồn tại.
+     *
+     * @return số dòng đã xóa.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+                DELETE s FROM order_resync_state s
+                LEFT JOIN test_order o ON o.order_id = s.order_id
+                WHERE o.order_id IS NULL OR o.deleted = true
+                   OR o.status NOT IN ('PENDING', 'IN_PROGRESS', 'AUTO_CREATED')
+            """, nativeQuery = true)
+    int purgeResolved();
+
+    /**
+     * Xóa trạng thái của các đơn đã hết số lần thử từ trước mốc cho trước; nếu đơn vẫn chưa có kết quả,
+     * nó được thử lại từ đầu ở các lượt sau thay vì giữ dòng trạng thái mãi mãi.
+     *
+     * @return số dòng đã xóa.
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM OrderResyncState s WHERE s.attempts >= :maxAttempts AND s.lastRequestedAt < :before")
+    int purgeExhausted(@Param("maxAttempts") int maxAttempts, @Param("before") LocalDateTime before);
+}
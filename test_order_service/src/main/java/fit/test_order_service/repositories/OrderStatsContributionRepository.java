@@ -0,0 +1,35 @@
+/*
+ * @ {#} OrderStatsContributionRepository.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.test_order_service.repositories;
+
+import fit.test_order_service.entities.OrderStatsContribution;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+/*
+ * @description: Repository interface for per-order statistics contributions
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+@Repository
+public interface OrderStatsContributionRepository extends JpaRepository<OrderStatsContribution, String> {
+
+    /**
+     * Khóa các contribution hiện có để hai lần cập nhật cùng một order không trừ trùng số cũ.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM OrderStatsContribution c WHERE c.orderId IN :orderIds ORDER BY c.orderId")
+    List<OrderStatsContribution> findForUpdate(@Param("orderIds") Collection<String> orderIds);
+}
@@ -0,0 +1,61 @@
+/*
+ * @ {#} OrderStatsRollupRepository.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.test_order_service.repositories;
+
+import fit.test_order_service.entities.OrderStatsRollup;
+import fit.test_order_service.enums.StatsDimension;
+import fit.test_order_service.enums.StatsGranularity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/*
+ * @description: Repository interface for the order statistics rollup counters
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+@Repository
+public interface OrderStatsRollupRepository extends JpaRepository<OrderStatsRollup, Long> {
+
+    /**
+     * Cộng delta vào một bộ đếm, tạo dòng mới nếu bucket/giá trị chưa tồn tại (dựa trên uk_stats_bucket).
+     */
+    @Modifying
+    @Query(value = """
+                INSERT INTO order_stats_rollup (granularity, bucket_start, dimension, dimension_value, count_value, updated_at)
+                VALUES (:granularity, :bucketStart, :dimension, :dimensionValue, :delta, NOW(6))
+                ON DUPLICATE KEY UPDATE count_value = count_value + :delta, updated_at = NOW(6)
+            """, nativeQuery = true)
+    int addDelta(@Param("granularity") String granularity,
+                 @Param("bucketStart") LocalDateTime bucketStart,
+                 @Param("dimension") String dimension,
+                 @Param("dimensionValue") String dimensionValue,
+                 @Param("delta") long delta);
+
+    /**
+     * Đọc các bộ đếm khác 0 trong khoảng [from, to) (dùng uk_stats_bucket).
+     */
+    @Query("""
+                SELECT r FROM OrderStatsRollup r
+                WHERE r.granularity = :granularity
+                  AND r.bucketStart >= :from AND r.bucketStart < :to
+                  AND r.dimension IN :dimensions
+                  AND r.countValue <> 0
+                ORDER BY r.bucketStart ASC, r.dimension ASC, r.dimensionValue ASC
+            """)
+    List<OrderStatsRollup> findBuckets(@Param("granularity") StatsGranularity granularity,
+                                       @Param("from") LocalDateTime from,
+                                       @Param("to") LocalDateTime to,
+                                       @Param("dimensions") Collection<StatsDimension> dimensions);
+}
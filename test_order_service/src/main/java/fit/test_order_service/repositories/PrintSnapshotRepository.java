@@ -0,0 +1,29 @@
+/*
+ * @ {#} PrintSnapshotRepository.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.test_order_service.repositories;
+
+import fit.test_order_service.entities.PrintSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+/*
+ * @description: Repository interface for PrintSnapshot
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+@Repository
+public interface PrintSnapshotRepository extends JpaRepository<PrintSnapshot, String> {
+
+    /**
+     * Snapshot mới nhất của order có cùng content hash và đã có file kết quả (dùng idx_snapshot_order_hash).
+     */
+    Optional<PrintSnapshot> findFirstByOrderIdAndContentHashAndFileIdIsNotNullOrderByCreatedAtDesc(String orderId,
+                                                                                                   String contentHash);
+}
@@ -10,9 +10,34 @@ package fit.test_order_service.repositories;/*
  */
 
 import fit.test_order_service.entities.ReportFileStore;
+import fit.test_order_service.enums.StorageType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 @Repository
 public interface ReportFileStoreRepository extends JpaRepository<ReportFileStore, String> {
+
+    /**
+     * File đã hết hạn: expiresAt đã qua, hoặc không có expiresAt và được tạo trước mốc retention.
+     */
+    @Query("""
+                SELECT f FROM ReportFileStore f
+                WHERE f.storageType = :storageType
+                  AND ((f.expiresAt IS NOT NULL AND f.expiresAt < :now)
+                    OR (f.expiresAt IS NULL AND f.createdAt < :createdBefore))
+                ORDER BY f.createdAt ASC
+            """)
+    List<ReportFileStore> findExpired(@Param("storageType") StorageType storageType,
+                                      @Param("now") LocalDateTime now,
+                                      @Param("createdBefore") LocalDateTime createdBefore,
+                                      Pageable pageable);
+
+    // Nhiều bản ghi có thể trỏ tới cùng một object do lưu trữ theo hash nội dung
+    boolean existsByStorageTypeAndObjectKey(StorageType storageType, String objectKey);
 }
@@ -11,8 +11,22 @@ package fit.test_order_service.repositories;/*
 
 import fit.test_order_service.entities.ReportJob;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
 
 @Repository
 public interface ReportJobRepository extends JpaRepository<ReportJob, String> {
+
+    /**
+     * Gỡ liên kết file kết quả khỏi các job trước khi xóa file (fk_job_result_file).
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE ReportJob j SET j.resultFileId = NULL WHERE j.resultFileId IN :fileIds")
+    int detachResultFiles(@Param("fileIds") Collection<String> fileIds);
 }
@@ -0,0 +1,58 @@
+/*
+ * @ {#} SchedulerLeaseRepository.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.test_order_service.repositories;
+
+import fit.test_order_service.entities.SchedulerLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/*
+ * @description: Repository interface for SchedulerLease. All time comparisons use the database clock so that
+ *               replicas with skewed clocks still agree on who holds a lease.
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+@Repository
+public interface SchedulerLeaseRepository extends JpaRepository<SchedulerLease, String> {
+
+    @Modifying
+    @Transactional
+    @Query(value = """
+                INSERT IGNORE INTO scheduler_lease (lease_name, owner_id, lease_until)
+                VALUES (:leaseName, NULL, NOW(6) - INTERVAL 1 SECOND)
+            """, nativeQuery = true)
+    int insertIfAbsent(@Param("leaseName") String leaseName);
+
+    /**
+     * Chiếm (hoặc gia hạn) lease nếu nó đã hết hạn hoặc đang thuộc về chính owner này.
+     *
+     * @return 1 nếu chiếm được lease, 0 nếu replica khác đang giữ.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+                UPDATE scheduler_lease
+                SET owner_id = :ownerId, lease_until = NOW(6) + INTERVAL :seconds SECOND
+                WHERE lease_name = :leaseName AND (lease_until < NOW(6) OR owner_id = :ownerId)
+            """, nativeQuery = true)
+    int tryAcquire(@Param("leaseName") String leaseName,
+                   @Param("ownerId") String ownerId,
+                   @Param("seconds") long seconds);
+
+    @Modifying
+    @Transactional
+    @Query(value = """
+                UPDATE scheduler_lease SET lease_until = NOW(6)
+                WHERE lease_name = :leaseName AND owner_id = :ownerId
+            """, nativeQuery = true)
+    int release(@Param("leaseName") String leaseName, @Param("ownerId") String ownerId);
+}
@@ -7,13 +7,16 @@
 package fit.test_order_service.repositories;
 
 import fit.test_order_service.entities.TestOrder;
+import fit.test_order_service.enums.OrderStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -72,8 +75,80 @@ public interface TestOrderRepository extends JpaRepository<TestOrder, String> {
 
     Optional<TestOrder> findByBarcode(String barcode);
 
-    // Thêm query tìm các đơn hàng quá hạn chưa có kết quả
-    @Query("SELECT t FROM TestOrder t WHERE t.status IN ('PENDING', 'PROCESSING') AND t.createdAt < :timeout")
-    List<TestOrder> findStuckOrders(@Param("timeout") LocalDateTime timeout);
-}
+    /**
+     * Chèn một đơn "vỏ" theo barcode. Barcode đã có đơn thì vi phạm unique key và ném
+     * DataIntegrityViolationException như mọi lỗi ràng buộc khác; bên gọi phân biệt bằng cách đọc lại theo barcode
+     * (không dùng INSERT IGNORE vì nó nuốt cả các lỗi khác ngoài trùng khóa).
+     *
+     * @return số dòng đã chèn (1).
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+                INSERT INTO test_order (order_id, order_code, barcode, status, review_status, review_mode,
+                                        entry_source, auto_created, requires_patient_match, deleted,
+                                        created_at, created_by)
+                VALUES (:orderId, :orderCode, :barcode, :status, 'NONE', :reviewMode,
+                        :entrySource, :autoCreated, :requiresPatientMatch, false,
+                        :createdAt, :createdBy)
+            """, nativeQuery = true)
+    int insertShellOrder(@Param("orderId") String orderId,
+                         @Param("orderCode") String orderCode,
+                         @Param("barcode") String barcode,
+                         @Param("status") String status,
+                         @Param("reviewMode") String reviewMode,
+                         @Param("entrySource") String entrySource,
+                         @Param("autoCreated") boolean autoCreated,
+                         @Param("requiresPatientMatch") boolean requiresPatientMatch,
+                         @Param("createdAt") LocalDateTime createdAt,
+                         @Param("createdBy") String createdBy);
+
+    /**
+     * Duyệt các đơn quá hạn chưa có kết quả của một trạng thái theo keyset (created_at, order_id) trên
+     * idx_order_status_keyset. Lọc status bằng đẳng thức (không dùng IN) để MySQL seek thẳng vào index và đọc
+     * theo thứ tự của ORDER BY, không phải filesort; nhiều trạng thái thì gọi lần lượt từng trạng thái.
+     * Chỉ trả về [orderId, barcode, createdAt] để không phải nạp cả entity và các quan hệ của nó.
+     * Chỉ gồm đơn có barcode và đến hạn gửi lại: đơn đang backoff hoặc đã hết số lần thử không chiếm hạn mức mỗi lượt.
+     *
+     * @param lastCreatedAt created_at của dòng cuối trang trước (mốc rất cũ cho trang đầu).
+     * @param lastOrderId   order_id của dòng cuối trang trước ("" cho trang đầu).
+     */
+    @Query("""
+                SELECT t.orderId, t.barcode, t.createdAt FROM TestOrder t
+                LEFT JOIN OrderResyncState s ON s.orderId = t.orderId
+                WHERE t.status = :status AND t.deleted = false AND t.createdAt < :timeout
+                  AND t.barcode IS NOT NULL AND t.barcode <> ''
+                  AND (s.orderId IS NULL
+                    OR (s.attempts < :maxAttempts AND (s.nextAttemptAt IS NULL OR s.nextAttemptAt <= :now)))
+                  AND (t.createdAt > :lastCreatedAt OR (t.createdAt = :lastCreatedAt AND t.orderId > :lastOrderId))
+                ORDER BY t.createdAt ASC, t.orderId ASC
+            """)
+    List<Object[]> findStuckOrdersAfter(@Param("status") OrderStatus status,
+                                        @Param("timeout") LocalDateTime timeout,
+                                        @Param("maxAttempts") int maxAttempts,
+                                        @Param("now") LocalDateTime now,
+                                        @Param("lastCreatedAt") LocalDateTime lastCreatedAt,
+                                        @Param("lastOrderId") String lastOrderId,
+                                        Pageable pageable);
 
+    /**
+     * Một trang dữ liệu phẳng cho export CSV/TSV, duyệt theo keyset (created_at, order_id) trên idx_order_time.
+     * Thứ tự cột phải khớp với FlatFileExportWriter.ORDER_COLUMNS.
+     */
+    @Query("""
+                SELECT t.orderId, t.orderCode, t.medicalRecordCode, t.fullName, t.gender, t.dateOfBirth,
+                       t.ageYearsSnapshot, t.phone, t.barcode, t.testTypeNameSnapshot, t.entrySource, t.status,
+                       t.reviewStatus, t.reviewMode, t.createdAt, t.createdBy, t.runAt, t.runBy,
+                       t.reviewedAt, t.reviewedBy
+                FROM TestOrder t
+                WHERE t.deleted = false AND t.orderId <> 'SYSTEM_ORDER_ID'
+                  AND t.createdAt >= :from AND t.createdAt <= :to
+                  AND (t.createdAt > :lastCreatedAt OR (t.createdAt = :lastCreatedAt AND t.orderId > :lastOrderId))
+                ORDER BY t.createdAt ASC, t.orderId ASC
+            """)
+    List<Object[]> findExportRowsAfter(@Param("from") LocalDateTime from,
+                                       @Param("to") LocalDateTime to,
+                                       @Param("lastCreatedAt") LocalDateTime lastCreatedAt,
+                                       @Param("lastOrderId") String lastOrderId,
+                                       Pageable pageable);
+}
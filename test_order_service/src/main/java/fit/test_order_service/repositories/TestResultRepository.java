@@ -3,7 +3,9 @@ package fit.test_order_service.repositories;
 import fit.test_order_service.entities.TestResult;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface TestResultRepository extends JpaRepository<TestResult, String> {
@@ -25,4 +27,49 @@ public interface TestResultRepository extends JpaRepository<TestResult, String>
      * @return Danh sách các TestResult khớp (thường chỉ là 1)
      */
     List<TestResult> findByOrderIdAndAnalyteNameIgnoreCase(String orderId, String analyteName);
+
+    /**
+     * Đếm tổng số kết quả và số kết quả bất thường (H, L, A) cho từng order trong một câu truy vấn.
+     *
+     * @param orderIds danh sách orderId cần đếm
+     * @return mỗi phần tử là [orderId, resultCount, abnormalCount, createdAt của kết quả mới nhất]
+     */
+    @Query("""
+                SELECT tr.orderId, COUNT(tr),
+                       SUM(CASE WHEN tr.abnormalFlag IS NOT NULL
+                                 AND tr.abnormalFlag <> fit.test_order_service.enums.AbnormalFlag.N
+                                THEN 1 ELSE 0 END),
+                       MAX(tr.createdAt)
+                FROM TestResult tr
+                WHERE tr.orderId IN :orderIds
+                GROUP BY tr.orderId
+            """)
+    List<Object[]> countResultsByOrderIds(@Param("orderIds") Collection<String> orderIds);
+
+    /**
+     * Dữ liệu phẳng của các kết quả thuộc một trang order khi export CSV/TSV (dùng idx_result_order).
+     * Thứ tự cột: orderId, resultId, testCode, analyteName, valueText, unit, referenceRange,
+     * abnormalFlag, entrySource, measuredAt, enteredBy, enteredAt.
+     */
+    @Query("""
+                SELECT tr.orderId, tr.resultId, tr.testCode, tr.analyteName, tr.valueText, tr.unit,
+                       tr.referenceRange, tr.abnormalFlag, tr.entrySource, tr.measuredAt, tr.enteredBy, tr.enteredAt
+                FROM TestResult tr
+                WHERE tr.orderId IN :orderIds
+                ORDER BY tr.orderId ASC, tr.resultId ASC
+            """)
+    List<Object[]> findExportRowsByOrderIds(@Param("orderIds") Collection<String> orderIds);
+
+    /**
+     * Đếm số kết quả theo từng cờ bất thường của mỗi order (dùng cho thống kê).
+     *
+     * @return mỗi phần tử là [orderId, abnormalFlag, count]
+     */
+    @Query("""
+                SELECT tr.orderId, tr.abnormalFlag, COUNT(tr)
+                FROM TestResult tr
+                WHERE tr.orderId IN :orderIds AND tr.abnormalFlag IS NOT NULL
+                GROUP BY tr.orderId, tr.abnormalFlag
+            """)
+    List<Object[]> countFlagsByOrderIds(@Param("orderIds") Collection<String> orderIds);
 }
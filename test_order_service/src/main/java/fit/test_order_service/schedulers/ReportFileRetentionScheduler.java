@@ -0,0 +1,48 @@
+/*
+ * @ {#} ReportFileRetentionScheduler.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.test_order_service.schedulers;
+
+import fit.test_order_service.services.ReportFileRetentionService;
+import fit.test_order_service.services.SchedulerLeaseService;
+import fit.test_order_service.services.impl.ReportFileRetentionServiceImpl;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/*
+ * @description: Periodically removes expired report artifacts of the LOCAL store
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+@Component
+@ConditionalOnProperty(name = "app.storage.type", havingValue = "LOCAL")
+@RequiredArgsConstructor
+@Slf4j
+public class ReportFileRetentionScheduler {
+
+    private final ReportFileRetentionService reportFileRetentionService;
+    private final SchedulerLeaseService schedulerLeaseService;
+
+    @Scheduled(fixedDelayString = "${app.storage.sweep-interval-ms:3600000}", initialDelayString = "${app.storage.sweep-initial-delay-ms:120000}")
+    public void sweep() {
+        try {
+            reportFileRetentionService.sweepExpiredFiles();
+        } catch (Exception e) {
+            // Lượt sau sẽ tiếp tục với các file còn lại
+            log.error("Report file retention sweep failed: {}", e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    public void releaseLease() {
+        schedulerLeaseService.release(ReportFileRetentionServiceImpl.LEASE_NAME);
+    }
+}
@@ -0,0 +1,25 @@
+/*
+ * @ {#} BulkTestOrderService.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.test_order_service.services;
+
+import fit.test_order_service.dtos.request.BulkCreateTestOrderRequest;
+import fit.test_order_service.dtos.response.BulkCreateTestOrderResponse;
+
+/*
+ * @description: Service interface for creating test orders in bulk
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+public interface BulkTestOrderService {
+
+    /**
+     * Tạo nhiều test order trong một lần gọi. Mỗi item được kiểm tra riêng; item lỗi được báo trong kết quả
+     * và không làm hỏng các item hợp lệ còn lại.
+     */
+    BulkCreateTestOrderResponse createTestOrders(BulkCreateTestOrderRequest request);
+}
@@ -0,0 +1,29 @@
+/*
+ * @ {#} CommentThreadService.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.test_order_service.services;
+
+import fit.test_order_service.dtos.response.CommentOrderResponse;
+import fit.test_order_service.entities.TestOrder;
+
+import java.util.List;
+
+/*
+ * @description: Service interface for loading the comment thread of a test order
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+public interface CommentThreadService {
+    /**
+     * Tải toàn bộ comment của TestOrder và các TestResult thuộc nó (kèm replies) bằng một truy vấn,
+     * sau đó dựng cây trong bộ nhớ. Comment gốc và replies được sắp xếp theo thời gian tạo tăng dần.
+     *
+     * @param testOrder TestOrder đã được tải (dùng danh sách results của nó để map thông tin target).
+     * @return Danh sách comment gốc, mỗi comment chứa replies của nó.
+     */
+    List<CommentOrderResponse> loadThread(TestOrder testOrder);
+}
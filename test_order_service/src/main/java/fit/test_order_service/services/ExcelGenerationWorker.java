@@ -24,7 +24,11 @@ import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.text.Normalizer;
 import java.time.*;
 import java.time.format.DateTimeFormatter;
@@ -78,6 +82,7 @@ public class ExcelGenerationWorker {
         LocalDate startDate = null;
         LocalDate endDate = null;
         List<TestOrder> ordersToExport;
+        Path spool = null;
 
 
         try {
@@ -208,27 +213,33 @@ public class ExcelGenerationWorker {
                     .toList();
             Map<String, String> userIdToNameMap = fetchUserNames(userIds);
 
-            ByteArrayOutputStream excelStream = excelGeneratorUtil.generateTestOrdersExcel(ordersToExport, userIdToNameMap);
-            byte[] excelBytes = excelStream.toByteArray();
+            // Ghi ra file tạm rồi stream vào storage, không giữ bản sao byte[] của cả file
+            spool = Files.createTempFile("excel-export-", ".xlsx");
+            try (OutputStream out = Files.newOutputStream(spool)) {
+                excelGeneratorUtil.writeTestOrdersExcel(ordersToExport, userIdToNameMap, out);
+            }
+            long byteSize = Files.size(spool);
 
-            if (excelBytes.length == 0) {
+            if (byteSize == 0) {
                 throw new RuntimeException("Generated Excel is empty.");
             }
-            log.info("Generated excelBytes length: {} bytes", excelBytes.length);
+            log.info("Generated Excel length: {} bytes", byteSize);
 
             job.setProgressPct(70);
             reportJobRepository.save(job);
 
             String fileName = determineFileName(customFileName);
 
-            // Cập nhật lời gọi: truyền 'null' cho 'requestedDirectoryPath' (tham số thứ 2)
-            String fileKey = fileStorageService.storeFile(
-                    excelBytes,
-                    fileName,
-                    excelFolder,
-                    EXCEL_MIME_TYPE,
-                    job.getRequestedBy()
-            );
+            String fileKey;
+            try (InputStream in = Files.newInputStream(spool)) {
+                fileKey = fileStorageService.storeStream(
+                        in,
+                        fileName,
+                        excelFolder,
+                        EXCEL_MIME_TYPE,
+                        job.getRequestedBy()
+                );
+            }
 
             // 'fileKey' bây giờ là URL Cloudinary
             ReportFileStore fileStore = ReportFileStore.builder()
@@ -236,7 +247,7 @@ public class ExcelGenerationWorker {
                     .objectKey(fileKey) // Lưu URL vào objectKey
                     .fileName(fileName)
                     .mimeType(EXCEL_MIME_TYPE) // <-- Dùng hằng số
-                    .byteSize((long) excelBytes.length)
+                    .byteSize(byteSize)
                     .createdBy(job.getRequestedBy())
                     .build();
             ReportFileStore savedFileStore = fileStoreRepository.save(fileStore);
@@ -259,6 +270,14 @@ public class ExcelGenerationWorker {
             job.setFinishedAt(LocalDateTime.now(ZoneOffset.UTC));
             job.setProgressPct(job.getProgressPct()); // Giữ % progress lúc xảy ra lỗi
             reportJobRepository.save(job);
+        } finally {
+            if (spool != null) {
+                try {
+                    Files.deleteIfExists(spool);
+                } catch (IOException e) {
+                    log.warn("Could not delete Excel spool file {}: {}", spool, e.getMessage());
+                }
+            }
         }
     }
 
@@ -10,6 +10,11 @@ package fit.test_order_service.services;/*
  */
 
 import fit.test_order_service.enums.StorageType;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
 
 public interface FileStorageService {
 
@@ -29,6 +34,57 @@ public interface FileStorageService {
                      String mimeType,
                      String uploaderId);
 
+    /**
+     * Lưu trữ file từ một stream. Mặc định đọc toàn bộ stream rồi gọi {@link #storeFile};
+     * backend hỗ trợ ghi streaming sẽ override để không giữ cả file trong bộ nhớ.
+     */
+    default String storeStream(InputStream content,
+                               String fileName,
+                               String directoryPath,
+                               String mimeType,
+                               String uploaderId) {
+        try {
+            return storeFile(content.readAllBytes(), fileName, directoryPath, mimeType, uploaderId);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not read content of file " + fileName, e);
+        }
+    }
+
+    /**
+     * Mở file đã lưu để phục vụ download trực tiếp. Chỉ backend lưu trữ nội bộ hỗ trợ.
+     */
+    default Resource loadAsResource(String objectKey) {
+        throw new UnsupportedOperationException(getStorageType() + " storage does not serve files directly");
+    }
+
+    /**
+     * Xóa file đã lưu.
+     *
+     * @return true nếu file tồn tại và đã bị xóa.
+     */
+    default boolean deleteFile(String objectKey) {
+        return false;
+    }
+
+    /**
+     * Xóa file nếu nó không được ghi hoặc dùng lại trong khoảng reuseGrace (dùng cho retention, khi không còn bản ghi
+     * nào trỏ tới). Lần lưu trùng nội dung xảy ra đồng thời sẽ giữ lại hoặc ghi lại file.
+     *
+     * @return true nếu file đã bị xóa.
+     */
+    default boolean deleteUnusedFile(String objectKey, Duration reuseGrace) {
+        return false;
+    }
+
+    /**
+     * Dọn các file tạm của những lần ghi bị gián đoạn.
+     *
+     * @return số file tạm đã xóa.
+     */
+    default int purgeIncompleteUploads(Duration olderThan) {
+        return 0;
+    }
+
     /**
      * Lấy loại hình lưu trữ đang được sử dụng (LOCAL, S3,...).
      */
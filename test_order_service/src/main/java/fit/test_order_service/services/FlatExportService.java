@@ -0,0 +1,39 @@
+/*
+ * @ {#} FlatExportService.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.test_order_service.services;
+
+import fit.test_order_service.dtos.request.FlatExportRequest;
+import fit.test_order_service.dtos.response.PrintJobResponse;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/*
+ * @description: Service interface for gzip CSV/TSV exports of test orders and test results
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+public interface FlatExportService {
+
+    /**
+     * Tên file tải về (đã làm sạch, kèm đuôi .csv.gz hoặc .tsv.gz).
+     */
+    String resolveFileName(FlatExportRequest request);
+
+    /**
+     * Ghi export trực tiếp vào stream (thường là body của HTTP response), không dựng file trung gian.
+     *
+     * @return số dòng dữ liệu đã ghi.
+     */
+    long streamExport(FlatExportRequest request, OutputStream out) throws IOException;
+
+    /**
+     * Tạo job export chạy ngầm, kết quả được lưu qua FileStorageService và tải về qua report-jobs.
+     */
+    PrintJobResponse requestStoredExport(FlatExportRequest request);
+}
@@ -0,0 +1,140 @@
+/*
+ * @ {#} FlatExportWorker.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.test_order_service.services;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fit.test_order_service.entities.ReportFileStore;
+import fit.test_order_service.entities.ReportJob;
+import fit.test_order_service.enums.ExportDataset;
+import fit.test_order_service.enums.ExportFormat;
+import fit.test_order_service.enums.JobStatus;
+import fit.test_order_service.repositories.ReportFileStoreRepository;
+import fit.test_order_service.repositories.ReportJobRepository;
+import fit.test_order_service.utils.FlatFileExportWriter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Map;
+
+/*
+ * @description: Background worker for stored CSV/TSV exports. The gzip output is spooled to a temp file and streamed
+ *               into the storage backend, so neither the rows nor the compressed file are held in memory.
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FlatExportWorker {
+
+    private final ReportJobRepository reportJobRepository;
+    private final ReportFileStoreRepository fileStoreRepository;
+    private final FlatFileExportWriter flatFileExportWriter;
+    private final FileStorageService fileStorageService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.cloudinary.export-folder}")
+    private String exportFolder;
+
+    @Async
+    public void generateFlatExport(String jobId) {
+        log.info("Starting flat export for job ID: {}", jobId);
+        ReportJob job = reportJobRepository.findById(jobId).orElse(null);
+        if (job == null) {
+            log.error("Job ID {} not found.", jobId);
+            return;
+        }
+
+        Path spool = null;
+        try {
+            // 0. Parse Params
+            Map<String, String> params = objectMapper.readValue(job.getParamsJson(), new TypeReference<>() {
+            });
+            ExportDataset dataset = ExportDataset.valueOf(params.get("dataset"));
+            ExportFormat format = ExportFormat.valueOf(params.get("format"));
+            String fileName = params.get("fileName");
+            LocalDateTime[] range = FlatFileExportWriter.resolveRange(params.get("dateRangeType"),
+                    parseDate(params.get("startDate")), parseDate(params.get("endDate")));
+
+            // 1. Job -> RUNNING
+            job.setStatus(JobStatus.RUNNING);
+            job.setStartedAt(LocalDateTime.now(ZoneOffset.UTC));
+            job.setProgressPct(10);
+            reportJobRepository.save(job);
+
+            // 2. Ghi gzip ra file tạm
+            spool = Files.createTempFile("flat-export-", ".gz");
+            long rows;
+            try (OutputStream out = Files.newOutputStream(spool)) {
+                rows = flatFileExportWriter.write(dataset, format, range[0], range[1], out);
+            }
+            long byteSize = Files.size(spool);
+
+            job.setProgressPct(70);
+            reportJobRepository.save(job);
+
+            // 3. Stream file tạm vào storage
+            String fileKey;
+            try (InputStream in = Files.newInputStream(spool)) {
+                fileKey = fileStorageService.storeStream(in, fileName, exportFolder,
+                        FlatFileExportWriter.GZIP_MIME_TYPE, job.getRequestedBy());
+            }
+
+            ReportFileStore savedFileStore = fileStoreRepository.save(ReportFileStore.builder()
+                    .storageType(fileStorageService.getStorageType())
+                    .objectKey(fileKey)
+                    .fileName(fileName)
+                    .mimeType(FlatFileExportWriter.GZIP_MIME_TYPE)
+                    .byteSize(byteSize)
+                    .createdBy(job.getRequestedBy())
+                    .build());
+
+            // 4. Job -> SUCCEEDED
+            job.setResultFileId(savedFileStore.getFileId());
+            job.setResultFile(savedFileStore);
+            job.setStatus(JobStatus.SUCCEEDED);
+            job.setMessage("Exported " + rows + " rows: " + fileKey);
+            job.setProgressPct(100);
+            job.setFinishedAt(LocalDateTime.now(ZoneOffset.UTC));
+            reportJobRepository.save(job);
+
+            log.info("Flat export job {} finished: {} rows, {} bytes, file ID {}", jobId, rows, byteSize, savedFileStore.getFileId());
+
+        } catch (Exception e) {
+            log.error("Failed flat export for job ID: {}", jobId, e);
+            job.setStatus(JobStatus.FAILED);
+            job.setMessage("Error during export: " + e.getMessage());
+            job.setFinishedAt(LocalDateTime.now(ZoneOffset.UTC));
+            reportJobRepository.save(job);
+        } finally {
+            if (spool != null) {
+                try {
+                    Files.deleteIfExists(spool);
+                } catch (IOException e) {
+                    log.warn("Could not delete export spool file {}: {}", spool, e.getMessage());
+                }
+            }
+        }
+    }
+
+    private static LocalDate parseDate(String value) {
+        return value != null ? LocalDate.parse(value) : null;
+    }
+}
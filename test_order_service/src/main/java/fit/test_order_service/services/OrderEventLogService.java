@@ -12,6 +12,9 @@ package fit.test_order_service.services;/*
 import fit.test_order_service.entities.TestOrder;
 import fit.test_order_service.enums.EventType;
 
+import java.util.List;
+import java.util.function.Function;
+
 public interface OrderEventLogService {
     /**
      * Ghi lại một sự kiện liên quan đến một test order.
@@ -22,6 +25,15 @@ public interface OrderEventLogService {
      */
     void logEvent(TestOrder order, EventType eventType, String details);
 
+    /**
+     * Ghi cùng một loại sự kiện cho nhiều test order bằng một lần saveAll (dùng cho thao tác hàng loạt).
+     *
+     * @param orders     Các TestOrder liên quan.
+     * @param eventType  Loại sự kiện.
+     * @param details    Hàm tạo mô tả chi tiết cho từng order.
+     */
+    void logEvents(List<TestOrder> orders, EventType eventType, Function<TestOrder, String> details);
+
     /**
      * Ghi lại sự thay đổi trạng thái của một test order.
      *
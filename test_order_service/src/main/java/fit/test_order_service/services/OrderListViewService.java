@@ -0,0 +1,39 @@
+/*
+ * @ {#} OrderListViewService.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.test_order_service.services;
+
+import java.util.Collection;
+
+/*
+ * @description: Service interface maintaining the order_list_view read model
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+public interface OrderListViewService {
+    /**
+     * Tính lại các dòng read model cho những order đã thay đổi.
+     *
+     * @param orderIds danh sách orderId cần làm mới
+     */
+    void refresh(Collection<String> orderIds);
+
+    /**
+     * Dựng lại toàn bộ read model từ bảng test_order và test_result, duyệt order theo keyset.
+     *
+     * @return số dòng đã được ghi
+     */
+    int rebuildAll();
+
+    /**
+     * Chỉ chiếu lại các order thiếu dòng hoặc có dòng cũ hơn thay đổi gần nhất của order, và xóa dòng của order
+     * không còn tồn tại (vd: sự kiện thay đổi bị mất khi ứng dụng dừng giữa chừng).
+     *
+     * @return số dòng đã được làm mới hoặc xóa
+     */
+    int refreshStale();
+}
@@ -0,0 +1,47 @@
+/*
+ * @ {#} OrderStatsService.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.test_order_service.services;
+
+import fit.test_order_service.dtos.response.OrderStatsBucketResponse;
+import fit.test_order_service.enums.StatsDimension;
+import fit.test_order_service.enums.StatsGranularity;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/*
+ * @description: Service interface maintaining and querying hourly/daily order statistics rollups
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+public interface OrderStatsService {
+    /**
+     * Cập nhật bộ đếm theo delta cho các order đã thay đổi.
+     *
+     * @param orderIds danh sách orderId cần cập nhật
+     */
+    void refresh(Collection<String> orderIds);
+
+    /**
+     * Đọc các bucket thống kê trong khoảng [from, to).
+     *
+     * @param dimensions các chiều cần lấy; rỗng hoặc null nghĩa là tất cả
+     * @return danh sách bucket theo thứ tự thời gian, chỉ gồm bucket có dữ liệu
+     */
+    List<OrderStatsBucketResponse> getStats(StatsGranularity granularity, LocalDateTime from, LocalDateTime to,
+                                            Set<StatsDimension> dimensions);
+
+    /**
+     * Xóa và dựng lại toàn bộ bộ đếm từ test_order và test_result (dùng khi backfill hoặc đối soát).
+     *
+     * @return số order đã được tính
+     */
+    int rebuildAll();
+}
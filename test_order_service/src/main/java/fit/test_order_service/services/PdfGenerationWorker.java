@@ -24,6 +24,11 @@ import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.text.Normalizer;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
@@ -44,6 +49,7 @@ public class PdfGenerationWorker {
     private final ObjectMapper objectMapper;
     private final PdfGeneratorUtil pdfGeneratorUtil;
     private final FileStorageService fileStorageService;
+    private final PrintSnapshotService printSnapshotService;
 
     private static final String PDF_MIME_TYPE = "application/pdf";
 
@@ -64,6 +70,7 @@ public class PdfGenerationWorker {
 
         String customFileName = null;
         List<CommentOrderResponse> comments = new ArrayList<>();
+        Path spool = null;
 
         try {
             // 0. Parse Params
@@ -105,14 +112,22 @@ public class PdfGenerationWorker {
             job.setProgressPct(30);
             reportJobRepository.save(job);
 
+            // Hash được tính trên đúng dữ liệu sẽ render (order/results tại thời điểm chạy job)
+            String contentHash = printSnapshotService.computeContentHash(testOrder, results, comments, customFileName);
+
             // 3. Tạo file PDF
             // (Giả sử bạn đã cập nhật PdfGeneratorUtil để chấp nhận List<CommentOrderResponse>)
-            byte[] pdfBytes = pdfGeneratorUtil.generateTestResultPdf(testOrder, results, comments);
+            // Ghi ra file tạm rồi stream vào storage, không giữ bản sao byte[] của cả file
+            spool = Files.createTempFile("pdf-export-", ".pdf");
+            try (OutputStream out = Files.newOutputStream(spool)) {
+                pdfGeneratorUtil.writeTestResultPdf(testOrder, results, comments, out);
+            }
+            long byteSize = Files.size(spool);
 
-            if (pdfBytes == null || pdfBytes.length == 0) {
-                throw new RuntimeException("Generated PDF is empty or null.");
+            if (byteSize == 0) {
+                throw new RuntimeException("Generated PDF is empty.");
             }
-            log.info("Generated pdfBytes length: {} bytes", pdfBytes.length);
+            log.info("Generated PDF length: {} bytes", byteSize);
             job.setProgressPct(70);
             reportJobRepository.save(job);
 
@@ -120,13 +135,16 @@ public class PdfGenerationWorker {
             String fileName = determineFileName(testOrder, customFileName);
 
             // 5. Lưu trữ file PDF
-            String fileKey = fileStorageService.storeFile(
-                    pdfBytes,
-                    fileName,
-                    pdfFolder, // Sử dụng thư mục cấu hình cho PDF
-                    PDF_MIME_TYPE, // Dùng hằng số
-                    job.getRequestedBy()
-            );
+            String fileKey;
+            try (InputStream in = Files.newInputStream(spool)) {
+                fileKey = fileStorageService.storeStream(
+                        in,
+                        fileName,
+                        pdfFolder, // Sử dụng thư mục cấu hình cho PDF
+                        PDF_MIME_TYPE, // Dùng hằng số
+                        job.getRequestedBy()
+                );
+            }
 
             // 6. Tạo bản ghi ReportFileStore
             ReportFileStore fileStore = ReportFileStore.builder()
@@ -134,11 +152,14 @@ public class PdfGenerationWorker {
                     .objectKey(fileKey) // Đây là URL
                     .fileName(fileName)
                     .mimeType(PDF_MIME_TYPE) // Dùng hằng số
-                    .byteSize((long) pdfBytes.length)
+                    .byteSize(byteSize)
                     .createdBy(job.getRequestedBy())
                     .build();
             ReportFileStore savedFileStore = fileStoreRepository.save(fileStore);
 
+            // 6b. Lưu snapshot để lần in sau với cùng dữ liệu có thể dùng lại file này
+            printSnapshotService.recordSnapshot(job, testOrder, results, comments, contentHash, savedFileStore);
+
             // 7. Cập nhật Job -> SUCCEEDED
             job.setResultFileId(savedFileStore.getFileId());
             job.setResultFile(savedFileStore);
@@ -157,6 +178,14 @@ public class PdfGenerationWorker {
             job.setFinishedAt(LocalDateTime.now(ZoneOffset.UTC));
             job.setProgressPct(job.getProgressPct());
             reportJobRepository.save(job);
+        } finally {
+            if (spool != null) {
+                try {
+                    Files.deleteIfExists(spool);
+                } catch (IOException e) {
+                    log.warn("Could not delete PDF spool file {}: {}", spool, e.getMessage());
+                }
+            }
         }
     }
 
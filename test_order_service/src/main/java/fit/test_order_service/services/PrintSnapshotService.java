@@ -0,0 +1,44 @@
+/*
+ * @ {#} PrintSnapshotService.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.test_order_service.services;
+
+import fit.test_order_service.dtos.response.CommentOrderResponse;
+import fit.test_order_service.entities.ReportFileStore;
+import fit.test_order_service.entities.ReportJob;
+import fit.test_order_service.entities.TestOrder;
+import fit.test_order_service.entities.TestResult;
+
+import java.util.List;
+import java.util.Optional;
+
+/*
+ * @description: Service interface for content-addressed print snapshots
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+public interface PrintSnapshotService {
+
+    /**
+     * Tính hash xác định (SHA-256, hex) trên toàn bộ dữ liệu được đưa vào PDF: header của order (kèm tên
+     * người tạo/người chạy như được in), các kết quả, cây comment và tên file tùy chỉnh.
+     * Thứ tự results không ảnh hưởng tới hash.
+     */
+    String computeContentHash(TestOrder order, List<TestResult> results,
+                              List<CommentOrderResponse> comments, String customFileName);
+
+    /**
+     * Tìm file PDF đã render trước đó cho cùng order và cùng content hash, nếu file vẫn còn hiệu lực.
+     */
+    Optional<ReportFileStore> findReusableArtifact(String orderId, String contentHash);
+
+    /**
+     * Lưu snapshot của lần render thành công để các lần in sau có thể dùng lại file.
+     */
+    void recordSnapshot(ReportJob job, TestOrder order, List<TestResult> results,
+                        List<CommentOrderResponse> comments, String contentHash, ReportFileStore file);
+}
@@ -0,0 +1,23 @@
+/*
+ * @ {#} ReportFileRetentionService.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.test_order_service.services;
+
+/*
+ * @description: Service interface for expiring stored report files
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+public interface ReportFileRetentionService {
+    /**
+     * Xóa các file báo cáo đã hết hạn lưu trữ cùng bản ghi ReportFileStore của chúng.
+     * Object chỉ bị xóa khi không còn bản ghi nào khác trỏ tới. Chỉ replica đang giữ lease mới thực hiện.
+     *
+     * @return số bản ghi ReportFileStore đã xóa trong lượt này.
+     */
+    int sweepExpiredFiles();
+}
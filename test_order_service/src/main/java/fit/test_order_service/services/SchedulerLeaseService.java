@@ -0,0 +1,33 @@
+/*
+ * @ {#} SchedulerLeaseService.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.test_order_service.services;
+
+import java.time.Duration;
+
+/*
+ * @description: Service interface for cluster-wide leases on scheduled jobs
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+public interface SchedulerLeaseService {
+    /**
+     * Chiếm hoặc gia hạn lease cho job. Replica đang giữ lease sẽ tiếp tục được gia hạn ở các lần chạy sau.
+     *
+     * @param leaseName Tên job.
+     * @param duration  Thời gian giữ lease.
+     * @return true nếu replica hiện tại đang giữ lease.
+     */
+    boolean tryAcquire(String leaseName, Duration duration);
+
+    /**
+     * Trả lease sớm (ví dụ khi service tắt) để replica khác có thể tiếp quản ngay.
+     */
+    void release(String leaseName);
+
+    String getOwnerId();
+}
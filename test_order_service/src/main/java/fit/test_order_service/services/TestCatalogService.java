@@ -32,4 +32,11 @@ public interface TestCatalogService {
      * @return danh sách các phản hồi danh mục xét nghiệm đang hoạt động
      */
     List<TestCatalogResponse> findByActiveTrueOrderByTestName();
+
+    /**
+     * Nạp lại chỉ mục catalog trong bộ nhớ sau khi danh mục xét nghiệm thay đổi.
+     *
+     * @return số xét nghiệm đang hoạt động trong chỉ mục mới
+     */
+    int refreshCatalogIndex();
 }
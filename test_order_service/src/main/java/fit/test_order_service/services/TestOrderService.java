@@ -36,6 +36,20 @@ public interface TestOrderService {
                                                      LocalDate startDate, LocalDate endDate, OrderStatus status, ReviewStatus reviewStatus,
                                                      ReviewMode reviewMode, Gender gender, String createdBy, String reviewedBy);
 
+    /**
+     * Lấy danh sách Test Order theo keyset (seek) pagination.
+     * Mỗi trang là một lần seek trên index nên chi phí trang N bằng trang đầu tiên.
+     *
+     * @param cursor       Token tiếp tục từ trang trước (null cho trang đầu tiên).
+     * @param size         Số phần tử mỗi trang.
+     * @param sort         "createdAt,desc" | "updatedAt,asc" ... (bị bỏ qua khi có cursor).
+     * @param includeTotal true để trả về tổng số bản ghi (được cache ngắn hạn).
+     */
+    CursorPageResponse<TestOrderResponse> getTestOrdersByCursor(String cursor, int size, String sort, String search,
+                                                                LocalDate startDate, LocalDate endDate, OrderStatus status, ReviewStatus reviewStatus,
+                                                                ReviewMode reviewMode, Gender gender, String createdBy, String reviewedBy,
+                                                                boolean includeTotal);
+
     /**
      * Khởi tạo một job chạy ngầm để in kết quả Test Order ra file PDF.
      *
@@ -0,0 +1,23 @@
+/*
+ * @ {#} TestResultResyncService.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.test_order_service.services;
+
+/*
+ * @description: Service interface for requesting instrument result resync of stuck test orders
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+public interface TestResultResyncService {
+    /**
+     * Quét các đơn quá hạn chưa có kết quả và gửi yêu cầu đồng bộ lại sang Instrument Service theo từng lô barcode.
+     * Chỉ replica đang giữ lease mới thực hiện quét.
+     *
+     * @return số barcode đã được yêu cầu đồng bộ trong lượt này.
+     */
+    int requestResyncForStuckOrders();
+}
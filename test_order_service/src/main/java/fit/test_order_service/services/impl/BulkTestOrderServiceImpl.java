@@ -0,0 +1,242 @@
+/*
+ * @ {#} BulkTestOrderServiceImpl.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.test_order_service.services.impl;
+
+import fit.test_order_service.client.PatientMedicalRecordFeignClient;
+import fit.test_order_service.client.dtos.PatientMedicalRecordCodesRequest;
+import fit.test_order_service.client.dtos.PatientMedicalRecordInternalResponse;
+import fit.test_order_service.dtos.event.SystemEvent;
+import fit.test_order_service.dtos.request.BulkCreateTestOrderRequest;
+import fit.test_order_service.dtos.request.CreateTestOrderRequest;
+import fit.test_order_service.dtos.response.ApiResponse;
+import fit.test_order_service.dtos.response.BulkCreateTestOrderResponse;
+import fit.test_order_service.dtos.response.BulkOrderItemResult;
+import fit.test_order_service.entities.TestOrder;
+import fit.test_order_service.entities.TestType;
+import fit.test_order_service.enums.BulkItemStatus;
+import fit.test_order_service.enums.EventType;
+import fit.test_order_service.enums.OrderStatus;
+import fit.test_order_service.mappers.TestOrderMapper;
+import fit.test_order_service.repositories.TestOrderRepository;
+import fit.test_order_service.repositories.TestTypeRepository;
+import fit.test_order_service.services.BulkTestOrderService;
+import fit.test_order_service.services.EventLogPublisher;
+import fit.test_order_service.services.OrderEventLogService;
+import fit.test_order_service.utils.SecurityUtils;
+import fit.test_order_service.utils.TestOrderGenerator;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/*
+ * @description: Creates many test orders per request. Items are validated individually, patient and test type ids
+ *               are de-duplicated and each resolved with a single batched lookup, and the valid orders plus their
+ *               CREATE event logs are inserted in one short transaction so Hibernate can send them as JDBC batches.
+ *               The remote patient lookup happens before the transaction starts, so no connection is held across it.
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+@Service
+@Slf4j
+public class BulkTestOrderServiceImpl implements BulkTestOrderService {
+
+    private final TestOrderRepository testOrderRepository;
+    private final TestTypeRepository testTypeRepository;
+    private final PatientMedicalRecordFeignClient patientMedicalRecordFeignClient;
+    private final TestOrderMapper testOrderMapper;
+    private final OrderEventLogService orderEventLogService;
+    private final EventLogPublisher eventLogPublisher;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+
+    public BulkTestOrderServiceImpl(TestOrderRepository testOrderRepository,
+                                    TestTypeRepository testTypeRepository,
+                                    PatientMedicalRecordFeignClient patientMedicalRecordFeignClient,
+                                    TestOrderMapper testOrderMapper,
+                                    OrderEventLogService orderEventLogService,
+                                    EventLogPublisher eventLogPublisher,
+                                    Validator validator,
+                                    PlatformTransactionManager transactionManager) {
+        this.testOrderRepository = testOrderRepository;
+        this.testTypeRepository = testTypeRepository;
+        this.patientMedicalRecordFeignClient = patientMedicalRecordFeignClient;
+        this.testOrderMapper = testOrderMapper;
+        this.orderEventLogService = orderEventLogService;
+        this.eventLogPublisher = eventLogPublisher;
+        this.validator = validator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public BulkCreateTestOrderResponse createTestOrders(BulkCreateTestOrderRequest request) {
+        String currentUserId = SecurityUtils.getCurrentUserId();
+        if (currentUserId == null) {
+            throw new IllegalStateException("Cannot create test order without a logged-in user.");
+        }
+
+        List<CreateTestOrderRequest> items = request.getItems();
+        BulkOrderItemResult[] results = new BulkOrderItemResult[items.size()];
+
+        // 1. Kiểm tra từng item và loại bỏ cặp (bệnh nhân, loại xét nghiệm) trùng trong cùng request
+        List<Integer> candidates = new ArrayList<>(items.size());
+        Map<String, Integer> firstIndexByKey = new HashMap<>();
+        Set<String> medicalRecordCodes = new LinkedHashSet<>();
+        Set<String> testTypeIds = new LinkedHashSet<>();
+        for (int i = 0; i < items.size(); i++) {
+            CreateTestOrderRequest item = items.get(i);
+            String error = validate(item);
+            if (error != null) {
+                results[i] = failed(i, item, error);
+                continue;
+            }
+            String code = item.getMedicalRecordCode().trim();
+            String key = code + '\u0000' + item.getTestTypeId();
+            Integer first = firstIndexByKey.putIfAbsent(key, i);
+            if (first != null) {
+                results[i] = failed(i, item, "Duplicate of item " + first);
+                continue;
+            }
+            candidates.add(i);
+            medicalRecordCodes.add(code);
+            testTypeIds.add(item.getTestTypeId());
+        }
+
+        // 2. Mỗi loại id chỉ tra cứu một lần
+        Map<String, TestType> testTypes = candidates.isEmpty() ? Map.of() : loadTestTypes(testTypeIds);
+        Map<String, PatientMedicalRecordInternalResponse> patients = candidates.isEmpty() ? Map.of() : loadPatients(medicalRecordCodes);
+
+        // 3. Dựng entity cho các item hợp lệ
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        List<TestOrder> orders = new ArrayList<>(candidates.size());
+        List<Integer> orderIndexes = new ArrayList<>(candidates.size());
+        for (int i : candidates) {
+            CreateTestOrderRequest item = items.get(i);
+            TestType testType = testTypes.get(item.getTestTypeId());
+            if (testType == null) {
+                results[i] = failed(i, item, "TestType not found with ID: " + item.getTestTypeId());
+                continue;
+            }
+            PatientMedicalRecordInternalResponse patient = patients.get(item.getMedicalRecordCode().trim());
+            if (patient == null) {
+                results[i] = failed(i, item, "Patient medical record not found with code: " + item.getMedicalRecordCode());
+                continue;
+            }
+            TestOrder testOrder = testOrderMapper.toEntity(patient);
+            if (testOrder == null) {
+                results[i] = failed(i, item, "Could not map patient data to test order.");
+                continue;
+            }
+            testOrder.setTestTypeRef(testType);
+            testOrder.setTestTypeIdSnapshot(testType.getId());
+            testOrder.setTestTypeNameSnapshot(testType.getName());
+            testOrder.setStatus(OrderStatus.PENDING);
+            testOrder.setCreatedAt(now);
+            testOrder.setBarcode(TestOrderGenerator.generateBarcode());
+            testOrder.setCreatedBy(currentUserId);
+            orders.add(testOrder);
+            orderIndexes.add(i);
+        }
+
+        // 4. Ghi order và log trong một transaction ngắn (id sinh ở @PrePersist nên Hibernate gom được batch insert)
+        if (!orders.isEmpty()) {
+            List<TestOrder> saved = transactionTemplate.execute(status -> {
+                List<TestOrder> persisted = testOrderRepository.saveAll(orders);
+                orderEventLogService.logEvents(persisted, EventType.CREATE,
+                        order -> "Test order created for medical record: " + order.getMedicalRecordCode());
+                return persisted;
+            });
+            for (int k = 0; k < saved.size(); k++) {
+                int i = orderIndexes.get(k);
+                TestOrder order = saved.get(k);
+                results[i] = BulkOrderItemResult.builder()
+                        .index(i)
+                        .medicalRecordCode(order.getMedicalRecordCode())
+                        .testTypeId(order.getTestTypeIdSnapshot())
+                        .status(BulkItemStatus.CREATED)
+                        .orderId(order.getOrderId())
+                        .orderCode(order.getOrderCode())
+                        .barcode(order.getBarcode())
+                        .build();
+            }
+            publishCreatedEvent(saved, items.size(), currentUserId);
+        }
+
+        int created = orders.size();
+        log.info("Bulk test order request: {} items, {} created, {} failed", items.size(), created, items.size() - created);
+        return BulkCreateTestOrderResponse.builder()
+                .requested(items.size())
+                .created(created)
+                .failed(items.size() - created)
+                .items(Arrays.asList(results))
+                .build();
+    }
+
+    private String validate(CreateTestOrderRequest item) {
+        if (item == null) {
+            return "Item is required";
+        }
+        Set<ConstraintViolation<CreateTestOrderRequest>> violations = validator.validate(item);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    private Map<String, TestType> loadTestTypes(Collection<String> testTypeIds) {
+        Map<String, TestType> byId = new HashMap<>();
+        for (TestType testType : testTypeRepository.findAllById(testTypeIds)) {
+            byId.put(testType.getId(), testType);
+        }
+        return byId;
+    }
+
+    private Map<String, PatientMedicalRecordInternalResponse> loadPatients(Collection<String> medicalRecordCodes) {
+        ApiResponse<List<PatientMedicalRecordInternalResponse>> response =
+                patientMedicalRecordFeignClient.getPatientMedicalRecordsByCodes(new PatientMedicalRecordCodesRequest(medicalRecordCodes));
+        Map<String, PatientMedicalRecordInternalResponse> byCode = new HashMap<>();
+        if (response != null && response.getData() != null) {
+            for (PatientMedicalRecordInternalResponse patient : response.getData()) {
+                byCode.put(patient.medicalRecordCode(), patient);
+            }
+        }
+        return byCode;
+    }
+
+    private void publishCreatedEvent(List<TestOrder> saved, int requested, String operator) {
+        List<String> orderIds = saved.stream().map(TestOrder::getOrderId).toList();
+        eventLogPublisher.publishEvent(SystemEvent.builder()
+                .eventCode("E_00001")
+                .action("Bulk Create Test Orders")
+                .message("Created " + saved.size() + " of " + requested + " test orders")
+                .sourceService("TEST_ORDER_SERVICE")
+                .operator(operator)
+                .details(Map.of("testOrderIds", orderIds, "requested", requested, "created", saved.size()))
+                .build());
+    }
+
+    private static BulkOrderItemResult failed(int index, CreateTestOrderRequest item, String error) {
+        return BulkOrderItemResult.builder()
+                .index(index)
+                .medicalRecordCode(item != null ? item.getMedicalRecordCode() : null)
+                .testTypeId(item != null ? item.getTestTypeId() : null)
+                .status(BulkItemStatus.FAILED)
+                .error(error)
+                .build();
+    }
+}
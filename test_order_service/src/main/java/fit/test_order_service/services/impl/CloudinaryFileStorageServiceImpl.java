@@ -15,14 +15,17 @@ import fit.test_order_service.enums.StorageType;
 import fit.test_order_service.services.FileStorageService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Primary;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.Map;
 
 @Service
 @Primary
+@ConditionalOnProperty(name = "app.storage.type", havingValue = "CLOUDINARY", matchIfMissing = true)
 @RequiredArgsConstructor
 @Slf4j
 public class CloudinaryFileStorageServiceImpl implements FileStorageService {
@@ -34,22 +37,22 @@ public class CloudinaryFileStorageServiceImpl implements FileStorageService {
     public String storeFile(byte[] fileBytes, String requestedFileName, String targetFolder, String contentType, String uploaderUserId) {
 
         try {
-            Map<String, Object> options = ObjectUtils.asMap(
-                    "resource_type", "raw",
-                    "public_id", requestedFileName,
-                    "overwrite", true,
-                    "folder", targetFolder
-            );
+            Map<?, ?> uploadResult = cloudinary.uploader().upload(fileBytes, uploadOptions(requestedFileName, targetFolder));
+            return uploadedUrl(uploadResult, requestedFileName, targetFolder);
 
-            Map<?, ?> uploadResult = cloudinary.uploader().upload(fileBytes, options);
+        } catch (IOException e) {
+            log.error("Could not store file {} to Cloudinary. Error: {}", requestedFileName, e.getMessage(), e);
+            throw new RuntimeException("Could not store file " + requestedFileName + ". Please try again!", e);
+        }
+    }
 
-            String url = (String) uploadResult.get("secure_url");
-            if (url == null) {
-                url = (String) uploadResult.get("url");
-            }
+    @Override
+    public String storeStream(InputStream content, String requestedFileName, String targetFolder, String contentType, String uploaderUserId) {
 
-            log.info("File {} uploaded to Cloudinary folder [{}]. URL: {}", requestedFileName, targetFolder, url);
-            return url; // Trả về URL an toàn
+        try {
+            // uploadLarge đọc stream theo từng phần (mặc định 20MB) nên không giữ cả file trong bộ nhớ
+            Map<?, ?> uploadResult = cloudinary.uploader().uploadLarge(content, uploadOptions(requestedFileName, targetFolder));
+            return uploadedUrl(uploadResult, requestedFileName, targetFolder);
 
         } catch (IOException e) {
             log.error("Could not store file {} to Cloudinary. Error: {}", requestedFileName, e.getMessage(), e);
@@ -57,6 +60,25 @@ public class CloudinaryFileStorageServiceImpl implements FileStorageService {
         }
     }
 
+    private static Map<String, Object> uploadOptions(String requestedFileName, String targetFolder) {
+        return ObjectUtils.asMap(
+                "resource_type", "raw",
+                "public_id", requestedFileName,
+                "overwrite", true,
+                "folder", targetFolder
+        );
+    }
+
+    private static String uploadedUrl(Map<?, ?> uploadResult, String requestedFileName, String targetFolder) {
+        String url = (String) uploadResult.get("secure_url");
+        if (url == null) {
+            url = (String) uploadResult.get("url");
+        }
+
+        log.info("File {} uploaded to Cloudinary folder [{}]. URL: {}", requestedFileName, targetFolder, url);
+        return url; // Trả về URL an toàn
+    }
+
     @Override
     public StorageType getStorageType() {
         return StorageType.CLOUDINARY;
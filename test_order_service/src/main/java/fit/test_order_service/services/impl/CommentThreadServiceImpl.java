@@ -0,0 +1,168 @@
+/*
+ * @ {#} CommentThreadServiceImpl.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.test_order_service.services.impl;
+
+import fit.test_order_service.client.IamFeignClient;
+import fit.test_order_service.client.dtos.UserInternalResponse;
+import fit.test_order_service.dtos.response.ApiResponse;
+import fit.test_order_service.dtos.response.CommentAuthorResponse;
+import fit.test_order_service.dtos.response.CommentOrderResponse;
+import fit.test_order_service.dtos.response.CommentResponse;
+import fit.test_order_service.entities.OrderComment;
+import fit.test_order_service.entities.TestOrder;
+import fit.test_order_service.entities.TestResult;
+import fit.test_order_service.enums.CommentTargetType;
+import fit.test_order_service.repositories.OrderCommentRepository;
+import fit.test_order_service.services.CommentThreadService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/*
+ * @description: Loads an order's whole comment thread (order and result comments, with replies) in one indexed query
+ *               over (thread_order_id, path) and assembles the tree in memory. Result target info comes from the
+ *               already-loaded order and each author is resolved from IAM at most once per thread.
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CommentThreadServiceImpl implements CommentThreadService {
+
+    private static final Comparator<CommentOrderResponse> BY_CREATED_AT =
+            Comparator.comparing(CommentOrderResponse::getCreatedAt, Comparator.nullsFirst(Comparator.naturalOrder()))
+                    .thenComparing(CommentOrderResponse::getId);
+
+    private final OrderCommentRepository orderCommentRepository;
+    private final IamFeignClient iamFeignClient;
+
+    /**
+     * Bổ sung thread_order_id và path cho các comment được tạo trước khi có hai cột này.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillThreads() {
+        try {
+            int threads = orderCommentRepository.backfillThreadOrderIds();
+            int paths = orderCommentRepository.backfillPaths();
+            if (threads > 0 || paths > 0) {
+                log.info("Backfilled comment threads: threadOrderId={}, path={}", threads, paths);
+            }
+        } catch (Exception e) {
+            log.error("Failed to backfill comment threads: {}", e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public List<CommentOrderResponse> loadThread(TestOrder testOrder) {
+        List<OrderComment> comments = orderCommentRepository.findByThreadOrderIdOrderByPathAsc(testOrder.getOrderId());
+        if (comments.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Map<String, TestResult> resultsById = new HashMap<>();
+        if (testOrder.getResults() != null) {
+            for (TestResult result : testOrder.getResults()) {
+                resultsById.put(result.getResultId(), result);
+            }
+        }
+        Map<String, CommentAuthorResponse> authors = new HashMap<>();
+
+        Map<String, CommentOrderResponse> nodes = new LinkedHashMap<>();
+        for (OrderComment comment : comments) {
+            nodes.put(comment.getCommentId(), CommentOrderResponse.builder()
+                    .id(comment.getCommentId())
+                    .author(authors.computeIfAbsent(String.valueOf(comment.getAuthorUserId()),
+                            key -> mapAuthor(comment.getAuthorUserId())))
+                    .targetInfo(mapTarget(comment, resultsById))
+                    .content(comment.getContent())
+                    .createdAt(comment.getCreatedAt())
+                    .edited(comment.isEdited())
+                    .updatedAt(comment.getUpdatedAt())
+                    .replies(new ArrayList<>())
+                    .build());
+        }
+
+        List<CommentOrderResponse> roots = new ArrayList<>();
+        for (OrderComment comment : comments) {
+            CommentOrderResponse node = nodes.get(comment.getCommentId());
+            if (comment.getParentId() == null) {
+                roots.add(node);
+                continue;
+            }
+            CommentOrderResponse parent = nodes.get(comment.getParentId());
+            // Comment cha đã bị xóa mềm thì replies của nó cũng bị ẩn
+            if (parent != null) {
+                parent.getReplies().add(node);
+            }
+        }
+
+        roots.sort(BY_CREATED_AT);
+        for (CommentOrderResponse root : roots) {
+            root.getReplies().sort(BY_CREATED_AT);
+        }
+        return roots;
+    }
+
+    /**
+     * Map thủ công thông tin Author (Sử dụng CommentAuthorResponse DTO)
+     */
+    private CommentAuthorResponse mapAuthor(String authorUserId) {
+        if (authorUserId == null) {
+            return new CommentAuthorResponse("SYSTEM", "Hệ thống", List.of("SYSTEM"));
+        }
+        try {
+            ApiResponse<UserInternalResponse> apiResponse = iamFeignClient.getUserById(authorUserId);
+            UserInternalResponse userData = (apiResponse != null) ? apiResponse.getData() : null;
+
+            if (userData != null) {
+                return CommentAuthorResponse.builder()
+                        .id(userData.userId())
+                        .fullName(userData.fullName())
+                        .roles(userData.roleName() != null ? List.of(userData.roleName()) : List.of("UNKNOWN"))
+                        .build();
+            }
+        } catch (Exception e) {
+            log.error("Failed to fetch user data from IAM for userId: {}. Error: {}", authorUserId, e.getMessage());
+        }
+        return CommentAuthorResponse.builder()
+                .id(authorUserId)
+                .fullName("Người dùng không xác định")
+                .roles(List.of("UNKNOWN"))
+                .build();
+    }
+
+    /**
+     * Map thủ công thông tin Target, lấy dữ liệu result từ TestOrder đã tải thay vì truy vấn từng result.
+     */
+    private CommentResponse mapTarget(OrderComment comment, Map<String, TestResult> resultsById) {
+        CommentResponse.CommentResponseBuilder builder = CommentResponse.builder()
+                .targetType(comment.getTargetType());
+
+        if (comment.getTargetType() == CommentTargetType.ORDER) {
+            builder.testOrderId(comment.getTargetId());
+
+        } else if (comment.getTargetType() == CommentTargetType.RESULT) {
+            builder.resultId(comment.getTargetId());
+            builder.testOrderId(comment.getThreadOrderId());
+
+            TestResult result = resultsById.get(comment.getTargetId());
+            if (result != null) {
+                builder.analyteName(result.getAnalyteName());
+                builder.resultValue(result.getValueText());
+                builder.testName(result.getAnalyteName());
+                builder.testCode(result.getTestCode());
+            }
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * @ {#} FlatExportServiceImpl.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.test_order_service.services.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fit.test_order_service.dtos.request.FlatExportRequest;
+import fit.test_order_service.dtos.response.PrintJobResponse;
+import fit.test_order_service.entities.ReportJob;
+import fit.test_order_service.enums.EventType;
+import fit.test_order_service.enums.ExportFormat;
+import fit.test_order_service.enums.JobStatus;
+import fit.test_order_service.enums.JobType;
+import fit.test_order_service.exceptions.UnauthorizedException;
+import fit.test_order_service.repositories.ReportJobRepository;
+import fit.test_order_service.services.FlatExportService;
+import fit.test_order_service.services.FlatExportWorker;
+import fit.test_order_service.services.OrderEventLogService;
+import fit.test_order_service.utils.FlatFileExportWriter;
+import fit.test_order_service.utils.SecurityUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+ * @description: Flat CSV/TSV exports next to the Excel export: streamed straight into the HTTP response, or run as a
+ *               report job whose gzip output is streamed into the FileStorageService backend.
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FlatExportServiceImpl implements FlatExportService {
+
+    private final FlatFileExportWriter flatFileExportWriter;
+    private final FlatExportWorker flatExportWorker;
+    private final ReportJobRepository reportJobRepository;
+    private final OrderEventLogService orderEventLogService;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public String resolveFileName(FlatExportRequest request) {
+        String baseName;
+        if (request.getCustomFileName() != null && !request.getCustomFileName().isBlank()) {
+            baseName = request.getCustomFileName().trim();
+        } else {
+            String date = LocalDateTime.now(ZoneOffset.UTC).format(DateTimeFormatter.ofPattern("yyyyMMdd"));
+            baseName = request.getDataset().name().toLowerCase() + "-" + date;
+        }
+        String extension = request.getFormat() == ExportFormat.TSV ? ".tsv.gz" : ".csv.gz";
+        return baseName.replaceAll("[^a-zA-Z0-9\\-_.]+", "_") + extension;
+    }
+
+    @Override
+    public long streamExport(FlatExportRequest request, OutputStream out) throws IOException {
+        LocalDateTime[] range = FlatFileExportWriter.resolveRange(
+                request.getDateRangeType(), request.getStartDate(), request.getEndDate());
+        return flatFileExportWriter.write(request.getDataset(), request.getFormat(), range[0], range[1], out);
+    }
+
+    @Override
+    public PrintJobResponse requestStoredExport(FlatExportRequest request) {
+        String currentUserId = SecurityUtils.getCurrentUserId();
+        if (currentUserId == null) {
+            throw new UnauthorizedException("Cannot request export job without a logged-in user.");
+        }
+
+        ReportJob exportJob = ReportJob.builder()
+                .jobType(JobType.EXPORT_ORDERS_CSV)
+                .status(JobStatus.QUEUED)
+                .requestedBy(currentUserId)
+                .paramsJson(createParamsJson(request))
+                .build();
+        ReportJob savedJob = reportJobRepository.save(exportJob);
+
+        flatExportWorker.generateFlatExport(savedJob.getJobId());
+        orderEventLogService.logEvent(null, EventType.EXPORT_REQUEST,
+                request.getFormat() + " export job requested with Job ID: " + savedJob.getJobId());
+
+        return PrintJobResponse.builder()
+                .jobId(savedJob.getJobId())
+                .orderId(null)
+                .status(savedJob.getStatus())
+                .message("Export " + request.getFormat() + " job successfully queued.")
+                .requestedAt(savedJob.getCreatedAt())
+                .build();
+    }
+
+    private String createParamsJson(FlatExportRequest request) {
+        Map<String, Object> params = new LinkedHashMap<>();
+        params.put("dataset", request.getDataset().name());
+        params.put("format", request.getFormat().name());
+        params.put("fileName", resolveFileName(request));
+        params.put("dateRangeType", request.getDateRangeType());
+        params.put("startDate", formatDate(request.getStartDate()));
+        params.put("endDate", formatDate(request.getEndDate()));
+        try {
+            return objectMapper.writeValueAsString(params);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Could not serialize export params", e);
+        }
+    }
+
+    private static String formatDate(LocalDate date) {
+        return date != null ? date.format(DateTimeFormatter.ISO_LOCAL_DATE) : null;
+    }
+}
@@ -17,6 +17,7 @@ import fit.test_order_service.entities.TestResult;
 import fit.test_order_service.enums.AbnormalFlag;
 import fit.test_order_service.exceptions.BadRequestException;
 import fit.test_order_service.services.Hl7ParserService;
+import fit.test_order_service.utils.Hl7OrderMessageEncoder;
 import fit.test_order_service.utils.TestCodeGenerator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -33,7 +34,6 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.UUID;
 
 import static java.lang.Double.parseDouble;
 
@@ -47,10 +47,14 @@ import static java.lang.Double.parseDouble;
 @Slf4j
 @RequiredArgsConstructor
 public class Hl7ParserServiceImpl implements Hl7ParserService {
+    private static final DateTimeFormatter HL7_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+
     private final Parser parser;
 
     private final TestCodeGenerator testCodeGenerator;
 
+    private final Hl7OrderMessageEncoder hl7OrderMessageEncoder;
+
     @Override
     public List<ParsedTestResult> parseHl7Message(String hl7Payload) {
         try {
@@ -92,58 +96,7 @@ public class Hl7ParserServiceImpl implements Hl7ParserService {
 
     @Override
     public String buildHl7OrderMessage(TestOrder testOrder, List<TestResult> testResults) {
-        StringBuilder hl7 = new StringBuilder();
-
-        // --- MSH Segment ---
-        hl7.append("MSH|^~\\&|TEST-ORDER|SYSTEM|")
-                .append("INSTRUMENT")
-                .append("|LAB|")
-                .append(LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss")))
-                .append("||OML^O21|MSG")
-                .append(UUID.randomUUID().toString().substring(0, 8))
-                .append("|P|2.5\r");
-
-        // --- PID Segment ---
-        hl7.append("PID|1||")
-                .append(testOrder.getMedicalRecordCode()).append("||")
-                .append(testOrder.getFullName()).append("||")
-                .append(testOrder.getDateOfBirth().format(DateTimeFormatter.ofPattern("yyyyMMdd"))).append("|")
-                .append(testOrder.getGender().name().charAt(0)) // ví dụ: M / F
-                .append("|||")
-                .append(testOrder.getAddress() != null ? testOrder.getAddress() : "UNKNOWN")
-                .append("||")
-                .append(testOrder.getPhone())
-                .append("\r");
-
-        // OBR Segment (Thông tin của TestOrder)
-        hl7.append("OBR|1||")
-                .append(testOrder.getOrderCode()) // Mã order
-                .append("|PANEL^Complete Blood Count") // Có thể tuỳ chỉnh theo nhóm test
-                .append("|||")
-                .append(testOrder.getCreatedAt().format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss")))
-                .append("\r");
-
-        // OBX Segments (Thông tin của từng kết quả xét nghiệm dự kiến)
-        int index = 1;
-        if (testResults != null) {
-            for (TestResult result : testResults) {
-                hl7.append("OBX|")
-                        .append(index++).append("|") // Set ID
-                        .append("ST|") // Value Type: String
-                        .append(result.getTestCode() != null ? result.getTestCode() : testCodeGenerator.generateTemporaryCode())
-                        .append("^")
-                        .append(result.getAnalyteName())
-                        .append("|1|") // Observation Sub-ID
-                        .append("|") // Không có giá trị vì là yêu cầu, không phải kết quả
-                        .append(result.getUnit() != null ? result.getUnit() : "")
-                        .append("|") // Unit
-                        .append(result.getReferenceRange() != null ? result.getReferenceRange() : "")
-                        .append("|N|||P") // Normal, Preliminary
-                        .append("\r");
-            }
-        }
-
-        return hl7.toString();
+        return hl7OrderMessageEncoder.encodeOrder(testOrder, testResults);
     }
 
     // Phân tích tin nhắn ORU_R01 để trích xuất kết quả xét nghiệm
@@ -282,8 +235,7 @@ public class Hl7ParserServiceImpl implements Hl7ParserService {
             return null;
         }
         try {
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
-            return LocalDateTime.parse(value.substring(0, Math.min(value.length(), 14)), formatter);
+            return LocalDateTime.parse(value.substring(0, Math.min(value.length(), 14)), HL7_TIMESTAMP);
         } catch (Exception e) {
             log.warn("Failed to parse timestamp {}: {}", value, e.getMessage());
             return null;
@@ -0,0 +1,225 @@
+/*
+ * @ {#} LocalFileStorageServiceImpl.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.test_order_service.services.impl;
+
+import fit.test_order_service.enums.StorageType;
+import fit.test_order_service.exceptions.NotFoundException;
+import fit.test_order_service.services.FileStorageService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.UUID;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/*
+ * @description: Content-addressed report storage on the local (or mounted shared) file system. Files are streamed
+ *               into a temp file while their SHA-256 is computed, then atomically renamed to objects/ab/cd/<sha256>.
+ *               The hash is the object key, so identical artifacts are stored once and the key doubles as an ETag.
+ *               Reusing an existing object touches its modification time; retention only deletes objects untouched
+ *               for a grace period, moving them aside first and restoring them if a reuse touched them meanwhile.
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+@Service
+@ConditionalOnProperty(name = "app.storage.type", havingValue = "LOCAL")
+@Slf4j
+public class LocalFileStorageServiceImpl implements FileStorageService {
+
+    private static final Pattern OBJECT_KEY = Pattern.compile("[0-9a-f]{64}");
+    private static final String TEMP_SUFFIX = ".part";
+
+    private final Path objectsDir;
+    private final Path tempDir;
+
+    public LocalFileStorageServiceImpl(@Value("${app.storage.local.root:${java.io.tmpdir}/lab-reports}") String root) {
+        Path rootDir = Paths.get(root).toAbsolutePath().normalize();
+        this.objectsDir = rootDir.resolve("objects");
+        this.tempDir = rootDir.resolve("tmp");
+        try {
+            Files.createDirectories(objectsDir);
+            // tmp nằm cùng file system với objects để rename là atomic
+            Files.createDirectories(tempDir);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not initialize local report storage at " + rootDir, e);
+        }
+        log.info("Local report storage initialized at {}", rootDir);
+    }
+
+    @Override
+    public String storeFile(byte[] fileBytes, String fileName, String directoryPath, String mimeType, String uploaderId) {
+        return storeStream(new ByteArrayInputStream(fileBytes), fileName, directoryPath, mimeType, uploaderId);
+    }
+
+    /**
+     * directoryPath không ảnh hưởng tới vị trí lưu: file được đặt theo hash nội dung để khử trùng lặp.
+     */
+    @Override
+    public String storeStream(InputStream content, String fileName, String directoryPath, String mimeType, String uploaderId) {
+        Path temp = null;
+        try {
+            temp = Files.createTempFile(tempDir, "upload-", TEMP_SUFFIX);
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            try (DigestInputStream in = new DigestInputStream(content, digest);
+                 OutputStream out = Files.newOutputStream(temp)) {
+                in.transferTo(out);
+            }
+
+            String objectKey = HexFormat.of().formatHex(digest.digest());
+            Path target = resolve(objectKey);
+            if (touch(target)) {
+                // Nội dung đã tồn tại, bỏ bản tạm
+                Files.deleteIfExists(temp);
+                log.debug("File {} deduplicated to existing object {}", fileName, objectKey);
+                return objectKey;
+            }
+
+            Files.createDirectories(target.getParent());
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException e) {
+                // Một request khác vừa ghi cùng nội dung
+                Files.deleteIfExists(temp);
+            }
+            log.info("File {} stored locally as object {}", fileName, objectKey);
+            return objectKey;
+
+        } catch (IOException e) {
+            deleteQuietly(temp);
+            log.error("Could not store file {} locally. Error: {}", fileName, e.getMessage(), e);
+            throw new RuntimeException("Could not store file " + fileName + ". Please try again!", e);
+        } catch (NoSuchAlgorithmException e) {
+            deleteQuietly(temp);
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    @Override
+    public Resource loadAsResource(String objectKey) {
+        Path path = resolve(objectKey);
+        if (!Files.isRegularFile(path)) {
+            throw new NotFoundException("Stored file not found: " + objectKey);
+        }
+        return new FileSystemResource(path);
+    }
+
+    @Override
+    public boolean deleteFile(String objectKey) {
+        try {
+            return Files.deleteIfExists(resolve(objectKey));
+        } catch (IOException e) {
+            log.warn("Could not delete stored object {}: {}", objectKey, e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public boolean deleteUnusedFile(String objectKey, Duration reuseGrace) {
+        Path target = resolve(objectKey);
+        Instant cutoff = Instant.now().minus(reuseGrace);
+        try {
+            if (!Files.exists(target) || !Files.getLastModifiedTime(target).toInstant().isBefore(cutoff)) {
+                return false;
+            }
+
+            // Dời file ra khỏi đường dẫn của key trước: lần lưu trùng nội dung sau thời điểm này sẽ ghi lại file mới
+            Path doomed = tempDir.resolve("deleting-" + objectKey + "-" + UUID.randomUUID() + TEMP_SUFFIX);
+            Files.move(target, doomed, StandardCopyOption.ATOMIC_MOVE);
+
+            // Kiểm tra lại: lần lưu trùng nội dung ngay trước khi dời file đã đánh dấu dùng lại
+            if (!Files.getLastModifiedTime(doomed).toInstant().isBefore(cutoff)) {
+                try {
+                    Files.move(doomed, target, StandardCopyOption.ATOMIC_MOVE);
+                } catch (FileAlreadyExistsException e) {
+                    // Đã có bản ghi lại cùng nội dung
+                    Files.deleteIfExists(doomed);
+                }
+                log.debug("Stored object {} was reused during deletion; kept", objectKey);
+                return false;
+            }
+            return Files.deleteIfExists(doomed);
+        } catch (NoSuchFileException e) {
+            return false;
+        } catch (IOException e) {
+            // File bị dời dở dang (nếu có) mang đuôi .part và được purgeIncompleteUploads dọn sau
+            log.warn("Could not delete stored object {}: {}", objectKey, e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public StorageType getStorageType() {
+        return StorageType.LOCAL;
+    }
+
+    @Override
+    public int purgeIncompleteUploads(Duration olderThan) {
+        Instant cutoff = Instant.now().minus(olderThan);
+        int deleted = 0;
+        try (Stream<Path> files = Files.list(tempDir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                if (file.getFileName().toString().endsWith(TEMP_SUFFIX)
+                        && Files.getLastModifiedTime(file).toInstant().isBefore(cutoff)
+                        && Files.deleteIfExists(file)) {
+                    deleted++;
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Could not purge temp report files: {}", e.getMessage());
+        }
+        return deleted;
+    }
+
+    private Path resolve(String objectKey) {
+        // Key chỉ có thể là hash hex nên không thể thoát ra ngoài thư mục lưu trữ
+        if (objectKey == null || !OBJECT_KEY.matcher(objectKey).matches()) {
+            throw new NotFoundException("Invalid stored file key: " + objectKey);
+        }
+        return objectsDir.resolve(objectKey.substring(0, 2))
+                .resolve(objectKey.substring(2, 4))
+                .resolve(objectKey);
+    }
+
+    // Đánh dấu object được dùng lại (cập nhật thời điểm sửa đổi); false nếu object không còn tồn tại
+    private static boolean touch(Path target) throws IOException {
+        try {
+            Files.setLastModifiedTime(target, FileTime.from(Instant.now()));
+            return true;
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ignored) {
+            // File tạm sẽ được purgeIncompleteUploads dọn sau
+        }
+    }
+}
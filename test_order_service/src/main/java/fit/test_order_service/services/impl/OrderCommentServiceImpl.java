@@ -107,13 +107,15 @@ public class OrderCommentServiceImpl implements OrderCommentService {
         OrderComment comment = orderCommentMapper.toEntity(request);
         comment.setAuthorUserId(currentUserId);
         comment.setCreatedAt(LocalDateTime.now(ZoneOffset.UTC));
+        // Gắn comment vào luồng của TestOrder sở hữu để tải cả cây bằng một truy vấn
+        comment.setThreadOrderId(getOrderIdForLog(comment));
 
         // Lưu xuống DB
         OrderComment savedComment = orderCommentRepository.save(comment);
 
         // Ghi log
         // Phải lấy orderId kể cả khi comment gắn vào result
-        String orderIdForLog = getOrderIdForLog(savedComment);
+        String orderIdForLog = savedComment.getThreadOrderId();
         OrderEventLog log = orderCommentMapper.toEventLogForCommentCreate(savedComment, orderIdForLog);
         ordereventLogRepository.save(log);
 
@@ -175,6 +177,7 @@ public class OrderCommentServiceImpl implements OrderCommentService {
                 .targetType(parentComment.getTargetType())
                 .targetId(parentComment.getTargetId())
                 .parentId(parentComment.getCommentId())
+                .threadOrderId(getOrderIdForLog(parentComment))
                 .authorUserId(currentUserId)
                 .content(request.getContent().trim())
                 .edited(false)
@@ -184,7 +187,7 @@ public class OrderCommentServiceImpl implements OrderCommentService {
         OrderComment savedReply = orderCommentRepository.save(reply);
 
         // 6. Ghi log
-        String orderIdForLog = getOrderIdForLog(savedReply);
+        String orderIdForLog = savedReply.getThreadOrderId();
         OrderEventLog log = orderCommentMapper.toEventLogForCommentCreate(savedReply, orderIdForLog);
         ordereventLogRepository.save(log);
 
@@ -289,6 +292,9 @@ public class OrderCommentServiceImpl implements OrderCommentService {
      * @return OrderID liên quan, hoặc null nếu không tìm thấy.
      */
     private String getOrderIdForLog(OrderComment comment) {
+        if (comment.getThreadOrderId() != null) {
+            return comment.getThreadOrderId();
+        }
         if (comment.getTargetType() == CommentTargetType.ORDER) {
             return comment.getTargetId();
         } else if (comment.getTargetType() == CommentTargetType.RESULT) {
@@ -133,10 +133,13 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
 
 @Service
 @RequiredArgsConstructor
@@ -168,6 +171,31 @@ public class OrderEventLogServiceImpl implements OrderEventLogService {
         orderEventLogRepository.save(eventLog);
     }
 
+    @Override
+    @Transactional
+    public void logEvents(List<TestOrder> orders, EventType eventType, Function<TestOrder, String> details) {
+        if (orders == null || orders.isEmpty()) return;
+
+        // Thông tin người dùng/request giống nhau cho cả lô nên chỉ lấy một lần
+        String currentUserId = Optional.ofNullable(SecurityUtils.getCurrentUserId()).orElse("SYSTEM");
+        String ipAddress = RequestUtils.getIpAddress();
+        String userAgent = RequestUtils.getUserAgent();
+
+        List<OrderEventLog> logs = new ArrayList<>(orders.size());
+        for (TestOrder order : orders) {
+            logs.add(OrderEventLog.builder()
+                    .orderRef(order)
+                    .orderId(order.getOrderId())
+                    .eventType(eventType)
+                    .actorUserId(currentUserId)
+                    .details(details.apply(order))
+                    .ipAddress(ipAddress)
+                    .userAgent(userAgent)
+                    .build());
+        }
+        orderEventLogRepository.saveAll(logs);
+    }
+
     @Override
     @Transactional // Đảm bảo update log cũng chạy trong transaction
     public void logOrderUpdate(TestOrder before, TestOrder after, EventType type) {
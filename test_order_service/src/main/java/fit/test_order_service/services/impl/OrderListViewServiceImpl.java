@@ -0,0 +1,220 @@
+/*
+ * @ {#} OrderListViewServiceImpl.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.test_order_service.services.impl;
+
+import fit.test_order_service.dtos.event.OrderChangedEvent;
+import fit.test_order_service.entities.OrderListView;
+import fit.test_order_service.entities.TestOrder;
+import fit.test_order_service.repositories.OrderListViewRepository;
+import fit.test_order_service.repositories.TestOrderRepository;
+import fit.test_order_service.repositories.TestResultRepository;
+import fit.test_order_service.services.OrderListViewService;
+import fit.test_order_service.specifications.TestOrderSpecification;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/*
+ * @description: Keeps order_list_view in sync with TestOrder/TestResult. Rows are recomputed from the source
+ *               tables after each committed change, so the projection is idempotent and self-healing. At startup a
+ *               background pass re-projects only the orders whose row is missing or older than the order's (or its
+ *               results') latest change, paging by order_id, so restarts neither block nor rescan the whole table.
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+@Service
+@Slf4j
+public class OrderListViewServiceImpl implements OrderListViewService {
+    private static final int REBUILD_BATCH_SIZE = 500;
+
+    private final OrderListViewRepository orderListViewRepository;
+
+    private final TestOrderRepository testOrderRepository;
+
+    private final TestResultRepository testResultRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ExecutorService backfill = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "order-list-view-backfill");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public OrderListViewServiceImpl(OrderListViewRepository orderListViewRepository,
+                                    TestOrderRepository testOrderRepository,
+                                    TestResultRepository testResultRepository,
+                                    PlatformTransactionManager transactionManager) {
+        this.orderListViewRepository = orderListViewRepository;
+        this.testOrderRepository = testOrderRepository;
+        this.testResultRepository = testResultRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    // Không đặt @Transactional ở đây: lỗi commit (vd: UnexpectedRollbackException) phải được bắt ngoài giao dịch,
+    // nếu không sẽ lan ra afterCommit của giao dịch nghiệp vụ đã commit
+    @EventListener
+    public void onOrderChanged(OrderChangedEvent event) {
+        try {
+            refresh(event.orderIds());
+        } catch (Exception e) {
+            // Read model lỗi không được làm hỏng luồng nghiệp vụ; dòng sẽ được sửa ở lần thay đổi sau hoặc khi rebuild
+            log.error("Failed to refresh order_list_view for orders {}: {}", event.orderIds(), e.getMessage(), e);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfNeeded() {
+        // Chạy nền để không chặn khởi động
+        backfill.execute(() -> {
+            try {
+                int refreshed = refreshStale();
+                if (refreshed > 0) {
+                    log.info("order_list_view caught up: {} rows refreshed or removed", refreshed);
+                }
+            } catch (Exception e) {
+                log.error("Failed to catch up order_list_view: {}", e.getMessage(), e);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        backfill.shutdownNow();
+    }
+
+    @Override
+    public void refresh(Collection<String> orderIds) {
+        transactionTemplate.executeWithoutResult(status -> project(orderIds, LocalDateTime.now(ZoneOffset.UTC)));
+    }
+
+    @Override
+    public int rebuildAll() {
+        int written = projectPages(orderListViewRepository::findOrderIdsAfter);
+        log.info("order_list_view rebuilt with {} rows", written);
+        return written;
+    }
+
+    @Override
+    public int refreshStale() {
+        return projectPages(orderListViewRepository::findStaleOrderIdsAfter)
+                + projectPages(orderListViewRepository::findOrphanOrderIdsAfter);
+    }
+
+    // Duyệt orderId theo keyset (order_id > id cuối của trang trước), mỗi trang chiếu lại trong một lượt
+    private int projectPages(BiFunction<String, PageRequest, List<String>> nextPage) {
+        int written = 0;
+        String lastOrderId = "";
+        List<String> ids;
+        do {
+            ids = nextPage.apply(lastOrderId, PageRequest.of(0, REBUILD_BATCH_SIZE));
+            if (ids.isEmpty()) {
+                break;
+            }
+            written += project(ids, null);
+            lastOrderId = ids.get(ids.size() - 1);
+        } while (ids.size() == REBUILD_BATCH_SIZE);
+        return written;
+    }
+
+    /**
+     * @param changedAt thời điểm thay đổi; null khi backfill (lấy mốc thay đổi mới nhất của order và kết quả)
+     */
+    private int project(Collection<String> orderIds, LocalDateTime changedAt) {
+        Set<String> ids = orderIds.stream()
+                .filter(Objects::nonNull)
+                .filter(id -> !TestOrderSpecification.SYSTEM_ORDER_ID.equals(id))
+                .collect(Collectors.toSet());
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        List<TestOrder> orders = testOrderRepository.findAllById(ids);
+
+        Map<String, long[]> counts = new HashMap<>();
+        Map<String, LocalDateTime> lastResultAt = new HashMap<>();
+        for (Object[] row : testResultRepository.countResultsByOrderIds(ids)) {
+            long total = ((Number) row[1]).longValue();
+            long abnormal = row[2] != null ? ((Number) row[2]).longValue() : 0L;
+            counts.put((String) row[0], new long[]{total, abnormal});
+            if (row.length > 3 && row[3] != null) {
+                lastResultAt.put((String) row[0], (LocalDateTime) row[3]);
+            }
+        }
+
+        List<OrderListView> rows = orders.stream()
+                .map(order -> toView(order, counts.getOrDefault(order.getOrderId(), new long[]{0, 0}),
+                        changedAt != null ? changedAt : lastChange(order, lastResultAt.get(order.getOrderId()))))
+                .toList();
+        orderListViewRepository.saveAll(rows);
+
+        // Order bị xóa cứng khỏi test_order thì xóa luôn dòng read model
+        Set<String> found = orders.stream().map(TestOrder::getOrderId).collect(Collectors.toSet());
+        List<String> missing = ids.stream().filter(id -> !found.contains(id)).toList();
+        if (!missing.isEmpty()) {
+            orderListViewRepository.deleteAllById(missing);
+        }
+
+        return rows.size();
+    }
+
+    // Mốc thay đổi mới nhất của order và kết quả của nó (khi backfill), để lần kiểm tra sau không coi dòng là cũ
+    private static LocalDateTime lastChange(TestOrder order, LocalDateTime lastResultAt) {
+        return Stream.of(order.getCreatedAt(), order.getUpdatedAt(), order.getRunAt(), order.getReviewedAt(),
+                        order.getDeletedAt(), lastResultAt)
+                .filter(Objects::nonNull)
+                .max(Comparator.naturalOrder())
+                .orElse(LocalDateTime.now(ZoneOffset.UTC));
+    }
+
+    private OrderListView toView(TestOrder order, long[] counts, LocalDateTime updatedAt) {
+        return OrderListView.builder()
+                .orderId(order.getOrderId())
+                .orderCode(order.getOrderCode())
+                .barcode(order.getBarcode())
+                .medicalRecordId(order.getMedicalRecordId())
+                .medicalRecordCode(order.getMedicalRecordCode())
+                .patientName(order.getFullName())
+                .ageYears(order.getAgeYearsSnapshot())
+                .gender(order.getGender())
+                .phone(order.getPhone())
+                .email(order.getEmail())
+                .testTypeId(order.getTestTypeIdSnapshot())
+                .testTypeName(order.getTestTypeNameSnapshot())
+                .status(order.getStatus())
+                .reviewStatus(order.getReviewStatus())
+                .reviewMode(order.getReviewMode())
+                .entrySource(order.getEntrySource())
+                .createdBy(order.getCreatedBy())
+                .reviewedBy(order.getReviewedBy())
+                .resultCount((int) counts[0])
+                .abnormalCount((int) counts[1])
+                .createdAt(order.getCreatedAt())
+                .runAt(order.getRunAt())
+                .reviewedAt(order.getReviewedAt())
+                .updatedAt(updatedAt)
+                .deleted(order.isDeleted())
+                .build();
+    }
+}
@@ -0,0 +1,319 @@
+/*
+ * @ {#} OrderStatsServiceImpl.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.test_order_service.services.impl;
+
+import fit.test_order_service.dtos.event.OrderChangedEvent;
+import fit.test_order_service.dtos.response.OrderStatsBucketResponse;
+import fit.test_order_service.entities.OrderStatsContribution;
+import fit.test_order_service.entities.OrderStatsRollup;
+import fit.test_order_service.entities.TestOrder;
+import fit.test_order_service.enums.AbnormalFlag;
+import fit.test_order_service.enums.StatsDimension;
+import fit.test_order_service.enums.StatsGranularity;
+import fit.test_order_service.exceptions.BadRequestException;
+import fit.test_order_service.repositories.OrderStatsContributionRepository;
+import fit.test_order_service.repositories.OrderStatsRollupRepository;
+import fit.test_order_service.repositories.TestOrderRepository;
+import fit.test_order_service.repositories.TestResultRepository;
+import fit.test_order_service.services.OrderStatsService;
+import fit.test_order_service.services.SchedulerLeaseService;
+import fit.test_order_service.specifications.TestOrderSpecification;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/*
+ * @description: Maintains hourly and daily order statistics incrementally. Each order's current contribution
+ *               (status, test type, entry source, turnaround bucket, result flag counts) is stored; on every
+ *               committed change the old contribution is subtracted and the new one added through delta upserts,
+ *               so dashboard reads touch one row per bucket and dimension value instead of scanning orders.
+ *               Orders are bucketed by their creation time (UTC).
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+@Service
+@Slf4j
+public class OrderStatsServiceImpl implements OrderStatsService {
+
+    public static final String LEASE_NAME = "order-stats-rebuild";
+
+    static final String TOTAL_VALUE = "ALL";
+    static final String UNASSIGNED = "UNASSIGNED";
+
+    // Giới hạn số bucket của một lần đọc
+    static final long MAX_HOUR_BUCKETS = 24L * 93;
+    static final long MAX_DAY_BUCKETS = 3660;
+
+    private static final int REBUILD_BATCH_SIZE = 500;
+    private static final Duration REBUILD_LEASE = Duration.ofMinutes(30);
+
+    // Ngưỡng (phút) và nhãn của histogram turnaround; nhãn cuối cho mọi giá trị >= ngưỡng cuối
+    private static final long[] TURNAROUND_LIMITS = {30, 60, 120, 240, 480, 1440};
+    private static final String[] TURNAROUND_LABELS = {"LT_30M", "30M_1H", "1H_2H", "2H_4H", "4H_8H", "8H_24H", "GTE_24H"};
+
+    private static final Comparator<RollupKey> KEY_ORDER = Comparator
+            .comparing(RollupKey::granularity)
+            .thenComparing(RollupKey::bucketStart)
+            .thenComparing(RollupKey::dimension)
+            .thenComparing(RollupKey::value);
+
+    private final OrderStatsRollupRepository rollupRepository;
+    private final OrderStatsContributionRepository contributionRepository;
+    private final TestOrderRepository testOrderRepository;
+    private final TestResultRepository testResultRepository;
+    private final SchedulerLeaseService schedulerLeaseService;
+    private final TransactionTemplate transactionTemplate;
+
+    public OrderStatsServiceImpl(OrderStatsRollupRepository rollupRepository,
+                                 OrderStatsContributionRepository contributionRepository,
+                                 TestOrderRepository testOrderRepository,
+                                 TestResultRepository testResultRepository,
+                                 SchedulerLeaseService schedulerLeaseService,
+                                 PlatformTransactionManager transactionManager) {
+        this.rollupRepository = rollupRepository;
+        this.contributionRepository = contributionRepository;
+        this.testOrderRepository = testOrderRepository;
+        this.testResultRepository = testResultRepository;
+        this.schedulerLeaseService = schedulerLeaseService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @EventListener
+    public void onOrderChanged(OrderChangedEvent event) {
+        try {
+            refresh(event.orderIds());
+        } catch (Exception e) {
+            // Thống kê lỗi không được làm hỏng luồng nghiệp vụ; rebuildAll sẽ đối soát lại
+            log.error("Failed to update order statistics for orders {}: {}", event.orderIds(), e.getMessage(), e);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfNeeded() {
+        if (contributionRepository.count() == 0 && testOrderRepository.count() > 1) { // Trừ SYSTEM_ORDER
+            log.info("Order statistics are empty, rebuilding from test_order");
+            rebuildAll();
+        }
+    }
+
+    @Override
+    public void refresh(Collection<String> orderIds) {
+        Set<String> ids = orderIds.stream()
+                .filter(Objects::nonNull)
+                .filter(id -> !TestOrderSpecification.SYSTEM_ORDER_ID.equals(id))
+                .collect(Collectors.toCollection(TreeSet::new));
+        if (ids.isEmpty()) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> applyChanges(ids));
+    }
+
+    @Override
+    public List<OrderStatsBucketResponse> getStats(StatsGranularity granularity, LocalDateTime from, LocalDateTime to,
+                                                   Set<StatsDimension> dimensions) {
+        if (granularity == null || from == null || to == null) {
+            throw new BadRequestException("granularity, from and to are required");
+        }
+        LocalDateTime start = bucketStart(granularity, from);
+        if (!start.isBefore(to)) {
+            throw new BadRequestException("from must be before to");
+        }
+        long buckets = granularity == StatsGranularity.HOUR
+                ? ChronoUnit.HOURS.between(start, to)
+                : ChronoUnit.DAYS.between(start, to);
+        long maxBuckets = granularity == StatsGranularity.HOUR ? MAX_HOUR_BUCKETS : MAX_DAY_BUCKETS;
+        if (buckets > maxBuckets) {
+            throw new BadRequestException("Range too large: at most " + maxBuckets + " " + granularity + " buckets");
+        }
+
+        Collection<StatsDimension> wanted = dimensions == null || dimensions.isEmpty()
+                ? EnumSet.allOf(StatsDimension.class)
+                : dimensions;
+
+        // Kết quả đã được sắp theo bucketStart nên chỉ cần gom liên tiếp
+        List<OrderStatsBucketResponse> result = new ArrayList<>();
+        OrderStatsBucketResponse current = null;
+        for (OrderStatsRollup row : rollupRepository.findBuckets(granularity, start, to, wanted)) {
+            if (current == null || !current.getBucketStart().equals(row.getBucketStart())) {
+                current = OrderStatsBucketResponse.builder()
+                        .bucketStart(row.getBucketStart())
+                        .counts(new EnumMap<>(StatsDimension.class))
+                        .build();
+                result.add(current);
+            }
+            current.getCounts()
+                    .computeIfAbsent(row.getDimension(), d -> new LinkedHashMap<>())
+                    .put(row.getDimensionValue(), row.getCountValue());
+        }
+        return result;
+    }
+
+    @Override
+    public int rebuildAll() {
+        // Hai replica cùng rebuild sẽ cộng trùng, nên chỉ một replica được chạy
+        if (!schedulerLeaseService.tryAcquire(LEASE_NAME, REBUILD_LEASE)) {
+            log.info("Order statistics rebuild is running on another instance, skipping");
+            return 0;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                rollupRepository.deleteAllInBatch();
+                contributionRepository.deleteAllInBatch();
+            });
+
+            int processed = 0;
+            int pageIndex = 0;
+            Page<TestOrder> page;
+            do {
+                page = testOrderRepository.findAll(PageRequest.of(pageIndex++, REBUILD_BATCH_SIZE, Sort.by("orderId")));
+                List<String> ids = page.map(TestOrder::getOrderId).getContent();
+                refresh(ids);
+                processed += ids.size();
+            } while (page.hasNext());
+
+            log.info("Order statistics rebuilt from {} orders", processed);
+            return processed;
+        } finally {
+            schedulerLeaseService.release(LEASE_NAME);
+        }
+    }
+
+    private void applyChanges(Set<String> ids) {
+        Map<String, OrderStatsContribution> previous = contributionRepository.findForUpdate(ids).stream()
+                .collect(Collectors.toMap(OrderStatsContribution::getOrderId, c -> c));
+        Map<String, TestOrder> orders = testOrderRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(TestOrder::getOrderId, o -> o));
+        Map<String, int[]> flags = countFlags(ids);
+
+        Map<RollupKey, Long> deltas = new HashMap<>();
+        List<OrderStatsContribution> toSave = new ArrayList<>();
+        List<String> toDelete = new ArrayList<>();
+
+        for (String id : ids) {
+            OrderStatsContribution before = previous.get(id);
+            TestOrder order = orders.get(id);
+            OrderStatsContribution after = order != null && !order.isDeleted() && order.getCreatedAt() != null
+                    ? toContribution(order, flags.get(id))
+                    : null;
+
+            if (before != null) {
+                accumulate(deltas, before, -1);
+            }
+            if (after != null) {
+                accumulate(deltas, after, 1);
+                toSave.add(after);
+            } else if (before != null) {
+                // Order bị xóa (mềm hoặc cứng) không còn được tính
+                toDelete.add(id);
+            }
+        }
+
+        List<Map.Entry<RollupKey, Long>> changes = deltas.entrySet().stream()
+                .filter(e -> e.getValue() != 0)
+                // Thứ tự cố định để các transaction song song khóa dòng theo cùng thứ tự
+                .sorted(Map.Entry.comparingByKey(KEY_ORDER))
+                .toList();
+        for (Map.Entry<RollupKey, Long> change : changes) {
+            RollupKey key = change.getKey();
+            rollupRepository.addDelta(key.granularity().name(), key.bucketStart(), key.dimension().name(),
+                    key.value(), change.getValue());
+        }
+
+        if (!toSave.isEmpty()) {
+            contributionRepository.saveAll(toSave);
+        }
+        if (!toDelete.isEmpty()) {
+            contributionRepository.deleteAllById(toDelete);
+        }
+        log.debug("Order statistics updated for {} orders with {} counter changes", ids.size(), changes.size());
+    }
+
+    private Map<String, int[]> countFlags(Set<String> ids) {
+        Map<String, int[]> flags = new HashMap<>();
+        for (Object[] row : testResultRepository.countFlagsByOrderIds(ids)) {
+            int[] counts = flags.computeIfAbsent((String) row[0], k -> new int[AbnormalFlag.values().length]);
+            counts[((AbnormalFlag) row[1]).ordinal()] = ((Number) row[2]).intValue();
+        }
+        return flags;
+    }
+
+    private static OrderStatsContribution toContribution(TestOrder order, int[] flags) {
+        int[] counts = flags != null ? flags : new int[AbnormalFlag.values().length];
+        return OrderStatsContribution.builder()
+                .orderId(order.getOrderId())
+                .bucketHour(order.getCreatedAt().truncatedTo(ChronoUnit.HOURS))
+                .status(order.getStatus() != null ? order.getStatus().name() : UNASSIGNED)
+                .testType(order.getTestTypeNameSnapshot() != null ? order.getTestTypeNameSnapshot() : UNASSIGNED)
+                .entrySource(order.getEntrySource() != null ? order.getEntrySource().name() : UNASSIGNED)
+                .turnaroundBucket(turnaroundBucket(order.getCreatedAt(), order.getRunAt()))
+                .flagH(counts[AbnormalFlag.H.ordinal()])
+                .flagL(counts[AbnormalFlag.L.ordinal()])
+                .flagA(counts[AbnormalFlag.A.ordinal()])
+                .flagN(counts[AbnormalFlag.N.ordinal()])
+                .build();
+    }
+
+    static String turnaroundBucket(LocalDateTime createdAt, LocalDateTime runAt) {
+        if (createdAt == null || runAt == null) {
+            return null;
+        }
+        long minutes = Math.max(0, Duration.between(createdAt, runAt).toMinutes());
+        for (int i = 0; i < TURNAROUND_LIMITS.length; i++) {
+            if (minutes < TURNAROUND_LIMITS[i]) {
+                return TURNAROUND_LABELS[i];
+            }
+        }
+        return TURNAROUND_LABELS[TURNAROUND_LABELS.length - 1];
+    }
+
+    private static void accumulate(Map<RollupKey, Long> deltas, OrderStatsContribution c, long sign) {
+        for (StatsGranularity granularity : StatsGranularity.values()) {
+            LocalDateTime bucket = bucketStart(granularity, c.getBucketHour());
+            add(deltas, granularity, bucket, StatsDimension.TOTAL, TOTAL_VALUE, sign);
+            add(deltas, granularity, bucket, StatsDimension.STATUS, c.getStatus(), sign);
+            add(deltas, granularity, bucket, StatsDimension.TEST_TYPE, c.getTestType(), sign);
+            add(deltas, granularity, bucket, StatsDimension.ENTRY_SOURCE, c.getEntrySource(), sign);
+            if (c.getTurnaroundBucket() != null) {
+                add(deltas, granularity, bucket, StatsDimension.TURNAROUND, c.getTurnaroundBucket(), sign);
+            }
+            add(deltas, granularity, bucket, StatsDimension.ABNORMAL_FLAG, AbnormalFlag.H.name(), sign * c.getFlagH());
+            add(deltas, granularity, bucket, StatsDimension.ABNORMAL_FLAG, AbnormalFlag.L.name(), sign * c.getFlagL());
+            add(deltas, granularity, bucket, StatsDimension.ABNORMAL_FLAG, AbnormalFlag.A.name(), sign * c.getFlagA());
+            add(deltas, granularity, bucket, StatsDimension.ABNORMAL_FLAG, AbnormalFlag.N.name(), sign * c.getFlagN());
+        }
+    }
+
+    private static void add(Map<RollupKey, Long> deltas, StatsGranularity granularity, LocalDateTime bucket,
+                            StatsDimension dimension, String value, long delta) {
+        if (delta != 0) {
+            deltas.merge(new RollupKey(granularity, bucket, dimension, value), delta, Long::sum);
+        }
+    }
+
+    private static LocalDateTime bucketStart(StatsGranularity granularity, LocalDateTime time) {
+        return time.truncatedTo(granularity == StatsGranularity.HOUR ? ChronoUnit.HOURS : ChronoUnit.DAYS);
+    }
+
+    private record RollupKey(StatsGranularity granularity, LocalDateTime bucketStart,
+                             StatsDimension dimension, String value) {
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * @ {#} PrintSnapshotServiceImpl.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.test_order_service.services.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fit.test_order_service.dtos.response.CommentOrderResponse;
+import fit.test_order_service.entities.PrintSnapshot;
+import fit.test_order_service.entities.ReportFileStore;
+import fit.test_order_service.entities.ReportJob;
+import fit.test_order_service.entities.TestOrder;
+import fit.test_order_service.entities.TestResult;
+import fit.test_order_service.repositories.PrintSnapshotRepository;
+import fit.test_order_service.repositories.ReportFileStoreRepository;
+import fit.test_order_service.services.PrintSnapshotService;
+import fit.test_order_service.utils.PdfGeneratorUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+
+/*
+ * @description: Content-addressed reuse of rendered print PDFs. The hash covers exactly the fields PdfGeneratorUtil
+ *               renders, including the creator/runner names it resolves from IAM (not just their ids), so two
+ *               requests with the same hash would produce the same document and the second one can point at the
+ *               ReportFileStore of the first instead of rendering and uploading again.
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PrintSnapshotServiceImpl implements PrintSnapshotService {
+
+    // Tăng khi layout PDF thay đổi để các snapshot cũ không còn được dùng lại
+    private static final String RENDER_VERSION = "order-pdf-v2";
+
+    private static final Comparator<TestResult> BY_RESULT_ID =
+            Comparator.comparing(TestResult::getResultId, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    private final PrintSnapshotRepository printSnapshotRepository;
+    private final ReportFileStoreRepository reportFileStoreRepository;
+    private final ObjectMapper objectMapper;
+    private final PdfGeneratorUtil pdfGeneratorUtil;
+
+    @Override
+    public String computeContentHash(TestOrder order, List<TestResult> results,
+                                     List<CommentOrderResponse> comments, String customFileName) {
+        StringBuilder canonical = new StringBuilder(512);
+        field(canonical, RENDER_VERSION);
+        field(canonical, customFileName);
+
+        field(canonical, order.getOrderId());
+        field(canonical, order.getFullName());
+        field(canonical, order.getGender());
+        field(canonical, order.getDateOfBirth());
+        field(canonical, order.getPhone());
+        field(canonical, order.getStatus());
+        // PDF in tên lấy từ IAM chứ không in id, nên hash theo tên đã phân giải
+        field(canonical, pdfGeneratorUtil.resolveUserFullName(order.getCreatedBy()));
+        field(canonical, order.getCreatedAt());
+        field(canonical, pdfGeneratorUtil.resolveUserFullName(order.getRunBy()));
+        field(canonical, order.getRunAt());
+
+        List<TestResult> sortedResults = new ArrayList<>(results != null ? results : List.of());
+        sortedResults.sort(BY_RESULT_ID);
+        field(canonical, sortedResults.size());
+        for (TestResult result : sortedResults) {
+            field(canonical, result.getResultId());
+            field(canonical, result.getAnalyteName());
+            field(canonical, result.getValueText());
+            field(canonical, result.getUnit());
+            field(canonical, result.getReferenceRange());
+            field(canonical, result.getAbnormalFlag());
+            field(canonical, result.getMeasuredAt());
+        }
+
+        appendComments(canonical, comments);
+        return sha256Hex(canonical.toString());
+    }
+
+    @Override
+    public Optional<ReportFileStore> findReusableArtifact(String orderId, String contentHash) {
+        if (orderId == null || contentHash == null) {
+            return Optional.empty();
+        }
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        return printSnapshotRepository
+                .findFirstByOrderIdAndContentHashAndFileIdIsNotNullOrderByCreatedAtDesc(orderId, contentHash)
+                .flatMap(snapshot -> reportFileStoreRepository.findById(snapshot.getFileId()))
+                .filter(file -> file.getExpiresAt() == null || file.getExpiresAt().isAfter(now));
+    }
+
+    @Override
+    public void recordSnapshot(ReportJob job, TestOrder order, List<TestResult> results,
+                               List<CommentOrderResponse> comments, String contentHash, ReportFileStore file) {
+        String headerJson;
+        String resultsJson;
+        String commentsJson;
+        try {
+            headerJson = objectMapper.writeValueAsString(toHeader(order));
+            resultsJson = objectMapper.writeValueAsString(toResultRows(results));
+            commentsJson = objectMapper.writeValueAsString(comments != null ? comments : List.of());
+        } catch (JsonProcessingException e) {
+            // Snapshot chỉ phục vụ tái sử dụng, không được làm hỏng job in
+            log.warn("Could not serialize print snapshot for job {}: {}", job.getJobId(), e.getMessage());
+            return;
+        }
+
+        PrintSnapshot snapshot = PrintSnapshot.builder()
+                .orderId(order.getOrderId())
+                .jobId(job.getJobId())
+                .orderHeaderJson(headerJson)
+                .resultsJson(resultsJson)
+                .commentsJson(commentsJson)
+                .contentHash(contentHash)
+                .fileId(file.getFileId())
+                .build();
+        printSnapshotRepository.save(snapshot);
+        log.debug("Recorded print snapshot for order {} with hash {}", order.getOrderId(), contentHash);
+    }
+
+    private void appendComments(StringBuilder canonical, List<CommentOrderResponse> comments) {
+        if (comments == null) {
+            field(canonical, 0);
+            return;
+        }
+        field(canonical, comments.size());
+        for (CommentOrderResponse comment : comments) {
+            field(canonical, comment.getId());
+            field(canonical, comment.getAuthor() != null ? comment.getAuthor().getFullName() : null);
+            field(canonical, comment.getContent());
+            field(canonical, comment.getCreatedAt());
+            field(canonical, comment.isEdited());
+            field(canonical, comment.getUpdatedAt());
+            field(canonical, comment.getTargetInfo() != null ? comment.getTargetInfo().getTargetType() : null);
+            field(canonical, comment.getTargetInfo() != null ? comment.getTargetInfo().getAnalyteName() : null);
+            appendComments(canonical, comment.getReplies());
+        }
+    }
+
+    private static Map<String, Object> toHeader(TestOrder order) {
+        Map<String, Object> header = new LinkedHashMap<>();
+        header.put("orderId", order.getOrderId());
+        header.put("fullName", order.getFullName());
+        header.put("gender", order.getGender());
+        header.put("dateOfBirth", order.getDateOfBirth());
+        header.put("phone", order.getPhone());
+        header.put("status", order.getStatus());
+        header.put("createdBy", order.getCreatedBy());
+        header.put("createdAt", order.getCreatedAt());
+        header.put("runBy", order.getRunBy());
+        header.put("runAt", order.getRunAt());
+        return header;
+    }
+
+    private static List<Map<String, Object>> toResultRows(List<TestResult> results) {
+        if (results == null) {
+            return List.of();
+        }
+        List<Map<String, Object>> rows = new ArrayList<>(results.size());
+        for (TestResult result : results) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("resultId", result.getResultId());
+            row.put("analyteName", result.getAnalyteName());
+            row.put("valueText", result.getValueText());
+            row.put("unit", result.getUnit());
+            row.put("referenceRange", result.getReferenceRange());
+            row.put("abnormalFlag", result.getAbnormalFlag());
+            row.put("measuredAt", result.getMeasuredAt());
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    // Mỗi giá trị được ghi kèm độ dài để hai chuỗi ghép khác nhau không thể cho cùng một biểu diễn
+    private static void field(StringBuilder canonical, Object value) {
+        if (value == null) {
+            canonical.append("~;");
+            return;
+        }
+        String text = value.toString();
+        canonical.append(text.length()).append(':').append(text).append(';');
+    }
+
+    private static String sha256Hex(String canonical) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(canonical.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * @ {#} ReportFileRetentionServiceImpl.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.test_order_service.services.impl;
+
+import fit.test_order_service.entities.ReportFileStore;
+import fit.test_order_service.repositories.ReportFileStoreRepository;
+import fit.test_order_service.repositories.ReportJobRepository;
+import fit.test_order_service.services.FileStorageService;
+import fit.test_order_service.services.ReportFileRetentionService;
+import fit.test_order_service.services.SchedulerLeaseService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/*
+ * @description: Retention sweeper for report artifacts in the LOCAL content-addressed store (Cloudinary keeps no
+ *               expiry and cannot delete, so the sweeper is not created there). Expired rows are deleted in batches
+ *               after detaching them from their jobs; the underlying object is removed only once no remaining row
+ *               shares its key and no store has reused it within the reuse grace period.
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+@Service
+@ConditionalOnProperty(name = "app.storage.type", havingValue = "LOCAL")
+@Slf4j
+public class ReportFileRetentionServiceImpl implements ReportFileRetentionService {
+
+    public static final String LEASE_NAME = "report-file-retention";
+
+    // File tạm (.part) cũ hơn mốc này chắc chắn không còn được ghi tiếp
+    private static final Duration INCOMPLETE_UPLOAD_AGE = Duration.ofHours(1);
+
+    // Object vừa được lưu trùng nội dung có thể chưa kịp có bản ghi ReportFileStore: không xóa trong khoảng này
+    private static final Duration REUSE_GRACE = Duration.ofHours(1);
+
+    private final ReportFileStoreRepository reportFileStoreRepository;
+    private final ReportJobRepository reportJobRepository;
+    private final FileStorageService fileStorageService;
+    private final SchedulerLeaseService schedulerLeaseService;
+
+    private final long retentionDays;
+    private final int batchSize;
+    private final int maxFilesPerRun;
+    private final Duration leaseDuration;
+
+    public ReportFileRetentionServiceImpl(ReportFileStoreRepository reportFileStoreRepository,
+                                          ReportJobRepository reportJobRepository,
+                                          FileStorageService fileStorageService,
+                                          SchedulerLeaseService schedulerLeaseService,
+                                          @Value("${app.storage.retention-days:30}") long retentionDays,
+                                          @Value("${app.storage.sweep-batch-size:200}") int batchSize,
+                                          @Value("${app.storage.max-files-per-sweep:5000}") int maxFilesPerRun,
+                                          @Value("${app.storage.sweep-lease-seconds:600}") long leaseSeconds) {
+        this.reportFileStoreRepository = reportFileStoreRepository;
+        this.reportJobRepository = reportJobRepository;
+        this.fileStorageService = fileStorageService;
+        this.schedulerLeaseService = schedulerLeaseService;
+        this.retentionDays = retentionDays;
+        this.batchSize = batchSize;
+        this.maxFilesPerRun = maxFilesPerRun;
+        this.leaseDuration = Duration.ofSeconds(leaseSeconds);
+    }
+
+    @Override
+    public int sweepExpiredFiles() {
+        if (!schedulerLeaseService.tryAcquire(LEASE_NAME, leaseDuration)) {
+            return 0;
+        }
+
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        LocalDateTime createdBefore = now.minusDays(retentionDays);
+        int deletedRows = 0;
+        int deletedObjects = 0;
+
+        while (deletedRows < maxFilesPerRun) {
+            int limit = Math.min(batchSize, maxFilesPerRun - deletedRows);
+            List<ReportFileStore> expired = reportFileStoreRepository.findExpired(
+                    fileStorageService.getStorageType(), now, createdBefore, PageRequest.of(0, limit));
+            if (expired.isEmpty()) {
+                break;
+            }
+
+            List<String> fileIds = expired.stream().map(ReportFileStore::getFileId).toList();
+            Set<String> objectKeys = new LinkedHashSet<>();
+            expired.forEach(file -> objectKeys.add(file.getObjectKey()));
+
+            // Xóa bản ghi trước, sau đó mới xóa object để không có bản ghi trỏ tới file không tồn tại
+            reportJobRepository.detachResultFiles(fileIds);
+            reportFileStoreRepository.deleteAllByIdInBatch(fileIds);
+            deletedRows += fileIds.size();
+
+            for (String objectKey : objectKeys) {
+                if (!reportFileStoreRepository.existsByStorageTypeAndObjectKey(fileStorageService.getStorageType(), objectKey)
+                        && fileStorageService.deleteUnusedFile(objectKey, REUSE_GRACE)) {
+                    deletedObjects++;
+                }
+            }
+
+            if (expired.size() < limit) {
+                break;
+            }
+        }
+
+        int purgedUploads = fileStorageService.purgeIncompleteUploads(INCOMPLETE_UPLOAD_AGE);
+        if (deletedRows > 0 || purgedUploads > 0) {
+            log.info("Report file retention: rows={}, objects={}, incompleteUploads={}",
+                    deletedRows, deletedObjects, purgedUploads);
+        }
+        return deletedRows;
+    }
+}
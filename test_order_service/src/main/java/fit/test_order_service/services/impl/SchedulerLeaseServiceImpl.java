@@ -0,0 +1,77 @@
+/*
+ * @ {#} SchedulerLeaseServiceImpl.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.test_order_service.services.impl;
+
+import fit.test_order_service.repositories.SchedulerLeaseRepository;
+import fit.test_order_service.services.SchedulerLeaseService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.UUID;
+
+/*
+ * @description: Database-backed implementation of SchedulerLeaseService
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SchedulerLeaseServiceImpl implements SchedulerLeaseService {
+
+    private final SchedulerLeaseRepository schedulerLeaseRepository;
+
+    private final String ownerId = resolveOwnerId();
+
+    @Override
+    public boolean tryAcquire(String leaseName, Duration duration) {
+        try {
+            schedulerLeaseRepository.insertIfAbsent(leaseName);
+            boolean acquired = schedulerLeaseRepository.tryAcquire(leaseName, ownerId, duration.toSeconds()) == 1;
+            if (!acquired) {
+                log.debug("Lease '{}' is held by another replica", leaseName);
+            }
+            return acquired;
+        } catch (DataAccessException e) {
+            // Không chắc ai đang giữ lease thì bỏ qua lượt chạy này
+            log.warn("Could not acquire lease '{}': {}", leaseName, e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public void release(String leaseName) {
+        try {
+            schedulerLeaseRepository.release(leaseName, ownerId);
+        } catch (DataAccessException e) {
+            log.warn("Could not release lease '{}': {}", leaseName, e.getMessage());
+        }
+    }
+
+    @Override
+    public String getOwnerId() {
+        return ownerId;
+    }
+
+    private static String resolveOwnerId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "unknown";
+        }
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        String id = host + "-" + suffix;
+        return id.length() > 64 ? id.substring(id.length() - 64) : id;
+    }
+}
@@ -11,6 +11,7 @@ import fit.test_order_service.entities.TestCatalog;
 import fit.test_order_service.mappers.TestCatalogMapper;
 import fit.test_order_service.repositories.TestCatalogRepository;
 import fit.test_order_service.services.TestCatalogService;
+import fit.test_order_service.utils.TestCatalogIndex;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
@@ -29,6 +30,8 @@ public class TestCatalogServiceImpl implements TestCatalogService {
 
     private final TestCatalogMapper testCatalogMapper;
 
+    private final TestCatalogIndex testCatalogIndex;
+
     @Override
     public List<TestCatalogResponse> findByTestNameContainingIgnoreCaseAndActiveTrue(String keyword) {
         List<TestCatalog> tests = testCatalogRepository
@@ -43,4 +46,10 @@ public class TestCatalogServiceImpl implements TestCatalogService {
 
         return tests.stream().map(testCatalogMapper::toResponse).toList();
     }
+
+    @Override
+    public int refreshCatalogIndex() {
+        testCatalogIndex.rebuild();
+        return testCatalogIndex.size();
+    }
 }
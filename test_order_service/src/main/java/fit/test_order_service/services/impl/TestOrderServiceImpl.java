@@ -8,23 +8,27 @@ import ca.uhn.hl7v2.model.v25.segment.OBX;
 import ca.uhn.hl7v2.parser.Parser;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import fit.test_order_service.client.IamFeignClient;
 import fit.test_order_service.client.PatientMedicalRecordFeignClient;
 import fit.test_order_service.client.WarehouseFeignClient;
 import fit.test_order_service.client.dtos.PatientMedicalRecordInternalResponse;
-import fit.test_order_service.client.dtos.UserInternalResponse;
 import fit.test_order_service.dtos.event.SystemEvent;
 import fit.test_order_service.dtos.request.*;
 import fit.test_order_service.dtos.response.*;
 import fit.test_order_service.entities.*;
 import fit.test_order_service.enums.*;
 import fit.test_order_service.exceptions.BadRequestException;
+import fit.test_order_service.exceptions.InvalidSortFieldException;
 import fit.test_order_service.exceptions.NotFoundException;
 import fit.test_order_service.exceptions.UnauthorizedException;
 import fit.test_order_service.mappers.TestOrderMapper;
 import fit.test_order_service.repositories.*;
 import fit.test_order_service.services.*;
+import fit.test_order_service.specifications.OrderListViewSpecification;
 import fit.test_order_service.specifications.TestOrderSpecification;
+import fit.test_order_service.utils.BarcodeClaimRegistry;
+import fit.test_order_service.utils.FilteredCountCache;
+import fit.test_order_service.utils.KeysetCursor;
+import fit.test_order_service.utils.OrderChangeTracker;
 import fit.test_order_service.utils.SecurityUtils;
 import fit.test_order_service.utils.SortFields;
 import fit.test_order_service.utils.SortUtils;
@@ -33,6 +37,7 @@ import fit.test_order_service.validators.TestOrderValidator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -49,8 +54,6 @@ import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 @Service
 @Slf4j
@@ -61,7 +64,6 @@ public class TestOrderServiceImpl implements TestOrderService {
     private final PatientMedicalRecordFeignClient patientMedicalRecordFeignClient;
     private final OrderEventLogService orderEventLogService;
     private final TestOrderValidator testOrderValidator;
-    private final IamFeignClient iamFeignClient;
     private final TestOrderSpecification testOrderSpecification;
 
     private final TestCatalogRepository testCatalogRepository;
@@ -74,7 +76,6 @@ public class TestOrderServiceImpl implements TestOrderService {
 
     private final TestResultRepository testResultRepository;
 
-    private final OrderCommentRepository orderCommentRepository;
     private final Hl7ParserService hl7ParserService;
 
     private final TestTypeRepository testTypeRepository;
@@ -83,6 +84,15 @@ public class TestOrderServiceImpl implements TestOrderService {
     private final Parser parser;
 
     private final EventLogPublisher eventLogPublisher;
+    private final BarcodeClaimRegistry barcodeClaimRegistry;
+    private final OrderListViewRepository orderListViewRepository;
+    private final OrderListViewSpecification orderListViewSpecification;
+    private final OrderChangeTracker orderChangeTracker;
+    private final FilteredCountCache filteredCountCache;
+    private final CommentThreadService commentThreadService;
+    private final PrintSnapshotService printSnapshotService;
+
+    private static final int MAX_CURSOR_PAGE_SIZE = 100;
 
     @Override
     @Transactional
@@ -157,44 +167,8 @@ public class TestOrderServiceImpl implements TestOrderService {
             response.setResults(testOrderMapper.toResultResponseList(testOrder.getResults()));
         }
 
-        // --- BẮT ĐẦU LOGIC LẤY COMMENT (MAP THỦ CÔNG) ---
-
-        // 2. Lấy ID của tất cả TestResult thuộc TestOrder này
-        List<String> resultIds = testOrder.getResults()
-                .stream()
-                .map(TestResult::getResultId)
-                .collect(Collectors.toList());
-
-        // 3. Lấy top-level comments cho ORDER
-        List<OrderComment> orderComments = orderCommentRepository
-                .findByTargetTypeAndTargetIdAndParentIdIsNullOrderByCreatedAtAsc(
-                        CommentTargetType.ORDER,
-                        testOrder.getOrderId()
-                );
-
-        // 4. Lấy top-level comments cho RESULTS
-        List<OrderComment> resultComments = new ArrayList<>();
-        if (!resultIds.isEmpty()) {
-            resultComments = orderCommentRepository
-                    .findByTargetTypeAndTargetIdInAndParentIdIsNullOrderByCreatedAtAsc(
-                            CommentTargetType.RESULT,
-                            resultIds
-                    );
-        }
-
-        // 5. Gộp, sắp xếp, và map thủ công sang DTO mới của bạn
-        List<CommentOrderResponse> combinedComments = Stream.concat(
-                        orderComments.stream(),
-                        resultComments.stream()
-                )
-                .sorted(Comparator.comparing(OrderComment::getCreatedAt))
-                .map(this::mapToCommentOrderResponse) // <-- Gọi hàm map thủ công
-                .collect(Collectors.toList());
-
-        // 6. Set vào response
-        response.setComments(combinedComments);
-
-        // --- KẾT THÚC LOGIC LẤY COMMENT ---
+        // 2. Toàn bộ cây comment của order và các result của nó (một truy vấn)
+        response.setComments(commentThreadService.loadThread(testOrder));
 
         return response;
     }
@@ -209,101 +183,6 @@ public class TestOrderServiceImpl implements TestOrderService {
         return testOrderMapper.toResponse(testOrder, testTypeResponse);
     }
 
-    // --- CÁC HÀM HELPER MAP THỦ CÔNG CHO getTestOrderById ---
-
-    /**
-     * Map thủ công từ Entity (OrderComment) sang DTO mới (CommentOrderResponse)
-     */
-    private CommentOrderResponse mapToCommentOrderResponse(OrderComment comment) {
-        if (comment == null) {
-            return null;
-        }
-
-        // Map các replies trước (đệ quy)
-        List<CommentOrderResponse> replyDTOs = mapReplies(comment.getReplies());
-
-        return CommentOrderResponse.builder()
-                .id(comment.getCommentId())
-                .author(mapAuthor(comment.getAuthorUserId())) // Gọi helper map author
-                .targetInfo(mapTarget(comment.getTargetType(), comment.getTargetId())) // Gọi helper map target
-                .content(comment.getContent())
-                .createdAt(comment.getCreatedAt())
-                .edited(comment.isEdited())
-                .updatedAt(comment.getUpdatedAt())
-                .replies(replyDTOs)
-                .build();
-    }
-
-    /**
-     * Map thủ công danh sách replies (Đệ quy)
-     */
-    private List<CommentOrderResponse> mapReplies(List<OrderComment> replies) {
-        if (replies == null || replies.isEmpty()) {
-            return Collections.emptyList();
-        }
-        return replies.stream()
-                .map(this::mapToCommentOrderResponse) // Gọi lại hàm map chính
-                .collect(Collectors.toList());
-    }
-
-    /**
-     * Map thủ công thông tin Author (Sử dụng CommentAuthorResponse DTO)
-     */
-    private CommentAuthorResponse mapAuthor(String authorUserId) {
-        if (authorUserId == null) {
-            return new CommentAuthorResponse("SYSTEM", "Hệ thống", List.of("SYSTEM"));
-        }
-        try {
-            ApiResponse<UserInternalResponse> apiResponse = iamFeignClient.getUserById(authorUserId);
-            UserInternalResponse userData = (apiResponse != null) ? apiResponse.getData() : null;
-
-            if (userData != null) {
-                return CommentAuthorResponse.builder()
-                        .id(userData.userId())
-                        .fullName(userData.fullName())
-                        .roles(userData.roleName() != null ? List.of(userData.roleName()) : List.of("UNKNOWN"))
-                        .build();
-            }
-        } catch (Exception e) {
-            log.error("Failed to fetch user data from IAM for userId: {}. Error: {}", authorUserId, e.getMessage());
-        }
-        return CommentAuthorResponse.builder()
-                .id(authorUserId)
-                .fullName("Người dùng không xác định")
-                .roles(List.of("UNKNOWN"))
-                .build();
-    }
-
-    /**
-     * Map thủ công thông tin Target (Sử dụng CommentResponse DTO)
-     */
-    private CommentResponse mapTarget(CommentTargetType type, String targetId) {
-        CommentResponse.CommentResponseBuilder builder = CommentResponse.builder()
-                .targetType(type);
-
-        if (type == CommentTargetType.ORDER) {
-            builder.testOrderId(targetId);
-
-        } else if (type == CommentTargetType.RESULT) {
-            builder.resultId(targetId);
-            try {
-                Optional<TestResult> resultOpt = testResultRepository.findById(targetId);
-                if (resultOpt.isPresent()) {
-                    TestResult result = resultOpt.get();
-
-                    builder.testOrderId(result.getOrderId());
-                    builder.analyteName(result.getAnalyteName());
-                    builder.resultValue(result.getValueText());
-                    builder.testName(result.getAnalyteName());
-                    builder.testCode(result.getTestCode());
-                }
-            } catch (Exception e) {
-                log.error("Failed to fetch target info for resultId: {}. Error: {}", targetId, e.getMessage());
-            }
-        }
-        return builder.build();
-    }
-
     @Override
     @Transactional
     public void deleteTestOrder(String id) {
@@ -507,9 +386,10 @@ public class TestOrderServiceImpl implements TestOrderService {
 
         Pageable pageable = PageRequest.of(page, size, validSort);
 
-        Specification<TestOrder> spec = testOrderSpecification.build(search, startDate, endDate, status, reviewStatus, reviewMode, gender, createdBy, reviewedBy);
+        // Đọc từ read model order_list_view: một truy vấn có index, không gọi thêm service/DB cho từng dòng
+        Specification<OrderListView> spec = orderListViewSpecification.build(search, startDate, endDate, status, reviewStatus, reviewMode, gender, createdBy, reviewedBy);
 
-        Page<TestOrder> testOrderPage = testOrderRepository.findAll(spec, pageable);
+        Page<OrderListView> viewPage = orderListViewRepository.findAll(spec, pageable);
 
         FilterInfo filterInfo = FilterInfo.builder()
                 .search(search)
@@ -523,23 +403,16 @@ public class TestOrderServiceImpl implements TestOrderService {
                 .reviewedBy(reviewedBy)
                 .build();
 
-        if (testOrderPage.isEmpty()) {
+        if (viewPage.isEmpty()) {
             return PageResponse.empty(page, size, "No data", filterInfo);
         }
 
-        Page<TestOrderResponse> dtoPage = testOrderPage.map(testOrder -> {
-
-            // 1. Gọi TestTypeService để lấy chi tiết TestType
-            TestTypeResponse testTypeResponse = testTypeService.getTestTypeById(testOrder.getTestTypeRef().getId());
-
-            // 2. Map TestOrder → TestOrderResponse (kèm testTypeResponse)
-            return testOrderMapper.toResponse(testOrder, testTypeResponse);
-        });
+        Page<TestOrderResponse> dtoPage = viewPage.map(testOrderMapper::toListResponse);
 
         try {
             String details = String.format(
                     "User fetched test orders list [page=%d, size=%d, sort=%s, filters=%s]",
-                    page, size, Arrays.toString(sort), new ObjectMapper().writeValueAsString(filterInfo)
+                    page, size, Arrays.toString(sort), objectMapper.writeValueAsString(filterInfo)
             );
             orderEventLogService.logEvent(null, EventType.VIEW_ALL, details);
         } catch (JsonProcessingException e) {
@@ -549,6 +422,100 @@ public class TestOrderServiceImpl implements TestOrderService {
         return PageResponse.from(dtoPage, filterInfo);
     }
 
+    @Override
+    public CursorPageResponse<TestOrderResponse> getTestOrdersByCursor(String cursor, int size, String sort, String search,
+                                                                       LocalDate startDate, LocalDate endDate, OrderStatus status, ReviewStatus reviewStatus,
+                                                                       ReviewMode reviewMode, Gender gender, String createdBy, String reviewedBy,
+                                                                       boolean includeTotal) {
+        int pageSize = Math.min(Math.max(size, 1), MAX_CURSOR_PAGE_SIZE);
+
+        FilterInfo filterInfo = FilterInfo.builder()
+                .search(search)
+                .startDate(startDate)
+                .endDate(endDate)
+                .status(status)
+                .reviewStatus(reviewStatus)
+                .reviewMode(reviewMode)
+                .gender(gender)
+                .createdBy(createdBy)
+                .reviewedBy(reviewedBy)
+                .build();
+        String filterKey = String.join("|", String.valueOf(search), String.valueOf(startDate), String.valueOf(endDate),
+                String.valueOf(status), String.valueOf(reviewStatus), String.valueOf(reviewMode), String.valueOf(gender),
+                String.valueOf(createdBy), String.valueOf(reviewedBy));
+        String fingerprint = Integer.toHexString(filterKey.hashCode());
+
+        String sortField;
+        Sort.Direction direction;
+        KeysetCursor after = null;
+        if (StringUtils.hasText(cursor)) {
+            // Cursor quyết định thứ tự sắp xếp để các trang tiếp theo luôn nhất quán với trang đầu
+            after = KeysetCursor.decode(cursor);
+            if (!fingerprint.equals(after.filterFingerprint())) {
+                throw new BadRequestException("Cursor does not match the current filters");
+            }
+            sortField = after.sortField();
+            direction = after.direction();
+        } else {
+            String[] parts = StringUtils.hasText(sort) ? sort.split(",") : new String[0];
+            sortField = parts.length > 0 ? parts[0].trim() : SortFields.DEFAULT_TEST_ORDER_SORT;
+            direction = parts.length > 1 && "asc".equalsIgnoreCase(parts[1].trim())
+                    ? Sort.Direction.ASC
+                    : Sort.Direction.DESC;
+        }
+
+        if (!SortFields.TEST_ORDER_KEYSET_SORT_FIELDS.contains(sortField)) {
+            throw new InvalidSortFieldException(
+                    String.format("Sort field '%s' is not supported for cursor paging. Allowed fields are: %s",
+                            sortField, SortFields.TEST_ORDER_KEYSET_SORT_FIELDS));
+        }
+
+        Specification<OrderListView> filterSpec = orderListViewSpecification.build(search, startDate, endDate, status, reviewStatus, reviewMode, gender, createdBy, reviewedBy);
+        Specification<OrderListView> spec = after == null
+                ? filterSpec
+                : filterSpec.and(orderListViewSpecification.seekAfter(sortField, direction, after.sortValue(), after.orderId()));
+
+        Sort keysetSort = Sort.by(
+                new Sort.Order(direction, sortField),
+                new Sort.Order(direction.isDescending() ? Sort.Direction.ASC : Sort.Direction.DESC, "orderId"));
+
+        // Lấy dư một dòng để biết còn trang sau hay không, không cần COUNT(*)
+        List<OrderListView> rows = orderListViewRepository.findBy(spec,
+                q -> q.sortBy(keysetSort).limit(pageSize + 1).all());
+
+        boolean hasNext = rows.size() > pageSize;
+        if (hasNext) {
+            rows = rows.subList(0, pageSize);
+        }
+
+        String nextCursor = null;
+        if (hasNext) {
+            OrderListView last = rows.get(rows.size() - 1);
+            LocalDateTime lastValue = "updatedAt".equals(sortField) ? last.getUpdatedAt() : last.getCreatedAt();
+            nextCursor = new KeysetCursor(sortField, direction, lastValue, last.getOrderId(), fingerprint).encode();
+        }
+
+        Long total = includeTotal
+                ? filteredCountCache.get(filterKey, () -> orderListViewRepository.count(filterSpec))
+                : null;
+
+        if (after == null) {
+            // Chỉ ghi log cho trang đầu, màn hình polling không sinh thêm một event cho mỗi trang cuộn
+            orderEventLogService.logEvent(null, EventType.VIEW_ALL,
+                    String.format("User fetched test orders by cursor [size=%d, sort=%s,%s]", pageSize, sortField, direction));
+        }
+
+        return CursorPageResponse.<TestOrderResponse>builder()
+                .values(rows.stream().map(testOrderMapper::toListResponse).toList())
+                .size(pageSize)
+                .nextCursor(nextCursor)
+                .hasNext(hasNext)
+                .totalElements(total)
+                .sorts(List.of(sortField + ": " + direction))
+                .filters(filterInfo)
+                .build();
+    }
+
     @Override
     @Transactional
     public PrintJobResponse requestPrintOrder(String orderId, PrintTestOrderRequest request) {
@@ -583,27 +550,15 @@ public class TestOrderServiceImpl implements TestOrderService {
 
         // 3b. Lấy comments
         log.info("Including comments for print job for order: {}", orderId);
-        List<String> resultIds = testOrder.getResults()
-                .stream()
-                .map(TestResult::getResultId)
-                .collect(Collectors.toList());
-        List<OrderComment> orderComments = orderCommentRepository
-                .findByTargetTypeAndTargetIdAndParentIdIsNullOrderByCreatedAtAsc(
-                        CommentTargetType.ORDER,
-                        testOrder.getOrderId()
-                );
-        List<OrderComment> resultComments = new ArrayList<>();
-        if (!resultIds.isEmpty()) {
-            resultComments = orderCommentRepository
-                    .findByTargetTypeAndTargetIdInAndParentIdIsNullOrderByCreatedAtAsc(
-                            CommentTargetType.RESULT,
-                            resultIds
-                    );
+        List<CommentOrderResponse> commentsToPrint = commentThreadService.loadThread(testOrder);
+
+        // 3c. Nếu dữ liệu in không đổi so với lần render trước thì dùng lại file PDF đã có
+        String contentHash = printSnapshotService.computeContentHash(
+                testOrder, testOrder.getResults(), commentsToPrint, requestedFileName);
+        Optional<ReportFileStore> reusable = printSnapshotService.findReusableArtifact(orderId, contentHash);
+        if (reusable.isPresent()) {
+            return reusePrintArtifact(testOrder, currentUserId, requestedFileName, commentsToPrint, reusable.get());
         }
-        List<CommentOrderResponse> commentsToPrint = Stream.concat(orderComments.stream(), resultComments.stream())
-                .sorted(Comparator.comparing(OrderComment::getCreatedAt))
-                .map(this::mapToCommentOrderResponse) // Dùng lại helper map thủ công
-                .collect(Collectors.toList());
 
         // 4. Tạo đối tượng ReportJob
         ReportJob printJob = ReportJob.builder()
@@ -635,6 +590,40 @@ public class TestOrderServiceImpl implements TestOrderService {
                 .build();
     }
 
+    // Tạo job đã hoàn tất trỏ tới file của snapshot trùng hash, không render và upload lại
+    private PrintJobResponse reusePrintArtifact(TestOrder testOrder, String currentUserId, String requestedFileName,
+                                                List<CommentOrderResponse> commentsToPrint, ReportFileStore file) {
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        ReportJob reusedJob = ReportJob.builder()
+                .jobType(JobType.PRINT_ORDER_PDF)
+                .status(JobStatus.SUCCEEDED)
+                .progressPct(100)
+                .requestedBy(currentUserId)
+                .orderId(testOrder.getOrderId())
+                .printOrderRef(testOrder)
+                .paramsJson(createParamsJson(requestedFileName, commentsToPrint))
+                .resultFileId(file.getFileId())
+                .resultFile(file)
+                .message("PDF reused from previous render: " + file.getObjectKey())
+                .startedAt(now)
+                .finishedAt(now)
+                .build();
+
+        ReportJob savedJob = reportJobRepository.save(reusedJob);
+
+        String logDetails = "Print job requested with Job ID: " + savedJob.getJobId()
+                + " (Reused file " + file.getFileId() + ")";
+        orderEventLogService.logEvent(testOrder, EventType.PRINT_REQUEST, logDetails);
+
+        return PrintJobResponse.builder()
+                .jobId(savedJob.getJobId())
+                .orderId(testOrder.getOrderId())
+                .status(savedJob.getStatus())
+                .message("Print job completed using an existing report file.")
+                .requestedAt(savedJob.getCreatedAt())
+                .build();
+    }
+
     // Helper tạo JSON
     private String createParamsJson(String customFileName, List<CommentOrderResponse> comments) {
         Map<String, Object> params = new HashMap<>();
@@ -956,32 +945,18 @@ public class TestOrderServiceImpl implements TestOrderService {
     public TestOrderResponse createShellOrderFromBarcode(String barcode) {
         log.info("Auto-creating shell test order for barcode: {}", barcode);
 
-        // TODO: Cân nhắc kiểm tra barcode trùng lặp nếu nghiệp vụ yêu cầu
-        // Ví dụ: if (testOrderRepository.existsByBarcode(barcode)) { ... }
-
-        TestOrder testOrder = new TestOrder();
-        testOrder.setBarcode(barcode); // (Bạn sẽ cần thêm trường này ở bước 4)
-        testOrder.setStatus(OrderStatus.PENDING);
-        testOrder.setEntrySource(EntrySource.AUTO_INSTRUMENT); // (Bạn sẽ cần thêm ở bước 5)
-        testOrder.setCreatedAt(LocalDateTime.now(ZoneOffset.UTC));
-
-        // Đặt createdBy là một giá trị hệ thống đặc biệt
-        // vì không có người dùng nào đăng nhập khi máy gọi
-        testOrder.setCreatedBy("SYSTEM_AUTO_CREATE");
-
-        TestTypeResponse testTypeResponse = testTypeService.getTestTypeById(testOrder.getTestTypeRef().getId());
-
-        TestOrder savedTestOrder = testOrderRepository.save(testOrder);
-
-        // Ghi log sự kiện
-        orderEventLogService.logEvent(savedTestOrder, EventType.CREATE,
-                "Shell test order auto-created from instrument for barcode: " + barcode);
-
-        return testOrderMapper.toResponse(savedTestOrder, testTypeResponse);
+        // Đơn "vỏ" chưa có TestType nên không gọi TestTypeService
+        return barcodeClaimRegistry.resolve(barcode, () -> upsertOrderByBarcode(
+                barcode,
+                OrderStatus.PENDING,
+                null,
+                false,
+                "SYSTEM_AUTO_CREATE",
+                "Shell test order auto-created from instrument for barcode: " + barcode
+        ));
     }
 
     @Override
-    @Transactional
     public TestOrderResponse autoCreateTestOrder(AutoCreateTestOrderRequest request) {
         log.info("[AUTO-CREATE] Creating test order for barcode: {}", request.getBarcode());
 
@@ -989,53 +964,61 @@ public class TestOrderServiceImpl implements TestOrderService {
             throw new BadRequestException("Barcode is required for auto-create.");
         }
 
-        // Kiểm tra nếu đã tồn tại đơn với barcode này chưa
-        Optional<TestOrder> existing = testOrderRepository.findByBarcode(request.getBarcode());
-        if (existing.isPresent()) {
-            log.warn("[AUTO-CREATE] Test order already exists for barcode {}. Returning existing.", request.getBarcode());
-            // Chưa có TestTypeSnapshot nên truyền null
-            return testOrderMapper.toResponse(existing.get(), null);
-        }
-
-        // Tạo entity mới
-        TestOrder testOrder = new TestOrder();
-
-        // Tạo id và code cho đơn
-        testOrder.setOrderId(TestOrderGenerator.generateTestOrderId());
-
-        testOrder.setOrderCode(TestOrderGenerator.generateTestOrderCode());
-
-        // Barcode này là barcode từ ống mẫu (sample)
-        testOrder.setBarcode(request.getBarcode());
-        testOrder.setReviewMode(ReviewMode.HUMAN);
-        testOrder.setReviewStatus(ReviewStatus.NONE);
-
-        // Trạng thái đặc biệt cho đơn auto-created
-        testOrder.setStatus(OrderStatus.AUTO_CREATED);
-        testOrder.setAutoCreated(true);
-        testOrder.setRequiresPatientMatch(true);
-
-        testOrder.setCreatedAt(LocalDateTime.now(ZoneOffset.UTC));
-
-        // Vì là tạo từ Instrument, không có user login
-        testOrder.setCreatedBy("INSTRUMENT_SERVICE");
+        String barcode = request.getBarcode();
+
+        // Nhiều mẫu cùng barcode đến đồng thời chỉ tạo ra đúng một đơn.
+        // Không set testType, medicalRecordCode, patient info: người dùng cập nhật sau trên LIS.
+        return barcodeClaimRegistry.resolve(barcode, () -> upsertOrderByBarcode(
+                barcode,
+                OrderStatus.AUTO_CREATED,
+                ReviewMode.HUMAN,
+                true,
+                "INSTRUMENT_SERVICE",
+                "Auto-created from Instrument for barcode: " + barcode
+        ));
+    }
 
-        // Không set:
-        // - testType
-        // - medicalRecordCode
-        // - patient info
-        // Các thông tin này sẽ được người dùng cập nhật sau trên LIS.
+    /**
+     * Insert-or-get theo unique key barcode: chèn đơn mới, nếu vi phạm ràng buộc mà barcode đã có đơn thì dùng
+     * đơn thắng cuộc; vi phạm ràng buộc khác được ném lại. Chỉ ghi event CREATE khi chính lời gọi này chèn được đơn.
+     */
+    private TestOrderResponse upsertOrderByBarcode(String barcode, OrderStatus status, ReviewMode reviewMode,
+                                                   boolean autoCreated, String createdBy, String logMessage) {
+        boolean inserted;
+        try {
+            testOrderRepository.insertShellOrder(
+                    TestOrderGenerator.generateTestOrderId(),
+                    TestOrderGenerator.generateTestOrderCode(),
+                    barcode,
+                    status.name(),
+                    reviewMode != null ? reviewMode.name() : null,
+                    EntrySource.AUTO_INSTRUMENT.name(),
+                    autoCreated,
+                    autoCreated,
+                    LocalDateTime.now(ZoneOffset.UTC),
+                    createdBy
+            );
+            inserted = true;
+        } catch (DataIntegrityViolationException e) {
+            if (testOrderRepository.findByBarcode(barcode).isEmpty()) {
+                // Không phải trùng barcode (vd: trùng order_code, thiếu cột bắt buộc)
+                throw e;
+            }
+            inserted = false;
+        }
 
-        TestOrder saved = testOrderRepository.save(testOrder);
+        TestOrder order = testOrderRepository.findByBarcode(barcode)
+                .orElseThrow(() -> new IllegalStateException("Test order for barcode " + barcode + " vanished after upsert"));
 
-        // Log event
-        orderEventLogService.logEvent(
-                saved,
-                EventType.CREATE,
-                "Auto-created from Instrument for barcode: " + saved.getBarcode()
-        );
+        if (inserted) {
+            // INSERT native không đi qua entity listener nên phải báo thay đổi thủ công
+            orderChangeTracker.markChanged(order.getOrderId());
+            orderEventLogService.logEvent(order, EventType.CREATE, logMessage);
+        } else {
+            log.info("[AUTO-CREATE] Test order already exists for barcode {}. Returning existing.", barcode);
+        }
 
-        // Trả về response. Không có TestType kèm theo nên truyền null
-        return testOrderMapper.toResponse(saved, null);
+        // Đơn auto-create chưa có TestType nên truyền null
+        return testOrderMapper.toResponse(order, null);
     }
-}
\ No newline at end of file
+}
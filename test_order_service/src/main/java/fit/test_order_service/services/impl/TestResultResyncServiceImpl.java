@@ -0,0 +1,224 @@
+/*
+ * @ {#} TestResultResyncServiceImpl.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.test_order_service.services.impl;
+
+import fit.test_order_service.configs.RabbitMQConfig;
+import fit.test_order_service.dtos.event.TestResultSyncRequestEvent;
+import fit.test_order_service.entities.OrderResyncState;
+import fit.test_order_service.enums.OrderStatus;
+import fit.test_order_service.repositories.OrderResyncStateRepository;
+import fit.test_order_service.repositories.TestOrderRepository;
+import fit.test_order_service.services.SchedulerLeaseService;
+import fit.test_order_service.services.TestResultResyncService;
+import fit.test_order_service.utils.SnowflakeIdGenerator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/*
+ * @description: Walks stuck orders one waiting status at a time with a keyset cursor over idx_order_status_keyset
+ *               and publishes bounded barcode chunks to the instrument exchange. Each order is retried with exponential backoff up to a maximum
+ *               number of attempts, so recovering from an instrument outage does not resend the whole backlog
+ *               every run. Orders that are backing off or out of attempts are filtered out by the query, so every
+ *               scanned order is actionable and newer stuck orders are never starved by older ones. Exhausted states
+ *               are purged after a cool-down, after which a still-stuck order gets a fresh round of attempts.
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+@Service
+@Slf4j
+public class TestResultResyncServiceImpl implements TestResultResyncService {
+
+    public static final String LEASE_NAME = "test-result-resync";
+
+    // Các trạng thái đang chờ kết quả từ máy xét nghiệm (IN_PROGRESS do Hl7OrderSenderServiceImpl đặt)
+    static final Set<OrderStatus> WAITING_STATUSES =
+            EnumSet.of(OrderStatus.PENDING, OrderStatus.IN_PROGRESS, OrderStatus.AUTO_CREATED);
+
+    private static final LocalDateTime CURSOR_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final TestOrderRepository testOrderRepository;
+    private final OrderResyncStateRepository orderResyncStateRepository;
+    private final SchedulerLeaseService schedulerLeaseService;
+    private final RabbitTemplate rabbitTemplate;
+
+    private final long stuckAfterMinutes;
+    private final int pageSize;
+    private final int chunkSize;
+    private final int maxOrdersPerRun;
+    private final int maxAttempts;
+    private final Duration baseBackoff;
+    private final Duration maxBackoff;
+    private final Duration leaseDuration;
+    private final Duration exhaustedRetention;
+
+    public TestResultResyncServiceImpl(TestOrderRepository testOrderRepository,
+                                       OrderResyncStateRepository orderResyncStateRepository,
+                                       SchedulerLeaseService schedulerLeaseService,
+                                       RabbitTemplate rabbitTemplate,
+                                       @Value("${app.resync.stuck-after-minutes:10}") long stuckAfterMinutes,
+                                       @Value("${app.resync.page-size:500}") int pageSize,
+                                       @Value("${app.resync.chunk-size:100}") int chunkSize,
+                                       @Value("${app.resync.max-orders-per-run:5000}") int maxOrdersPerRun,
+                                       @Value("${app.resync.max-attempts:8}") int maxAttempts,
+                                       @Value("${app.resync.base-backoff-minutes:5}") long baseBackoffMinutes,
+                                       @Value("${app.resync.max-backoff-minutes:240}") long maxBackoffMinutes,
+                                       @Value("${app.resync.lease-seconds:270}") long leaseSeconds,
+                                       @Value("${app.resync.exhausted-retention-days:7}") long exhaustedRetentionDays) {
+        this.testOrderRepository = testOrderRepository;
+        this.orderResyncStateRepository = orderResyncStateRepository;
+        this.schedulerLeaseService = schedulerLeaseService;
+        this.rabbitTemplate = rabbitTemplate;
+        this.stuckAfterMinutes = stuckAfterMinutes;
+        this.pageSize = pageSize;
+        this.chunkSize = chunkSize;
+        this.maxOrdersPerRun = maxOrdersPerRun;
+        this.maxAttempts = maxAttempts;
+        this.baseBackoff = Duration.ofMinutes(baseBackoffMinutes);
+        this.maxBackoff = Duration.ofMinutes(maxBackoffMinutes);
+        this.leaseDuration = Duration.ofSeconds(leaseSeconds);
+        this.exhaustedRetention = Duration.ofDays(exhaustedRetentionDays);
+    }
+
+    @Override
+    public int requestResyncForStuckOrders() {
+        if (!schedulerLeaseService.tryAcquire(LEASE_NAME, leaseDuration)) {
+            return 0;
+        }
+
+        // created_at của đơn được ghi theo UTC
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        LocalDateTime stuckBefore = now.minusMinutes(stuckAfterMinutes);
+
+        Chunk chunk = new Chunk(chunkSize);
+        int scanned = 0;
+        int requested = 0;
+        int backingOff = 0;
+        int exhausted = 0;
+
+        // Mỗi trạng thái một con trỏ keyset riêng: status = :status giữ được thứ tự của index
+        for (OrderStatus status : WAITING_STATUSES) {
+            LocalDateTime lastCreatedAt = CURSOR_START;
+            String lastOrderId = "";
+
+            while (scanned < maxOrdersPerRun) {
+                int limit = Math.min(pageSize, maxOrdersPerRun - scanned);
+                List<Object[]> page = testOrderRepository.findStuckOrdersAfter(status, stuckBefore,
+                        maxAttempts, now, lastCreatedAt, lastOrderId, PageRequest.of(0, limit));
+                if (page.isEmpty()) {
+                    break;
+                }
+
+                List<String> orderIds = page.stream().map(row -> (String) row[0]).toList();
+                Map<String, OrderResyncState> states = orderResyncStateRepository.findAllById(orderIds).stream()
+                        .collect(Collectors.toMap(OrderResyncState::getOrderId, Function.identity()));
+                List<OrderResyncState> touched = new ArrayList<>();
+
+                for (Object[] row : page) {
+                    String orderId = (String) row[0];
+                    String barcode = (String) row[1];
+                    lastCreatedAt = (LocalDateTime) row[2];
+                    lastOrderId = orderId;
+                    scanned++;
+
+                    if (!StringUtils.hasText(barcode)) {
+                        continue;
+                    }
+
+                    // Truy vấn đã loại các đơn này; kiểm tra lại phòng trạng thái đổi giữa hai lần đọc
+                    OrderResyncState state = states.get(orderId);
+                    if (state != null && state.getAttempts() >= maxAttempts) {
+                        exhausted++;
+                        continue;
+                    }
+                    if (state != null && state.getNextAttemptAt() != null && state.getNextAttemptAt().isAfter(now)) {
+                        backingOff++;
+                        continue;
+                    }
+
+                    if (state == null) {
+                        state = OrderResyncState.builder().orderId(orderId).build();
+                    }
+                    state.setAttempts(state.getAttempts() + 1);
+                    state.setLastRequestedAt(now);
+                    state.setNextAttemptAt(now.plus(backoffFor(state.getAttempts())));
+                    state.setLastRequestId(chunk.requestId);
+                    touched.add(state);
+
+                    chunk.barcodes.add(barcode);
+                    requested++;
+                    if (chunk.barcodes.size() >= chunkSize) {
+                        publish(chunk);
+                        chunk = new Chunk(chunkSize);
+                    }
+                }
+
+                // Ghi nhận lần thử trước khi gửi lô còn dở; nếu gửi lỗi, đơn sẽ được thử lại sau backoff
+                orderResyncStateRepository.saveAll(touched);
+
+                if (page.size() < limit) {
+                    break;
+                }
+            }
+        }
+
+        if (!chunk.barcodes.isEmpty()) {
+            publish(chunk);
+        }
+
+        int purged = orderResyncStateRepository.purgeResolved();
+        int rearmed = orderResyncStateRepository.purgeExhausted(maxAttempts, now.minus(exhaustedRetention));
+
+        if (scanned > 0 || rearmed > 0) {
+            log.info("Stuck order resync: scanned={}, requested={}, backingOff={}, exhausted={}, purgedStates={}, "
+                    + "rearmedStates={}", scanned, requested, backingOff, exhausted, purged, rearmed);
+        }
+        return requested;
+    }
+
+    Duration backoffFor(int attempts) {
+        // base * 2^(attempts-1), giới hạn bởi maxBackoff
+        int shift = Math.min(Math.max(attempts - 1, 0), 20);
+        Duration backoff = baseBackoff.multipliedBy(1L << shift);
+        return backoff.compareTo(maxBackoff) > 0 ? maxBackoff : backoff;
+    }
+
+    private void publish(Chunk chunk) {
+        TestResultSyncRequestEvent requestEvent = TestResultSyncRequestEvent.builder()
+                .requestId(chunk.requestId)
+                .requestedBy("TEST_ORDER_SERVICE")
+                .barcodes(chunk.barcodes)
+                .build();
+
+        rabbitTemplate.convertAndSend(
+                RabbitMQConfig.EXCHANGE_NAME,
+                RabbitMQConfig.SYNC_REQUEST_ROUTING_KEY,
+                requestEvent
+        );
+        log.debug("Requested resync {} for {} barcodes", chunk.requestId, chunk.barcodes.size());
+    }
+
+    private static final class Chunk {
+        private final String requestId = SnowflakeIdGenerator.nextIdString();
+        private final List<String> barcodes;
+
+        Chunk(int capacity) {
+            this.barcodes = new ArrayList<>(capacity);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * @ {#} OrderListViewSpecification.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.test_order_service.specifications;
+
+import fit.test_order_service.entities.OrderListView;
+import fit.test_order_service.enums.Gender;
+import fit.test_order_service.enums.OrderStatus;
+import fit.test_order_service.enums.ReviewMode;
+import fit.test_order_service.enums.ReviewStatus;
+import jakarta.persistence.criteria.Path;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/*
+ * @description: Specification class for building dynamic queries over the order_list_view read model.
+ *               Mirrors TestOrderSpecification so the dashboard filters behave the same.
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+@Component
+public class OrderListViewSpecification {
+
+    public Specification<OrderListView> build(String search, LocalDate startDate, LocalDate endDate,
+                                              OrderStatus status, ReviewStatus reviewStatus, ReviewMode reviewMode,
+                                              Gender gender, String createdBy, String reviewedBy) {
+        // deleted luôn là cột đầu tiên trong các index idx_olv_*
+        Specification<OrderListView> spec = (root, query, cb) -> cb.isFalse(root.get("deleted"));
+
+        if (StringUtils.hasText(search)) {
+            String pattern = "%" + search.toLowerCase() + "%";
+            spec = spec.and((root, query, cb) ->
+                    cb.or(
+                            cb.like(cb.lower(root.get("patientName")), pattern),
+                            cb.like(cb.lower(root.get("orderCode")), pattern),
+                            cb.like(cb.lower(root.get("phone")), pattern),
+                            cb.like(cb.lower(root.get("email")), pattern),
+                            cb.like(cb.lower(root.get("createdBy")), pattern)
+                    ));
+        }
+
+        // Start date filtering (inclusive)
+        if (startDate != null) {
+            spec = spec.and((root, query, cb) ->
+                    cb.greaterThanOrEqualTo(root.get("createdAt"), startDate.atStartOfDay()));
+        }
+
+        // End date filtering (inclusive)
+        if (endDate != null) {
+            spec = spec.and((root, query, cb) ->
+                    cb.lessThanOrEqualTo(root.get("createdAt"), endDate.atTime(23, 59, 59)));
+        }
+
+        if (status != null) {
+            spec = spec.and((root, query, cb) -> cb.equal(root.get("status"), status));
+        }
+
+        if (reviewStatus != null) {
+            spec = spec.and((root, query, cb) -> cb.equal(root.get("reviewStatus"), reviewStatus));
+        }
+
+        if (reviewMode != null) {
+            spec = spec.and((root, query, cb) -> cb.equal(root.get("reviewMode"), reviewMode));
+        }
+
+        if (gender != null) {
+            spec = spec.and((root, query, cb) -> cb.equal(root.get("gender"), gender));
+        }
+
+        if (StringUtils.hasText(createdBy)) {
+            spec = spec.and((root, query, cb) ->
+                    cb.equal(cb.lower(root.get("createdBy")), createdBy.toLowerCase()));
+        }
+
+        if (StringUtils.hasText(reviewedBy)) {
+            spec = spec.and((root, query, cb) ->
+                    cb.equal(cb.lower(root.get("reviewedBy")), reviewedBy.toLowerCase()));
+        }
+
+        return spec;
+    }
+
+    /**
+     * Điều kiện seek cho keyset pagination: các dòng nằm sau (sortValue, orderId) theo thứ tự sắp xếp.
+     * order_id luôn đi ngược chiều với cột thời gian để khớp với index (deleted, ..., created_at DESC, order_id),
+     * nhờ vậy MySQL chỉ cần quét index theo một chiều mà không phải filesort.
+     */
+    public Specification<OrderListView> seekAfter(String sortField, Sort.Direction direction,
+                                                  LocalDateTime sortValue, String orderId) {
+        return (root, query, cb) -> {
+            Path<LocalDateTime> key = root.get(sortField);
+            Path<String> id = root.get("orderId");
+            if (direction.isDescending()) {
+                return cb.or(
+                        cb.lessThan(key, sortValue),
+                        cb.and(cb.equal(key, sortValue), cb.greaterThan(id, orderId)));
+            }
+            return cb.or(
+                    cb.greaterThan(key, sortValue),
+                    cb.and(cb.equal(key, sortValue), cb.lessThan(id, orderId)));
+        };
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * @ {#} BarcodeClaimRegistry.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.test_order_service.utils;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/*
+ * @description: Short-lived, in-memory claims on barcodes. The first caller for a barcode runs the resolver,
+ *               concurrent callers for the same barcode wait for and share its result, and the resolved value is
+ *               kept for a short TTL so bursty cassette loads do not hit the database once per sample.
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+@Component
+@Slf4j
+public class BarcodeClaimRegistry {
+
+    private static final int PURGE_THRESHOLD = 1024;
+
+    private final Map<String, Claim<?>> claims = new ConcurrentHashMap<>();
+    private final long ttlMillis;
+    private final long waitTimeoutMillis;
+
+    public BarcodeClaimRegistry(@Value("${app.barcode-claim.ttl-ms:5000}") long ttlMillis,
+                                @Value("${app.barcode-claim.wait-timeout-ms:10000}") long waitTimeoutMillis) {
+        this.ttlMillis = ttlMillis;
+        this.waitTimeoutMillis = waitTimeoutMillis;
+    }
+
+    /**
+     * Trả về kết quả đã được claim cho barcode, hoặc chạy resolver nếu chưa có ai claim.
+     * Mỗi barcode chỉ có tối đa một resolver chạy tại một thời điểm trong một instance.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T resolve(String barcode, Supplier<T> resolver) {
+        if (claims.size() > PURGE_THRESHOLD) {
+            purgeExpired();
+        }
+
+        while (true) {
+            Claim<T> mine = new Claim<>();
+            Claim<T> current = (Claim<T>) claims.putIfAbsent(barcode, mine);
+
+            if (current == null) {
+                return runClaim(barcode, mine, resolver);
+            }
+
+            if (current.isExpired()) {
+                // Claim cũ đã hết hạn, thay thế và thử lại
+                claims.remove(barcode, current);
+                continue;
+            }
+
+            return await(barcode, current);
+        }
+    }
+
+    private <T> T runClaim(String barcode, Claim<T> claim, Supplier<T> resolver) {
+        try {
+            T value = resolver.get();
+            claim.expiresAt = System.currentTimeMillis() + ttlMillis;
+            claim.future.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            // Không giữ lại claim lỗi để lần gọi sau có thể thử lại
+            claims.remove(barcode, claim);
+            claim.future.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private <T> T await(String barcode, Claim<T> claim) {
+        try {
+            return claim.future.get(waitTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IllegalStateException("Barcode claim failed for " + barcode, e.getCause());
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Timed out waiting for barcode claim " + barcode, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for barcode claim " + barcode, e);
+        }
+    }
+
+    private void purgeExpired() {
+        int before = claims.size();
+        claims.entrySet().removeIf(e -> e.getValue().isExpired());
+        log.debug("Purged {} expired barcode claims", before - claims.size());
+    }
+
+    private static final class Claim<T> {
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        // Chỉ có hiệu lực sau khi future hoàn tất
+        private volatile long expiresAt = Long.MAX_VALUE;
+
+        boolean isExpired() {
+            return future.isDone() && System.currentTimeMillis() > expiresAt;
+        }
+    }
+}
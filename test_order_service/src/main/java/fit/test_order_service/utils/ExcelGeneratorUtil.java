@@ -19,6 +19,7 @@ import org.springframework.stereotype.Component;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.Map;
@@ -32,7 +33,21 @@ public class ExcelGeneratorUtil {
     private static final DateTimeFormatter DATETIME_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss");
 
     public ByteArrayOutputStream generateTestOrdersExcel(List<TestOrder> orders, Map<String, String> userIdToNameMap) {
-        try (Workbook workbook = new XSSFWorkbook(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+        try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            writeTestOrdersExcel(orders, userIdToNameMap, out);
+            return out;
+        } catch (IOException e) {
+            log.error("Error generating Excel content: {}", e.getMessage(), e);
+            return null; // Trả về null nếu có lỗi
+        }
+    }
+
+    /**
+     * Ghi file Excel thẳng ra stream (ví dụ file tạm) để không giữ bản sao byte của cả file trong bộ nhớ.
+     */
+    public void writeTestOrdersExcel(List<TestOrder> orders, Map<String, String> userIdToNameMap,
+                                     OutputStream out) throws IOException {
+        try (Workbook workbook = new XSSFWorkbook()) {
 
             Sheet sheet = workbook.createSheet("Test Orders");
 
@@ -121,11 +136,6 @@ public class ExcelGeneratorUtil {
 
             workbook.write(out);
             log.info("Excel content generated successfully for {} orders.", orders.size());
-            return out;
-
-        } catch (IOException e) {
-            log.error("Error generating Excel content: {}", e.getMessage(), e);
-            return null; // Trả về null nếu có lỗi
         }
     }
 }
@@ -0,0 +1,59 @@
+/*
+ * @ {#} FilteredCountCache.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.test_order_service.utils;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/*
+ * @description: Short-TTL cache of COUNT(*) results keyed by a filter fingerprint. Lab screens poll the same
+ *               filters repeatedly, so the total only needs to be recomputed once per TTL instead of per request.
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+@Component
+public class FilteredCountCache {
+
+    private static final int MAX_ENTRIES = 512;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final long ttlMillis;
+
+    public FilteredCountCache(@Value("${app.order-list.count-cache-ttl-ms:30000}") long ttlMillis) {
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * Trả về số lượng đã cache nếu còn hạn, ngược lại gọi counter và lưu lại kết quả.
+     */
+    public long get(String key, LongSupplier counter) {
+        long now = System.currentTimeMillis();
+        Entry cached = entries.get(key);
+        if (cached != null && cached.expiresAt() > now) {
+            return cached.count();
+        }
+
+        long count = counter.getAsLong();
+        if (entries.size() >= MAX_ENTRIES) {
+            entries.entrySet().removeIf(e -> e.getValue().expiresAt() <= now);
+        }
+        entries.put(key, new Entry(count, now + ttlMillis));
+        return count;
+    }
+
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    private record Entry(long count, long expiresAt) {
+    }
+}
@@ -0,0 +1,265 @@
+/*
+ * @ {#} FlatFileExportWriter.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.test_order_service.utils;
+
+import fit.test_order_service.enums.ExportDataset;
+import fit.test_order_service.enums.ExportFormat;
+import fit.test_order_service.repositories.TestOrderRepository;
+import fit.test_order_service.repositories.TestResultRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.Year;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.zip.GZIPOutputStream;
+
+/*
+ * @description: Streams test orders or test results as gzip-compressed CSV/TSV. Rows are read in keyset pages of
+ *               plain column projections and written straight through a buffered gzip encoder, so memory stays flat
+ *               regardless of row count and no workbook or byte[] of the whole file is ever built.
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+@Component
+@Slf4j
+public class FlatFileExportWriter {
+
+    public static final String GZIP_MIME_TYPE = "application/gzip";
+
+    static final List<String> ORDER_COLUMNS = List.of(
+            "order_id", "order_code", "medical_record_code", "full_name", "gender", "date_of_birth",
+            "age_years", "phone", "barcode", "test_type", "entry_source", "status",
+            "review_status", "review_mode", "created_at", "created_by", "run_at", "run_by",
+            "reviewed_at", "reviewed_by");
+
+    // Cột định danh order được lặp lại trên mỗi dòng kết quả
+    static final List<String> RESULT_COLUMNS = List.of(
+            "order_id", "order_code", "medical_record_code", "barcode",
+            "result_id", "test_code", "analyte_name", "value_text", "unit", "reference_range",
+            "abnormal_flag", "entry_source", "measured_at", "entered_by", "entered_at");
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final LocalDateTime MIN_TIME = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime MAX_TIME = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
+    // Vị trí các cột trong projection của TestOrderRepository.findExportRowsAfter
+    private static final int O_ORDER_ID = 0;
+    private static final int O_ORDER_CODE = 1;
+    private static final int O_MEDICAL_RECORD_CODE = 2;
+    private static final int O_BARCODE = 8;
+    private static final int O_CREATED_AT = 14;
+
+    private final TestOrderRepository testOrderRepository;
+    private final TestResultRepository testResultRepository;
+    private final int pageSize;
+
+    public FlatFileExportWriter(TestOrderRepository testOrderRepository,
+                                TestResultRepository testResultRepository,
+                                @Value("${app.flat-export.page-size:1000}") int pageSize) {
+        this.testOrderRepository = testOrderRepository;
+        this.testResultRepository = testResultRepository;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Ghi toàn bộ dữ liệu trong khoảng thời gian ra out dưới dạng gzip. out không bị đóng.
+     *
+     * @return số dòng dữ liệu đã ghi (không tính dòng tiêu đề).
+     */
+    public long write(ExportDataset dataset, ExportFormat format, LocalDateTime from, LocalDateTime to,
+                      OutputStream out) throws IOException {
+        char delimiter = format == ExportFormat.TSV ? '\t' : ',';
+        GZIPOutputStream gzip = new GZIPOutputStream(new NonClosingOutputStream(out), BUFFER_SIZE);
+        long rows;
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(gzip, StandardCharsets.UTF_8), BUFFER_SIZE)) {
+            rows = dataset == ExportDataset.RESULTS
+                    ? writeResults(writer, format, delimiter, from, to)
+                    : writeOrders(writer, format, delimiter, from, to);
+        }
+        log.info("Flat export {} {} finished: {} rows", dataset, format, rows);
+        return rows;
+    }
+
+    /**
+     * Quy đổi dateRangeType (cùng quy ước với export Excel) sang [from, to] theo UTC.
+     */
+    public static LocalDateTime[] resolveRange(String dateRangeType, LocalDate startDate, LocalDate endDate) {
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        String type = dateRangeType != null ? dateRangeType : "THIS_MONTH";
+        return switch (type) {
+            case "TODAY" -> new LocalDateTime[]{today.atStartOfDay(), today.atTime(23, 59, 59, 999999999)};
+            case "THIS_MONTH" -> {
+                YearMonth month = YearMonth.from(today);
+                yield new LocalDateTime[]{month.atDay(1).atStartOfDay(), month.atEndOfMonth().atTime(23, 59, 59, 999999999)};
+            }
+            case "THIS_YEAR" -> {
+                Year year = Year.from(today);
+                yield new LocalDateTime[]{year.atDay(1).atStartOfDay(), LocalDate.of(year.getValue(), 12, 31).atTime(23, 59, 59, 999999999)};
+            }
+            case "CUSTOM" -> {
+                if (startDate == null || endDate == null) {
+                    throw new IllegalArgumentException("CUSTOM date range requires startDate and endDate");
+                }
+                yield new LocalDateTime[]{startDate.atStartOfDay(), endDate.atTime(23, 59, 59, 999999999)};
+            }
+            default -> new LocalDateTime[]{MIN_TIME, MAX_TIME};
+        };
+    }
+
+    private long writeOrders(Writer writer, ExportFormat format, char delimiter,
+                             LocalDateTime from, LocalDateTime to) throws IOException {
+        writeHeader(writer, ORDER_COLUMNS, format, delimiter);
+        long rows = 0;
+        LocalDateTime lastCreatedAt = MIN_TIME;
+        String lastOrderId = "";
+
+        while (true) {
+            List<Object[]> page = testOrderRepository.findExportRowsAfter(
+                    from, to, lastCreatedAt, lastOrderId, PageRequest.of(0, pageSize));
+            for (Object[] row : page) {
+                writeRow(writer, row, 0, row.length, format, delimiter);
+                writer.write('\n');
+            }
+            rows += page.size();
+            if (page.size() < pageSize) {
+                return rows;
+            }
+            Object[] last = page.get(page.size() - 1);
+            lastCreatedAt = (LocalDateTime) last[O_CREATED_AT];
+            lastOrderId = (String) last[O_ORDER_ID];
+        }
+    }
+
+    private long writeResults(Writer writer, ExportFormat format, char delimiter,
+                              LocalDateTime from, LocalDateTime to) throws IOException {
+        writeHeader(writer, RESULT_COLUMNS, format, delimiter);
+        long rows = 0;
+        LocalDateTime lastCreatedAt = MIN_TIME;
+        String lastOrderId = "";
+
+        while (true) {
+            List<Object[]> orders = testOrderRepository.findExportRowsAfter(
+                    from, to, lastCreatedAt, lastOrderId, PageRequest.of(0, pageSize));
+            if (orders.isEmpty()) {
+                return rows;
+            }
+
+            // Một truy vấn kết quả cho cả trang order, nhóm lại theo orderId
+            List<String> orderIds = new ArrayList<>(orders.size());
+            for (Object[] order : orders) {
+                orderIds.add((String) order[O_ORDER_ID]);
+            }
+            Map<String, List<Object[]>> resultsByOrder = new HashMap<>();
+            for (Object[] result : testResultRepository.findExportRowsByOrderIds(orderIds)) {
+                resultsByOrder.computeIfAbsent((String) result[0], k -> new ArrayList<>()).add(result);
+            }
+
+            for (Object[] order : orders) {
+                List<Object[]> results = resultsByOrder.get((String) order[O_ORDER_ID]);
+                if (results == null) {
+                    continue;
+                }
+                for (Object[] result : results) {
+                    writeValue(writer, order[O_ORDER_ID], format, delimiter);
+                    writer.write(delimiter);
+                    writeValue(writer, order[O_ORDER_CODE], format, delimiter);
+                    writer.write(delimiter);
+                    writeValue(writer, order[O_MEDICAL_RECORD_CODE], format, delimiter);
+                    writer.write(delimiter);
+                    writeValue(writer, order[O_BARCODE], format, delimiter);
+                    writer.write(delimiter);
+                    // Bỏ cột orderId (đã ghi ở trên)
+                    writeRow(writer, result, 1, result.length, format, delimiter);
+                    writer.write('\n');
+                    rows++;
+                }
+            }
+
+            if (orders.size() < pageSize) {
+                return rows;
+            }
+            Object[] last = orders.get(orders.size() - 1);
+            lastCreatedAt = (LocalDateTime) last[O_CREATED_AT];
+            lastOrderId = (String) last[O_ORDER_ID];
+        }
+    }
+
+    private static void writeHeader(Writer writer, List<String> columns, ExportFormat format, char delimiter) throws IOException {
+        writeRow(writer, columns.toArray(), 0, columns.size(), format, delimiter);
+        writer.write('\n');
+    }
+
+    private static void writeRow(Writer writer, Object[] row, int from, int to,
+                                 ExportFormat format, char delimiter) throws IOException {
+        for (int i = from; i < to; i++) {
+            if (i > from) {
+                writer.write(delimiter);
+            }
+            writeValue(writer, row[i], format, delimiter);
+        }
+    }
+
+    static void writeValue(Writer writer, Object value, ExportFormat format, char delimiter) throws IOException {
+        if (value == null) {
+            return;
+        }
+        String text = value instanceof Enum<?> e ? e.name() : value.toString();
+        if (format == ExportFormat.TSV) {
+            // TSV không có cơ chế quote: thay tab/xuống dòng bằng khoảng trắng
+            writer.write(text.replace('\t', ' ').replace('\r', ' ').replace('\n', ' '));
+            return;
+        }
+        if (needsQuoting(text, delimiter)) {
+            writer.write('"');
+            writer.write(text.replace("\"", "\"\""));
+            writer.write('"');
+        } else {
+            writer.write(text);
+        }
+    }
+
+    private static boolean needsQuoting(String text, char delimiter) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == delimiter || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Cho phép đóng gzip (ghi trailer) mà không đóng stream của response/file bên dưới
+    private static final class NonClosingOutputStream extends FilterOutputStream {
+        NonClosingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
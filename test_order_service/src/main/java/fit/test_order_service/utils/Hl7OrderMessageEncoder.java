@@ -0,0 +1,157 @@
+/*
+ * @ {#} Hl7OrderMessageEncoder.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.test_order_service.utils;
+
+import fit.test_order_service.entities.TestOrder;
+import fit.test_order_service.entities.TestResult;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAccessor;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/*
+ * @description: Encodes OML^O21 order messages sent to instruments. Formatters and the fixed parts of MSH/OBR are
+ *               built once, each thread reuses its own StringBuilder, and free-text fields are escaped in a single
+ *               pass straight into that buffer, so the only per-message allocation is the final String.
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+@Component
+@RequiredArgsConstructor
+public class Hl7OrderMessageEncoder {
+
+    private static final DateTimeFormatter HL7_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+    private static final DateTimeFormatter HL7_DATE = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    // Phần cố định của MSH (trước thời gian) và sau thời gian (trước message control id)
+    private static final String MSH_PREFIX = "MSH|^~\\&|TEST-ORDER|SYSTEM|INSTRUMENT|LAB|";
+    private static final String MSH_TYPE = "||OML^O21|MSG";
+    private static final String MSH_SUFFIX = "|P|2.5\r";
+    private static final String OBR_PREFIX = "OBR|1||";
+    private static final String OBR_PANEL = "|PANEL^Complete Blood Count|||";
+    private static final String DEFAULT_ADDRESS = "UNKNOWN";
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private static final int INITIAL_CAPACITY = 2048;
+    // Buffer lớn bất thường không được giữ lại trong ThreadLocal
+    private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+
+    private static final ThreadLocal<StringBuilder> BUFFER =
+            ThreadLocal.withInitial(() -> new StringBuilder(INITIAL_CAPACITY));
+
+    private final TestCodeGenerator testCodeGenerator;
+
+    public String encodeOrder(TestOrder testOrder, List<TestResult> testResults) {
+        StringBuilder hl7 = acquireBuffer();
+
+        // --- MSH ---
+        hl7.append(MSH_PREFIX);
+        HL7_TIMESTAMP.formatTo(LocalDateTime.now(), hl7);
+        hl7.append(MSH_TYPE);
+        appendControlId(hl7);
+        hl7.append(MSH_SUFFIX);
+
+        // --- PID ---
+        hl7.append("PID|1||");
+        escape(hl7, testOrder.getMedicalRecordCode());
+        hl7.append("||");
+        escape(hl7, testOrder.getFullName());
+        hl7.append("||");
+        formatTo(HL7_DATE, testOrder.getDateOfBirth(), hl7);
+        hl7.append('|');
+        if (testOrder.getGender() != null) {
+            hl7.append(testOrder.getGender().name().charAt(0)); // M / F
+        }
+        hl7.append("|||");
+        escape(hl7, testOrder.getAddress() != null ? testOrder.getAddress() : DEFAULT_ADDRESS);
+        hl7.append("||");
+        escape(hl7, testOrder.getPhone());
+        hl7.append('\r');
+
+        // --- OBR (thông tin của TestOrder) ---
+        hl7.append(OBR_PREFIX);
+        escape(hl7, testOrder.getOrderCode());
+        hl7.append(OBR_PANEL);
+        formatTo(HL7_TIMESTAMP, testOrder.getCreatedAt(), hl7);
+        hl7.append('\r');
+
+        // --- OBX (từng kết quả dự kiến, chưa có giá trị) ---
+        if (testResults != null) {
+            int index = 1;
+            for (TestResult result : testResults) {
+                hl7.append("OBX|").append(index++).append("|ST|");
+                escape(hl7, result.getTestCode() != null ? result.getTestCode() : testCodeGenerator.generateTemporaryCode());
+                hl7.append('^');
+                escape(hl7, result.getAnalyteName());
+                hl7.append("|1||");
+                escape(hl7, result.getUnit());
+                hl7.append('|');
+                escape(hl7, result.getReferenceRange());
+                hl7.append("|N|||P\r"); // Normal, Preliminary
+            }
+        }
+
+        return hl7.toString();
+    }
+
+    /**
+     * Ghi value vào out, thay các ký tự phân cách HL7 bằng escape sequence trong một lần duyệt.
+     * CR/LF không có escape an toàn trong ST nên được thay bằng khoảng trắng.
+     */
+    public static void escape(StringBuilder out, String value) {
+        if (value == null) {
+            return;
+        }
+        int length = value.length();
+        int start = 0;
+        for (int i = 0; i < length; i++) {
+            String replacement = switch (value.charAt(i)) {
+                case '|' -> "\\F\\";
+                case '^' -> "\\S\\";
+                case '&' -> "\\T\\";
+                case '~' -> "\\R\\";
+                case '\\' -> "\\E\\";
+                case '\r', '\n' -> " ";
+                default -> null;
+            };
+            if (replacement != null) {
+                out.append(value, start, i).append(replacement);
+                start = i + 1;
+            }
+        }
+        out.append(value, start, length);
+    }
+
+    private static StringBuilder acquireBuffer() {
+        StringBuilder buffer = BUFFER.get();
+        if (buffer.capacity() > MAX_RETAINED_CAPACITY) {
+            buffer = new StringBuilder(INITIAL_CAPACITY);
+            BUFFER.set(buffer);
+        }
+        buffer.setLength(0);
+        return buffer;
+    }
+
+    private static void formatTo(DateTimeFormatter formatter, TemporalAccessor value, StringBuilder out) {
+        if (value != null) {
+            formatter.formatTo(value, out);
+        }
+    }
+
+    // 8 ký tự hex ngẫu nhiên, tương đương đoạn đầu UUID trước đây nhưng không tạo UUID/String trung gian
+    private static void appendControlId(StringBuilder out) {
+        int random = ThreadLocalRandom.current().nextInt();
+        for (int shift = 28; shift >= 0; shift -= 4) {
+            out.append(HEX[(random >>> shift) & 0xF]);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * @ {#} KeysetCursor.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.test_order_service.utils;
+
+import fit.test_order_service.exceptions.BadRequestException;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/*
+ * @description: Opaque continuation token for keyset (seek) pagination. Encodes the sort field, its direction,
+ *               the sort value and order_id of the last row returned, plus a fingerprint of the filters so a token
+ *               cannot be replayed against a different result set.
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+public record KeysetCursor(String sortField, Sort.Direction direction, LocalDateTime sortValue,
+                           String orderId, String filterFingerprint) {
+
+    private static final String VERSION = "v1";
+    private static final String SEPARATOR = "|";
+
+    public String encode() {
+        String raw = String.join(SEPARATOR, VERSION, sortField, direction.name(),
+                sortValue.toString(), filterFingerprint, orderId);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static KeysetCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            // order_id đứng cuối nên split giới hạn 6 phần để giữ nguyên id
+            String[] parts = raw.split("\\|", 6);
+            if (parts.length != 6 || !VERSION.equals(parts[0]) || parts[5].isEmpty()) {
+                throw new BadRequestException("Invalid cursor");
+            }
+            return new KeysetCursor(parts[1], Sort.Direction.valueOf(parts[2]),
+                    LocalDateTime.parse(parts[3]), parts[5], parts[4]);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * @ {#} OrderChangeTracker.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.test_order_service.utils;
+
+import fit.test_order_service.dtos.event.OrderChangedEvent;
+import fit.test_order_service.specifications.TestOrderSpecification;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/*
+ * @description: Collects the ids of orders touched in the current transaction and publishes a single
+ *               OrderChangedEvent after commit. Rolled back transactions publish nothing. The pending set
+ *               lives in a synchronization of the current transaction, so a REQUIRES_NEW transaction
+ *               (whose synchronizations are suspended) keeps its own set.
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OrderChangeTracker {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public void markChanged(String orderId) {
+        if (orderId == null || TestOrderSpecification.SYSTEM_ORDER_ID.equals(orderId)) {
+            return;
+        }
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            eventPublisher.publishEvent(new OrderChangedEvent(Set.of(orderId)));
+            return;
+        }
+
+        pendingChanges().orderIds.add(orderId);
+    }
+
+    // Resource bind bằng bindResource không bị REQUIRES_NEW tạm treo, còn danh sách synchronization thì có:
+    // tìm tập của đúng giao dịch hiện tại trong synchronization của nó
+    private PendingChanges pendingChanges() {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof PendingChanges pending && pending.owner() == this) {
+                return pending;
+            }
+        }
+        PendingChanges pending = new PendingChanges();
+        TransactionSynchronizationManager.registerSynchronization(pending);
+        return pending;
+    }
+
+    private final class PendingChanges implements TransactionSynchronization {
+
+        private final Set<String> orderIds = new LinkedHashSet<>();
+
+        private OrderChangeTracker owner() {
+            return OrderChangeTracker.this;
+        }
+
+        @Override
+        public void afterCommit() {
+            eventPublisher.publishEvent(new OrderChangedEvent(Set.copyOf(orderIds)));
+        }
+    }
+}
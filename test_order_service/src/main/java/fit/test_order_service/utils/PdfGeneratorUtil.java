@@ -31,6 +31,7 @@ import org.springframework.stereotype.Component;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
 
@@ -59,8 +60,20 @@ public class PdfGeneratorUtil {
         }
 
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        writeTestResultPdf(order, results, comments, baos);
+        return baos.toByteArray();
+    }
 
-        try (PdfWriter writer = new PdfWriter(baos);
+    /**
+     * Ghi PDF kết quả thẳng ra stream (ví dụ file tạm) để không giữ cả file trong bộ nhớ.
+     */
+    public void writeTestResultPdf(TestOrder order, List<TestResult> results, List<CommentOrderResponse> comments,
+                                   OutputStream out) {
+        if (order == null) {
+            throw new IllegalArgumentException("Cannot generate PDF: TestOrder object is null.");
+        }
+
+        try (PdfWriter writer = new PdfWriter(out);
              PdfDocument pdfDoc = new PdfDocument(writer);
              Document document = new Document(pdfDoc, PageSize.A4)) {
 
@@ -111,11 +124,11 @@ public class PdfGeneratorUtil {
                 addStyledRow(orderTable, "Status", order.getStatus() != null ? order.getStatus().name() : "N/A", fontBold, fontRegular);
 
                 // Row 4
-                addStyledRow(orderTable, "Created By", getUserFullName(order.getCreatedBy()), fontBold, fontRegular);
+                addStyledRow(orderTable, "Created By", resolveUserFullName(order.getCreatedBy()), fontBold, fontRegular);
                 addStyledRow(orderTable, "Created On", order.getCreatedAt() != null ? order.getCreatedAt().format(DATETIME_FORMATTER) : "N/A", fontBold, fontRegular);
 
                 // Row 5
-                addStyledRow(orderTable, "Run By", getUserFullName(order.getRunBy()), fontBold, fontRegular);
+                addStyledRow(orderTable, "Run By", resolveUserFullName(order.getRunBy()), fontBold, fontRegular);
                 addStyledRow(orderTable, "Run On", order.getRunAt() != null ? order.getRunAt().format(DATETIME_FORMATTER) : "N/A", fontBold, fontRegular);
 
                 document.add(orderTable);
@@ -203,8 +216,6 @@ public class PdfGeneratorUtil {
             log.error("Error generating PDF", e);
             throw new RuntimeException("Error generating PDF", e);
         }
-
-        return baos.toByteArray();
     }
 
     // --- HELPER METHODS ---
@@ -348,7 +359,11 @@ public class PdfGeneratorUtil {
         return (value != null && !value.isBlank()) ? value : "N/A";
     }
 
-    private String getUserFullName(String userId) {
+    /**
+     * Tên hiển thị của người dùng như được in trên PDF (tra IAM tại thời điểm gọi, lỗi thì dùng lại userId).
+     * PrintSnapshotService đưa giá trị này vào content hash để đổi tên trên IAM làm PDF cũ không còn được dùng lại.
+     */
+    public String resolveUserFullName(String userId) {
         if (userId == null || userId.isBlank() || "SYSTEM".equals(userId)) {
             return userId != null ? userId : "N/A";
         }
@@ -0,0 +1,102 @@
+/*
+ * @ {#} SnowflakeIdGenerator.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.test_order_service.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * @description: Lock-free, time-ordered Snowflake-style id generator (41 bit millis | 10 bit node | 12 bit sequence).
+ *               Ids are rendered as fixed-width Crockford base32 so string ordering matches generation order,
+ *               which keeps inserts into the clustered primary key append-mostly.
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+public final class SnowflakeIdGenerator {
+
+    /* 2025-01-01T00:00:00Z */
+    private static final long EPOCH_MILLIS = 1735689600000L;
+
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private static final char[] CROCKFORD = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final int ENCODED_LENGTH = 13;
+
+    /* (timestamp << SEQUENCE_BITS) | sequence of the last issued id */
+    private static final AtomicLong LAST_STATE = new AtomicLong();
+
+    private static volatile long nodeId = 0;
+
+    private SnowflakeIdGenerator() {
+    }
+
+    public static void setNodeId(long id) {
+        if (id < 0 || id > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Snowflake node id must be between 0 and " + MAX_NODE_ID + ", got " + id);
+        }
+        nodeId = id;
+    }
+
+    public static long getNodeId() {
+        return nodeId;
+    }
+
+    public static long nextId() {
+        while (true) {
+            long now = System.currentTimeMillis() - EPOCH_MILLIS;
+            long prev = LAST_STATE.get();
+            long prevTs = prev >>> SEQUENCE_BITS;
+
+            long ts;
+            long seq;
+            if (now > prevTs) {
+                ts = now;
+                seq = 0;
+            } else {
+                // Same millisecond or clock moved backwards: stay monotonic on the last timestamp,
+                // borrowing the next millisecond when the sequence is exhausted instead of spinning.
+                seq = (prev & SEQUENCE_MASK) + 1;
+                ts = prevTs;
+                if (seq > SEQUENCE_MASK) {
+                    ts = prevTs + 1;
+                    seq = 0;
+                }
+            }
+
+            if (LAST_STATE.compareAndSet(prev, (ts << SEQUENCE_BITS) | seq)) {
+                return (ts << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | seq;
+            }
+        }
+    }
+
+    /* Next id as a 13 character, lexicographically sortable string */
+    public static String nextIdString() {
+        return encode(nextId());
+    }
+
+    public static String nextIdString(String prefix) {
+        return prefix + encode(nextId());
+    }
+
+    public static String encode(long id) {
+        char[] out = new char[ENCODED_LENGTH];
+        long value = id;
+        for (int i = ENCODED_LENGTH - 1; i >= 0; i--) {
+            out[i] = CROCKFORD[(int) (value & 31)];
+            value >>>= 5;
+        }
+        return new String(out);
+    }
+
+    /* Epoch millis at which an id was generated */
+    public static long extractTimestamp(long id) {
+        return (id >>> (NODE_BITS + SEQUENCE_BITS)) + EPOCH_MILLIS;
+    }
+}
@@ -22,4 +22,7 @@ public class SortFields {
             Set.of("createdAt", "patientName", "status", "reviewStatus", "updatedAt");
 
     public static final String DEFAULT_TEST_ORDER_SORT = "createdAt";
+
+    // Chỉ các cột thời gian có index (deleted, <cột>, order_id) trên order_list_view mới hỗ trợ keyset
+    public static final Set<String> TEST_ORDER_KEYSET_SORT_FIELDS = Set.of("createdAt", "updatedAt");
 }
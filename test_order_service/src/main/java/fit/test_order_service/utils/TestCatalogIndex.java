@@ -0,0 +1,125 @@
+/*
+ * @ {#} TestCatalogIndex.java   1.0     19/10/2026
+ *
+ * Copyright (c) 2026 IUH. All rights reserved.
+ */
+
+package fit.test_order_service.utils;
+
+import fit.test_order_service.entities.TestCatalog;
+import fit.test_order_service.repositories.TestCatalogRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+/*
+ * @description: In-memory index of the active TestCatalog keyed by id, local code, LOINC code and test name.
+ *               Each rebuild produces a new immutable snapshot that is swapped in atomically, so readers never
+ *               see a half-built index and never take a lock.
+ * @author: Tran Hien Vinh
+ * @date:   19/10/2026
+ * @version:    1.0
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TestCatalogIndex {
+
+    private final TestCatalogRepository testCatalogRepository;
+
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    /**
+     * Nạp lại toàn bộ catalog đang active và thay thế snapshot hiện tại.
+     */
+    public synchronized void rebuild() {
+        List<TestCatalog> active = testCatalogRepository.findByActiveTrueOrderByTestName();
+
+        Map<Long, TestCatalog> byId = new HashMap<>();
+        Map<String, TestCatalog> byLocalCode = new HashMap<>();
+        Map<String, TestCatalog> byLoincCode = new HashMap<>();
+        Map<String, TestCatalog> byTestName = new HashMap<>();
+
+        for (TestCatalog catalog : active) {
+            byId.put(catalog.getId(), catalog);
+            putIfPresent(byLocalCode, normalizeIgnoreCase(catalog.getLocalCode()), catalog);
+            putIfPresent(byLoincCode, normalize(catalog.getLoincCode()), catalog);
+            putIfPresent(byTestName, normalizeIgnoreCase(catalog.getTestName()), catalog);
+        }
+
+        snapshot.set(new Snapshot(Map.copyOf(byId), Map.copyOf(byLocalCode), Map.copyOf(byLoincCode), Map.copyOf(byTestName)));
+        log.info("Test catalog index rebuilt with {} active tests", active.size());
+    }
+
+    public Optional<TestCatalog> findByLocalCode(String localCode) {
+        return lookup(current().byLocalCode(), normalizeIgnoreCase(localCode));
+    }
+
+    public Optional<TestCatalog> findByLoincCode(String loincCode) {
+        return lookup(current().byLoincCode(), normalize(loincCode));
+    }
+
+    public Optional<TestCatalog> findByTestName(String testName) {
+        return lookup(current().byTestName(), normalizeIgnoreCase(testName));
+    }
+
+    /**
+     * Số xét nghiệm active trong snapshot; đếm theo id vì mã LOINC, mã nội bộ và tên có thể trùng hoặc để trống.
+     */
+    public int size() {
+        return current().byId().size();
+    }
+
+    private Snapshot current() {
+        Snapshot s = snapshot.get();
+        if (s == null) {
+            // Được gọi trước ApplicationReadyEvent (ví dụ từ listener khởi động sớm)
+            rebuild();
+            s = snapshot.get();
+        }
+        return s;
+    }
+
+    private static Optional<TestCatalog> lookup(Map<String, TestCatalog> map, String key) {
+        return key == null ? Optional.empty() : Optional.ofNullable(map.get(key));
+    }
+
+    private static void putIfPresent(Map<String, TestCatalog> map, String key, TestCatalog catalog) {
+        if (key != null) {
+            map.putIfAbsent(key, catalog);
+        }
+    }
+
+    private static String normalize(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+
+    private static String normalizeIgnoreCase(String value) {
+        String trimmed = normalize(value);
+        return trimmed == null ? null : trimmed.toUpperCase(Locale.ROOT);
+    }
+
+    private record Snapshot(Map<Long, TestCatalog> byId,
+                            Map<String, TestCatalog> byLocalCode,
+                            Map<String, TestCatalog> byLoincCode,
+                            Map<String, TestCatalog> byTestName) {
+    }
+}
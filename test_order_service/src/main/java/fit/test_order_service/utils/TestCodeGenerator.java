@@ -7,13 +7,11 @@
 package fit.test_order_service.utils;
 
 import fit.test_order_service.entities.TestCatalog;
-import fit.test_order_service.repositories.TestCatalogRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
 import java.text.Normalizer;
-import java.util.List;
 import java.util.Locale;
 import java.util.Optional;
 import java.util.UUID;
@@ -30,7 +28,7 @@ import java.util.regex.Pattern;
 @Slf4j
 public class TestCodeGenerator {
 
-    private final TestCatalogRepository testCatalogRepository;
+    private final TestCatalogIndex testCatalogIndex;
 
     private static final Pattern NON_ASCII = Pattern.compile("[^\\p{ASCII}]");
     private static final Pattern NON_ALNUM = Pattern.compile("[^A-Z0-9]");
@@ -44,15 +42,13 @@ public class TestCodeGenerator {
         }
 
         // Thử tìm theo local code trước
-        Optional<TestCatalog> byLocal = testCatalogRepository
-                .findByLocalCodeIgnoreCaseAndActiveTrue(testCode.trim());
+        Optional<TestCatalog> byLocal = testCatalogIndex.findByLocalCode(testCode);
         if (byLocal.isPresent()) {
             return byLocal.get().getLocalCode();
         }
 
         // Thử tìm theo LOINC code
-        Optional<TestCatalog> byLoinc = testCatalogRepository
-                .findByLoincCodeAndActiveTrue(testCode.trim());
+        Optional<TestCatalog> byLoinc = testCatalogIndex.findByLoincCode(testCode);
         if (byLoinc.isPresent()) {
             return byLoinc.get().getLocalCode();
         }
@@ -68,8 +64,7 @@ public class TestCodeGenerator {
             return null;
         }
 
-        Optional<TestCatalog> catalog = testCatalogRepository
-                .findByTestNameIgnoreCaseAndActiveTrue(testName.trim());
+        Optional<TestCatalog> catalog = testCatalogIndex.findByTestName(testName);
 
         return catalog.map(TestCatalog::getLocalCode).orElse(null);
     }
@@ -6,47 +6,42 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
-import java.util.Random;
 import java.util.UUID;
 import java.util.concurrent.ThreadLocalRandom;
 
 @UtilityClass
 public class TestOrderGenerator {
-    private static final Random RANDOM = new Random();
+    private static final ZoneId ZONE = ZoneId.of("Asia/Ho_Chi_Minh");
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyMMdd");
+    private static final DateTimeFormatter DATE_TIME_FORMAT = DateTimeFormatter.ofPattern("yyMMddHHmmss");
 
+    // Time-ordered primary key, e.g. TO-0F4QZ8K1M2A3B
     public String generateTestOrderId() {
-        String datePart = LocalDateTime.now(ZoneId.of("Asia/Ho_Chi_Minh"))
-                .format(DateTimeFormatter.ofPattern("yyMMddHHmmss"));
-        String uuidSuffix = UUID.randomUUID().toString().replace("-", "").substring(0, 8);
-        int number = RANDOM.nextInt(9000) + 1000; // 1000-9999
-        return String.format("TO-%s-%s-%d", datePart, uuidSuffix, number);
+        return SnowflakeIdGenerator.nextIdString("TO-");
     }
 
+    // Mã hiển thị cho người dùng, giữ định dạng TOC-yyMMddHHmmss-XXXXXX-NNN (khóa chính mới dùng Snowflake)
     public String generateTestOrderCode() {
-        String datePart = LocalDateTime.now(ZoneId.of("Asia/Ho_Chi_Minh"))
-                .format(DateTimeFormatter.ofPattern("yyMMddHHmmss"));
+        String datePart = LocalDateTime.now(ZONE).format(DATE_TIME_FORMAT);
         String uuidSuffix = UUID.randomUUID().toString().replace("-", "").substring(0, 6).toUpperCase();
         int number = ThreadLocalRandom.current().nextInt(100, 999);
         return String.format("TOC-%s-%s-%d", datePart, uuidSuffix, number);
     }
 
     public String generateTestItemId() {
-        String datePart = LocalDateTime.now(ZoneId.of("Asia/Ho_Chi_Minh"))
-                .format(DateTimeFormatter.ofPattern("yyMMdd"));
+        String datePart = LocalDateTime.now(ZONE).format(DATE_FORMAT);
         String uuidSuffix = UUID.randomUUID().toString().replace("-", "").substring(0, 4).toUpperCase();
         return String.format("TII-%s-%s", datePart, uuidSuffix);
     }
 
     public String generateTestItemCode() {
-        String datePart = LocalDateTime.now(ZoneId.of("Asia/Ho_Chi_Minh"))
-                .format(DateTimeFormatter.ofPattern("yyMMdd"));
+        String datePart = LocalDateTime.now(ZONE).format(DATE_FORMAT);
         String uuidSuffix = UUID.randomUUID().toString().replace("-", "").substring(0, 4).toUpperCase();
         return String.format("TIC-%s-%s", datePart, uuidSuffix);
     }
 
     public String generateBarcode() {
-        String datePart = LocalDate.now(ZoneId.of("Asia/Ho_Chi_Minh"))
-                .format(DateTimeFormatter.ofPattern("yyMMdd"));
+        String datePart = LocalDate.now(ZONE).format(DATE_FORMAT);
 
         String randomCode = generateRandomAlphaNumeric(6);
 
@@ -65,10 +60,9 @@ public class TestOrderGenerator {
     }
 
     public String generateTestTypeId() {
-        String datePart = LocalDateTime.now(ZoneId.of("Asia/Ho_Chi_Minh"))
-                .format(DateTimeFormatter.ofPattern("yyMMddHHmmss"));
+        String datePart = LocalDateTime.now(ZONE).format(DATE_TIME_FORMAT);
         String uuidSuffix = UUID.randomUUID().toString().replace("-", "").substring(0, 8);
-        int number = RANDOM.nextInt(9000) + 1000; // 1000-9999
+        int number = ThreadLocalRandom.current().nextInt(1000, 10000); // 1000-9999
         return String.format("TTID-%s-%s-%d", datePart, uuidSuffix, number);
     }
 }
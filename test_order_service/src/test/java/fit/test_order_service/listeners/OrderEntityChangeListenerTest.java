@@ -0,0 +1,39 @@
+package fit.test_order_service.listeners;
+
+import fit.test_order_service.entities.TestOrder;
+import fit.test_order_service.entities.TestResult;
+import fit.test_order_service.utils.OrderChangeTracker;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.mockito.Mockito.*;
+
+class OrderEntityChangeListenerTest {
+
+    private final OrderChangeTracker orderChangeTracker = mock(OrderChangeTracker.class);
+    private final OrderEntityChangeListener listener = new OrderEntityChangeListener(orderChangeTracker);
+
+    @Test
+    @DisplayName("onChange - Order changes mark the order itself")
+    void onChange_TestOrder() {
+        listener.onChange(TestOrder.builder().orderId("TO-1").build());
+
+        verify(orderChangeTracker).markChanged("TO-1");
+    }
+
+    @Test
+    @DisplayName("onChange - Result changes mark their parent order")
+    void onChange_TestResult() {
+        listener.onChange(TestResult.builder().resultId("TR-1").orderId("TO-2").build());
+
+        verify(orderChangeTracker).markChanged("TO-2");
+    }
+
+    @Test
+    @DisplayName("onChange - Other entities are ignored")
+    void onChange_OtherEntity() {
+        listener.onChange("not an entity");
+
+        verifyNoInteractions(orderChangeTracker);
+    }
+}
@@ -0,0 +1,82 @@
+package fit.test_order_service.listeners.mllp;
+
+import ca.uhn.hl7v2.DefaultHapiContext;
+import ca.uhn.hl7v2.HapiContext;
+import ca.uhn.hl7v2.parser.Parser;
+import ca.uhn.hl7v2.validation.impl.NoValidation;
+import fit.test_order_service.dtos.response.Hl7ProcessResponse;
+import fit.test_order_service.exceptions.AlreadyExistsException;
+import fit.test_order_service.services.Hl7ProcessingService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class Hl7MllpMessageHandlerTest {
+
+    private static final String ORU = "MSH|^~\\&|ANALYZER|LAB|LIS|LAB|20261019101500||ORU^R01|CTRL123|P|2.5\r"
+            + "PID|1||MRN001||Nguyen^Van A\r"
+            + "OBR|1|ORD001||CBC\r"
+            + "OBX|1|NM|WBC||7.2|10^9/L|4.0-10.0|N|||F\r";
+
+    @Mock
+    private Hl7ProcessingService hl7ProcessingService;
+
+    private Hl7MllpMessageHandler handler;
+
+    @BeforeEach
+    void setUp() {
+        HapiContext context = new DefaultHapiContext();
+        context.setValidationContext(new NoValidation());
+        Parser parser = context.getPipeParser();
+        handler = new Hl7MllpMessageHandler(hl7ProcessingService, parser);
+    }
+
+    @Test
+    @DisplayName("handle - Returns AA when the message is processed")
+    void handle_Success_ReturnsAA() {
+        when(hl7ProcessingService.processHl7Message(any()))
+                .thenReturn(Hl7ProcessResponse.builder().status("SUCCESS").build());
+
+        String ack = handler.handle(ORU);
+
+        assertTrue(ack.contains("MSA|AA|CTRL123"), ack);
+    }
+
+    @Test
+    @DisplayName("handle - Returns AA for an already processed retransmission")
+    void handle_Duplicate_ReturnsAA() {
+        when(hl7ProcessingService.processHl7Message(any())).thenThrow(new AlreadyExistsException("duplicate"));
+
+        String ack = handler.handle(ORU);
+
+        assertTrue(ack.contains("MSA|AA|CTRL123"), ack);
+    }
+
+    @Test
+    @DisplayName("handle - Returns AE when processing fails")
+    void handle_ProcessingFailed_ReturnsAE() {
+        when(hl7ProcessingService.processHl7Message(any()))
+                .thenReturn(Hl7ProcessResponse.builder().status("FAILED").errorMessage("order not found").build());
+
+        String ack = handler.handle(ORU);
+
+        assertTrue(ack.contains("MSA|AE|CTRL123"), ack);
+    }
+
+    @Test
+    @DisplayName("handle - Returns AR without processing when the message cannot be parsed")
+    void handle_Unparsable_ReturnsAR() {
+        String ack = handler.handle("not an hl7 message");
+
+        assertTrue(ack.contains("MSA|AR|"), ack);
+        verifyNoInteractions(hl7ProcessingService);
+    }
+}
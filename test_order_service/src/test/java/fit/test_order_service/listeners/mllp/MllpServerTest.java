@@ -0,0 +1,161 @@
+package fit.test_order_service.listeners.mllp;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MllpServerTest {
+
+    private MllpServer server;
+
+    @AfterEach
+    void tearDown() {
+        if (server != null) {
+            server.stop();
+        }
+    }
+
+    private MllpServer start(MllpMessageHandler handler, int maxInFlight) throws IOException {
+        server = new MllpServer(handler, "127.0.0.1", 0, 2, maxInFlight, 1024, 4, "UTF-8");
+        server.start();
+        return server;
+    }
+
+    private static byte[] frame(String payload) {
+        return MllpFrameDecoder.encode(payload.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String readAck(InputStream in) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != MllpFrameDecoder.START_BLOCK) {
+            if (b < 0) {
+                throw new IOException("Connection closed before ACK");
+            }
+        }
+        while ((b = in.read()) != MllpFrameDecoder.END_BLOCK) {
+            if (b < 0) {
+                throw new IOException("Connection closed inside ACK");
+            }
+            buffer.write(b);
+        }
+        assertEquals(MllpFrameDecoder.CARRIAGE_RETURN, in.read());
+        return buffer.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    @DisplayName("Frames split across TCP writes are reassembled before handling")
+    void splitFrame_IsReassembled() throws Exception {
+        start(msg -> "ACK:" + msg, 8);
+
+        try (Socket socket = new Socket("127.0.0.1", server.getLocalPort())) {
+            socket.setSoTimeout(5000);
+            OutputStream out = socket.getOutputStream();
+            byte[] framed = frame("MSH|one");
+            out.write(framed, 0, 4);
+            out.flush();
+            Thread.sleep(50);
+            out.write(framed, 4, framed.length - 4);
+            out.flush();
+
+            assertEquals("ACK:MSH|one", readAck(socket.getInputStream()));
+        }
+    }
+
+    @Test
+    @DisplayName("Pipelined frames are handled one at a time and acknowledged in order")
+    void pipelinedFrames_AckedInOrder() throws Exception {
+        AtomicInteger concurrent = new AtomicInteger();
+        AtomicInteger maxConcurrent = new AtomicInteger();
+        start(msg -> {
+            maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            concurrent.decrementAndGet();
+            return "ACK:" + msg;
+        }, 8);
+
+        try (Socket socket = new Socket("127.0.0.1", server.getLocalPort())) {
+            socket.setSoTimeout(5000);
+            ByteArrayOutputStream batch = new ByteArrayOutputStream();
+            for (int i = 0; i < 20; i++) {
+                batch.write(frame("M" + i));
+            }
+            socket.getOutputStream().write(batch.toByteArray());
+            socket.getOutputStream().flush();
+
+            List<String> acks = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                acks.add(readAck(socket.getInputStream()));
+            }
+            for (int i = 0; i < 20; i++) {
+                assertEquals("ACK:M" + i, acks.get(i));
+            }
+            assertEquals(1, maxConcurrent.get());
+        }
+    }
+
+    @Test
+    @DisplayName("A slow handler stalls reading instead of buffering unbounded frames")
+    void slowHandler_AppliesBackpressure() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger handled = new AtomicInteger();
+        start(msg -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            handled.incrementAndGet();
+            return "ACK:" + msg;
+        }, 2);
+
+        try (Socket socket = new Socket("127.0.0.1", server.getLocalPort())) {
+            socket.setSoTimeout(5000);
+            OutputStream out = socket.getOutputStream();
+            for (int i = 0; i < 5; i++) {
+                out.write(frame("M" + i));
+                out.flush();
+                Thread.sleep(20);
+            }
+            assertEquals(0, handled.get());
+
+            release.countDown();
+            for (int i = 0; i < 5; i++) {
+                assertEquals("ACK:M" + i, readAck(socket.getInputStream()));
+            }
+            assertEquals(5, handled.get());
+        }
+    }
+
+    @Test
+    @DisplayName("Oversized frames close the connection")
+    void oversizedFrame_ClosesConnection() throws Exception {
+        start(msg -> "ACK", 8);
+
+        try (Socket socket = new Socket("127.0.0.1", server.getLocalPort())) {
+            socket.setSoTimeout(5000);
+            socket.getOutputStream().write(frame("X".repeat(2048)));
+            socket.getOutputStream().flush();
+
+            assertEquals(-1, socket.getInputStream().read());
+        }
+    }
+}
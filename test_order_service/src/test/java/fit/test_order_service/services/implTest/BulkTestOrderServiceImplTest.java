@@ -0,0 +1,197 @@
+package fit.test_order_service.services.implTest;
+
+import fit.test_order_service.client.PatientMedicalRecordFeignClient;
+import fit.test_order_service.client.dtos.PatientMedicalRecordCodesRequest;
+import fit.test_order_service.client.dtos.PatientMedicalRecordInternalResponse;
+import fit.test_order_service.dtos.request.BulkCreateTestOrderRequest;
+import fit.test_order_service.dtos.request.CreateTestOrderRequest;
+import fit.test_order_service.dtos.response.ApiResponse;
+import fit.test_order_service.dtos.response.BulkCreateTestOrderResponse;
+import fit.test_order_service.dtos.response.BulkOrderItemResult;
+import fit.test_order_service.entities.TestOrder;
+import fit.test_order_service.entities.TestType;
+import fit.test_order_service.enums.BulkItemStatus;
+import fit.test_order_service.enums.EventType;
+import fit.test_order_service.enums.OrderStatus;
+import fit.test_order_service.mappers.TestOrderMapper;
+import fit.test_order_service.repositories.TestOrderRepository;
+import fit.test_order_service.repositories.TestTypeRepository;
+import fit.test_order_service.services.EventLogPublisher;
+import fit.test_order_service.services.OrderEventLogService;
+import fit.test_order_service.services.impl.BulkTestOrderServiceImpl;
+import fit.test_order_service.utils.SecurityUtils;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockedStatic;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BulkTestOrderServiceImplTest {
+
+    private static final String USER_ID = "user-1";
+    private static final String TYPE_ID = "type-cbc";
+
+    @Mock
+    private TestOrderRepository testOrderRepository;
+    @Mock
+    private TestTypeRepository testTypeRepository;
+    @Mock
+    private PatientMedicalRecordFeignClient patientMedicalRecordFeignClient;
+    @Mock
+    private TestOrderMapper testOrderMapper;
+    @Mock
+    private OrderEventLogService orderEventLogService;
+    @Mock
+    private EventLogPublisher eventLogPublisher;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private BulkTestOrderServiceImpl bulkTestOrderService;
+
+    @BeforeEach
+    void setUp() {
+        Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+        bulkTestOrderService = new BulkTestOrderServiceImpl(testOrderRepository, testTypeRepository,
+                patientMedicalRecordFeignClient, testOrderMapper, orderEventLogService, eventLogPublisher,
+                validator, transactionManager);
+    }
+
+    private static CreateTestOrderRequest item(String code, String typeId) {
+        CreateTestOrderRequest request = new CreateTestOrderRequest();
+        request.setMedicalRecordCode(code);
+        request.setTestTypeId(typeId);
+        return request;
+    }
+
+    private static BulkCreateTestOrderRequest bulk(CreateTestOrderRequest... items) {
+        BulkCreateTestOrderRequest request = new BulkCreateTestOrderRequest();
+        request.setItems(List.of(items));
+        return request;
+    }
+
+    private static PatientMedicalRecordInternalResponse patient(String code) {
+        return new PatientMedicalRecordInternalResponse("id-" + code, code, "Patient " + code, null, null,
+                null, null, null, null, null, null, null, null, null, null);
+    }
+
+    private void stubMapperAndSave() {
+        when(testOrderMapper.toEntity(any())).thenAnswer(inv -> {
+            PatientMedicalRecordInternalResponse p = inv.getArgument(0);
+            TestOrder order = new TestOrder();
+            order.setMedicalRecordCode(p.medicalRecordCode());
+            return order;
+        });
+        when(testOrderRepository.saveAll(anyList())).thenAnswer(inv -> {
+            List<TestOrder> orders = inv.getArgument(0);
+            int n = 0;
+            for (TestOrder order : orders) {
+                order.setOrderId("ORD-" + (++n));
+            }
+            return new ArrayList<>(orders);
+        });
+    }
+
+    @Test
+    @DisplayName("Tra cứu bệnh nhân và loại xét nghiệm mỗi loại một lần, ghi order bằng một saveAll")
+    void createTestOrders_batchesLookupsAndInserts() {
+        TestType cbc = TestType.builder().id(TYPE_ID).name("CBC").build();
+        when(testTypeRepository.findAllById(any())).thenReturn(List.of(cbc));
+        when(patientMedicalRecordFeignClient.getPatientMedicalRecordsByCodes(any()))
+                .thenReturn(ApiResponse.success(List.of(patient("MR-1"), patient("MR-2")), "ok"));
+        stubMapperAndSave();
+
+        try (MockedStatic<SecurityUtils> mockedSecurity = mockStatic(SecurityUtils.class)) {
+            mockedSecurity.when(SecurityUtils::getCurrentUserId).thenReturn(USER_ID);
+
+            BulkCreateTestOrderResponse response = bulkTestOrderService.createTestOrders(
+                    bulk(item("MR-1", TYPE_ID), item("MR-2", TYPE_ID), item(" MR-1 ", "type-other")));
+
+            assertEquals(3, response.getRequested());
+            assertEquals(2, response.getCreated());
+            assertEquals(1, response.getFailed());
+            assertEquals(BulkItemStatus.CREATED, response.getItems().get(0).getStatus());
+            assertEquals(BulkItemStatus.CREATED, response.getItems().get(1).getStatus());
+            assertEquals(BulkItemStatus.FAILED, response.getItems().get(2).getStatus());
+            assertTrue(response.getItems().get(2).getError().contains("type-other"));
+        }
+
+        // Mã bệnh nhân được chuẩn hóa và loại trùng trước khi gọi sang patient service
+        ArgumentCaptor<PatientMedicalRecordCodesRequest> codes = ArgumentCaptor.forClass(PatientMedicalRecordCodesRequest.class);
+        verify(patientMedicalRecordFeignClient, times(1)).getPatientMedicalRecordsByCodes(codes.capture());
+        assertEquals(List.of("MR-1", "MR-2"), new ArrayList<>(codes.getValue().medicalRecordCodes()));
+        verify(testTypeRepository, times(1)).findAllById(any());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<TestOrder>> saved = ArgumentCaptor.forClass(List.class);
+        verify(testOrderRepository, times(1)).saveAll(saved.capture());
+        assertEquals(2, saved.getValue().size());
+        TestOrder first = saved.getValue().get(0);
+        assertEquals(OrderStatus.PENDING, first.getStatus());
+        assertEquals(USER_ID, first.getCreatedBy());
+        assertEquals("CBC", first.getTestTypeNameSnapshot());
+        assertNotNull(first.getBarcode());
+
+        verify(orderEventLogService).logEvents(anyList(), eq(EventType.CREATE), any());
+        verify(testOrderRepository, never()).save(any());
+        verify(eventLogPublisher, times(1)).publishEvent(any());
+    }
+
+    @Test
+    @DisplayName("Item không hợp lệ, trùng lặp hoặc không tìm thấy bệnh nhân được báo lỗi riêng")
+    void createTestOrders_reportsPerItemFailures() {
+        TestType cbc = TestType.builder().id(TYPE_ID).name("CBC").build();
+        when(testTypeRepository.findAllById(any())).thenReturn(List.of(cbc));
+        when(patientMedicalRecordFeignClient.getPatientMedicalRecordsByCodes(any()))
+                .thenReturn(ApiResponse.success(List.of(patient("MR-1")), "ok"));
+        stubMapperAndSave();
+
+        try (MockedStatic<SecurityUtils> mockedSecurity = mockStatic(SecurityUtils.class)) {
+            mockedSecurity.when(SecurityUtils::getCurrentUserId).thenReturn(USER_ID);
+
+            BulkCreateTestOrderResponse response = bulkTestOrderService.createTestOrders(
+                    bulk(item("MR-1", TYPE_ID), item("", TYPE_ID), item("MR-1", TYPE_ID), item("MR-404", TYPE_ID)));
+
+            List<BulkOrderItemResult> items = response.getItems();
+            assertEquals(1, response.getCreated());
+            assertEquals(BulkItemStatus.CREATED, items.get(0).getStatus());
+            assertEquals("ORD-1", items.get(0).getOrderId());
+            assertTrue(items.get(1).getError().contains("medicalRecordCode"));
+            assertEquals("Duplicate of item 0", items.get(2).getError());
+            assertTrue(items.get(3).getError().contains("MR-404"));
+            for (int i = 0; i < items.size(); i++) {
+                assertEquals(i, items.get(i).getIndex());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Không gọi tra cứu hay ghi DB khi mọi item đều không hợp lệ")
+    void createTestOrders_allInvalid_skipsLookups() {
+        try (MockedStatic<SecurityUtils> mockedSecurity = mockStatic(SecurityUtils.class)) {
+            mockedSecurity.when(SecurityUtils::getCurrentUserId).thenReturn(USER_ID);
+
+            BulkCreateTestOrderResponse response = bulkTestOrderService.createTestOrders(
+                    bulk(item(null, TYPE_ID), item("MR-1", null)));
+
+            assertEquals(0, response.getCreated());
+            assertEquals(2, response.getFailed());
+        }
+
+        verifyNoInteractions(patientMedicalRecordFeignClient, testTypeRepository, testOrderRepository,
+                orderEventLogService, eventLogPublisher);
+    }
+}
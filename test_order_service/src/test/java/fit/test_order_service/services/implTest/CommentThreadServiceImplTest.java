@@ -0,0 +1,108 @@
+package fit.test_order_service.services.implTest;
+
+import fit.test_order_service.client.IamFeignClient;
+import fit.test_order_service.client.dtos.UserInternalResponse;
+import fit.test_order_service.dtos.response.ApiResponse;
+import fit.test_order_service.dtos.response.CommentOrderResponse;
+import fit.test_order_service.entities.OrderComment;
+import fit.test_order_service.entities.TestOrder;
+import fit.test_order_service.entities.TestResult;
+import fit.test_order_service.enums.CommentTargetType;
+import fit.test_order_service.repositories.OrderCommentRepository;
+import fit.test_order_service.services.impl.CommentThreadServiceImpl;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CommentThreadServiceImplTest {
+
+    private static final String ORDER_ID = "ORD-001";
+    private static final String USER_ID = "user-123";
+    private static final LocalDateTime T0 = LocalDateTime.of(2026, 10, 19, 8, 0);
+
+    @Mock
+    private OrderCommentRepository orderCommentRepository;
+    @Mock
+    private IamFeignClient iamFeignClient;
+
+    @InjectMocks
+    private CommentThreadServiceImpl commentThreadService;
+
+    private static OrderComment comment(String id, String parentId, CommentTargetType type, String targetId, int minute) {
+        return OrderComment.builder()
+                .commentId(id)
+                .parentId(parentId)
+                .targetType(type)
+                .targetId(targetId)
+                .threadOrderId(ORDER_ID)
+                .path((parentId == null ? "" : parentId + "/") + id + "/")
+                .authorUserId(USER_ID)
+                .content("content " + id)
+                .createdAt(T0.plusMinutes(minute))
+                .build();
+    }
+
+    @Test
+    @DisplayName("loadThread - Builds the tree from one query and resolves each author once")
+    void loadThread_BuildsTree() {
+        TestResult result = new TestResult();
+        result.setResultId("RES-001");
+        result.setAnalyteName("GLU");
+        result.setTestCode("GLU");
+        result.setValueText("5.4");
+        TestOrder order = new TestOrder();
+        order.setOrderId(ORDER_ID);
+        order.setResults(new ArrayList<>(List.of(result)));
+
+        // Thứ tự path khác thứ tự thời gian: cây vẫn phải sắp theo createdAt
+        when(orderCommentRepository.findByThreadOrderIdOrderByPathAsc(ORDER_ID)).thenReturn(List.of(
+                comment("A", null, CommentTargetType.ORDER, ORDER_ID, 10),
+                comment("A2", "A", CommentTargetType.ORDER, ORDER_ID, 30),
+                comment("A1", "A", CommentTargetType.ORDER, ORDER_ID, 20),
+                comment("B", null, CommentTargetType.RESULT, "RES-001", 5),
+                comment("X1", "DELETED", CommentTargetType.ORDER, ORDER_ID, 1)));
+
+        UserInternalResponse user = new UserInternalResponse(
+                USER_ID, "test_user", "Tester", null, null, null,
+                null, null, null, null, null, null,
+                "ROLE_LAB", Boolean.TRUE, null, null, null
+        );
+        ApiResponse<UserInternalResponse> userApiResponse = new ApiResponse<>();
+        userApiResponse.setData(user);
+        when(iamFeignClient.getUserById(USER_ID)).thenReturn(userApiResponse);
+
+        List<CommentOrderResponse> thread = commentThreadService.loadThread(order);
+
+        assertEquals(List.of("B", "A"), thread.stream().map(CommentOrderResponse::getId).toList());
+        assertEquals(List.of("A1", "A2"), thread.get(1).getReplies().stream().map(CommentOrderResponse::getId).toList());
+        assertEquals("GLU", thread.get(0).getTargetInfo().getAnalyteName());
+        assertEquals(ORDER_ID, thread.get(0).getTargetInfo().getTestOrderId());
+        assertEquals("Tester", thread.get(1).getAuthor().getFullName());
+
+        verify(orderCommentRepository, times(1)).findByThreadOrderIdOrderByPathAsc(ORDER_ID);
+        verify(iamFeignClient, times(1)).getUserById(anyString());
+    }
+
+    @Test
+    @DisplayName("loadThread - Empty thread")
+    void loadThread_Empty() {
+        TestOrder order = new TestOrder();
+        order.setOrderId(ORDER_ID);
+        when(orderCommentRepository.findByThreadOrderIdOrderByPathAsc(ORDER_ID)).thenReturn(List.of());
+
+        assertTrue(commentThreadService.loadThread(order).isEmpty());
+        verifyNoInteractions(iamFeignClient);
+    }
+}
@@ -0,0 +1,126 @@
+package fit.test_order_service.services.implTest;
+
+import fit.test_order_service.enums.StorageType;
+import fit.test_order_service.exceptions.NotFoundException;
+import fit.test_order_service.services.impl.LocalFileStorageServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.Resource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalFileStorageServiceImplTest {
+
+    @TempDir
+    Path root;
+
+    private LocalFileStorageServiceImpl storage;
+
+    @BeforeEach
+    void setUp() {
+        storage = new LocalFileStorageServiceImpl(root.toString());
+    }
+
+    private Path objectPath(String key) {
+        return root.resolve("objects").resolve(key.substring(0, 2)).resolve(key.substring(2, 4)).resolve(key);
+    }
+
+    private long countObjects() throws IOException {
+        try (Stream<Path> files = Files.walk(root.resolve("objects"))) {
+            return files.filter(Files::isRegularFile).count();
+        }
+    }
+
+    @Test
+    @DisplayName("storeFile - Stores under a sharded content-hash path and deduplicates identical content")
+    void storeFile_ShardsAndDeduplicates() throws IOException {
+        byte[] content = "report-content".getBytes(StandardCharsets.UTF_8);
+
+        String first = storage.storeFile(content, "a.pdf", "pdf_exports", "application/pdf", "user-1");
+        String second = storage.storeStream(new ByteArrayInputStream(content), "b.pdf", "excel_exports", "application/pdf", "user-2");
+
+        assertEquals(first, second);
+        assertTrue(first.matches("[0-9a-f]{64}"));
+        assertTrue(Files.isRegularFile(root.resolve("objects").resolve(first.substring(0, 2))
+                .resolve(first.substring(2, 4)).resolve(first)));
+        assertEquals(1, countObjects());
+        try (Stream<Path> temps = Files.list(root.resolve("tmp"))) {
+            assertEquals(0, temps.count());
+        }
+        assertEquals(StorageType.LOCAL, storage.getStorageType());
+    }
+
+    @Test
+    @DisplayName("loadAsResource - Returns stored bytes; deleteFile removes them")
+    void loadAndDelete() throws IOException {
+        byte[] content = "hello".getBytes(StandardCharsets.UTF_8);
+        String key = storage.storeFile(content, "h.txt", null, "text/plain", "user-1");
+
+        Resource resource = storage.loadAsResource(key);
+        try (InputStream in = resource.getInputStream()) {
+            assertArrayEquals(content, in.readAllBytes());
+        }
+
+        assertTrue(storage.deleteFile(key));
+        assertThrows(NotFoundException.class, () -> storage.loadAsResource(key));
+    }
+
+    @Test
+    @DisplayName("deleteUnusedFile - Deletes only objects not stored or reused within the grace period")
+    void deleteUnusedFile_RespectsReuseGrace() throws IOException {
+        byte[] content = "old-report".getBytes(StandardCharsets.UTF_8);
+        String key = storage.storeFile(content, "old.pdf", null, "application/pdf", "user-1");
+        FileTime old = FileTime.from(Instant.now().minus(Duration.ofDays(40)));
+
+        // Vừa lưu: chưa được xóa
+        assertFalse(storage.deleteUnusedFile(key, Duration.ofHours(1)));
+
+        // Lưu trùng nội dung đánh dấu dùng lại object cũ
+        Files.setLastModifiedTime(objectPath(key), old);
+        assertEquals(key, storage.storeFile(content, "again.pdf", null, "application/pdf", "user-2"));
+        assertFalse(storage.deleteUnusedFile(key, Duration.ofHours(1)));
+        assertTrue(Files.isRegularFile(objectPath(key)));
+
+        Files.setLastModifiedTime(objectPath(key), old);
+        assertTrue(storage.deleteUnusedFile(key, Duration.ofHours(1)));
+        assertFalse(Files.exists(objectPath(key)));
+        try (Stream<Path> temps = Files.list(root.resolve("tmp"))) {
+            assertEquals(0, temps.count());
+        }
+
+        // Lưu lại sau khi đã xóa: object được ghi mới
+        assertEquals(key, storage.storeFile(content, "new.pdf", null, "application/pdf", "user-3"));
+        assertTrue(Files.isRegularFile(objectPath(key)));
+    }
+
+    @Test
+    @DisplayName("loadAsResource - Rejects keys that are not content hashes")
+    void loadAsResource_RejectsTraversal() {
+        assertThrows(NotFoundException.class, () -> storage.loadAsResource("../../etc/passwd"));
+    }
+
+    @Test
+    @DisplayName("purgeIncompleteUploads - Removes only stale temp files")
+    void purgeIncompleteUploads() throws IOException {
+        Path stale = Files.createFile(root.resolve("tmp").resolve("upload-1.part"));
+        Files.setLastModifiedTime(stale, FileTime.from(Instant.now().minus(Duration.ofHours(2))));
+        Path fresh = Files.createFile(root.resolve("tmp").resolve("upload-2.part"));
+
+        assertEquals(1, storage.purgeIncompleteUploads(Duration.ofHours(1)));
+        assertFalse(Files.exists(stale));
+        assertTrue(Files.exists(fresh));
+    }
+}
@@ -0,0 +1,190 @@
+package fit.test_order_service.services.implTest;
+
+import fit.test_order_service.dtos.event.OrderChangedEvent;
+import fit.test_order_service.entities.OrderListView;
+import fit.test_order_service.entities.TestOrder;
+import fit.test_order_service.enums.OrderStatus;
+import fit.test_order_service.repositories.OrderListViewRepository;
+import fit.test_order_service.repositories.TestOrderRepository;
+import fit.test_order_service.repositories.TestResultRepository;
+import fit.test_order_service.services.impl.OrderListViewServiceImpl;
+import fit.test_order_service.specifications.TestOrderSpecification;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.UnexpectedRollbackException;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderListViewServiceImplTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2026, 10, 19, 8, 0);
+
+    @Mock
+    private OrderListViewRepository orderListViewRepository;
+    @Mock
+    private TestOrderRepository testOrderRepository;
+    @Mock
+    private TestResultRepository testResultRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private OrderListViewServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        service = new OrderListViewServiceImpl(orderListViewRepository, testOrderRepository, testResultRepository,
+                transactionManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    private static TestOrder order(String id) {
+        return TestOrder.builder()
+                .orderId(id)
+                .orderCode("CODE-" + id)
+                .status(OrderStatus.PENDING)
+                .createdAt(T0)
+                .build();
+    }
+
+    // findAllById trả về order cho mọi id được yêu cầu
+    @SuppressWarnings("unchecked")
+    private void stubOrdersExist() {
+        when(testOrderRepository.findAllById(anyIterable())).thenAnswer(invocation -> {
+            List<TestOrder> orders = new ArrayList<>();
+            ((Iterable<String>) invocation.getArgument(0)).forEach(id -> orders.add(order(id)));
+            return orders;
+        });
+        when(testResultRepository.countResultsByOrderIds(anyCollection())).thenReturn(Collections.emptyList());
+    }
+
+    @Test
+    @DisplayName("refreshStale - Pages stale order ids by keyset and only re-projects those")
+    void refreshStale_PagesByKeyset() {
+        List<String> firstPage = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            firstPage.add(String.format("TO-%03d", i));
+        }
+        when(orderListViewRepository.findStaleOrderIdsAfter(eq(""), any(Pageable.class))).thenReturn(firstPage);
+        when(orderListViewRepository.findStaleOrderIdsAfter(eq("TO-499"), any(Pageable.class))).thenReturn(List.of("TO-500"));
+        when(orderListViewRepository.findOrphanOrderIdsAfter(eq(""), any(Pageable.class))).thenReturn(List.of());
+        stubOrdersExist();
+
+        assertEquals(501, service.refreshStale());
+
+        // Trang thứ hai tiếp tục sau id cuối của trang đầu, không dùng offset
+        verify(orderListViewRepository).findStaleOrderIdsAfter(eq("TO-499"), any(Pageable.class));
+        verify(orderListViewRepository, times(2)).saveAll(anyList());
+        verify(orderListViewRepository, never()).findOrderIdsAfter(anyString(), any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("refreshStale - Backfilled row carries the latest order/result change as its watermark")
+    @SuppressWarnings("unchecked")
+    void refreshStale_WatermarkIncludesLatestResult() {
+        TestOrder order = order("TO-1");
+        order.setUpdatedAt(T0.plusMinutes(5));
+        when(orderListViewRepository.findStaleOrderIdsAfter(eq(""), any(Pageable.class))).thenReturn(List.of("TO-1"));
+        when(orderListViewRepository.findOrphanOrderIdsAfter(eq(""), any(Pageable.class))).thenReturn(List.of());
+        when(testOrderRepository.findAllById(anyIterable())).thenReturn(List.of(order));
+        List<Object[]> counts = new ArrayList<>();
+        counts.add(new Object[]{"TO-1", 3L, 1L, T0.plusMinutes(9)});
+        when(testResultRepository.countResultsByOrderIds(anyCollection())).thenReturn(counts);
+
+        service.refreshStale();
+
+        ArgumentCaptor<List<OrderListView>> rows = ArgumentCaptor.forClass(List.class);
+        verify(orderListViewRepository).saveAll(rows.capture());
+        OrderListView row = rows.getValue().get(0);
+        assertEquals(T0.plusMinutes(9), row.getUpdatedAt());
+        assertEquals(3, row.getResultCount());
+        assertEquals(1, row.getAbnormalCount());
+    }
+
+    @Test
+    @DisplayName("refreshStale - Removes rows of orders that no longer exist")
+    void refreshStale_RemovesOrphanRows() {
+        when(orderListViewRepository.findStaleOrderIdsAfter(eq(""), any(Pageable.class))).thenReturn(List.of());
+        when(orderListViewRepository.findOrphanOrderIdsAfter(eq(""), any(Pageable.class))).thenReturn(List.of("TO-GONE"));
+        when(testOrderRepository.findAllById(anyIterable())).thenReturn(List.of());
+        when(testResultRepository.countResultsByOrderIds(anyCollection())).thenReturn(Collections.emptyList());
+
+        service.refreshStale();
+
+        verify(orderListViewRepository).deleteAllById(List.of("TO-GONE"));
+    }
+
+    @Test
+    @DisplayName("backfillIfNeeded - Runs the catch-up off the startup thread")
+    void backfillIfNeeded_RunsInBackground() {
+        when(orderListViewRepository.findStaleOrderIdsAfter(eq(""), any(Pageable.class))).thenReturn(List.of());
+        when(orderListViewRepository.findOrphanOrderIdsAfter(eq(""), any(Pageable.class))).thenReturn(List.of());
+
+        service.backfillIfNeeded();
+
+        verify(orderListViewRepository, timeout(2000)).findOrphanOrderIdsAfter(eq(""), any(Pageable.class));
+        // Không còn so sánh số dòng với count() của bảng order
+        verify(testOrderRepository, never()).count();
+    }
+
+    @Test
+    @DisplayName("onOrderChanged - Stamps the change time and ignores the system order")
+    @SuppressWarnings("unchecked")
+    void onOrderChanged_ProjectsChangedOrders() {
+        stubOrdersExist();
+
+        service.onOrderChanged(new OrderChangedEvent(Set.of("TO-1", TestOrderSpecification.SYSTEM_ORDER_ID)));
+
+        ArgumentCaptor<Collection<String>> ids = ArgumentCaptor.forClass(Collection.class);
+        verify(testOrderRepository).findAllById(ids.capture());
+        assertEquals(Set.of("TO-1"), Set.copyOf(ids.getValue()));
+
+        ArgumentCaptor<List<OrderListView>> rows = ArgumentCaptor.forClass(List.class);
+        verify(orderListViewRepository).saveAll(rows.capture());
+        assertTrue(rows.getValue().get(0).getUpdatedAt().isAfter(LocalDateTime.now(ZoneOffset.UTC).minusMinutes(1)));
+    }
+
+    @Test
+    @DisplayName("onOrderChanged - A failed commit of the view transaction does not reach the caller")
+    void onOrderChanged_CommitFailureIsContained() {
+        stubOrdersExist();
+        // Giao dịch read model bị đánh dấu rollback-only: commit ném UnexpectedRollbackException
+        doThrow(new UnexpectedRollbackException("Transaction silently rolled back"))
+                .when(transactionManager).commit(any());
+
+        assertDoesNotThrow(() -> service.onOrderChanged(new OrderChangedEvent(Set.of("TO-1"))));
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    @DisplayName("rebuildAll - Walks every order by keyset")
+    void rebuildAll_UsesKeyset() {
+        when(orderListViewRepository.findOrderIdsAfter(eq(""), any(Pageable.class))).thenReturn(List.of("TO-1", "TO-2"));
+        stubOrdersExist();
+
+        assertEquals(2, service.rebuildAll());
+        verify(orderListViewRepository, times(1)).findOrderIdsAfter(anyString(), any(Pageable.class));
+    }
+}
@@ -0,0 +1,173 @@
+package fit.test_order_service.services.implTest;
+
+import fit.test_order_service.dtos.response.OrderStatsBucketResponse;
+import fit.test_order_service.entities.OrderStatsContribution;
+import fit.test_order_service.entities.OrderStatsRollup;
+import fit.test_order_service.entities.TestOrder;
+import fit.test_order_service.enums.AbnormalFlag;
+import fit.test_order_service.enums.EntrySource;
+import fit.test_order_service.enums.OrderStatus;
+import fit.test_order_service.enums.StatsDimension;
+import fit.test_order_service.enums.StatsGranularity;
+import fit.test_order_service.exceptions.BadRequestException;
+import fit.test_order_service.repositories.OrderStatsContributionRepository;
+import fit.test_order_service.repositories.OrderStatsRollupRepository;
+import fit.test_order_service.repositories.TestOrderRepository;
+import fit.test_order_service.repositories.TestResultRepository;
+import fit.test_order_service.services.SchedulerLeaseService;
+import fit.test_order_service.services.impl.OrderStatsServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderStatsServiceImplTest {
+
+    private static final String ORDER_ID = "ORD-001";
+    private static final LocalDateTime CREATED = LocalDateTime.of(2026, 10, 19, 8, 15);
+    private static final LocalDateTime HOUR = LocalDateTime.of(2026, 10, 19, 8, 0);
+    private static final LocalDateTime DAY = LocalDateTime.of(2026, 10, 19, 0, 0);
+
+    @Mock
+    private OrderStatsRollupRepository rollupRepository;
+    @Mock
+    private OrderStatsContributionRepository contributionRepository;
+    @Mock
+    private TestOrderRepository testOrderRepository;
+    @Mock
+    private TestResultRepository testResultRepository;
+    @Mock
+    private SchedulerLeaseService schedulerLeaseService;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private OrderStatsServiceImpl orderStatsService;
+
+    @BeforeEach
+    void setUp() {
+        orderStatsService = new OrderStatsServiceImpl(rollupRepository, contributionRepository, testOrderRepository,
+                testResultRepository, schedulerLeaseService, transactionManager);
+    }
+
+    private static TestOrder order(OrderStatus status, LocalDateTime runAt, boolean deleted) {
+        return TestOrder.builder()
+                .orderId(ORDER_ID)
+                .status(status)
+                .entrySource(EntrySource.MANUAL)
+                .testTypeNameSnapshot("CBC")
+                .createdAt(CREATED)
+                .runAt(runAt)
+                .deleted(deleted)
+                .build();
+    }
+
+    private static OrderStatsContribution pendingContribution() {
+        return OrderStatsContribution.builder()
+                .orderId(ORDER_ID)
+                .bucketHour(HOUR)
+                .status("PENDING")
+                .testType("CBC")
+                .entrySource("MANUAL")
+                .build();
+    }
+
+    @Test
+    @DisplayName("refresh - New order adds to every dimension of its hour and day buckets")
+    void refresh_NewOrder_AddsCounters() {
+        when(contributionRepository.findForUpdate(any())).thenReturn(List.of());
+        when(testOrderRepository.findAllById(any())).thenReturn(List.of(order(OrderStatus.PENDING, null, false)));
+        when(testResultRepository.countFlagsByOrderIds(any()))
+                .thenReturn(List.<Object[]>of(new Object[]{ORDER_ID, AbnormalFlag.H, 2L}));
+
+        orderStatsService.refresh(List.of(ORDER_ID));
+
+        verify(rollupRepository).addDelta("HOUR", HOUR, "TOTAL", "ALL", 1L);
+        verify(rollupRepository).addDelta("DAY", DAY, "TOTAL", "ALL", 1L);
+        verify(rollupRepository).addDelta("DAY", DAY, "STATUS", "PENDING", 1L);
+        verify(rollupRepository).addDelta("HOUR", HOUR, "TEST_TYPE", "CBC", 1L);
+        verify(rollupRepository).addDelta("HOUR", HOUR, "ENTRY_SOURCE", "MANUAL", 1L);
+        verify(rollupRepository).addDelta("HOUR", HOUR, "ABNORMAL_FLAG", "H", 2L);
+        verify(rollupRepository, never()).addDelta(any(), any(), eq("TURNAROUND"), any(), anyLong());
+        verify(contributionRepository).saveAll(argThat(list -> list.iterator().next().getFlagH() == 2));
+    }
+
+    @Test
+    @DisplayName("refresh - Status change moves one count and leaves unchanged dimensions alone")
+    void refresh_StatusChange_AppliesOnlyDeltas() {
+        when(contributionRepository.findForUpdate(any())).thenReturn(List.of(pendingContribution()));
+        when(testOrderRepository.findAllById(any()))
+                .thenReturn(List.of(order(OrderStatus.COMPLETED, CREATED.plusMinutes(90), false)));
+        when(testResultRepository.countFlagsByOrderIds(any())).thenReturn(List.of());
+
+        orderStatsService.refresh(List.of(ORDER_ID));
+
+        verify(rollupRepository).addDelta("HOUR", HOUR, "STATUS", "PENDING", -1L);
+        verify(rollupRepository).addDelta("HOUR", HOUR, "STATUS", "COMPLETED", 1L);
+        verify(rollupRepository).addDelta("DAY", DAY, "TURNAROUND", "1H_2H", 1L);
+        verify(rollupRepository, never()).addDelta(any(), any(), eq("TOTAL"), any(), anyLong());
+        verify(rollupRepository, never()).addDelta(any(), any(), eq("TEST_TYPE"), any(), anyLong());
+    }
+
+    @Test
+    @DisplayName("refresh - Deleted order is subtracted and its contribution removed")
+    void refresh_DeletedOrder_RemovesContribution() {
+        when(contributionRepository.findForUpdate(any())).thenReturn(List.of(pendingContribution()));
+        when(testOrderRepository.findAllById(any())).thenReturn(List.of(order(OrderStatus.PENDING, null, true)));
+        when(testResultRepository.countFlagsByOrderIds(any())).thenReturn(List.of());
+
+        orderStatsService.refresh(List.of(ORDER_ID));
+
+        verify(rollupRepository).addDelta("DAY", DAY, "TOTAL", "ALL", -1L);
+        verify(contributionRepository).deleteAllById(List.of(ORDER_ID));
+        verify(contributionRepository, never()).saveAll(any());
+    }
+
+    @Test
+    @DisplayName("getStats - Groups counters by bucket and dimension")
+    void getStats_GroupsByBucket() {
+        LocalDateTime nextDay = DAY.plusDays(1);
+        when(rollupRepository.findBuckets(eq(StatsGranularity.DAY), eq(DAY), eq(DAY.plusDays(7)), any()))
+                .thenReturn(List.of(
+                        rollup(DAY, StatsDimension.STATUS, "COMPLETED", 5),
+                        rollup(DAY, StatsDimension.STATUS, "PENDING", 2),
+                        rollup(nextDay, StatsDimension.STATUS, "PENDING", 1)));
+
+        List<OrderStatsBucketResponse> buckets = orderStatsService.getStats(
+                StatsGranularity.DAY, DAY.plusHours(3), DAY.plusDays(7), Set.of(StatsDimension.STATUS));
+
+        assertEquals(2, buckets.size());
+        assertEquals(5L, buckets.get(0).getCounts().get(StatsDimension.STATUS).get("COMPLETED"));
+        assertEquals(2L, buckets.get(0).getCounts().get(StatsDimension.STATUS).get("PENDING"));
+        assertEquals(nextDay, buckets.get(1).getBucketStart());
+    }
+
+    @Test
+    @DisplayName("getStats - Rejects ranges with too many buckets")
+    void getStats_RangeTooLarge_Throws() {
+        assertThrows(BadRequestException.class, () -> orderStatsService.getStats(
+                StatsGranularity.HOUR, DAY, DAY.plusYears(1), null));
+        verifyNoInteractions(rollupRepository);
+    }
+
+    private static OrderStatsRollup rollup(LocalDateTime bucket, StatsDimension dimension, String value, long count) {
+        return OrderStatsRollup.builder()
+                .granularity(StatsGranularity.DAY)
+                .bucketStart(bucket)
+                .dimension(dimension)
+                .dimensionValue(value)
+                .countValue(count)
+                .build();
+    }
+}
@@ -0,0 +1,135 @@
+package fit.test_order_service.services.implTest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fit.test_order_service.dtos.response.CommentOrderResponse;
+import fit.test_order_service.entities.PrintSnapshot;
+import fit.test_order_service.entities.ReportFileStore;
+import fit.test_order_service.entities.TestOrder;
+import fit.test_order_service.entities.TestResult;
+import fit.test_order_service.enums.AbnormalFlag;
+import fit.test_order_service.enums.OrderStatus;
+import fit.test_order_service.repositories.PrintSnapshotRepository;
+import fit.test_order_service.repositories.ReportFileStoreRepository;
+import fit.test_order_service.services.impl.PrintSnapshotServiceImpl;
+import fit.test_order_service.utils.PdfGeneratorUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PrintSnapshotServiceImplTest {
+
+    private static final String ORDER_ID = "ORD-001";
+    private static final LocalDateTime T0 = LocalDateTime.of(2026, 10, 19, 8, 0);
+
+    @Mock
+    private PrintSnapshotRepository printSnapshotRepository;
+    @Mock
+    private ReportFileStoreRepository reportFileStoreRepository;
+    @Mock
+    private ObjectMapper objectMapper;
+    @Mock
+    private PdfGeneratorUtil pdfGeneratorUtil;
+
+    @InjectMocks
+    private PrintSnapshotServiceImpl printSnapshotService;
+
+    private TestOrder order;
+    private TestResult glucose;
+    private TestResult hemoglobin;
+
+    @BeforeEach
+    void setUp() {
+        order = new TestOrder();
+        order.setOrderId(ORDER_ID);
+        order.setFullName("Nguyen Van A");
+        order.setStatus(OrderStatus.COMPLETED);
+        order.setCreatedAt(T0);
+
+        glucose = result("RES-001", "GLU", "5.4");
+        hemoglobin = result("RES-002", "HGB", "13.1");
+    }
+
+    private static TestResult result(String id, String analyte, String value) {
+        TestResult result = new TestResult();
+        result.setResultId(id);
+        result.setAnalyteName(analyte);
+        result.setValueText(value);
+        result.setAbnormalFlag(AbnormalFlag.N);
+        result.setMeasuredAt(T0.plusHours(1));
+        return result;
+    }
+
+    private static CommentOrderResponse comment(String content) {
+        return CommentOrderResponse.builder().id("C-1").content(content).createdAt(T0).build();
+    }
+
+    @Test
+    @DisplayName("computeContentHash - Same inputs give the same hash regardless of result order")
+    void computeContentHash_Deterministic() {
+        String first = printSnapshotService.computeContentHash(order, List.of(glucose, hemoglobin), List.of(comment("ok")), null);
+        String second = printSnapshotService.computeContentHash(order, List.of(hemoglobin, glucose), List.of(comment("ok")), null);
+
+        assertEquals(first, second);
+        assertEquals(64, first.length());
+    }
+
+    @Test
+    @DisplayName("computeContentHash - Any rendered change produces a different hash")
+    void computeContentHash_ChangesWithInputs() {
+        String base = printSnapshotService.computeContentHash(order, List.of(glucose), List.of(comment("ok")), null);
+
+        assertNotEquals(base, printSnapshotService.computeContentHash(order, List.of(glucose), List.of(comment("edited")), null));
+        assertNotEquals(base, printSnapshotService.computeContentHash(order, List.of(glucose), List.of(comment("ok")), "custom"));
+
+        glucose.setValueText("5.5");
+        assertNotEquals(base, printSnapshotService.computeContentHash(order, List.of(glucose), List.of(comment("ok")), null));
+    }
+
+    @Test
+    @DisplayName("computeContentHash - Renaming the creator in IAM changes the hash even though the id is the same")
+    void computeContentHash_ChangesWithRenderedUserName() {
+        order.setCreatedBy("USR-001");
+        when(pdfGeneratorUtil.resolveUserFullName("USR-001")).thenReturn("Tran Thi B", "Tran Thi C");
+
+        String before = printSnapshotService.computeContentHash(order, List.of(glucose), List.of(), null);
+        String after = printSnapshotService.computeContentHash(order, List.of(glucose), List.of(), null);
+
+        assertNotEquals(before, after);
+    }
+
+    @Test
+    @DisplayName("findReusableArtifact - Returns the file of a matching snapshot")
+    void findReusableArtifact_Found() {
+        PrintSnapshot snapshot = PrintSnapshot.builder().orderId(ORDER_ID).contentHash("abc").fileId("FILE-1").build();
+        ReportFileStore file = ReportFileStore.builder().fileId("FILE-1").build();
+        when(printSnapshotRepository.findFirstByOrderIdAndContentHashAndFileIdIsNotNullOrderByCreatedAtDesc(ORDER_ID, "abc"))
+                .thenReturn(Optional.of(snapshot));
+        when(reportFileStoreRepository.findById("FILE-1")).thenReturn(Optional.of(file));
+
+        assertSame(file, printSnapshotService.findReusableArtifact(ORDER_ID, "abc").orElseThrow());
+    }
+
+    @Test
+    @DisplayName("findReusableArtifact - Ignores expired files")
+    void findReusableArtifact_Expired() {
+        PrintSnapshot snapshot = PrintSnapshot.builder().orderId(ORDER_ID).contentHash("abc").fileId("FILE-1").build();
+        ReportFileStore file = ReportFileStore.builder().fileId("FILE-1").expiresAt(LocalDateTime.now().minusDays(1)).build();
+        when(printSnapshotRepository.findFirstByOrderIdAndContentHashAndFileIdIsNotNullOrderByCreatedAtDesc(ORDER_ID, "abc"))
+                .thenReturn(Optional.of(snapshot));
+        when(reportFileStoreRepository.findById("FILE-1")).thenReturn(Optional.of(file));
+
+        assertTrue(printSnapshotService.findReusableArtifact(ORDER_ID, "abc").isEmpty());
+    }
+}
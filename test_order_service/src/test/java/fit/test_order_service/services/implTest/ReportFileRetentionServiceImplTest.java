@@ -0,0 +1,75 @@
+package fit.test_order_service.services.implTest;
+
+import fit.test_order_service.entities.ReportFileStore;
+import fit.test_order_service.enums.StorageType;
+import fit.test_order_service.repositories.ReportFileStoreRepository;
+import fit.test_order_service.repositories.ReportJobRepository;
+import fit.test_order_service.services.FileStorageService;
+import fit.test_order_service.services.SchedulerLeaseService;
+import fit.test_order_service.services.impl.ReportFileRetentionServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReportFileRetentionServiceImplTest {
+
+    @Mock
+    private ReportFileStoreRepository reportFileStoreRepository;
+    @Mock
+    private ReportJobRepository reportJobRepository;
+    @Mock
+    private FileStorageService fileStorageService;
+    @Mock
+    private SchedulerLeaseService schedulerLeaseService;
+
+    private ReportFileRetentionServiceImpl retentionService;
+
+    @BeforeEach
+    void setUp() {
+        retentionService = new ReportFileRetentionServiceImpl(reportFileStoreRepository, reportJobRepository,
+                fileStorageService, schedulerLeaseService, 30, 10, 100, 600);
+    }
+
+    private static ReportFileStore file(String id, String key) {
+        return ReportFileStore.builder().fileId(id).objectKey(key).storageType(StorageType.LOCAL).build();
+    }
+
+    @Test
+    @DisplayName("sweepExpiredFiles - Deletes rows and only objects no longer referenced")
+    void sweepExpiredFiles_DeletesUnreferencedObjects() {
+        when(schedulerLeaseService.tryAcquire(eq(ReportFileRetentionServiceImpl.LEASE_NAME), any())).thenReturn(true);
+        when(fileStorageService.getStorageType()).thenReturn(StorageType.LOCAL);
+        when(reportFileStoreRepository.findExpired(eq(StorageType.LOCAL), any(), any(), any()))
+                .thenReturn(List.of(file("F1", "k1"), file("F2", "k2"), file("F3", "k2")));
+        when(reportFileStoreRepository.existsByStorageTypeAndObjectKey(StorageType.LOCAL, "k1")).thenReturn(false);
+        when(reportFileStoreRepository.existsByStorageTypeAndObjectKey(StorageType.LOCAL, "k2")).thenReturn(true);
+        when(fileStorageService.deleteUnusedFile(eq("k1"), any())).thenReturn(true);
+
+        int deleted = retentionService.sweepExpiredFiles();
+
+        assertEquals(3, deleted);
+        verify(reportJobRepository).detachResultFiles(List.of("F1", "F2", "F3"));
+        verify(reportFileStoreRepository).deleteAllByIdInBatch(List.of("F1", "F2", "F3"));
+        verify(fileStorageService).deleteUnusedFile(eq("k1"), any());
+        verify(fileStorageService, never()).deleteUnusedFile(eq("k2"), any());
+    }
+
+    @Test
+    @DisplayName("sweepExpiredFiles - Does nothing without the lease")
+    void sweepExpiredFiles_NoLease() {
+        when(schedulerLeaseService.tryAcquire(eq(ReportFileRetentionServiceImpl.LEASE_NAME), any())).thenReturn(false);
+
+        assertEquals(0, retentionService.sweepExpiredFiles());
+        verifyNoInteractions(reportFileStoreRepository, reportJobRepository, fileStorageService);
+    }
+}
@@ -2,23 +2,27 @@ package fit.test_order_service.services.implTest;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import fit.test_order_service.client.IamFeignClient;
 import fit.test_order_service.client.PatientMedicalRecordFeignClient;
 import fit.test_order_service.client.dtos.PatientMedicalRecordInternalResponse;
-import fit.test_order_service.client.dtos.UserInternalResponse;
 import fit.test_order_service.dtos.event.SystemEvent;
 import fit.test_order_service.dtos.request.*;
 import fit.test_order_service.dtos.response.*;
 import fit.test_order_service.entities.*;
 import fit.test_order_service.enums.*;
 import fit.test_order_service.exceptions.BadRequestException;
+import fit.test_order_service.exceptions.InvalidSortFieldException;
 import fit.test_order_service.exceptions.NotFoundException;
 import fit.test_order_service.exceptions.UnauthorizedException;
 import fit.test_order_service.mappers.TestOrderMapper;
 import fit.test_order_service.repositories.*;
 import fit.test_order_service.services.*;
 import fit.test_order_service.services.impl.TestOrderServiceImpl;
+import fit.test_order_service.specifications.OrderListViewSpecification;
 import fit.test_order_service.specifications.TestOrderSpecification;
+import fit.test_order_service.utils.BarcodeClaimRegistry;
+import fit.test_order_service.utils.FilteredCountCache;
+import fit.test_order_service.utils.KeysetCursor;
+import fit.test_order_service.utils.OrderChangeTracker;
 import fit.test_order_service.utils.SecurityUtils;
 import fit.test_order_service.utils.TestOrderGenerator;
 import fit.test_order_service.validators.TestOrderValidator;
@@ -28,6 +32,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
@@ -40,6 +45,10 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static fit.test_order_service.enums.OrderStatus.COMPLETED;
 import static org.junit.jupiter.api.Assertions.*;
@@ -59,8 +68,6 @@ class TestOrderServiceImplTest {
     @Mock
     private TestOrderValidator testOrderValidator;
     @Mock
-    private IamFeignClient iamFeignClient;
-    @Mock
     private TestOrderSpecification testOrderSpecification;
     @Mock
     private TestTypeRepository testTypeRepository;
@@ -79,13 +86,25 @@ class TestOrderServiceImplTest {
     @Mock
     private TestResultRepository testResultRepository;
     @Mock
-    private OrderCommentRepository orderCommentRepository;
+    private CommentThreadService commentThreadService;
+    @Mock
+    private PrintSnapshotService printSnapshotService;
     @Mock
     private Hl7ParserService hl7ParserService;
     @Mock
     private TestTypeService testTypeService;
     @Mock
     private EventLogPublisher eventLogPublisher;
+    @Mock
+    private OrderListViewRepository orderListViewRepository;
+    @Mock
+    private OrderListViewSpecification orderListViewSpecification;
+    @Mock
+    private OrderChangeTracker orderChangeTracker;
+    @Spy
+    private BarcodeClaimRegistry barcodeClaimRegistry = new BarcodeClaimRegistry(5000, 10000);
+    @Spy
+    private FilteredCountCache filteredCountCache = new FilteredCountCache(30000);
 
     @Captor
     private ArgumentCaptor<TestOrder> testOrderCaptor;
@@ -218,46 +237,21 @@ class TestOrderServiceImplTest {
         mockTestOrder.getResults().add(result1);
         mockTestOrder.setStatus(COMPLETED);
 
-        // Mock Comments
-        OrderComment orderComment = new OrderComment();
-        orderComment.setCommentId("C-001");
-        orderComment.setTargetType(CommentTargetType.ORDER);
-        orderComment.setTargetId(ORDER_ID);
-        orderComment.setAuthorUserId(USER_ID);
-        orderComment.setCreatedAt(LocalDateTime.now().minusHours(1));
-        orderComment.setContent("Order comment");
-
-        OrderComment resultComment = new OrderComment();
-        resultComment.setCommentId("C-002");
-        resultComment.setTargetType(CommentTargetType.RESULT);
-        resultComment.setTargetId("RES-001");
-        resultComment.setAuthorUserId(USER_ID);
-        resultComment.setCreatedAt(LocalDateTime.now().minusMinutes(30));
-
-        List<OrderComment> orderComments = List.of(orderComment);
-        List<OrderComment> resultComments = List.of(resultComment);
-
-        // Mock Feign client for user data
-        // FIX: Thêm đủ 17 đối số cho UserInternalResponse
-        UserInternalResponse userResponse = new UserInternalResponse(
-                USER_ID, "test_user", "Tester", null, null, null,
-                null, null, null, null, null, null,
-                "ROLE_LAB", Boolean.TRUE, null, null, null
-        );
-        ApiResponse<UserInternalResponse> userApiResponse = new ApiResponse<>();
-        userApiResponse.setData(userResponse);
+        // Mock Comments (cây comment được dựng bởi CommentThreadService)
+        CommentOrderResponse orderComment = CommentOrderResponse.builder()
+                .id("C-001")
+                .content("Order comment")
+                .createdAt(LocalDateTime.now().minusHours(1))
+                .build();
+        CommentOrderResponse resultComment = CommentOrderResponse.builder()
+                .id("C-002")
+                .createdAt(LocalDateTime.now().minusMinutes(30))
+                .build();
 
         // Mock Mappers and Repositories
         when(testOrderRepository.findByOrderIdAndDeletedFalse(ORDER_ID)).thenReturn(Optional.of(mockTestOrder));
         when(testOrderMapper.toDetailResponse(mockTestOrder)).thenReturn(new TestOrderDetailResponse());
-        when(orderCommentRepository.findByTargetTypeAndTargetIdAndParentIdIsNullOrderByCreatedAtAsc(
-                eq(CommentTargetType.ORDER), eq(ORDER_ID)))
-                .thenReturn(orderComments);
-        when(orderCommentRepository.findByTargetTypeAndTargetIdInAndParentIdIsNullOrderByCreatedAtAsc(
-                eq(CommentTargetType.RESULT), anyList()))
-                .thenReturn(resultComments);
-        when(iamFeignClient.getUserById(USER_ID)).thenReturn(userApiResponse);
-        when(testResultRepository.findById("RES-001")).thenReturn(Optional.of(result1));
+        when(commentThreadService.loadThread(mockTestOrder)).thenReturn(List.of(orderComment, resultComment));
 
         // FIX: Sử dụng doCallRealMethod().when() để ngăn phương thức bị gọi hai lần.
         TestOrderServiceImpl spyService = spy(testOrderService);
@@ -408,27 +402,31 @@ class TestOrderServiceImplTest {
     @DisplayName("getAllTestOrders - Success with Results")
     void getAllTestOrders_Success() throws JsonProcessingException {
         // Setup mock data for paging
-        List<TestOrder> orders = List.of(mockTestOrder);
-        Page<TestOrder> page = new PageImpl<>(orders, PageRequest.of(0, 10), 1);
+        OrderListView row = OrderListView.builder()
+                .orderId(ORDER_ID)
+                .testTypeId(TEST_TYPE_ID)
+                .testTypeName("Blood Test")
+                .status(OrderStatus.PENDING)
+                .reviewStatus(ReviewStatus.NONE)
+                .build();
+        Page<OrderListView> page = new PageImpl<>(List.of(row), PageRequest.of(0, 10), 1);
 
-        when(testOrderSpecification.build(any(), any(), any(), any(), any(), any(), any(), any(), any())).thenReturn(mock(Specification.class));
-        when(testOrderRepository.findAll(any(Specification.class), any(Pageable.class))).thenReturn(page);
-        when(testTypeService.getTestTypeById(TEST_TYPE_ID)).thenReturn(mockTestTypeResponse);
-        when(testOrderMapper.toResponse(mockTestOrder, mockTestTypeResponse)).thenReturn(mockResponse);
-        // FIX: Loại bỏ stubbing dư thừa cho objectMapper.writeValueAsString(any())
-        // when(objectMapper.writeValueAsString(any())).thenReturn("FILTERS_JSON");
+        when(orderListViewSpecification.build(any(), any(), any(), any(), any(), any(), any(), any(), any())).thenReturn(mock(Specification.class));
+        when(orderListViewRepository.findAll(any(Specification.class), any(Pageable.class))).thenReturn(page);
+        when(testOrderMapper.toListResponse(row)).thenReturn(mockResponse);
+        when(objectMapper.writeValueAsString(any(FilterInfo.class))).thenReturn("{}");
 
-        // FIX: Thay thế cú pháp sắp xếp sai bằng "createdAt,asc"
         PageResponse<TestOrderResponse> result = testOrderService.getAllTestOrders(0, 10, new String[]{"createdAt,asc"},
                 null, null, null, null, null, null, null, null, null);
 
         // Assertions
         assertNotNull(result);
-        // FIX: Thay thế result.getContent() bằng result.getValues()
         assertFalse(result.getValues().isEmpty());
         assertEquals(1, result.getTotalElements());
 
-        // FIX: Xác minh log message với chuỗi thực tế được tạo ra khi ObjectMapper không bị mock.
+        // Danh sách đọc từ read model, không gọi TestTypeService cho từng dòng
+        verify(testTypeService, never()).getTestTypeById(anyString());
+        verify(testOrderRepository, never()).findAll(any(Specification.class), any(Pageable.class));
         verify(orderEventLogService).logEvent(eq(null), eq(EventType.VIEW_ALL),
                 eq("User fetched test orders list [page=0, size=10, sort=[createdAt,asc], filters={}]"));
     }
@@ -436,24 +434,83 @@ class TestOrderServiceImplTest {
     @Test
     @DisplayName("getAllTestOrders - Empty Results")
     void getAllTestOrders_Empty() throws JsonProcessingException {
-        Page<TestOrder> page = new PageImpl<>(Collections.emptyList(), PageRequest.of(0, 10), 0);
+        Page<OrderListView> page = new PageImpl<>(Collections.emptyList(), PageRequest.of(0, 10), 0);
 
-        when(testOrderSpecification.build(any(), any(), any(), any(), any(), any(), any(), any(), any())).thenReturn(mock(Specification.class));
-        when(testOrderRepository.findAll(any(Specification.class), any(Pageable.class))).thenReturn(page);
-        // FIX: Loại bỏ stubbing dư thừa cho objectMapper.writeValueAsString(any())
-        // when(objectMapper.writeValueAsString(any())).thenReturn("FILTERS_JSON");
+        when(orderListViewSpecification.build(any(), any(), any(), any(), any(), any(), any(), any(), any())).thenReturn(mock(Specification.class));
+        when(orderListViewRepository.findAll(any(Specification.class), any(Pageable.class))).thenReturn(page);
 
-        // FIX: Thay thế "orderId:asc" bằng "createdAt,asc"
         PageResponse<TestOrderResponse> result = testOrderService.getAllTestOrders(0, 10, new String[]{"createdAt,asc"},
                 null, null, null, null, null, null, null, null, null);
 
         assertNotNull(result);
-        // FIX: Thay thế result.getContent() bằng result.getValues()
         assertTrue(result.getValues().isEmpty());
         assertEquals(0, result.getTotalElements());
+    }
 
-        // FIX: Loại bỏ verify cho logEvent vì logic sản phẩm không gọi logEvent nếu kết quả trống.
-        // verify(orderEventLogService).logEvent(eq(null), eq(EventType.VIEW_ALL), contains("FILTERS_JSON"));
+    // --- TEST getTestOrdersByCursor ---
+
+    @Test
+    @DisplayName("getTestOrdersByCursor - First page returns next cursor without COUNT")
+    void getTestOrdersByCursor_FirstPage() {
+        LocalDateTime t = LocalDateTime.of(2026, 10, 19, 8, 0);
+        List<OrderListView> rows = List.of(
+                OrderListView.builder().orderId("TO-3").createdAt(t.plusMinutes(2)).build(),
+                OrderListView.builder().orderId("TO-2").createdAt(t.plusMinutes(1)).build(),
+                OrderListView.builder().orderId("TO-1").createdAt(t).build());
+
+        when(orderListViewSpecification.build(any(), any(), any(), any(), any(), any(), any(), any(), any())).thenReturn(mock(Specification.class));
+        when(orderListViewRepository.findBy(any(Specification.class), any())).thenReturn(rows);
+        when(testOrderMapper.toListResponse(any(OrderListView.class))).thenReturn(mockResponse);
+
+        CursorPageResponse<TestOrderResponse> result = testOrderService.getTestOrdersByCursor(null, 2, "createdAt,desc",
+                null, null, null, null, null, null, null, null, null, false);
+
+        assertEquals(2, result.getValues().size());
+        assertTrue(result.isHasNext());
+        assertNull(result.getTotalElements());
+
+        KeysetCursor next = KeysetCursor.decode(result.getNextCursor());
+        assertEquals("TO-2", next.orderId());
+        assertEquals(t.plusMinutes(1), next.sortValue());
+        verify(orderListViewRepository, never()).count(any(Specification.class));
+        verify(orderListViewRepository, never()).findAll(any(Specification.class), any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("getTestOrdersByCursor - Total is counted once and served from cache")
+    void getTestOrdersByCursor_CachedTotal() {
+        when(orderListViewSpecification.build(any(), any(), any(), any(), any(), any(), any(), any(), any())).thenReturn(mock(Specification.class));
+        when(orderListViewRepository.findBy(any(Specification.class), any())).thenReturn(Collections.emptyList());
+        when(orderListViewRepository.count(any(Specification.class))).thenReturn(42L);
+
+        CursorPageResponse<TestOrderResponse> first = testOrderService.getTestOrdersByCursor(null, 10, null,
+                null, null, null, OrderStatus.PENDING, null, null, null, null, null, true);
+        CursorPageResponse<TestOrderResponse> second = testOrderService.getTestOrdersByCursor(null, 10, null,
+                null, null, null, OrderStatus.PENDING, null, null, null, null, null, true);
+
+        assertEquals(42L, first.getTotalElements());
+        assertEquals(42L, second.getTotalElements());
+        assertFalse(first.isHasNext());
+        assertNull(first.getNextCursor());
+        verify(orderListViewRepository, times(1)).count(any(Specification.class));
+    }
+
+    @Test
+    @DisplayName("getTestOrdersByCursor - Cursor from different filters is rejected")
+    void getTestOrdersByCursor_FilterMismatch() {
+        String cursor = new KeysetCursor("createdAt", org.springframework.data.domain.Sort.Direction.DESC,
+                LocalDateTime.now(), "TO-1", "deadbeef").encode();
+
+        assertThrows(BadRequestException.class, () -> testOrderService.getTestOrdersByCursor(cursor, 10, null,
+                null, null, null, null, null, null, null, null, null, false));
+        verify(orderListViewRepository, never()).findBy(any(Specification.class), any());
+    }
+
+    @Test
+    @DisplayName("getTestOrdersByCursor - Unsupported sort field")
+    void getTestOrdersByCursor_InvalidSort() {
+        assertThrows(InvalidSortFieldException.class, () -> testOrderService.getTestOrdersByCursor(null, 10, "patientName,asc",
+                null, null, null, null, null, null, null, null, null, false));
     }
 
     // --- TEST requestPrintOrder ---
@@ -475,12 +532,7 @@ class TestOrderServiceImplTest {
         // Mock dependencies
         when(testOrderRepository.findByOrderIdAndDeletedFalse(ORDER_ID)).thenReturn(Optional.of(mockTestOrder));
         when(reportJobRepository.save(any(ReportJob.class))).thenReturn(job);
-        when(orderCommentRepository.findByTargetTypeAndTargetIdAndParentIdIsNullOrderByCreatedAtAsc(
-                eq(CommentTargetType.ORDER), eq(ORDER_ID)))
-                .thenReturn(Collections.emptyList());
-        when(orderCommentRepository.findByTargetTypeAndTargetIdInAndParentIdIsNullOrderByCreatedAtAsc(
-                eq(CommentTargetType.RESULT), anyList()))
-                .thenReturn(Collections.emptyList());
+        when(commentThreadService.loadThread(mockTestOrder)).thenReturn(Collections.emptyList());
         when(objectMapper.writeValueAsString(anyMap())).thenReturn("PARAMS_JSON");
 
         try (MockedStatic<SecurityUtils> mockedSecurity = mockStatic(SecurityUtils.class)) {
@@ -500,6 +552,35 @@ class TestOrderServiceImplTest {
         }
     }
 
+    @Test
+    @DisplayName("requestPrintOrder - Reuses the previous PDF when the content hash matches")
+    void requestPrintOrder_ReusesSnapshot() {
+        mockTestOrder.setStatus(COMPLETED);
+        ReportFileStore file = ReportFileStore.builder().fileId("FILE-1").objectKey("https://files/report.pdf").build();
+        ReportJob job = ReportJob.builder().jobId("JOB-002").status(JobStatus.SUCCEEDED).createdAt(LocalDateTime.now()).build();
+
+        when(testOrderRepository.findByOrderIdAndDeletedFalse(ORDER_ID)).thenReturn(Optional.of(mockTestOrder));
+        when(commentThreadService.loadThread(mockTestOrder)).thenReturn(Collections.emptyList());
+        when(printSnapshotService.computeContentHash(eq(mockTestOrder), any(), any(), isNull())).thenReturn("HASH");
+        when(printSnapshotService.findReusableArtifact(ORDER_ID, "HASH")).thenReturn(Optional.of(file));
+        when(reportJobRepository.save(any(ReportJob.class))).thenReturn(job);
+
+        try (MockedStatic<SecurityUtils> mockedSecurity = mockStatic(SecurityUtils.class)) {
+            mockedSecurity.when(SecurityUtils::getCurrentUserId).thenReturn(USER_ID);
+
+            PrintJobResponse response = testOrderService.requestPrintOrder(ORDER_ID, new PrintTestOrderRequest());
+
+            assertEquals("JOB-002", response.getJobId());
+            assertEquals(JobStatus.SUCCEEDED, response.getStatus());
+
+            ArgumentCaptor<ReportJob> jobCaptor = ArgumentCaptor.forClass(ReportJob.class);
+            verify(reportJobRepository).save(jobCaptor.capture());
+            assertEquals("FILE-1", jobCaptor.getValue().getResultFileId());
+            assertEquals(JobStatus.SUCCEEDED, jobCaptor.getValue().getStatus());
+            verifyNoInteractions(pdfGenerationQueueService);
+        }
+    }
+
     @Test
     @DisplayName("requestPrintOrder - Throws BadRequestException when not Completed")
     void requestPrintOrder_NotCompleted() {
@@ -690,45 +771,27 @@ class TestOrderServiceImplTest {
         AutoCreateTestOrderRequest request = new AutoCreateTestOrderRequest();
         request.setBarcode(BARCODE);
 
-        // Dùng Mockito.mock thay vì new TestOrder() để nó có thể được kiểm tra.
-        TestOrder savedOrderMock = mock(TestOrder.class);
+        TestOrder insertedOrder = new TestOrder();
+        insertedOrder.setOrderId(ORDER_ID);
+        insertedOrder.setBarcode(BARCODE);
 
-        when(testOrderRepository.findByBarcode(BARCODE)).thenReturn(Optional.empty());
-
-        // FIX: Sử dụng doAnswer để capture đối tượng được truyền vào save() và gán các giá trị đã được service set.
-        doAnswer(invocation -> {
-            TestOrder argument = invocation.getArgument(0);
-            argument.setOrderId(ORDER_ID);
-            argument.setOrderCode("CODE-111");
-            argument.setStatus(OrderStatus.AUTO_CREATED);
-            argument.setAutoCreated(true);
-            argument.setRequiresPatientMatch(true);
-            argument.setCreatedBy("INSTRUMENT_SERVICE");
-            // Trả về mock object (hoặc argument)
-            return argument;
-        }).when(testOrderRepository).save(testOrderCaptor.capture());
-
-        when(testOrderMapper.toResponse(any(TestOrder.class), eq(null))).thenReturn(mockResponse);
+        when(testOrderRepository.insertShellOrder(eq(ORDER_ID), eq("CODE-111"), eq(BARCODE),
+                eq(OrderStatus.AUTO_CREATED.name()), eq(ReviewMode.HUMAN.name()), eq(EntrySource.AUTO_INSTRUMENT.name()),
+                eq(true), eq(true), any(LocalDateTime.class), eq("INSTRUMENT_SERVICE"))).thenReturn(1);
+        when(testOrderRepository.findByBarcode(BARCODE)).thenReturn(Optional.of(insertedOrder));
+        when(testOrderMapper.toResponse(insertedOrder, null)).thenReturn(mockResponse);
 
         try (MockedStatic<TestOrderGenerator> mockedGenerator = mockStatic(TestOrderGenerator.class)) {
             mockedGenerator.when(TestOrderGenerator::generateTestOrderId).thenReturn(ORDER_ID);
             mockedGenerator.when(TestOrderGenerator::generateTestOrderCode).thenReturn("CODE-111");
 
             // Call method
-            testOrderService.autoCreateTestOrder(request);
+            TestOrderResponse response = testOrderService.autoCreateTestOrder(request);
 
             // Assertions
-            verify(testOrderRepository).save(testOrderCaptor.getValue());
-            TestOrder capturedOrder = testOrderCaptor.getValue();
-
-            // FIX: Assert trên capturedOrder, nơi giá trị đã được set bởi service
-            assertEquals(OrderStatus.AUTO_CREATED, capturedOrder.getStatus());
-            assertTrue(capturedOrder.isAutoCreated());
-            assertTrue(capturedOrder.isRequiresPatientMatch());
-            assertEquals("INSTRUMENT_SERVICE", capturedOrder.getCreatedBy());
-
-            // Verify interactions
-            verify(orderEventLogService).logEvent(eq(capturedOrder), eq(EventType.CREATE), anyString());
+            assertSame(mockResponse, response);
+            verify(testOrderRepository, never()).save(any());
+            verify(orderEventLogService).logEvent(eq(insertedOrder), eq(EventType.CREATE), anyString());
         }
     }
 
@@ -742,6 +805,9 @@ class TestOrderServiceImplTest {
         TestOrder existingOrder = new TestOrder();
         existingOrder.setBarcode(BARCODE);
 
+        when(testOrderRepository.insertShellOrder(anyString(), anyString(), eq(BARCODE), anyString(), anyString(),
+                anyString(), anyBoolean(), anyBoolean(), any(LocalDateTime.class), anyString()))
+                .thenThrow(new DataIntegrityViolationException("Duplicate entry 'BARCODE' for key 'uk_test_order_barcode'"));
         when(testOrderRepository.findByBarcode(BARCODE)).thenReturn(Optional.of(existingOrder));
         when(testOrderMapper.toResponse(existingOrder, null)).thenReturn(mockResponse);
 
@@ -752,4 +818,67 @@ class TestOrderServiceImplTest {
         verify(testOrderRepository, never()).save(any());
         verify(orderEventLogService, never()).logEvent(any(), any(), anyString());
     }
+
+    @Test
+    @DisplayName("autoCreateTestOrder - Constraint violation other than a duplicate barcode is rethrown")
+    void autoCreateTestOrder_OtherConstraintViolationRethrown() {
+        AutoCreateTestOrderRequest request = new AutoCreateTestOrderRequest();
+        request.setBarcode(BARCODE);
+
+        DataIntegrityViolationException violation = new DataIntegrityViolationException("Column 'created_by' cannot be null");
+        when(testOrderRepository.insertShellOrder(anyString(), anyString(), eq(BARCODE), anyString(), anyString(),
+                anyString(), anyBoolean(), anyBoolean(), any(LocalDateTime.class), anyString())).thenThrow(violation);
+        when(testOrderRepository.findByBarcode(BARCODE)).thenReturn(Optional.empty());
+
+        DataIntegrityViolationException thrown = assertThrows(DataIntegrityViolationException.class,
+                () -> testOrderService.autoCreateTestOrder(request));
+
+        assertSame(violation, thrown);
+        verify(orderEventLogService, never()).logEvent(any(), any(), anyString());
+    }
+
+    @Test
+    @DisplayName("autoCreateTestOrder - Concurrent requests for one barcode resolve to a single insert")
+    void autoCreateTestOrder_ConcurrentSameBarcode() throws Exception {
+        AutoCreateTestOrderRequest request = new AutoCreateTestOrderRequest();
+        request.setBarcode(BARCODE);
+
+        TestOrder order = new TestOrder();
+        order.setOrderId(ORDER_ID);
+        order.setBarcode(BARCODE);
+
+        CountDownLatch inInsert = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        when(testOrderRepository.insertShellOrder(anyString(), anyString(), eq(BARCODE), anyString(), anyString(),
+                anyString(), anyBoolean(), anyBoolean(), any(LocalDateTime.class), anyString())).thenAnswer(invocation -> {
+            inInsert.countDown();
+            release.await();
+            return 1;
+        });
+        when(testOrderRepository.findByBarcode(BARCODE)).thenReturn(Optional.of(order));
+        when(testOrderMapper.toResponse(order, null)).thenReturn(mockResponse);
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            Future<TestOrderResponse> first = pool.submit(() -> testOrderService.autoCreateTestOrder(request));
+            inInsert.await();
+            List<Future<TestOrderResponse>> followers = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                followers.add(pool.submit(() -> testOrderService.autoCreateTestOrder(request)));
+            }
+            release.countDown();
+
+            assertSame(mockResponse, first.get());
+            for (Future<TestOrderResponse> f : followers) {
+                assertSame(mockResponse, f.get());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        verify(testOrderRepository, times(1)).insertShellOrder(anyString(), anyString(), eq(BARCODE), anyString(),
+                anyString(), anyString(), anyBoolean(), anyBoolean(), any(LocalDateTime.class), anyString());
+        verify(orderEventLogService, times(1)).logEvent(eq(order), eq(EventType.CREATE), anyString());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,145 @@
+package fit.test_order_service.services.implTest;
+
+import fit.test_order_service.configs.RabbitMQConfig;
+import fit.test_order_service.dtos.event.TestResultSyncRequestEvent;
+import fit.test_order_service.entities.OrderResyncState;
+import fit.test_order_service.enums.OrderStatus;
+import fit.test_order_service.repositories.OrderResyncStateRepository;
+import fit.test_order_service.repositories.TestOrderRepository;
+import fit.test_order_service.services.SchedulerLeaseService;
+import fit.test_order_service.services.impl.TestResultResyncServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.data.domain.Pageable;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TestResultResyncServiceImplTest {
+
+    @Mock
+    private TestOrderRepository testOrderRepository;
+    @Mock
+    private OrderResyncStateRepository orderResyncStateRepository;
+    @Mock
+    private SchedulerLeaseService schedulerLeaseService;
+    @Mock
+    private RabbitTemplate rabbitTemplate;
+
+    private TestResultResyncServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        // page-size=3, chunk-size=2, max-orders-per-run=100, max-attempts=3
+        service = new TestResultResyncServiceImpl(testOrderRepository, orderResyncStateRepository,
+                schedulerLeaseService, rabbitTemplate, 10, 3, 2, 100, 3, 5, 60, 270, 7);
+    }
+
+    private static List<Object[]> rows(int from, int to) {
+        LocalDateTime base = LocalDateTime.of(2026, 10, 1, 8, 0);
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            rows.add(new Object[]{"TO-" + i, "BC-" + i, base.plusMinutes(i)});
+        }
+        return rows;
+    }
+
+    // Trạng thái nào không được stub riêng thì không có đơn kẹt
+    @SafeVarargs
+    private void stubPages(OrderStatus status, List<Object[]> first, List<Object[]>... rest) {
+        doReturn(Collections.emptyList()).when(testOrderRepository).findStuckOrdersAfter(any(OrderStatus.class), any(),
+                anyInt(), any(), any(), anyString(), any(Pageable.class));
+        doReturn(first, (Object[]) rest).when(testOrderRepository).findStuckOrdersAfter(eq(status), any(),
+                anyInt(), any(), any(), anyString(), any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("Skips the scan when another replica holds the lease")
+    void requestResync_LeaseNotAcquired() {
+        when(schedulerLeaseService.tryAcquire(eq(TestResultResyncServiceImpl.LEASE_NAME), any(Duration.class))).thenReturn(false);
+
+        assertEquals(0, service.requestResyncForStuckOrders());
+
+        verifyNoInteractions(testOrderRepository, rabbitTemplate);
+    }
+
+    @Test
+    @DisplayName("Walks pages by keyset and publishes bounded barcode chunks")
+    void requestResync_ChunksAcrossPages() {
+        when(schedulerLeaseService.tryAcquire(anyString(), any(Duration.class))).thenReturn(true);
+        stubPages(OrderStatus.PENDING, rows(0, 3), rows(3, 5));
+        when(orderResyncStateRepository.findAllById(anyList())).thenReturn(Collections.emptyList());
+
+        int requested = service.requestResyncForStuckOrders();
+
+        assertEquals(5, requested);
+        ArgumentCaptor<TestResultSyncRequestEvent> captor = ArgumentCaptor.forClass(TestResultSyncRequestEvent.class);
+        verify(rabbitTemplate, times(3)).convertAndSend(eq(RabbitMQConfig.EXCHANGE_NAME),
+                eq(RabbitMQConfig.SYNC_REQUEST_ROUTING_KEY), captor.capture());
+        captor.getAllValues().forEach(e -> assertTrue(e.getBarcodes().size() <= 2));
+
+        // Trang thứ hai phải seek tiếp từ dòng cuối của trang đầu
+        verify(testOrderRepository).findStuckOrdersAfter(eq(OrderStatus.PENDING), any(), anyInt(), any(),
+                eq(LocalDateTime.of(2026, 10, 1, 8, 2)), eq("TO-2"), any(Pageable.class));
+        // Trạng thái tiếp theo bắt đầu con trỏ của riêng nó
+        verify(testOrderRepository).findStuckOrdersAfter(eq(OrderStatus.IN_PROGRESS), any(), anyInt(), any(),
+                eq(LocalDateTime.of(1970, 1, 1, 0, 0)), eq(""), any(Pageable.class));
+        verify(orderResyncStateRepository).purgeResolved();
+    }
+
+    @Test
+    @DisplayName("Each run scans only due orders from the start and re-arms long-exhausted states")
+    void requestResync_QueriesDueOrdersInUtc() {
+        when(schedulerLeaseService.tryAcquire(anyString(), any(Duration.class))).thenReturn(true);
+        when(testOrderRepository.findStuckOrdersAfter(any(OrderStatus.class), any(), anyInt(), any(), any(), anyString(), any(Pageable.class)))
+                .thenReturn(Collections.emptyList());
+        when(orderResyncStateRepository.purgeExhausted(anyInt(), any())).thenReturn(2);
+
+        assertEquals(0, service.requestResyncForStuckOrders());
+
+        // Đơn hết lượt thử / đang backoff bị loại ngay trong truy vấn, theo đồng hồ UTC; mỗi trạng thái một lượt seek
+        ArgumentCaptor<LocalDateTime> now = ArgumentCaptor.forClass(LocalDateTime.class);
+        for (OrderStatus status : List.of(OrderStatus.PENDING, OrderStatus.IN_PROGRESS, OrderStatus.AUTO_CREATED)) {
+            verify(testOrderRepository).findStuckOrdersAfter(eq(status), any(), eq(3), now.capture(),
+                    any(), eq(""), any(Pageable.class));
+        }
+        LocalDateTime utcNow = LocalDateTime.now(ZoneOffset.UTC);
+        assertTrue(Duration.between(now.getValue(), utcNow).abs().getSeconds() < 5);
+
+        ArgumentCaptor<LocalDateTime> before = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(orderResyncStateRepository).purgeExhausted(eq(3), before.capture());
+        assertEquals(now.getValue().minusDays(7), before.getValue());
+    }
+
+    @Test
+    @DisplayName("Orders in backoff or out of attempts are not requested again")
+    void requestResync_RespectsBackoffAndMaxAttempts() {
+        when(schedulerLeaseService.tryAcquire(anyString(), any(Duration.class))).thenReturn(true);
+        stubPages(OrderStatus.PENDING, rows(0, 3), Collections.emptyList());
+        when(orderResyncStateRepository.findAllById(anyList())).thenReturn(List.of(
+                OrderResyncState.builder().orderId("TO-0").attempts(1).nextAttemptAt(LocalDateTime.now().plusHours(1)).build(),
+                OrderResyncState.builder().orderId("TO-1").attempts(3).nextAttemptAt(LocalDateTime.now().minusHours(1)).build()));
+
+        int requested = service.requestResyncForStuckOrders();
+
+        assertEquals(1, requested);
+        ArgumentCaptor<TestResultSyncRequestEvent> captor = ArgumentCaptor.forClass(TestResultSyncRequestEvent.class);
+        verify(rabbitTemplate).convertAndSend(anyString(), anyString(), captor.capture());
+        assertEquals(List.of("BC-2"), captor.getValue().getBarcodes());
+    }
+}
@@ -0,0 +1,115 @@
+package fit.test_order_service.utils;
+
+import fit.test_order_service.enums.AbnormalFlag;
+import fit.test_order_service.enums.ExportDataset;
+import fit.test_order_service.enums.ExportFormat;
+import fit.test_order_service.enums.OrderStatus;
+import fit.test_order_service.repositories.TestOrderRepository;
+import fit.test_order_service.repositories.TestResultRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class FlatFileExportWriterTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2026, 10, 19, 8, 0);
+    private static final LocalDateTime FROM = LocalDateTime.of(2026, 10, 1, 0, 0);
+    private static final LocalDateTime TO = LocalDateTime.of(2026, 10, 31, 23, 59);
+
+    private final TestOrderRepository testOrderRepository = mock(TestOrderRepository.class);
+    private final TestResultRepository testResultRepository = mock(TestResultRepository.class);
+
+    private static Object[] orderRow(String id, String name, int minute) {
+        Object[] row = new Object[FlatFileExportWriter.ORDER_COLUMNS.size()];
+        row[0] = id;
+        row[1] = "CODE-" + id;
+        row[3] = name;
+        row[8] = "BC-" + id;
+        row[11] = OrderStatus.COMPLETED;
+        row[14] = T0.plusMinutes(minute);
+        return row;
+    }
+
+    private static Object[] resultRow(String orderId, String resultId, String analyte, String value) {
+        return new Object[]{orderId, resultId, analyte, analyte, value, "mmol/L", "3.9-6.1",
+                AbnormalFlag.N, null, T0, null, null};
+    }
+
+    private static List<String> gunzipLines(byte[] bytes) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            String text = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            return List.of(text.split("\n"));
+        }
+    }
+
+    @Test
+    @DisplayName("write - Pages orders by keyset and quotes CSV values")
+    void write_OrdersCsv() throws IOException {
+        FlatFileExportWriter writer = new FlatFileExportWriter(testOrderRepository, testResultRepository, 2);
+        when(testOrderRepository.findExportRowsAfter(eq(FROM), eq(TO), any(), any(), any()))
+                .thenReturn(List.of(orderRow("O1", "Nguyen, Van A", 1), orderRow("O2", "Tran \"B\"", 2)))
+                .thenReturn(List.of(orderRow("O3", "Le C", 3)));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long rows = writer.write(ExportDataset.ORDERS, ExportFormat.CSV, FROM, TO, out);
+
+        assertEquals(3, rows);
+        List<String> lines = gunzipLines(out.toByteArray());
+        assertEquals(4, lines.size());
+        assertTrue(lines.get(0).startsWith("order_id,order_code,medical_record_code,full_name"));
+        assertTrue(lines.get(1).startsWith("O1,CODE-O1,,\"Nguyen, Van A\","));
+        assertTrue(lines.get(2).contains("\"Tran \"\"B\"\"\""));
+        assertTrue(lines.get(1).contains(",COMPLETED,"));
+
+        // Trang thứ hai phải bắt đầu sau dòng cuối của trang đầu
+        verify(testOrderRepository).findExportRowsAfter(FROM, TO, T0.plusMinutes(2), "O2",
+                PageRequest.of(0, 2));
+    }
+
+    @Test
+    @DisplayName("write - Emits one TSV line per result with the order identifiers")
+    void write_ResultsTsv() throws IOException {
+        FlatFileExportWriter writer = new FlatFileExportWriter(testOrderRepository, testResultRepository, 10);
+        when(testOrderRepository.findExportRowsAfter(eq(FROM), eq(TO), any(), any(), any()))
+                .thenReturn(List.of(orderRow("O1", "A", 1), orderRow("O2", "B", 2)));
+        when(testResultRepository.findExportRowsByOrderIds(List.of("O1", "O2"))).thenReturn(new ArrayList<>(List.of(
+                resultRow("O1", "R1", "GLU", "5.4"),
+                resultRow("O1", "R2", "HGB", "13\t1"))));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long rows = writer.write(ExportDataset.RESULTS, ExportFormat.TSV, FROM, TO, out);
+
+        assertEquals(2, rows);
+        List<String> lines = gunzipLines(out.toByteArray());
+        assertEquals(3, lines.size());
+        assertEquals(FlatFileExportWriter.RESULT_COLUMNS.size(), lines.get(0).split("\t", -1).length);
+        assertTrue(lines.get(1).startsWith("O1\tCODE-O1\t\tBC-O1\tR1\tGLU\tGLU\t5.4\t"));
+        // Tab trong giá trị bị thay bằng khoảng trắng để không làm lệch cột
+        assertEquals(FlatFileExportWriter.RESULT_COLUMNS.size(), lines.get(2).split("\t", -1).length);
+    }
+
+    @Test
+    @DisplayName("write - Empty range still produces a valid gzip with only the header")
+    void write_Empty() throws IOException {
+        FlatFileExportWriter writer = new FlatFileExportWriter(testOrderRepository, testResultRepository, 10);
+        when(testOrderRepository.findExportRowsAfter(any(), any(), any(), any(), any())).thenReturn(Collections.emptyList());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(0, writer.write(ExportDataset.ORDERS, ExportFormat.CSV, FROM, TO, out));
+        assertEquals(1, gunzipLines(out.toByteArray()).size());
+    }
+}
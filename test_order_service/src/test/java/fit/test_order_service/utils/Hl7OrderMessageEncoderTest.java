@@ -0,0 +1,102 @@
+package fit.test_order_service.utils;
+
+import ca.uhn.hl7v2.DefaultHapiContext;
+import ca.uhn.hl7v2.HapiContext;
+import ca.uhn.hl7v2.model.Message;
+import ca.uhn.hl7v2.model.v25.message.OML_O21;
+import ca.uhn.hl7v2.parser.Parser;
+import ca.uhn.hl7v2.util.Terser;
+import ca.uhn.hl7v2.validation.impl.NoValidation;
+import fit.test_order_service.entities.TestOrder;
+import fit.test_order_service.entities.TestResult;
+import fit.test_order_service.enums.Gender;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class Hl7OrderMessageEncoderTest {
+
+    private final TestCodeGenerator testCodeGenerator = mock(TestCodeGenerator.class);
+    private final Hl7OrderMessageEncoder encoder = new Hl7OrderMessageEncoder(testCodeGenerator);
+
+    private static Parser pipeParser() {
+        HapiContext context = new DefaultHapiContext();
+        context.setValidationContext(new NoValidation());
+        return context.getPipeParser();
+    }
+
+    private static TestOrder order(String fullName) {
+        return TestOrder.builder()
+                .orderCode("ORD-001")
+                .medicalRecordCode("MRN-01")
+                .fullName(fullName)
+                .dateOfBirth(LocalDate.of(1990, 5, 17))
+                .gender(Gender.FEMALE)
+                .address("12 Nguyen Van Bao, Go Vap")
+                .phone("0901234567")
+                .createdAt(LocalDateTime.of(2026, 10, 19, 8, 30, 15))
+                .build();
+    }
+
+    @Test
+    @DisplayName("encodeOrder - HAPI parses the message back with delimiters in values restored")
+    void encodeOrder_RoundTripsThroughHapi() throws Exception {
+        when(testCodeGenerator.generateTemporaryCode()).thenReturn("TMP-ABC123");
+        List<TestResult> results = List.of(
+                TestResult.builder().testCode("WBC").analyteName("White^Blood|Cells").unit("10^9/L").referenceRange("4.0-10.0").build(),
+                TestResult.builder().analyteName("Hemoglobin & Co").unit("g/dL").build());
+
+        String encoded = encoder.encodeOrder(order("Tran | Thi~An"), results);
+
+        Parser parser = pipeParser();
+        Message message = parser.parse(encoded);
+        assertInstanceOf(OML_O21.class, message);
+
+        Terser terser = new Terser(message);
+        assertEquals("OML", terser.get("/.MSH-9-1"));
+        assertEquals("O21", terser.get("/.MSH-9-2"));
+        assertTrue(terser.get("/.MSH-10").matches("MSG[0-9a-f]{8}"));
+        assertEquals("MRN-01", terser.get("/.PID-3-1"));
+        assertEquals("Tran | Thi~An", terser.get("/.PID-5-1"));
+        assertEquals("19900517", terser.get("/.PID-7-1"));
+        assertEquals("F", terser.get("/.PID-8"));
+        assertEquals("ORD-001", terser.get("/.OBR-3-1"));
+        assertEquals("20261019083015", terser.get("/.OBR-7-1"));
+        assertEquals("WBC", terser.get("/.OBX-3-1"));
+        assertEquals("White^Blood|Cells", terser.get("/.OBX-3-2"));
+        assertEquals("10^9/L", terser.get("/.OBX-6-1"));
+
+        // Cả hai OBX được giữ lại khi HAPI mã hóa lại
+        String reEncoded = parser.encode(message);
+        assertEquals(2, reEncoded.split("\rOBX\\|", -1).length - 1);
+        assertTrue(reEncoded.contains("TMP-ABC123^Hemoglobin \\T\\ Co"));
+    }
+
+    @Test
+    @DisplayName("encodeOrder - Reused buffer does not leak content between messages")
+    void encodeOrder_ReusedBufferIsReset() {
+        String first = encoder.encodeOrder(order("First Patient"), List.of());
+        String second = encoder.encodeOrder(order("Second"), null);
+
+        assertTrue(first.contains("First Patient"));
+        assertFalse(second.contains("First Patient"));
+        assertTrue(second.startsWith("MSH|"));
+        assertTrue(second.endsWith("\r"));
+    }
+
+    @Test
+    @DisplayName("escape - Replaces every HL7 delimiter in one pass")
+    void escape_ReplacesDelimiters() {
+        StringBuilder out = new StringBuilder();
+
+        Hl7OrderMessageEncoder.escape(out, "a|b^c&d~e\\f\rg\nh");
+
+        assertEquals("a\\F\\b\\S\\c\\T\\d\\R\\e\\E\\f g h", out.toString());
+    }
+}
@@ -0,0 +1,108 @@
+package fit.test_order_service.utils;
+
+import fit.test_order_service.dtos.event.OrderChangedEvent;
+import fit.test_order_service.specifications.TestOrderSpecification;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class OrderChangeTrackerTest {
+
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private final OrderChangeTracker tracker = new OrderChangeTracker(eventPublisher);
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    // Giả lập commit / rollback: gọi các synchronization đã đăng ký như TransactionManager
+    private static void complete(boolean committed) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        for (TransactionSynchronization synchronization : synchronizations) {
+            if (committed) {
+                synchronization.afterCommit();
+            }
+            synchronization.afterCompletion(committed
+                    ? TransactionSynchronization.STATUS_COMMITTED
+                    : TransactionSynchronization.STATUS_ROLLED_BACK);
+        }
+    }
+
+    @Test
+    @DisplayName("markChanged - Without a transaction the event is published immediately")
+    void markChanged_NoTransaction() {
+        tracker.markChanged("TO-1");
+
+        verify(eventPublisher).publishEvent(new OrderChangedEvent(Set.of("TO-1")));
+    }
+
+    @Test
+    @DisplayName("markChanged - One event per committed transaction with every changed order")
+    void markChanged_PublishesOnceAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        tracker.markChanged("TO-1");
+        tracker.markChanged("TO-2");
+        tracker.markChanged("TO-1");
+        tracker.markChanged(TestOrderSpecification.SYSTEM_ORDER_ID);
+        tracker.markChanged(null);
+        verifyNoInteractions(eventPublisher);
+
+        complete(true);
+
+        ArgumentCaptor<OrderChangedEvent> event = ArgumentCaptor.forClass(OrderChangedEvent.class);
+        verify(eventPublisher, times(1)).publishEvent(event.capture());
+        assertEquals(Set.of("TO-1", "TO-2"), event.getValue().orderIds());
+    }
+
+    @Test
+    @DisplayName("markChanged - A rolled back transaction publishes nothing")
+    void markChanged_RollbackPublishesNothing() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        tracker.markChanged("TO-1");
+        complete(false);
+
+        verify(eventPublisher, never()).publishEvent(any());
+        // Không bind resource dùng chung nào
+        assertTrue(TransactionSynchronizationManager.getResourceMap().isEmpty());
+    }
+
+    @Test
+    @DisplayName("markChanged - A REQUIRES_NEW transaction keeps its own set and does not leak into the outer one")
+    void markChanged_RequiresNewIsIsolated() {
+        TransactionSynchronizationManager.initSynchronization();
+        tracker.markChanged("TO-1");
+
+        // Giả lập REQUIRES_NEW: TransactionManager tạm treo synchronization của giao dịch ngoài
+        List<TransactionSynchronization> outer = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationManager.initSynchronization();
+
+        tracker.markChanged("TO-2");
+        complete(true);
+        verify(eventPublisher, times(1)).publishEvent(new OrderChangedEvent(Set.of("TO-2")));
+
+        // Khôi phục giao dịch ngoài rồi rollback: không phát thêm sự kiện nào
+        TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationManager.initSynchronization();
+        outer.forEach(TransactionSynchronizationManager::registerSynchronization);
+        complete(false);
+
+        verify(eventPublisher, times(1)).publishEvent(any());
+    }
+}
@@ -0,0 +1,65 @@
+package fit.test_order_service.utils;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnowflakeIdGeneratorTest {
+
+    @Test
+    @DisplayName("Ids are strictly increasing and encode in the same order")
+    void nextId_isMonotonic() {
+        long prev = SnowflakeIdGenerator.nextId();
+        String prevEncoded = SnowflakeIdGenerator.encode(prev);
+        for (int i = 0; i < 50_000; i++) {
+            long next = SnowflakeIdGenerator.nextId();
+            String encoded = SnowflakeIdGenerator.encode(next);
+            assertTrue(next > prev);
+            assertTrue(encoded.compareTo(prevEncoded) > 0);
+            prev = next;
+            prevEncoded = encoded;
+        }
+    }
+
+    @Test
+    @DisplayName("Concurrent callers never receive the same id")
+    void nextId_isUniqueAcrossThreads() throws InterruptedException {
+        int threads = 8;
+        int perThread = 20_000;
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+
+        for (int t = 0; t < threads; t++) {
+            pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < perThread; i++) {
+                    ids.add(SnowflakeIdGenerator.nextId());
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(threads * perThread, ids.size());
+    }
+
+    @Test
+    @DisplayName("Encoded ids are fixed width and node id is range checked")
+    void encodeAndNodeValidation() {
+        List.of(0L, 1L, Long.MAX_VALUE).forEach(id -> assertEquals(13, SnowflakeIdGenerator.encode(id).length()));
+        assertThrows(IllegalArgumentException.class, () -> SnowflakeIdGenerator.setNodeId(1024));
+        assertThrows(IllegalArgumentException.class, () -> SnowflakeIdGenerator.setNodeId(-1));
+    }
+}
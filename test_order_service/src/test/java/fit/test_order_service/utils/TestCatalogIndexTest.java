@@ -0,0 +1,74 @@
+package fit.test_order_service.utils;
+
+import fit.test_order_service.entities.TestCatalog;
+import fit.test_order_service.repositories.TestCatalogRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class TestCatalogIndexTest {
+
+    private final TestCatalogRepository testCatalogRepository = mock(TestCatalogRepository.class);
+    private final TestCatalogIndex index = new TestCatalogIndex(testCatalogRepository);
+
+    private static TestCatalog catalog(long id, String loincCode, String localCode, String testName) {
+        return TestCatalog.builder()
+                .id(id)
+                .loincCode(loincCode)
+                .localCode(localCode)
+                .testName(testName)
+                .active(true)
+                .build();
+    }
+
+    @Test
+    @DisplayName("Lookups normalize keys: codes and names are trimmed, local code and name ignore case")
+    void lookups_normalizeKeys() {
+        TestCatalog glucose = catalog(1, "2345-7", "GLU", "Glucose");
+        when(testCatalogRepository.findByActiveTrueOrderByTestName()).thenReturn(List.of(glucose));
+        index.rebuild();
+
+        assertSame(glucose, index.findByLocalCode(" glu ").orElseThrow());
+        assertSame(glucose, index.findByLoincCode("2345-7 ").orElseThrow());
+        assertSame(glucose, index.findByTestName("GLUCOSE").orElseThrow());
+        assertTrue(index.findByLoincCode("9999-9").isEmpty());
+        assertTrue(index.findByLocalCode(null).isEmpty());
+        assertTrue(index.findByTestName("  ").isEmpty());
+    }
+
+    @Test
+    @DisplayName("size counts every active test, including ones without a local code or sharing a LOINC code")
+    void size_countsActiveTests() {
+        when(testCatalogRepository.findByActiveTrueOrderByTestName()).thenReturn(List.of(
+                catalog(1, "718-7", "HGB", "Hemoglobin"),
+                catalog(2, "718-7", null, "Hemoglobin (POC)"),
+                catalog(3, "6690-2", "WBC", "White blood cells")));
+        index.rebuild();
+
+        assertEquals(3, index.size());
+        // LOINC trùng: giữ bản ghi đầu tiên theo thứ tự của repository
+        assertEquals(1L, index.findByLoincCode("718-7").orElseThrow().getId());
+    }
+
+    @Test
+    @DisplayName("First lookup builds the index lazily; rebuild swaps in the new catalog")
+    void rebuild_replacesSnapshot() {
+        when(testCatalogRepository.findByActiveTrueOrderByTestName())
+                .thenReturn(List.of(catalog(1, "2345-7", "GLU", "Glucose")))
+                .thenReturn(List.of(catalog(2, "2160-0", "CREA", "Creatinine")));
+
+        assertTrue(index.findByLocalCode("GLU").isPresent());
+        verify(testCatalogRepository, times(1)).findByActiveTrueOrderByTestName();
+
+        index.rebuild();
+
+        assertTrue(index.findByLocalCode("GLU").isEmpty());
+        assertEquals(2L, index.findByLocalCode("CREA").orElseThrow().getId());
+        assertEquals(1, index.size());
+        verify(testCatalogRepository, times(2)).findByActiveTrueOrderByTestName();
+    }
+}
@@ -1,10 +1,13 @@
 package fit.warehouse_service.controllers;
 
+import fit.warehouse_service.dtos.request.ReagentConsumptionBatchRequest;
 import fit.warehouse_service.dtos.request.ReagentDeductionRequest;
 import fit.warehouse_service.dtos.request.ReagentInstallationDeductionRequest;
 import fit.warehouse_service.dtos.response.ApiResponse;
+import fit.warehouse_service.dtos.response.ReagentConsumptionBatchResponse;
 import fit.warehouse_service.dtos.response.ReagentDeductionResponse;
 import fit.warehouse_service.services.ReagentService;
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
@@ -50,4 +53,13 @@ public class ReagentController {
         return ResponseEntity.ok(reagentService.deductReagentForInstallation(request));
     }
 
+    // Instrument service gửi lượng tiêu hao của nhiều lần chạy theo lô trong một request,
+    // từ job đối soát định kỳ nên không có token người dùng: dùng token dịch vụ (role SERVICE)
+    @PostMapping("/consumption/batch")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER', 'LAB_USER', 'SERVICE')")
+    public ResponseEntity<ApiResponse<ReagentConsumptionBatchResponse>> recordInstrumentConsumption(
+            @Valid @RequestBody ReagentConsumptionBatchRequest request) {
+        return ResponseEntity.ok(reagentService.recordInstrumentConsumption(request));
+    }
+
 }
\ No newline at end of file
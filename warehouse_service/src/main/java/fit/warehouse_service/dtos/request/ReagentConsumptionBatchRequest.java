@@ -0,0 +1,38 @@
+package fit.warehouse_service.dtos.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReagentConsumptionBatchRequest {
+    @NotBlank
+    private String batchId; // Cố định cho một batch đã chốt: gửi lại cùng batch thì không ghi nhận hai lần
+
+    @NotEmpty
+    @Valid
+    private List<Entry> entries;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Entry {
+        @NotBlank
+        private String lotNumber;
+
+        private String instrumentId;
+
+        @NotNull
+        @Positive
+        private Double quantity; // Tổng lượng đã dùng khi chạy mẫu kể từ lần đối soát trước
+    }
+}
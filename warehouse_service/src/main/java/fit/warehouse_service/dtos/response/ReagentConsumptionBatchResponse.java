@@ -0,0 +1,19 @@
+package fit.warehouse_service.dtos.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReagentConsumptionBatchResponse {
+    private String batchId;
+    private int recordedLots; // Số lô đã ghi nhận tiêu hao trong batch này
+    private List<String> unknownLotNumbers; // Lô không tồn tại trong kho: không được ghi nhận
+    private boolean alreadyRecorded; // Batch đã được ghi nhận ở lần gửi trước (gửi lại sau khi mất phản hồi)
+}
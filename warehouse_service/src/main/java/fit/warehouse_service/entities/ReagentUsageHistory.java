@@ -22,7 +22,7 @@ import java.time.LocalDateTime;
 @Getter
 @Setter
 @Entity
-@Table(name = "reagent_usage_history")
+@Table(name = "reagent_usage_history", indexes = @Index(name = "idx_usage_batch", columnList = "batch_id"))
 @EntityListeners(AuditingEntityListener.class) // Bật Auditing chỉ cho lớp này
 public class ReagentUsageHistory {
 
@@ -58,6 +58,12 @@ public class ReagentUsageHistory {
     @Column(updatable = false)
     private String action; // e.g., "USED", "DISPOSED"
 
+    /**
+     * Batch đối soát tiêu hao của instrument_service (chỉ có với action "USED_IN_RUN"), để bỏ qua khi bị gửi lại
+     */
+    @Column(name = "batch_id", length = 64, updatable = false)
+    private String batchId;
+
     /**
      * Tự động sinh ID trước khi lưu
      */
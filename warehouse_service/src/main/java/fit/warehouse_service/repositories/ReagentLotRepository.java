@@ -8,12 +8,15 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface ReagentLotRepository extends JpaRepository<ReagentLot, String> {
     ReagentLot findByLotNumber(String lotNumber);
 
+    List<ReagentLot> findByLotNumberIn(Collection<String> lotNumbers);
+
     List<ReagentLot> findByReagentTypeAndExpirationDateGreaterThanEqualAndCurrentQuantityGreaterThanOrderByExpirationDateAsc(ReagentType reagentType, LocalDate minExpirationDate, double minQuantity
     );
 
@@ -8,4 +8,6 @@ import org.springframework.stereotype.Repository;
 @Repository
 public interface ReagentUsageHistoryRepository extends JpaRepository<ReagentUsageHistory, String>,
         JpaSpecificationExecutor<ReagentUsageHistory> {
+
+    boolean existsByBatchId(String batchId);
 }
\ No newline at end of file
@@ -1,8 +1,10 @@
 package fit.warehouse_service.services;
 
+import fit.warehouse_service.dtos.request.ReagentConsumptionBatchRequest;
 import fit.warehouse_service.dtos.request.ReagentDeductionRequest;
 import fit.warehouse_service.dtos.request.ReagentInstallationDeductionRequest;
 import fit.warehouse_service.dtos.response.ApiResponse;
+import fit.warehouse_service.dtos.response.ReagentConsumptionBatchResponse;
 import fit.warehouse_service.dtos.response.ReagentDeductionResponse;
 
 
@@ -12,4 +14,6 @@ public interface ReagentService {
     boolean checkReagentAvailability(String reagentName, Double requiredVolume);
 
     ApiResponse<Boolean> deductReagentForInstallation(ReagentInstallationDeductionRequest request);
+
+    ApiResponse<ReagentConsumptionBatchResponse> recordInstrumentConsumption(ReagentConsumptionBatchRequest request);
 }
\ No newline at end of file
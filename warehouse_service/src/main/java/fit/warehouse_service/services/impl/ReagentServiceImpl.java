@@ -1,8 +1,10 @@
 package fit.warehouse_service.services.impl;
 
+import fit.warehouse_service.dtos.request.ReagentConsumptionBatchRequest;
 import fit.warehouse_service.dtos.request.ReagentDeductionRequest;
 import fit.warehouse_service.dtos.request.ReagentInstallationDeductionRequest;
 import fit.warehouse_service.dtos.response.ApiResponse;
+import fit.warehouse_service.dtos.response.ReagentConsumptionBatchResponse;
 import fit.warehouse_service.dtos.response.ReagentDeductionResponse;
 import fit.warehouse_service.dtos.response.ReagentUsageLimit;
 import fit.warehouse_service.entities.ReagentLot;
@@ -22,8 +24,12 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -188,4 +194,59 @@ public class ReagentServiceImpl implements ReagentService {
         return ApiResponse.success(true, "Deduction successful");
     }
 
-}
\ No newline at end of file
+    @Override
+    @Transactional
+    public ApiResponse<ReagentConsumptionBatchResponse> recordInstrumentConsumption(ReagentConsumptionBatchRequest request) {
+        // Một truy vấn cho tất cả các lô trong batch
+        Set<String> lotNumbers = request.getEntries().stream()
+                .map(ReagentConsumptionBatchRequest.Entry::getLotNumber)
+                .collect(Collectors.toSet());
+        Map<String, ReagentLot> lots = reagentLotRepository.findByLotNumberIn(lotNumbers).stream()
+                .collect(Collectors.toMap(ReagentLot::getLotNumber, Function.identity(), (a, b) -> a));
+        List<String> unknownLots = lotNumbers.stream().filter(lotNumber -> !lots.containsKey(lotNumber)).sorted().toList();
+
+        // Batch đã ghi ở lần gửi trước (instrument không nhận được phản hồi): không ghi lại
+        if (usageHistoryRepository.existsByBatchId(request.getBatchId())) {
+            log.info("Consumption batch {} was already recorded; skipping", request.getBatchId());
+            return ApiResponse.success(ReagentConsumptionBatchResponse.builder()
+                    .batchId(request.getBatchId())
+                    .recordedLots(0)
+                    .unknownLotNumbers(unknownLots)
+                    .alreadyRecorded(true)
+                    .build(), "Consumption batch already recorded");
+        }
+
+        String userId = SecurityUtils.getCurrentUserId();
+        LocalDateTime now = LocalDateTime.now();
+        List<ReagentUsageHistory> usages = new ArrayList<>(request.getEntries().size());
+        for (ReagentConsumptionBatchRequest.Entry entry : request.getEntries()) {
+            ReagentLot lot = lots.get(entry.getLotNumber());
+            if (lot == null) {
+                // Trả về trong unknownLotNumbers để instrument giữ lại lượng chưa đối soát của lô này
+                log.warn("Skipping consumption of unknown lot {} from instrument {}", entry.getLotNumber(), entry.getInstrumentId());
+                continue;
+            }
+            // Tồn kho của lô đã được trừ khi cài đặt lên máy, ở đây chỉ ghi nhận lượng tiêu hao
+            ReagentUsageHistory usage = new ReagentUsageHistory();
+            usage.setReagentLot(lot);
+            usage.setCreatedByUserId(userId);
+            usage.setQuantityUsed(entry.getQuantity());
+            usage.setAction("USED_IN_RUN");
+            usage.setBatchId(request.getBatchId());
+            usage.setCreatedAt(now);
+            usages.add(usage);
+        }
+        usageHistoryRepository.saveAll(usages);
+
+        logService.logEvent(WarehouseActionType.REAGENT_USED, request.getBatchId(), "ReagentConsumptionBatch",
+                "Recorded instrument consumption for " + usages.size() + " of " + request.getEntries().size() + " lots");
+
+        return ApiResponse.success(ReagentConsumptionBatchResponse.builder()
+                .batchId(request.getBatchId())
+                .recordedLots(usages.size())
+                .unknownLotNumbers(unknownLots)
+                .alreadyRecorded(false)
+                .build(), "Consumption recorded");
+    }
+
+}